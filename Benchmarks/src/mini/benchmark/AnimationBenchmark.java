@@ -0,0 +1,130 @@
+package mini.benchmark;
+
+import mini.animation.Animation;
+import mini.animation.AnimationChannel;
+import mini.animation.AnimationControl;
+import mini.animation.BoneTrack;
+import mini.animation.Skeleton;
+import mini.animation.SkeletonControl;
+import mini.animation.presets.HumanoidPreset;
+import mini.math.Quaternion;
+import mini.math.Vector3f;
+import mini.renderer.Camera;
+import mini.renderer.RenderManager;
+import mini.renderer.ViewPort;
+import mini.scene.Geometry;
+import mini.scene.Mesh;
+import mini.scene.Node;
+import mini.system.NullRenderer;
+import mini.utils.TempVars;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-frame cost of skeletal animation: sampling the keyframes of the
+ * {@link BoneTrack bone tracks} and skinning a mesh on the CPU with a {@link SkeletonControl}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AnimationBenchmark {
+    private static final int BONE_COUNT = 48;
+    private static final int CHAIN_LENGTH = 6;
+    private static final float LENGTH = 10f;
+
+    @Param({"30", "300"})
+    public int keyframes;
+
+    @Param({"32", "96"})
+    public int samples;
+
+    private Skeleton skeleton;
+    private BoneTrack[] tracks;
+    private AnimationControl animationControl;
+    private AnimationChannel channel;
+    private SkeletonControl skeletonControl;
+    private RenderManager renderManager;
+    private ViewPort viewPort;
+    private float time;
+
+    @Setup
+    public void setUp() {
+        Random random = SyntheticInputs.random();
+        skeleton = SyntheticInputs.createSkeleton(BONE_COUNT, CHAIN_LENGTH, random);
+        animationControl = new AnimationControl(skeleton);
+        channel = animationControl.createChannel();
+
+        HumanoidPreset.HumanoidJoints[] joints = HumanoidPreset.HumanoidJoints.values();
+        tracks = new BoneTrack[BONE_COUNT];
+        for (int bone = 0; bone < BONE_COUNT; bone++) {
+            float[] times = new float[keyframes];
+            Vector3f[] translations = new Vector3f[keyframes];
+            Quaternion[] rotations = new Quaternion[keyframes];
+            for (int frame = 0; frame < keyframes; frame++) {
+                times[frame] = LENGTH * frame / (keyframes - 1);
+                translations[frame] = new Vector3f(0, 0.5f + random.nextFloat() * 0.1f, 0);
+                rotations[frame] = SyntheticInputs.randomRotation(random);
+            }
+            tracks[bone] = new BoneTrack(bone, joints[bone], times, translations, rotations);
+        }
+        Animation animation = new Animation("Benchmark", LENGTH);
+        animation.setTracks(tracks);
+        animationControl.addAnimation(animation);
+        channel.setAnim(animation.getName());
+
+        Mesh mesh = SyntheticInputs.createSkinnedMesh(samples, BONE_COUNT, random);
+        Node model = new Node("Model");
+        model.attachChild(new Geometry("Skinned", mesh));
+        skeletonControl = new SkeletonControl(skeleton);
+        skeletonControl.setHardwareSkinningPreferred(false);
+        model.addControl(skeletonControl);
+
+        renderManager = new RenderManager(new NullRenderer());
+        viewPort = renderManager.createMainView("Benchmark", new Camera(640, 480));
+    }
+
+    private void nextTime() {
+        time += 0.0167f;
+        if (time > LENGTH) {
+            time -= LENGTH;
+        }
+    }
+
+    @Benchmark
+    public Skeleton boneTrackSetTime() {
+        nextTime();
+        try (TempVars vars = TempVars.get()) {
+            for (BoneTrack track : tracks) {
+                track.setTime(time, 1f, animationControl, channel, vars);
+            }
+        }
+        skeleton.updateWorldVectors();
+        return skeleton;
+    }
+
+    /**
+     * Samples the same tracks through the channel, which keeps the keyframe of every track from
+     * one frame to the next.
+     */
+    @Benchmark
+    public Skeleton channelUpdate() {
+        animationControl.update(0.0167f);
+        return skeleton;
+    }
+
+    @Benchmark
+    public SkeletonControl softwareSkinning() {
+        skeletonControl.update(0.0167f);
+        skeletonControl.render(renderManager, viewPort);
+        return skeletonControl;
+    }
+}
@@ -0,0 +1,31 @@
+package mini.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so that the allocation rate and the bytes allocated
+ * per operation are reported next to the times. The arguments are the usual JMH command line
+ * options, e.g. <code>SceneGraphBenchmark -f 1 -wi 3 -i 5</code> runs only the scene graph
+ * benchmarks. The module compiles against the jars of <code>Benchmarks/lib</code>, the annotation
+ * processor of <code>jmh-generator-annprocess</code> generating the list of benchmarks.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options commandLine = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
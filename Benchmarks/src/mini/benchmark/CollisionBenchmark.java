@@ -0,0 +1,78 @@
+package mini.benchmark;
+
+import mini.bounding.BoundingVolume;
+import mini.collision.CollisionResults;
+import mini.collision.bih.BIHTree;
+import mini.math.Matrix4f;
+import mini.math.Ray;
+import mini.math.Vector3f;
+import mini.scene.Mesh;
+import mini.scene.shape.Sphere;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the construction of a {@link BIHTree} and ray casts against it. The mesh is a sphere
+ * of <code>samples</code> by <code>samples</code> vertices, the rays start outside of it and point
+ * at random points inside of it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CollisionBenchmark {
+    private static final int RAY_COUNT = 1024;
+
+    @Param({"64", "256", "1024"})
+    public int samples;
+
+    private Mesh mesh;
+    private BIHTree tree;
+    private BoundingVolume worldBound;
+    private final Matrix4f worldMatrix = new Matrix4f();
+    private final Ray[] rays = new Ray[RAY_COUNT];
+    private final CollisionResults results = new CollisionResults();
+    private int nextRay;
+
+    @Setup
+    public void setUp() {
+        mesh = new Sphere(samples, samples, 10f);
+        mesh.updateBound();
+        worldBound = mesh.getBound();
+        tree = new BIHTree(mesh);
+        tree.construct();
+
+        Random random = SyntheticInputs.random();
+        for (int i = 0; i < RAY_COUNT; i++) {
+            Vector3f origin = new Vector3f(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f,
+                                           random.nextFloat() - 0.5f).normalizeLocal().multLocal(20f);
+            Vector3f target = new Vector3f(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f,
+                                           random.nextFloat() - 0.5f).multLocal(10f);
+            rays[i] = new Ray(origin, target.subtractLocal(origin).normalizeLocal());
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public BIHTree construct() {
+        BIHTree newTree = new BIHTree(mesh);
+        newTree.construct();
+        return newTree;
+    }
+
+    @Benchmark
+    public int collideWithRay() {
+        Ray ray = rays[nextRay];
+        nextRay = (nextRay + 1) % RAY_COUNT;
+        results.clear();
+        return tree.collideWith(ray, worldMatrix, worldBound, results);
+    }
+}
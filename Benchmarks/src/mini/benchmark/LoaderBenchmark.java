@@ -0,0 +1,62 @@
+package mini.benchmark;
+
+import mini.asset.AssetKey;
+import mini.asset.AssetManager;
+import mini.asset.ModelKey;
+import mini.scene.plugins.OBJLoader;
+import mini.scene.plugins.fbx.file.FBXFile;
+import mini.scene.plugins.fbx.file.FBXReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parsing of model files. The files are generated in memory, so the file system is
+ * not part of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LoaderBenchmark {
+
+    @Param({"false", "true"})
+    public boolean compressed;
+
+    private AssetManager assetManager;
+    private SyntheticInputs.MemoryAssetInfo fbxInfo;
+    private SyntheticInputs.MemoryAssetInfo objInfo;
+    private final OBJLoader objLoader = new OBJLoader();
+
+    @Setup
+    public void setUp() {
+        assetManager = new AssetManager();
+        byte[] fbx = SyntheticInputs.createBinaryFbx(16, 4096, compressed,
+                                                     SyntheticInputs.random());
+        fbxInfo = new SyntheticInputs.MemoryAssetInfo(assetManager,
+                                                      new AssetKey<>("Synthetic.fbx"), fbx);
+        byte[] obj = SyntheticInputs.createObj(128, SyntheticInputs.random());
+        objInfo = new SyntheticInputs.MemoryAssetInfo(assetManager,
+                                                      new ModelKey("Synthetic.obj"), obj);
+    }
+
+    @Benchmark
+    public FBXFile readFbx() throws IOException {
+        return new FBXReader().readFBX(fbxInfo);
+    }
+
+    /**
+     * Parses the grid, the result does not depend on the <code>compressed</code> parameter.
+     */
+    @Benchmark
+    public Object loadObj() throws IOException {
+        return objLoader.load(objInfo);
+    }
+}
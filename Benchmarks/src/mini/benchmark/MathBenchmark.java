@@ -0,0 +1,101 @@
+package mini.benchmark;
+
+import mini.math.Matrix4f;
+import mini.math.Quaternion;
+import mini.math.Transform;
+import mini.math.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the math used for every spatial and bone of every frame. The results are written to
+ * preallocated stores, so any allocation reported by the GC profiler comes from the math itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MathBenchmark {
+    private final Matrix4f matrixA = new Matrix4f();
+    private final Matrix4f matrixB = new Matrix4f();
+    private final Matrix4f matrixStore = new Matrix4f();
+    private final Quaternion quaternionA = new Quaternion();
+    private final Quaternion quaternionB = new Quaternion();
+    private final Quaternion quaternionStore = new Quaternion();
+    private final Transform child = new Transform();
+    private final Transform parent = new Transform();
+    private final Transform transformStore = new Transform();
+    private final Vector3f vector = new Vector3f();
+    private final Vector3f vectorStore = new Vector3f();
+
+    @Setup
+    public void setUp() {
+        Random random = SyntheticInputs.random();
+        quaternionA.set(SyntheticInputs.randomRotation(random));
+        quaternionB.set(SyntheticInputs.randomRotation(random));
+        matrixA.setTransform(new Vector3f(1, 2, 3), new Vector3f(1, 1, 1),
+                             quaternionA.toRotationMatrix());
+        matrixB.setTransform(new Vector3f(-3, 2, 1), new Vector3f(2, 2, 2),
+                             quaternionB.toRotationMatrix());
+        child.setTranslation(1, 2, 3).setRotation(quaternionA).setScale(0.5f);
+        parent.setTranslation(-4, 5, -6).setRotation(quaternionB).setScale(2f);
+        vector.set(random.nextFloat(), random.nextFloat(), random.nextFloat());
+    }
+
+    @Benchmark
+    public Matrix4f matrixMult() {
+        return matrixA.mult(matrixB, matrixStore);
+    }
+
+    @Benchmark
+    public Matrix4f matrixInvert() {
+        return matrixA.invert(matrixStore);
+    }
+
+    @Benchmark
+    public Vector3f matrixTransformVector() {
+        return matrixA.mult(vector, vectorStore);
+    }
+
+    @Benchmark
+    public Quaternion quaternionMult() {
+        return quaternionA.mult(quaternionB, quaternionStore);
+    }
+
+    @Benchmark
+    public Quaternion quaternionSlerp() {
+        return quaternionStore.slerp(quaternionA, quaternionB, 0.3f);
+    }
+
+    @Benchmark
+    public Quaternion quaternionFromAngles() {
+        return quaternionStore.fromAngles(0.3f, 1.2f, -0.7f);
+    }
+
+    @Benchmark
+    public Vector3f quaternionRotateVector() {
+        return quaternionA.mult(vector, vectorStore);
+    }
+
+    @Benchmark
+    public Transform transformCombineWithParent() {
+        return transformStore.set(child).combineWithParent(parent);
+    }
+
+    @Benchmark
+    public Vector3f transformVector() {
+        return parent.transformVector(vector, vectorStore);
+    }
+
+    @Benchmark
+    public Matrix4f transformToMatrix() {
+        return parent.toTransformMatrix();
+    }
+}
@@ -0,0 +1,110 @@
+package mini.benchmark;
+
+import mini.asset.AssetManager;
+import mini.material.Material;
+import mini.material.TechniqueDef;
+import mini.math.ColorRGBA;
+import mini.math.Vector3f;
+import mini.renderer.Camera;
+import mini.renderer.RenderManager;
+import mini.renderer.ViewPort;
+import mini.renderer.queue.GeometryList;
+import mini.renderer.queue.OpaqueComparator;
+import mini.renderer.queue.RenderQueue;
+import mini.scene.Geometry;
+import mini.scene.Node;
+import mini.scene.Spatial;
+import mini.scene.shape.Box;
+import mini.system.NullRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the CPU side of rendering: culling a scene into the render queue with a
+ * {@link NullRenderer}, and sorting the opaque bucket.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RenderQueueBenchmark {
+    private static final int MATERIAL_COUNT = 16;
+
+    private RenderManager renderManager;
+    private ViewPort viewPort;
+    private Node scene;
+    private GeometryList opaqueList;
+    private final List<Geometry> geometries = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        renderManager = new RenderManager(new NullRenderer());
+        Camera camera = new Camera(1280, 720);
+        camera.setFrustumPerspective(60f, 1280f / 720f, 1f, 500f);
+        camera.setLocation(new Vector3f(0, 0, 60));
+        camera.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        viewPort = renderManager.createMainView("Benchmark", camera);
+
+        // Half of the geometries are behind the camera and culled
+        Random random = SyntheticInputs.random();
+        scene = SyntheticInputs.createSceneGraph(3, 16, new Box(0.5f, 0.5f, 0.5f), random);
+        assignMaterials(scene, createMaterials(), random);
+        scene.setLocalScale(6f);
+        scene.updateGeometricState();
+
+        OpaqueComparator comparator = new OpaqueComparator();
+        comparator.setCamera(camera);
+        opaqueList = new GeometryList(comparator);
+        Collections.shuffle(geometries, random);
+    }
+
+    private Material[] createMaterials() {
+        AssetManager assetManager = new AssetManager();
+        Material[] materials = new Material[MATERIAL_COUNT];
+        for (int i = 0; i < MATERIAL_COUNT; i++) {
+            materials[i] = new Material(assetManager, "MatDefs/Misc/Unshaded.minid");
+            materials[i].setColor("Color", new ColorRGBA(i / (float) MATERIAL_COUNT, 0, 0, 1));
+            materials[i].selectTechnique(TechniqueDef.DEFAULT_TECHNIQUE_NAME, renderManager);
+        }
+        return materials;
+    }
+
+    private void assignMaterials(Spatial spatial, Material[] materials, Random random) {
+        if (spatial instanceof Geometry) {
+            spatial.setMaterial(materials[random.nextInt(materials.length)]);
+            geometries.add((Geometry) spatial);
+        } else {
+            for (Spatial child : ((Node) spatial).getChildren()) {
+                assignMaterials(child, materials, random);
+            }
+        }
+    }
+
+    @Benchmark
+    public RenderQueue renderScene() {
+        RenderQueue queue = viewPort.getQueue();
+        queue.clear();
+        renderManager.renderScene(scene, viewPort);
+        return queue;
+    }
+
+    @Benchmark
+    public GeometryList sortOpaque() {
+        opaqueList.clear();
+        for (int i = 0; i < geometries.size(); i++) {
+            opaqueList.add(geometries.get(i));
+        }
+        opaqueList.sort();
+        return opaqueList;
+    }
+}
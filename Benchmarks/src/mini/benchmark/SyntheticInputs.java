@@ -0,0 +1,379 @@
+package mini.benchmark;
+
+import mini.animation.Bone;
+import mini.animation.Skeleton;
+import mini.animation.presets.HumanoidPreset;
+import mini.asset.AssetInfo;
+import mini.asset.AssetKey;
+import mini.asset.AssetManager;
+import mini.math.FastMath;
+import mini.math.Quaternion;
+import mini.math.Vector3f;
+import mini.scene.Geometry;
+import mini.scene.Mesh;
+import mini.scene.Node;
+import mini.scene.VertexBuffer;
+import mini.scene.shape.Sphere;
+import mini.utils.BufferUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+/**
+ * Generates the inputs of the benchmarks. Everything is derived from {@link #SEED}, so two runs of
+ * a benchmark always measure the same data and results of different builds can be compared.
+ */
+public final class SyntheticInputs {
+    public static final long SEED = 0x5EEDL;
+
+    private SyntheticInputs() {
+    }
+
+    public static Random random() {
+        return new Random(SEED);
+    }
+
+    /**
+     * Creates a scene graph in which every node has <code>breadth</code> children, down to
+     * <code>depth</code> levels. The leaves are geometries sharing <code>mesh</code>, all the
+     * spatials have a random local transform.
+     */
+    public static Node createSceneGraph(int depth, int breadth, Mesh mesh, Random random) {
+        Node root = new Node("Root");
+        populate(root, depth, breadth, mesh, random);
+        return root;
+    }
+
+    private static void populate(Node parent, int depth, int breadth, Mesh mesh, Random random) {
+        for (int i = 0; i < breadth; i++) {
+            if (depth == 1) {
+                Geometry geometry = new Geometry(parent.getName() + "/" + i, mesh);
+                randomizeTransform(geometry.getLocalTranslation(), random);
+                parent.attachChild(geometry);
+            } else {
+                Node node = new Node(parent.getName() + "/" + i);
+                randomizeTransform(node.getLocalTranslation(), random);
+                node.setLocalRotation(randomRotation(random));
+                parent.attachChild(node);
+                populate(node, depth - 1, breadth, mesh, random);
+            }
+        }
+    }
+
+    private static void randomizeTransform(Vector3f translation, Random random) {
+        translation.set(random.nextFloat() * 20f - 10f, random.nextFloat() * 20f - 10f,
+                        random.nextFloat() * 20f - 10f);
+    }
+
+    public static Quaternion randomRotation(Random random) {
+        return new Quaternion().fromAngles(random.nextFloat() * FastMath.TWO_PI,
+                                           random.nextFloat() * FastMath.TWO_PI,
+                                           random.nextFloat() * FastMath.TWO_PI);
+    }
+
+    /**
+     * Creates a skeleton with a humanoid joint mapping: the bones form a chain of
+     * <code>chainLength</code> bones from each of the children of the root bone.
+     *
+     * @param boneCount The number of bones, at most the number of humanoid joints
+     */
+    public static Skeleton createSkeleton(int boneCount, int chainLength, Random random) {
+        HumanoidPreset.HumanoidJoints[] joints = HumanoidPreset.HumanoidJoints.values();
+        if (boneCount > joints.length) {
+            throw new IllegalArgumentException("At most " + joints.length + " bones are supported");
+        }
+
+        Bone[] bones = new Bone[boneCount];
+        Map<HumanoidPreset.HumanoidJoints, Bone> jointsBoneMap =
+                new EnumMap<>(HumanoidPreset.HumanoidJoints.class);
+        for (int i = 0; i < boneCount; i++) {
+            bones[i] = new Bone(joints[i].name());
+            bones[i].setBindTransforms(new Vector3f(0, 0.5f, 0), randomRotation(random),
+                                       Vector3f.UNIT_XYZ);
+            if (i > 0) {
+                int parent = (i - 1) % chainLength == 0 ? 0 : i - 1;
+                bones[parent].addChild(bones[i]);
+            }
+            jointsBoneMap.put(joints[i], bones[i]);
+        }
+
+        Skeleton skeleton = new Skeleton(bones);
+        skeleton.setJointsBoneMap(jointsBoneMap);
+        return skeleton;
+    }
+
+    /**
+     * Creates a sphere skinned to <code>boneCount</code> bones, every vertex has 4 random bone
+     * weights. The mesh is ready for software skinning.
+     */
+    public static Mesh createSkinnedMesh(int samples, int boneCount, Random random) {
+        Mesh mesh = new Sphere(samples, samples, 1f);
+        int vertexCount = mesh.getVertexCount();
+
+        ByteBuffer boneIndices = BufferUtils.createByteBuffer(vertexCount * 4);
+        FloatBuffer boneWeights = BufferUtils.createFloatBuffer(vertexCount * 4);
+        for (int i = 0; i < vertexCount; i++) {
+            float total = 0;
+            float[] weights = new float[4];
+            for (int j = 0; j < 4; j++) {
+                boneIndices.put((byte) random.nextInt(boneCount));
+                weights[j] = random.nextFloat() + 0.01f;
+                total += weights[j];
+            }
+            for (int j = 0; j < 4; j++) {
+                boneWeights.put(weights[j] / total);
+            }
+        }
+        boneIndices.flip();
+        boneWeights.flip();
+
+        mesh.setBuffer(VertexBuffer.Type.BoneIndex, 4, boneIndices);
+        mesh.setBuffer(VertexBuffer.Type.BoneWeight, 4, boneWeights);
+        mesh.setMaxNumWeights(4);
+        mesh.generateBindPose(true);
+        mesh.prepareForAnim(true);
+        return mesh;
+    }
+
+    /**
+     * Creates a Wavefront OBJ file of a grid with <code>size</code> by <code>size</code> quads,
+     * with positions, texture coordinates and normals.
+     */
+    public static byte[] createObj(int size, Random random) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# Synthetic grid\n");
+        for (int z = 0; z <= size; z++) {
+            for (int x = 0; x <= size; x++) {
+                sb.append("v ").append(x).append(' ').append(random.nextFloat())
+                  .append(' ').append(z).append('\n');
+                sb.append("vt ").append((float) x / size).append(' ').append((float) z / size)
+                  .append('\n');
+                sb.append("vn 0 1 0\n");
+            }
+        }
+        int row = size + 1;
+        for (int z = 0; z < size; z++) {
+            for (int x = 0; x < size; x++) {
+                int a = z * row + x + 1;
+                int b = a + 1;
+                int c = a + row + 1;
+                int d = a + row;
+                sb.append('f');
+                for (int index : new int[]{a, b, c, d}) {
+                    sb.append(' ').append(index).append('/').append(index).append('/')
+                      .append(index);
+                }
+                sb.append('\n');
+            }
+        }
+        return sb.toString().getBytes();
+    }
+
+    /**
+     * Creates a binary FBX file with <code>meshCount</code> geometries of
+     * <code>vertexCount</code> vertices each, in the layout written by the FBX SDK.
+     *
+     * @param compressed true to deflate the arrays, as the FBX SDK does for large arrays
+     */
+    public static byte[] createBinaryFbx(int meshCount, int vertexCount, boolean compressed,
+                                         Random random) {
+        FbxWriter writer = new FbxWriter(compressed);
+        writer.beginElement("FBXHeaderExtension", 0);
+        writer.beginElement("FBXVersion", 1);
+        writer.writeInt(7400);
+        writer.endElement(false);
+        writer.endElement(true);
+
+        writer.beginElement("Objects", 0);
+        for (int mesh = 0; mesh < meshCount; mesh++) {
+            writer.beginElement("Geometry", 3);
+            writer.writeLong(1000L + mesh);
+            writer.writeString("Mesh" + mesh + "\u0000\u0001Geometry");
+            writer.writeString("Mesh");
+
+            double[] vertices = new double[vertexCount * 3];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = random.nextDouble() * 10.0;
+            }
+            writer.beginElement("Vertices", 1);
+            writer.writeDoubleArray(vertices);
+            writer.endElement(false);
+
+            int[] polygonVertexIndex = new int[(vertexCount - 2) * 3];
+            for (int i = 0; i < vertexCount - 2; i++) {
+                polygonVertexIndex[i * 3] = 0;
+                polygonVertexIndex[i * 3 + 1] = i + 1;
+                // The last index of a polygon is stored as -(index + 1)
+                polygonVertexIndex[i * 3 + 2] = -(i + 2) - 1;
+            }
+            writer.beginElement("PolygonVertexIndex", 1);
+            writer.writeIntArray(polygonVertexIndex);
+            writer.endElement(false);
+
+            writer.beginElement("LayerElementNormal", 1);
+            writer.writeInt(0);
+            writer.beginElement("MappingInformationType", 1);
+            writer.writeString("ByPolygonVertex");
+            writer.endElement(false);
+            double[] normals = new double[polygonVertexIndex.length * 3];
+            for (int i = 0; i < normals.length; i += 3) {
+                normals[i + 1] = 1.0;
+            }
+            writer.beginElement("Normals", 1);
+            writer.writeDoubleArray(normals);
+            writer.endElement(false);
+            writer.endElement(true);
+
+            writer.endElement(true);
+        }
+        writer.endElement(true);
+        return writer.finish();
+    }
+
+    /**
+     * Serves an asset from memory, so that loaders are measured without any file system access.
+     */
+    public static class MemoryAssetInfo extends AssetInfo {
+        private final byte[] data;
+
+        public MemoryAssetInfo(AssetManager manager, AssetKey<?> key, byte[] data) {
+            super(manager, key);
+            this.data = data;
+        }
+
+        @Override
+        public long getSize() {
+            return data.length;
+        }
+
+        @Override
+        public InputStream openStream() {
+            return new ByteArrayInputStream(data);
+        }
+    }
+
+    /**
+     * Writes the binary FBX format read by <code>FBXReader</code>. The end offset of an element is
+     * patched in when the element ends.
+     */
+    private static final class FbxWriter {
+        private static final byte[] HEADER = {0x4b, 0x61, 0x79, 0x64, 0x61, 0x72, 0x61, 0x20, 0x46,
+                                              0x42, 0x58, 0x20, 0x42, 0x69, 0x6e, 0x61, 0x72, 0x79,
+                                              0x20, 0x20, 0x00, 0x1a, 0x00};
+        private static final int NULL_RECORD_LENGTH = 13;
+        private static final int MAX_DEPTH = 16;
+
+        private final boolean compressed;
+        private final int[] elementStarts = new int[MAX_DEPTH];
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private int depth;
+
+        FbxWriter(boolean compressed) {
+            this.compressed = compressed;
+            buffer.put(HEADER);
+            buffer.putInt(7400);
+        }
+
+        private void ensureRemaining(int bytes) {
+            if (buffer.remaining() < bytes) {
+                int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+                ByteBuffer grown = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+        }
+
+        void beginElement(String name, int propertyCount) {
+            ensureRemaining(13 + name.length());
+            elementStarts[depth++] = buffer.position();
+            buffer.putInt(0); // End offset, patched in endElement
+            buffer.putInt(propertyCount);
+            buffer.putInt(0); // Property list length, not used by the reader
+            buffer.put((byte) name.length());
+            buffer.put(name.getBytes());
+        }
+
+        void endElement(boolean hasChildren) {
+            if (hasChildren) {
+                ensureRemaining(NULL_RECORD_LENGTH);
+                buffer.put(new byte[NULL_RECORD_LENGTH]);
+            }
+            int start = elementStarts[--depth];
+            buffer.putInt(start, buffer.position());
+        }
+
+        void writeInt(int value) {
+            ensureRemaining(5);
+            buffer.put((byte) 'I').putInt(value);
+        }
+
+        void writeLong(long value) {
+            ensureRemaining(9);
+            buffer.put((byte) 'L').putLong(value);
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes();
+            ensureRemaining(5 + bytes.length);
+            buffer.put((byte) 'S').putInt(bytes.length).put(bytes);
+        }
+
+        void writeDoubleArray(double[] values) {
+            ByteBuffer data = ByteBuffer.allocate(values.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+            for (double value : values) {
+                data.putDouble(value);
+            }
+            writeArray('d', values.length, data.array());
+        }
+
+        void writeIntArray(int[] values) {
+            ByteBuffer data = ByteBuffer.allocate(values.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+            for (int value : values) {
+                data.putInt(value);
+            }
+            writeArray('i', values.length, data.array());
+        }
+
+        private void writeArray(char type, int length, byte[] data) {
+            byte[] stored = compressed ? deflate(data) : data;
+            ensureRemaining(13 + stored.length);
+            buffer.put((byte) type);
+            buffer.putInt(length);
+            buffer.putInt(compressed ? 1 : 0);
+            buffer.putInt(stored.length);
+            buffer.put(stored);
+        }
+
+        private static byte[] deflate(byte[] data) {
+            Deflater deflater = new Deflater();
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(chunk);
+                out.write(chunk, 0, length);
+            }
+            deflater.end();
+            return out.toByteArray();
+        }
+
+        byte[] finish() {
+            ensureRemaining(NULL_RECORD_LENGTH);
+            buffer.put(new byte[NULL_RECORD_LENGTH]);
+            byte[] bytes = new byte[buffer.position()];
+            buffer.flip();
+            buffer.get(bytes);
+            return bytes;
+        }
+    }
+}
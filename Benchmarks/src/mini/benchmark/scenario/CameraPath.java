@@ -0,0 +1,149 @@
+package mini.benchmark.scenario;
+
+import mini.math.Vector3f;
+import mini.renderer.Camera;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Path followed by the camera during a scenario: keyframes of the camera location and of the
+ * point it looks at, interpolated linearly. The path loops when a scenario runs longer than it.
+ * <p>
+ * A path can be recorded from an interactive application by calling
+ * {@link #record(Camera, float)} every few frames and saved with {@link #write(Writer)}. The file
+ * has one keyframe per line: the time followed by the location and the target, separated by
+ * spaces. Lines starting with <code>#</code> are ignored.
+ */
+public class CameraPath {
+    private final List<Float> times = new ArrayList<>();
+    private final List<Vector3f> locations = new ArrayList<>();
+    private final List<Vector3f> targets = new ArrayList<>();
+    private final Vector3f location = new Vector3f();
+    private final Vector3f target = new Vector3f();
+
+    /**
+     * Adds a keyframe, keyframes must be added in time order.
+     *
+     * @param time     The time of the keyframe, in seconds from the start of the path
+     * @param location The location of the camera
+     * @param target   The point the camera looks at
+     * @return this path
+     */
+    public CameraPath add(float time, Vector3f location, Vector3f target) {
+        if (!times.isEmpty() && time <= times.get(times.size() - 1)) {
+            throw new IllegalArgumentException("Keyframes must be added in time order");
+        }
+        times.add(time);
+        locations.add(location.clone());
+        targets.add(target.clone());
+        return this;
+    }
+
+    /**
+     * Records the current state of the camera as a keyframe, the target is taken one unit in
+     * front of the camera.
+     */
+    public void record(Camera camera, float time) {
+        Vector3f location = camera.getLocation();
+        add(time, location, location.add(camera.getDirection()));
+    }
+
+    /**
+     * @return the time of the last keyframe, in seconds
+     */
+    public float getLength() {
+        return times.isEmpty() ? 0 : times.get(times.size() - 1);
+    }
+
+    /**
+     * Moves the camera to where it is on the path at the given time.
+     *
+     * @param camera The camera to move
+     * @param time   The time in seconds, wrapped around the length of the path
+     */
+    public void apply(Camera camera, float time) {
+        if (times.isEmpty()) {
+            return;
+        }
+        float length = getLength();
+        if (length > 0) {
+            time %= length;
+        }
+
+        int next = 1;
+        while (next < times.size() - 1 && times.get(next) < time) {
+            next++;
+        }
+        if (times.size() == 1) {
+            location.set(locations.get(0));
+            target.set(targets.get(0));
+        } else {
+            int previous = next - 1;
+            float blend = (time - times.get(previous)) / (times.get(next) - times.get(previous));
+            blend = Math.max(0, Math.min(1, blend));
+            location.interpolateLocal(locations.get(previous), locations.get(next), blend);
+            target.interpolateLocal(targets.get(previous), targets.get(next), blend);
+        }
+        camera.setLocation(location);
+        camera.lookAt(target, Vector3f.UNIT_Y);
+    }
+
+    /**
+     * Reads a path written by {@link #write(Writer)}.
+     *
+     * @param reader The reader to read from, it is not closed
+     * @return the path
+     * @throws IOException If the reader fails or a line is malformed
+     */
+    public static CameraPath read(Reader reader) throws IOException {
+        CameraPath path = new CameraPath();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] values = line.split("\\s+");
+            if (values.length != 7) {
+                throw new IOException("Line " + lineNumber + ": expected 7 values, got "
+                                      + values.length);
+            }
+            try {
+                float[] numbers = new float[7];
+                for (int i = 0; i < 7; i++) {
+                    numbers[i] = Float.parseFloat(values[i]);
+                }
+                path.add(numbers[0], new Vector3f(numbers[1], numbers[2], numbers[3]),
+                         new Vector3f(numbers[4], numbers[5], numbers[6]));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Writes the keyframes of the path.
+     *
+     * @param writer The writer to write to, it is not closed
+     * @throws IOException If the writer fails
+     */
+    public void write(Writer writer) throws IOException {
+        writer.write("# time location.x location.y location.z target.x target.y target.z\n");
+        for (int i = 0; i < times.size(); i++) {
+            Vector3f location = locations.get(i);
+            Vector3f target = targets.get(i);
+            writer.write(times.get(i) + " " + location.x + " " + location.y + " " + location.z
+                         + " " + target.x + " " + target.y + " " + target.z + "\n");
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,71 @@
+package mini.benchmark.scenario;
+
+import mini.app.SimpleApplication;
+import mini.benchmark.SyntheticInputs;
+import mini.asset.AssetManager;
+import mini.material.Material;
+import mini.math.ColorRGBA;
+import mini.math.Vector3f;
+import mini.scene.Geometry;
+import mini.scene.Node;
+import mini.scene.shape.Box;
+
+import java.util.Random;
+
+/**
+ * The scene of the cube field game: thousands of boxes, each with a material of its own, scattered
+ * on a floor. The camera flies low over the field, so that most of the boxes are culled and many
+ * are drawn every frame.
+ */
+public class CubeFieldScenario extends Scenario {
+    private static final int CUBE_COUNT = 2000;
+    private static final float FIELD_SIZE = 200f;
+
+    private static final ColorRGBA[] COLORS = {
+            ColorRGBA.Blue, ColorRGBA.Green, ColorRGBA.Pink, ColorRGBA.Cyan, ColorRGBA.Magenta,
+            ColorRGBA.Orange, ColorRGBA.Red, ColorRGBA.Yellow
+    };
+
+    public CubeFieldScenario() {
+        super("cubeField");
+    }
+
+    private static Material createMaterial(AssetManager assetManager, ColorRGBA color) {
+        Material material = new Material(assetManager, "MatDefs/Misc/Unshaded.minid");
+        material.setColor("Color", color);
+        return material;
+    }
+
+    @Override
+    public void setUp(SimpleApplication app) {
+        AssetManager assetManager = app.getAssetManager();
+        Random random = SyntheticInputs.random();
+
+        Geometry floor = new Geometry("Floor", new Box(FIELD_SIZE / 2, 0, FIELD_SIZE / 2));
+        floor.setLocalTranslation(0, -1, 0);
+        floor.setMaterial(createMaterial(assetManager, ColorRGBA.LightGray));
+        app.getRootNode().attachChild(floor);
+
+        Node field = new Node("Field");
+        Box box = new Box(1, 1, 1);
+        for (int i = 0; i < CUBE_COUNT; i++) {
+            Geometry cube = new Geometry("Cube" + i, box);
+            cube.setLocalTranslation((random.nextFloat() - 0.5f) * FIELD_SIZE, 0,
+                                     (random.nextFloat() - 0.5f) * FIELD_SIZE);
+            cube.setMaterial(createMaterial(assetManager, COLORS[random.nextInt(COLORS.length)]));
+            field.attachChild(cube);
+        }
+        app.getRootNode().attachChild(field);
+    }
+
+    @Override
+    public CameraPath getCameraPath() {
+        float half = FIELD_SIZE / 2;
+        return new CameraPath()
+                .add(0, new Vector3f(-half, 2, 0), new Vector3f(0, 0, 0))
+                .add(5, new Vector3f(0, 2, -half / 2), new Vector3f(half, 0, 0))
+                .add(10, new Vector3f(half, 6, 0), new Vector3f(0, 0, half / 2))
+                .add(15, new Vector3f(0, 20, half), new Vector3f(0, 0, 0))
+                .add(20, new Vector3f(-half, 2, 0), new Vector3f(0, 0, 0));
+    }
+}
@@ -0,0 +1,47 @@
+package mini.benchmark.scenario;
+
+import mini.system.time.Timer;
+
+/**
+ * Timer advancing by the same step every frame, whatever the time the frame actually took. The
+ * animations, controls and camera paths of a scenario then go through the same states on every
+ * run, so the runs measure the same work.
+ */
+public class FixedStepTimer implements Timer {
+    private static final long RESOLUTION = 1000000000L;
+
+    private final float step;
+    private long frames;
+
+    /**
+     * @param step The time per frame, in seconds
+     */
+    public FixedStepTimer(float step) {
+        this.step = step;
+    }
+
+    @Override
+    public void update() {
+        frames++;
+    }
+
+    @Override
+    public float getTimePerFrame() {
+        return step;
+    }
+
+    @Override
+    public void reset() {
+        frames = 0;
+    }
+
+    @Override
+    public float getResolution() {
+        return RESOLUTION;
+    }
+
+    @Override
+    public long getTime() {
+        return (long) (frames * (double) step * RESOLUTION);
+    }
+}
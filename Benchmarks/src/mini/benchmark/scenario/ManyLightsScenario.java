@@ -0,0 +1,85 @@
+package mini.benchmark.scenario;
+
+import mini.app.SimpleApplication;
+import mini.benchmark.SyntheticInputs;
+import mini.light.PointLight;
+import mini.material.Material;
+import mini.math.ColorRGBA;
+import mini.math.FastMath;
+import mini.math.Vector3f;
+import mini.scene.Geometry;
+import mini.scene.shape.Sphere;
+
+import java.util.Random;
+
+/**
+ * Lit spheres under many moving point lights, every geometry is rendered once per light pass and
+ * the lights are filtered against the geometries every frame.
+ */
+public class ManyLightsScenario extends Scenario {
+    private static final int GRID_SIZE = 16;
+    private static final float SPACING = 3f;
+    private static final int LIGHT_COUNT = 64;
+
+    private PointLight[] lights;
+    private float[] phases;
+    private final Vector3f position = new Vector3f();
+    private float time;
+
+    public ManyLightsScenario() {
+        super("manyLights");
+    }
+
+    @Override
+    public void setUp(SimpleApplication app) {
+        Random random = SyntheticInputs.random();
+        Material material = new Material(app.getAssetManager(), "MatDefs/Light/Lighting.minid");
+        material.setBoolean("UseMaterialColors", true);
+        material.setColor("Diffuse", ColorRGBA.White);
+        material.setColor("Specular", ColorRGBA.White);
+        material.setFloat("Shininess", 16f);
+
+        Sphere sphere = new Sphere(16, 16, 1f);
+        float offset = (GRID_SIZE - 1) * SPACING / 2;
+        for (int x = 0; x < GRID_SIZE; x++) {
+            for (int z = 0; z < GRID_SIZE; z++) {
+                Geometry geometry = new Geometry("Sphere" + x + "_" + z, sphere);
+                geometry.setMaterial(material);
+                geometry.setLocalTranslation(x * SPACING - offset, 0, z * SPACING - offset);
+                app.getRootNode().attachChild(geometry);
+            }
+        }
+
+        lights = new PointLight[LIGHT_COUNT];
+        phases = new float[LIGHT_COUNT];
+        for (int i = 0; i < LIGHT_COUNT; i++) {
+            lights[i] = new PointLight(new Vector3f());
+            lights[i].setColor(new ColorRGBA(random.nextFloat(), random.nextFloat(),
+                                             random.nextFloat(), 1f));
+            lights[i].setRadius(8f);
+            phases[i] = random.nextFloat() * FastMath.TWO_PI;
+            app.getRootNode().addLight(lights[i]);
+        }
+        update(0);
+    }
+
+    @Override
+    public void update(float tpf) {
+        time += tpf;
+        float radius = GRID_SIZE * SPACING / 2;
+        for (int i = 0; i < LIGHT_COUNT; i++) {
+            float angle = phases[i] + time * (0.2f + 0.3f * i / LIGHT_COUNT);
+            float distance = radius * (0.2f + 0.8f * i / LIGHT_COUNT);
+            position.set(FastMath.cos(angle) * distance, 2f, FastMath.sin(angle) * distance);
+            lights[i].setPosition(position);
+        }
+    }
+
+    @Override
+    public CameraPath getCameraPath() {
+        return new CameraPath()
+                .add(0, new Vector3f(0, 30, 40), Vector3f.ZERO)
+                .add(10, new Vector3f(40, 10, 0), Vector3f.ZERO)
+                .add(20, new Vector3f(0, 30, 40), Vector3f.ZERO);
+    }
+}
@@ -0,0 +1,41 @@
+package mini.benchmark.scenario;
+
+import mini.app.SimpleApplication;
+
+/**
+ * A scene run by {@link ScenarioRunner}: it is built once by {@link #setUp(SimpleApplication)},
+ * then updated and rendered for a fixed number of frames while the camera follows
+ * {@link #getCameraPath()}. The scenes are generated from {@link mini.benchmark.SyntheticInputs}
+ * so that every run measures the same work.
+ */
+public abstract class Scenario {
+    private final String name;
+
+    protected Scenario(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Builds the scene, called on the update thread once the application is initialized.
+     *
+     * @param app The application running the scenario
+     */
+    public abstract void setUp(SimpleApplication app);
+
+    /**
+     * @return the path followed by the camera when no path is given on the command line
+     */
+    public abstract CameraPath getCameraPath();
+
+    /**
+     * Called every frame before the scene is updated, e.g. to move lights.
+     *
+     * @param tpf The time per frame
+     */
+    public void update(float tpf) {
+    }
+}
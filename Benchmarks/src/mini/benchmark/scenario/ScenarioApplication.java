@@ -0,0 +1,221 @@
+package mini.benchmark.scenario;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import mini.app.SimpleApplication;
+import mini.app.state.ApplicationState;
+import mini.profile.Profiler;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs a {@link Scenario} headless and measures its frames. The application advances with a
+ * {@link FixedStepTimer}, so that the camera path, the controls and the animations go through the
+ * same states on every run, warms up for a number of frames and then records every frame in a
+ * {@link ScenarioReport}.
+ * <p>
+ * The frame time covers the whole update: the application states, the scene update and the
+ * rendering when the context renders through {@link ScenarioGL}. The phases come from the
+ * {@link Profiler} of the application, the allocations from the allocation counter of the update
+ * thread and the pauses from the notifications of the garbage collectors.
+ */
+public class ScenarioApplication extends SimpleApplication {
+    private static final float TIME_PER_FRAME = 1f / 60f;
+
+    private final Scenario scenario;
+    private final CameraPath cameraPath;
+    private final int warmupFrames;
+    private final boolean nullGL;
+    private final ScenarioReport report;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final GcListener gcListener = new GcListener();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private ForkJoinPool updatePool;
+    private volatile Throwable error;
+    private volatile boolean measuring;
+    private int frame;
+    private float time;
+
+    /**
+     * @param scenario     The scenario to run
+     * @param cameraPath   The path followed by the camera, or null for the path of the scenario
+     * @param warmupFrames The number of frames run before measuring
+     * @param frames       The number of measured frames
+     * @param nullGL       true to render through {@link ScenarioGL}, false to only update the
+     *                     scene
+     */
+    public ScenarioApplication(Scenario scenario, CameraPath cameraPath, int warmupFrames,
+                               int frames, boolean nullGL) {
+        super(new ApplicationState[0]);
+        if (warmupFrames < 0 || frames <= 0) {
+            throw new IllegalArgumentException("Invalid frame counts: " + warmupFrames + " warmup, "
+                                               + frames + " measured");
+        }
+        this.scenario = scenario;
+        this.cameraPath = cameraPath != null ? cameraPath : scenario.getCameraPath();
+        this.warmupFrames = warmupFrames;
+        this.nullGL = nullGL;
+
+        timer = new FixedStepTimer(TIME_PER_FRAME);
+        inputEnabled = false;
+        setProfiler(new Profiler());
+
+        Profiler profiler = getProfiler();
+        String[] phaseNames = new String[profiler.getPhaseCount()];
+        for (int i = 0; i < phaseNames.length; i++) {
+            phaseNames[i] = profiler.getPhaseName(i);
+        }
+        report = new ScenarioReport(scenario.getName(), nullGL ? "NullGL" : "NullRenderer", frames,
+                                    phaseNames);
+    }
+
+    /**
+     * @param pool The pool updating the scene in parallel, or null to update it on the render
+     *             thread only
+     */
+    public void setUpdatePool(ForkJoinPool pool) {
+        this.updatePool = pool;
+    }
+
+    /**
+     * Runs the scenario on a headless context and waits until all the frames are measured.
+     *
+     * @return the report of the measured frames
+     * @throws InterruptedException If the calling thread is interrupted while waiting
+     * @throws IllegalStateException If the scenario failed
+     */
+    public ScenarioReport run() throws InterruptedException {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            ((com.sun.management.ThreadMXBean) threads).setThreadAllocatedMemoryEnabled(true);
+        }
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                ((NotificationEmitter) collector).addNotificationListener(gcListener, null, null);
+            }
+        }
+
+        try {
+            context = new ScenarioContext(nullGL);
+            context.setSystemListener(this);
+            context.create(true);
+            done.await();
+            stop(true);
+        } finally {
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (collector instanceof NotificationEmitter) {
+                    try {
+                        ((NotificationEmitter) collector).removeNotificationListener(gcListener);
+                    } catch (ListenerNotFoundException ignored) {
+                    }
+                }
+            }
+        }
+
+        if (error != null) {
+            throw new IllegalStateException("Scenario " + scenario.getName() + " failed", error);
+        }
+        return report;
+    }
+
+    @Override
+    public void simpleInitApp() {
+        rootNode.setUpdatePool(updatePool);
+        scenario.setUp(this);
+    }
+
+    @Override
+    public void simpleUpdate(float tpf) {
+        time += tpf;
+        cameraPath.apply(cam, time);
+        scenario.update(tpf);
+    }
+
+    private long allocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    @Override
+    public void update() {
+        if (done.getCount() == 0) {
+            return;
+        }
+
+        int measured = frame - warmupFrames;
+        measuring = measured >= 0;
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+
+        super.update();
+        renderer.postFrame();
+
+        long end = System.nanoTime();
+        long allocatedAfter = allocatedBytes();
+        frame++;
+        if (measured < 0) {
+            return;
+        }
+
+        report.setFrame(measured, (end - start) / 1000000f,
+                        allocated < 0 ? -1 : allocatedAfter - allocated);
+        // The profiler records a frame when the next one begins
+        Profiler profiler = getProfiler();
+        if (measured > 0) {
+            recordPhases(profiler, measured - 1);
+        }
+        if (measured == report.getFrameCount() - 1) {
+            profiler.beginFrame();
+            recordPhases(profiler, measured);
+            measuring = false;
+            done.countDown();
+        }
+    }
+
+    private void recordPhases(Profiler profiler, int measured) {
+        for (int phase = 0; phase < profiler.getPhaseCount(); phase++) {
+            report.setPhase(measured, phase, profiler.getLatest(phase));
+        }
+    }
+
+    @Override
+    public void handleError(String errMsg, Throwable t) {
+        // No error dialog, the runner reports the error
+        error = t != null ? t : new RuntimeException(errMsg);
+        done.countDown();
+        stop();
+    }
+
+    /**
+     * Records the pauses of the collectors while the frames are measured. The concurrent cycles of
+     * collectors such as G1 and ZGC are reported as collections too but do not stop the
+     * application, they are ignored.
+     */
+    private class GcListener implements NotificationListener {
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            if (!measuring || !GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION
+                    .equals(notification.getType())) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo
+                    .from((CompositeData) notification.getUserData());
+            String name = info.getGcName();
+            if (name.contains("Concurrent") || name.contains("Cycles")) {
+                return;
+            }
+            report.addGcPause(info.getGcInfo().getDuration());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package mini.benchmark.scenario;
+
+import mini.renderer.Renderer;
+import mini.renderer.opengl.GLRenderer;
+import mini.system.NullContext;
+
+/**
+ * Headless context rendering through a {@link GLRenderer} on {@link ScenarioGL} instead of a
+ * {@link mini.system.NullRenderer}, so that the render path is part of what a scenario measures.
+ * With <code>nullGL</code> false it behaves as a plain {@link NullContext} and the scenario only
+ * measures the update of the scene.
+ */
+public class ScenarioContext extends NullContext {
+    private final boolean nullGL;
+    private GLRenderer renderer;
+
+    /**
+     * @param nullGL true to render through {@link ScenarioGL}
+     */
+    public ScenarioContext(boolean nullGL) {
+        this.nullGL = nullGL;
+    }
+
+    @Override
+    public boolean isRenderable() {
+        return nullGL;
+    }
+
+    @Override
+    public Renderer getRenderer() {
+        if (!nullGL) {
+            return super.getRenderer();
+        }
+        if (renderer == null) {
+            ScenarioGL gl = new ScenarioGL();
+            renderer = new GLRenderer(gl, gl, gl);
+            renderer.initialize();
+        }
+        return renderer;
+    }
+}
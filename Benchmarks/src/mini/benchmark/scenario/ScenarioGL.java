@@ -0,0 +1,596 @@
+package mini.benchmark.scenario;
+
+import mini.renderer.opengl.GL4;
+import mini.renderer.opengl.GLExt;
+import mini.renderer.opengl.GLFbo;
+import mini.renderer.opengl.NullGL;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * OpenGL bindings for the scenarios which, unlike the dynamic proxy of {@link NullGL}, do not
+ * allocate on every call, so that the allocations per frame of a scenario are the ones of the
+ * engine. The calls only sending state or data to the driver do nothing, the queries and the
+ * object creations go to a {@link NullGL}: they are made when resources are loaded rather than
+ * every frame.
+ */
+public class ScenarioGL implements GL4, GLExt, GLFbo {
+    private final GL4 gl;
+    private final GLExt glExt;
+    private final GLFbo glFbo;
+
+    public ScenarioGL() {
+        NullGL nullGL = new NullGL();
+        gl = nullGL.getGL();
+        glExt = nullGL.getGLExt();
+        glFbo = nullGL.getGLFbo();
+    }
+
+    @Override
+    public void resetStats() {
+    }
+
+    @Override
+    public void glActiveTexture(int texture) {
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader) {
+    }
+
+    @Override
+    public void glBeginQuery(int target, int query) {
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture) {
+    }
+
+    @Override
+    public void glBlendEquationSeparate(int colorMode, int alphaMode) {
+    }
+
+    @Override
+    public void glBlendFunc(int sfactor, int dfactor) {
+    }
+
+    @Override
+    public void glBlendFuncSeparate(int sfactorRGB, int dfactorRGB, int sfactorAlpha,
+                                    int dfactorAlpha) {
+    }
+
+    @Override
+    public void glBufferData(int target, long data_size, int usage) {
+    }
+
+    @Override
+    public void glBufferData(int target, FloatBuffer data, int usage) {
+    }
+
+    @Override
+    public void glBufferData(int target, ShortBuffer data, int usage) {
+    }
+
+    @Override
+    public void glBufferData(int target, ByteBuffer data, int usage) {
+    }
+
+    @Override
+    public void glBufferSubData(int target, long offset, FloatBuffer data) {
+    }
+
+    @Override
+    public void glBufferSubData(int target, long offset, ShortBuffer data) {
+    }
+
+    @Override
+    public void glBufferSubData(int target, long offset, ByteBuffer data) {
+    }
+
+    @Override
+    public void glClear(int mask) {
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+    }
+
+    @Override
+    public void glColorMask(boolean red, boolean green, boolean blue, boolean alpha) {
+    }
+
+    @Override
+    public void glCompileShader(int shader) {
+    }
+
+    @Override
+    public void glCompressedTexImage2D(int target, int level, int internalformat, int width,
+                                       int height, int border, ByteBuffer data) {
+    }
+
+    @Override
+    public void glCompressedTexSubImage2D(int target, int level, int xoffset, int yoffset,
+                                          int width, int height, int format, ByteBuffer data) {
+    }
+
+    @Override
+    public int glCreateProgram() {
+        return gl.glCreateProgram();
+    }
+
+    @Override
+    public int glCreateShader(int shaderType) {
+        return gl.glCreateShader(shaderType);
+    }
+
+    @Override
+    public void glCullFace(int mode) {
+    }
+
+    @Override
+    public void glDeleteBuffers(IntBuffer buffers) {
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+    }
+
+    @Override
+    public void glDeleteShader(int shader) {
+    }
+
+    @Override
+    public void glDeleteTextures(IntBuffer textures) {
+    }
+
+    @Override
+    public void glDepthFunc(int func) {
+    }
+
+    @Override
+    public void glDepthMask(boolean flag) {
+    }
+
+    @Override
+    public void glDepthRange(double nearVal, double farVal) {
+    }
+
+    @Override
+    public void glDetachShader(int program, int shader) {
+    }
+
+    @Override
+    public void glDisable(int cap) {
+    }
+
+    @Override
+    public void glDisableVertexAttribArray(int index) {
+    }
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+    }
+
+    @Override
+    public void glDrawRangeElements(int mode, int start, int end, int count, int type,
+                                    long indices) {
+    }
+
+    @Override
+    public void glEnable(int cap) {
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+    }
+
+    @Override
+    public void glEndQuery(int target) {
+    }
+
+    @Override
+    public void glGenBuffers(IntBuffer buffers) {
+        gl.glGenBuffers(buffers);
+    }
+
+    @Override
+    public void glGenTextures(IntBuffer textures) {
+        gl.glGenTextures(textures);
+    }
+
+    @Override
+    public void glGenQueries(int number, IntBuffer ids) {
+        gl.glGenQueries(number, ids);
+    }
+
+    @Override
+    public int glGetAttribLocation(int program, String name) {
+        return gl.glGetAttribLocation(program, name);
+    }
+
+    @Override
+    public void glGetBoolean(int pname, ByteBuffer params) {
+        gl.glGetBoolean(pname, params);
+    }
+
+    @Override
+    public void glGetBufferSubData(int target, long offset, ByteBuffer data) {
+        gl.glGetBufferSubData(target, offset, data);
+    }
+
+    @Override
+    public int glGetError() {
+        return gl.glGetError();
+    }
+
+    @Override
+    public void glGetInteger(int pname, IntBuffer params) {
+        gl.glGetInteger(pname, params);
+    }
+
+    @Override
+    public void glGetProgram(int program, int pname, IntBuffer params) {
+        gl.glGetProgram(program, pname, params);
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program, int maxSize) {
+        return gl.glGetProgramInfoLog(program, maxSize);
+    }
+
+    @Override
+    public long glGetQueryObjectui64(int query, int pname) {
+        return gl.glGetQueryObjectui64(query, pname);
+    }
+
+    @Override
+    public int glGetQueryObjectiv(int query, int pname) {
+        return gl.glGetQueryObjectiv(query, pname);
+    }
+
+    @Override
+    public void glGetShader(int shader, int pname, IntBuffer params) {
+        gl.glGetShader(shader, pname, params);
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader, int maxSize) {
+        return gl.glGetShaderInfoLog(shader, maxSize);
+    }
+
+    @Override
+    public String glGetString(int name) {
+        return gl.glGetString(name);
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) {
+        return gl.glGetUniformLocation(program, name);
+    }
+
+    @Override
+    public boolean glIsEnabled(int cap) {
+        return gl.glIsEnabled(cap);
+    }
+
+    @Override
+    public void glLineWidth(float width) {
+    }
+
+    @Override
+    public void glLinkProgram(int program) {
+    }
+
+    @Override
+    public void glPixelStorei(int pname, int param) {
+    }
+
+    @Override
+    public void glPolygonOffset(float factor, float units) {
+    }
+
+    @Override
+    public void glReadPixels(int x, int y, int width, int height, int format, int type,
+                             ByteBuffer data) {
+    }
+
+    @Override
+    public void glReadPixels(int x, int y, int width, int height, int format, int type,
+                             long offset) {
+    }
+
+    @Override
+    public void glScissor(int x, int y, int width, int height) {
+    }
+
+    @Override
+    public void glShaderSource(int shader, String[] string, IntBuffer length) {
+    }
+
+    @Override
+    public void glStencilFuncSeparate(int face, int func, int ref, int mask) {
+    }
+
+    @Override
+    public void glStencilOpSeparate(int face, int sfail, int dpfail, int dppass) {
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalFormat, int width, int height,
+                             int border, int format, int type, ByteBuffer data) {
+    }
+
+    @Override
+    public void glTexParameterf(int target, int pname, float param) {
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) {
+    }
+
+    @Override
+    public void glTexSubImage2D(int target, int level, int xoffset, int yoffset, int width,
+                                int height, int format, int type, ByteBuffer data) {
+    }
+
+    @Override
+    public void glUniform1(int location, FloatBuffer value) {
+    }
+
+    @Override
+    public void glUniform1(int location, IntBuffer value) {
+    }
+
+    @Override
+    public void glUniform1f(int location, float v0) {
+    }
+
+    @Override
+    public void glUniform1i(int location, int v0) {
+    }
+
+    @Override
+    public void glUniform2(int location, IntBuffer value) {
+    }
+
+    @Override
+    public void glUniform2(int location, FloatBuffer value) {
+    }
+
+    @Override
+    public void glUniform2f(int location, float v0, float v1) {
+    }
+
+    @Override
+    public void glUniform3(int location, IntBuffer value) {
+    }
+
+    @Override
+    public void glUniform3(int location, FloatBuffer value) {
+    }
+
+    @Override
+    public void glUniform3f(int location, float v0, float v1, float v2) {
+    }
+
+    @Override
+    public void glUniform4(int location, FloatBuffer value) {
+    }
+
+    @Override
+    public void glUniform4(int location, IntBuffer value) {
+    }
+
+    @Override
+    public void glUniform4f(int location, float v0, float v1, float v2, float v3) {
+    }
+
+    @Override
+    public void glUniformMatrix3(int location, boolean transpose, FloatBuffer value) {
+    }
+
+    @Override
+    public void glUniformMatrix4(int location, boolean transpose, FloatBuffer value) {
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized,
+                                      int stride, long pointer) {
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+    }
+
+    @Override
+    public void glAlphaFunc(int func, float ref) {
+    }
+
+    @Override
+    public void glPointSize(float size) {
+    }
+
+    @Override
+    public void glPolygonMode(int face, int mode) {
+    }
+
+    @Override
+    public void glDrawBuffer(int mode) {
+    }
+
+    @Override
+    public void glReadBuffer(int mode) {
+    }
+
+    @Override
+    public void glCompressedTexImage3D(int target, int level, int internalformat, int width,
+                                       int height, int depth, int border, ByteBuffer data) {
+    }
+
+    @Override
+    public void glCompressedTexSubImage3D(int target, int level, int xoffset, int yoffset,
+                                          int zoffset, int width, int height, int depth,
+                                          int format, ByteBuffer data) {
+    }
+
+    @Override
+    public void glTexImage3D(int target, int level, int internalFormat, int width, int height,
+                             int depth, int border, int format, int type, ByteBuffer data) {
+    }
+
+    @Override
+    public void glTexSubImage3D(int target, int level, int xoffset, int yoffset, int zoffset,
+                                int width, int height, int depth, int format, int type,
+                                ByteBuffer data) {
+    }
+
+    @Override
+    public void glBindFragDataLocation(int param1, int param2, String param3) {
+    }
+
+    @Override
+    public void glBindVertexArray(int param1) {
+    }
+
+    @Override
+    public void glDeleteVertexArrays(IntBuffer arrays) {
+    }
+
+    @Override
+    public void glFramebufferTextureLayer(int param1, int param2, int param3, int param4,
+                                          int param5) {
+    }
+
+    @Override
+    public void glGenVertexArrays(IntBuffer param1) {
+        gl.glGenVertexArrays(param1);
+    }
+
+    @Override
+    public String glGetString(int param1, int param2) {
+        return gl.glGetString(param1, param2);
+    }
+
+    @Override
+    public void glPatchParameter(int count) {
+    }
+
+    @Override
+    public void glBufferData(int target, IntBuffer data, int usage) {
+    }
+
+    @Override
+    public void glBufferSubData(int target, long offset, IntBuffer data) {
+    }
+
+    @Override
+    public int glClientWaitSync(Object sync, int flags, long timeout) {
+        return glExt.glClientWaitSync(sync, flags, timeout);
+    }
+
+    @Override
+    public void glDeleteSync(Object sync) {
+    }
+
+    @Override
+    public void glDrawArraysInstancedARB(int mode, int first, int count, int primcount) {
+    }
+
+    @Override
+    public void glDrawBuffers(IntBuffer bufs) {
+    }
+
+    @Override
+    public void glDrawElementsInstancedARB(int mode, int indices_count, int type,
+                                           long indices_buffer_offset, int primcount) {
+    }
+
+    @Override
+    public Object glFenceSync(int condition, int flags) {
+        return glExt.glFenceSync(condition, flags);
+    }
+
+    @Override
+    public void glGetMultisample(int pname, int index, FloatBuffer val) {
+        glExt.glGetMultisample(pname, index, val);
+    }
+
+    @Override
+    public void glTexImage2DMultisample(int target, int samples, int internalformat, int width,
+                                        int height, boolean fixedsamplelocations) {
+    }
+
+    @Override
+    public void glVertexAttribDivisorARB(int index, int divisor) {
+    }
+
+    @Override
+    public void glBindFramebufferEXT(int param1, int param2) {
+    }
+
+    @Override
+    public void glBindRenderbufferEXT(int param1, int param2) {
+    }
+
+    @Override
+    public void glBlitFramebufferEXT(int srcX0, int srcY0, int srcX1, int srcY1, int dstX0,
+                                     int dstY0, int dstX1, int dstY1, int mask, int filter) {
+    }
+
+    @Override
+    public int glCheckFramebufferStatusEXT(int param1) {
+        return glFbo.glCheckFramebufferStatusEXT(param1);
+    }
+
+    @Override
+    public void glDeleteFramebuffersEXT(IntBuffer param1) {
+    }
+
+    @Override
+    public void glDeleteRenderbuffersEXT(IntBuffer param1) {
+    }
+
+    @Override
+    public void glFramebufferRenderbufferEXT(int param1, int param2, int param3, int param4) {
+    }
+
+    @Override
+    public void glFramebufferTexture2DEXT(int param1, int param2, int param3, int param4,
+                                          int param5) {
+    }
+
+    @Override
+    public void glGenFramebuffersEXT(IntBuffer param1) {
+        glFbo.glGenFramebuffersEXT(param1);
+    }
+
+    @Override
+    public void glGenRenderbuffersEXT(IntBuffer param1) {
+        glFbo.glGenRenderbuffersEXT(param1);
+    }
+
+    @Override
+    public void glGenerateMipmapEXT(int param1) {
+        glFbo.glGenerateMipmapEXT(param1);
+    }
+
+    @Override
+    public void glRenderbufferStorageEXT(int param1, int param2, int param3, int param4) {
+    }
+
+    @Override
+    public void glRenderbufferStorageMultisampleEXT(int target, int samples, int internalformat,
+                                                    int width, int height) {
+    }
+}
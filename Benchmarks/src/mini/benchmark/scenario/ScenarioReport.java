@@ -0,0 +1,198 @@
+package mini.benchmark.scenario;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Measurements of the frames of a scenario: the time of every frame, the time of every
+ * {@link mini.profile.Profiler} phase, the bytes allocated by the update thread and the pauses of
+ * the garbage collector. The report is written as JSON so that runs can be compared by scripts.
+ */
+public class ScenarioReport {
+    private final String name;
+    private final String renderer;
+    private final float[] frameTimes;
+    private final long[] allocations;
+    private final String[] phaseNames;
+    private final float[][] phaseTimes;
+    private int gcCount;
+    private float gcTotalPause;
+    private float gcMaxPause;
+
+    /**
+     * @param name       The name of the scenario
+     * @param renderer   The name of the renderer the scenario ran on
+     * @param frames     The number of measured frames
+     * @param phaseNames The names of the profiler phases
+     */
+    public ScenarioReport(String name, String renderer, int frames, String[] phaseNames) {
+        this.name = name;
+        this.renderer = renderer;
+        this.frameTimes = new float[frames];
+        this.allocations = new long[frames];
+        this.phaseNames = phaseNames;
+        this.phaseTimes = new float[phaseNames.length][frames];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getFrameCount() {
+        return frameTimes.length;
+    }
+
+    /**
+     * @param frame          The index of the measured frame
+     * @param time           The time of the frame, in milliseconds
+     * @param allocatedBytes The bytes allocated by the update thread during the frame, or -1 if
+     *                       the JVM does not measure them
+     */
+    public void setFrame(int frame, float time, long allocatedBytes) {
+        frameTimes[frame] = time;
+        allocations[frame] = allocatedBytes;
+    }
+
+    /**
+     * @param frame The index of the measured frame
+     * @param phase The id of the profiler phase
+     * @param time  The time of the phase in the frame, in milliseconds
+     */
+    public void setPhase(int frame, int phase, float time) {
+        phaseTimes[phase][frame] = time;
+    }
+
+    /**
+     * Records a pause of the garbage collector which happened while the frames were measured.
+     *
+     * @param pause The duration of the pause, in milliseconds
+     */
+    public synchronized void addGcPause(float pause) {
+        gcCount++;
+        gcTotalPause += pause;
+        gcMaxPause = Math.max(gcMaxPause, pause);
+    }
+
+    /**
+     * @param values     The values, they are not modified
+     * @param percentile The percentile, between 0 and 100
+     * @return the value below which <code>percentile</code> percent of the values are, using the
+     * nearest rank
+     */
+    static double percentile(double[] values, double percentile) {
+        if (values.length == 0) {
+            return 0;
+        }
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return values.length == 0 ? 0 : sum / values.length;
+    }
+
+    private static double max(double[] values) {
+        double max = 0;
+        for (double value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    private static double[] toDoubles(float[] values) {
+        double[] result = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = values[i];
+        }
+        return result;
+    }
+
+    private static double[] toDoubles(long[] values) {
+        double[] result = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = values[i];
+        }
+        return result;
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.4f", value);
+    }
+
+    private static String string(String value) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    /**
+     * @return the median frame time, in milliseconds
+     */
+    public double getMedianFrameTime() {
+        return percentile(toDoubles(frameTimes), 50);
+    }
+
+    /**
+     * Writes the report as a JSON object.
+     *
+     * @param writer The writer to write to, it is not closed
+     * @param indent The indentation of the object
+     * @throws IOException If the writer fails
+     */
+    public void writeJson(Writer writer, String indent) throws IOException {
+        double[] times = toDoubles(frameTimes);
+        String inner = indent + "  ";
+        writer.write("{\n");
+        writer.write(inner + "\"name\": " + string(name) + ",\n");
+        writer.write(inner + "\"renderer\": " + string(renderer) + ",\n");
+        writer.write(inner + "\"frames\": " + frameTimes.length + ",\n");
+        writer.write(inner + "\"frameTimeMs\": {\"mean\": " + number(mean(times))
+                     + ", \"p50\": " + number(percentile(times, 50))
+                     + ", \"p95\": " + number(percentile(times, 95))
+                     + ", \"p99\": " + number(percentile(times, 99))
+                     + ", \"max\": " + number(max(times)) + "},\n");
+
+        writer.write(inner + "\"phasesMs\": {");
+        for (int phase = 0; phase < phaseNames.length; phase++) {
+            double[] phaseValues = toDoubles(phaseTimes[phase]);
+            writer.write(phase == 0 ? "\n" : ",\n");
+            writer.write(inner + "  " + string(phaseNames[phase]) + ": {\"mean\": "
+                         + number(mean(phaseValues)) + ", \"p95\": "
+                         + number(percentile(phaseValues, 95)) + "}");
+        }
+        writer.write("\n" + inner + "},\n");
+
+        if (allocations.length > 0 && allocations[0] < 0) {
+            writer.write(inner + "\"allocatedBytesPerFrame\": null,\n");
+        } else {
+            double[] bytes = toDoubles(allocations);
+            writer.write(inner + "\"allocatedBytesPerFrame\": {\"mean\": " + number(mean(bytes))
+                         + ", \"p50\": " + number(percentile(bytes, 50))
+                         + ", \"p99\": " + number(percentile(bytes, 99))
+                         + ", \"max\": " + number(max(bytes)) + "},\n");
+        }
+
+        synchronized (this) {
+            writer.write(inner + "\"gc\": {\"count\": " + gcCount
+                         + ", \"totalPauseMs\": " + number(gcTotalPause)
+                         + ", \"maxPauseMs\": " + number(gcMaxPause) + "}\n");
+        }
+        writer.write(indent + "}");
+    }
+}
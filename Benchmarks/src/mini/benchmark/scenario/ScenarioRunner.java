@@ -0,0 +1,167 @@
+package mini.benchmark.scenario;
+
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Runs the macro-benchmark scenarios headless and writes their reports as JSON:
+ * <pre>
+ * ScenarioRunner [-frames N] [-warmup N] [-renderer nullgl|none] [-threads N] [-pipelined]
+ *                [-path file] [-out file] [scenario...]
+ * </pre>
+ * All the scenarios run when none is named. With <code>-renderer nullgl</code>, the default, the
+ * scenes are rendered through {@link ScenarioGL}; with <code>none</code> they are only updated.
+ * The camera path given with <code>-path</code>, as written by {@link CameraPath#write(Writer)},
+ * replaces the paths of the scenarios. The report is written to the standard output when no file
+ * is given. With <code>-threads</code>, the scene is
+ * updated in parallel by that many threads, see
+ * {@link mini.scene.Node#setUpdatePool(ForkJoinPool)}; running with 1, 2, 4... threads measures
+ * how the update scales. With <code>-pipelined</code>, the next frame is updated while the previous
+ * one is rendered, see {@link mini.app.SimpleApplication#setPipelined(boolean)}; the allocations
+ * of the update are then not counted.
+ */
+public class ScenarioRunner {
+    private static final Map<String, Supplier<Scenario>> SCENARIOS = new LinkedHashMap<>();
+
+    static {
+        SCENARIOS.put("cubeField", CubeFieldScenario::new);
+        SCENARIOS.put("skinnedCharacters", SkinnedCharactersScenario::new);
+        SCENARIOS.put("manyLights", ManyLightsScenario::new);
+        SCENARIOS.put("shadowedTerrain", ShadowedTerrainScenario::new);
+    }
+
+    private int frames = 600;
+    private int warmupFrames = 300;
+    private boolean nullGL = true;
+    private int threads;
+    private boolean pipelined;
+    private CameraPath cameraPath;
+    private String output;
+    private final List<String> names = new ArrayList<>();
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: ScenarioRunner [-frames N] [-warmup N] [-renderer nullgl|none]"
+                           + " [-threads N] [-pipelined] [-path file] [-out file] [scenario...]");
+        System.err.println("Scenarios: " + String.join(", ", SCENARIOS.keySet()));
+        System.exit(1);
+    }
+
+    private void parse(String[] args) throws IOException {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("-")) {
+                if (!SCENARIOS.containsKey(arg)) {
+                    usage("Unknown scenario: " + arg);
+                }
+                names.add(arg);
+                continue;
+            }
+            if (arg.equals("-pipelined")) {
+                pipelined = true;
+                continue;
+            }
+            if (i + 1 == args.length) {
+                usage("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "-frames":
+                    frames = Integer.parseInt(value);
+                    break;
+                case "-warmup":
+                    warmupFrames = Integer.parseInt(value);
+                    break;
+                case "-renderer":
+                    if (!value.equals("nullgl") && !value.equals("none")) {
+                        usage("Unknown renderer: " + value);
+                    }
+                    nullGL = value.equals("nullgl");
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "-path":
+                    try (Reader reader = new FileReader(value, StandardCharsets.UTF_8)) {
+                        cameraPath = CameraPath.read(reader);
+                    }
+                    break;
+                case "-out":
+                    output = value;
+                    break;
+                default:
+                    usage("Unknown option: " + arg);
+            }
+        }
+        if (names.isEmpty()) {
+            names.addAll(SCENARIOS.keySet());
+        }
+    }
+
+    private List<ScenarioReport> runAll() throws InterruptedException {
+        List<ScenarioReport> reports = new ArrayList<>();
+        ForkJoinPool pool = threads > 0 ? new ForkJoinPool(threads) : null;
+        try {
+            for (String name : names) {
+                reports.add(run(name, pool));
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        return reports;
+    }
+
+    private ScenarioReport run(String name, ForkJoinPool pool) throws InterruptedException {
+        System.err.println("Running " + name + ": " + warmupFrames + " warmup frames, " + frames
+                           + " measured frames");
+        ScenarioApplication app = new ScenarioApplication(SCENARIOS.get(name).get(), cameraPath,
+                                                          warmupFrames, frames, nullGL);
+        app.setUpdatePool(pool);
+        app.setPipelined(pipelined);
+        ScenarioReport report = app.run();
+        System.err.printf("%s: median frame %.3f ms%n", name, report.getMedianFrameTime());
+        return report;
+    }
+
+    private void write(List<ScenarioReport> reports, Writer writer) throws IOException {
+        writer.write("{\n");
+        writer.write("  \"java\": \"" + System.getProperty("java.version") + "\",\n");
+        writer.write("  \"warmupFrames\": " + warmupFrames + ",\n");
+        writer.write("  \"updateThreads\": " + threads + ",\n");
+        writer.write("  \"pipelined\": " + pipelined + ",\n");
+        writer.write("  \"scenarios\": [");
+        for (int i = 0; i < reports.size(); i++) {
+            writer.write(i == 0 ? "\n    " : ",\n    ");
+            reports.get(i).writeJson(writer, "    ");
+        }
+        writer.write("\n  ]\n}\n");
+        writer.flush();
+    }
+
+    public static void main(String[] args) throws Exception {
+        ScenarioRunner runner = new ScenarioRunner();
+        runner.parse(args);
+        List<ScenarioReport> reports = runner.runAll();
+        if (runner.output == null) {
+            runner.write(reports, new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        } else {
+            try (Writer writer = new FileWriter(runner.output, StandardCharsets.UTF_8)) {
+                runner.write(reports, writer);
+            }
+        }
+        System.exit(0);
+    }
+}
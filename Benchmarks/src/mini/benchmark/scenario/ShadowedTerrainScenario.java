@@ -0,0 +1,144 @@
+package mini.benchmark.scenario;
+
+import mini.app.SimpleApplication;
+import mini.benchmark.SyntheticInputs;
+import mini.light.DirectionalLight;
+import mini.material.Material;
+import mini.math.ColorRGBA;
+import mini.math.FastMath;
+import mini.math.Vector3f;
+import mini.renderer.queue.RenderQueue;
+import mini.scene.Geometry;
+import mini.scene.Mesh;
+import mini.scene.VertexBuffer;
+import mini.scene.shape.Box;
+import mini.shadow.DirectionalLightShadowRenderer;
+
+import java.util.Random;
+
+/**
+ * A large lit heightfield with boxes standing on it, shadowed by a directional light with
+ * cascaded shadow maps. The shadow maps are rendered every frame from the casters in the view
+ * of each split.
+ */
+public class ShadowedTerrainScenario extends Scenario {
+    private static final int TERRAIN_SIZE = 128;
+    private static final float CELL_SIZE = 2f;
+    private static final int OCCLUDER_COUNT = 300;
+    private static final int SHADOW_MAP_SIZE = 2048;
+    private static final int SHADOW_SPLITS = 4;
+
+    public ShadowedTerrainScenario() {
+        super("shadowedTerrain");
+    }
+
+    private static float height(float x, float z) {
+        return 4f * FastMath.sin(x * 0.05f) * FastMath.cos(z * 0.07f)
+               + 1.5f * FastMath.sin(x * 0.21f + z * 0.13f);
+    }
+
+    /**
+     * Creates a grid of <code>TERRAIN_SIZE</code> by <code>TERRAIN_SIZE</code> quads centered on
+     * the origin, with the heights of {@link #height(float, float)}.
+     */
+    private static Mesh createTerrain() {
+        int verticesPerSide = TERRAIN_SIZE + 1;
+        float offset = TERRAIN_SIZE * CELL_SIZE / 2;
+        float[] positions = new float[verticesPerSide * verticesPerSide * 3];
+        float[] normals = new float[positions.length];
+        float[] texCoords = new float[verticesPerSide * verticesPerSide * 2];
+        for (int z = 0; z < verticesPerSide; z++) {
+            for (int x = 0; x < verticesPerSide; x++) {
+                int vertex = z * verticesPerSide + x;
+                float worldX = x * CELL_SIZE - offset;
+                float worldZ = z * CELL_SIZE - offset;
+                positions[vertex * 3] = worldX;
+                positions[vertex * 3 + 1] = height(worldX, worldZ);
+                positions[vertex * 3 + 2] = worldZ;
+
+                Vector3f normal = new Vector3f(
+                        height(worldX - CELL_SIZE, worldZ) - height(worldX + CELL_SIZE, worldZ),
+                        2 * CELL_SIZE,
+                        height(worldX, worldZ - CELL_SIZE) - height(worldX, worldZ + CELL_SIZE))
+                        .normalizeLocal();
+                normals[vertex * 3] = normal.x;
+                normals[vertex * 3 + 1] = normal.y;
+                normals[vertex * 3 + 2] = normal.z;
+                texCoords[vertex * 2] = (float) x / TERRAIN_SIZE;
+                texCoords[vertex * 2 + 1] = (float) z / TERRAIN_SIZE;
+            }
+        }
+
+        int[] indices = new int[TERRAIN_SIZE * TERRAIN_SIZE * 6];
+        int index = 0;
+        for (int z = 0; z < TERRAIN_SIZE; z++) {
+            for (int x = 0; x < TERRAIN_SIZE; x++) {
+                int topLeft = z * verticesPerSide + x;
+                int bottomLeft = topLeft + verticesPerSide;
+                indices[index++] = topLeft;
+                indices[index++] = bottomLeft;
+                indices[index++] = topLeft + 1;
+                indices[index++] = topLeft + 1;
+                indices[index++] = bottomLeft;
+                indices[index++] = bottomLeft + 1;
+            }
+        }
+
+        Mesh mesh = new Mesh();
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, positions);
+        mesh.setBuffer(VertexBuffer.Type.Normal, 3, normals);
+        mesh.setBuffer(VertexBuffer.Type.TexCoord, 2, texCoords);
+        mesh.setBuffer(VertexBuffer.Type.Index, 3, indices);
+        mesh.updateBound();
+        return mesh;
+    }
+
+    @Override
+    public void setUp(SimpleApplication app) {
+        Random random = SyntheticInputs.random();
+        Material terrainMaterial = new Material(app.getAssetManager(),
+                                                "MatDefs/Light/Lighting.minid");
+        terrainMaterial.setBoolean("UseMaterialColors", true);
+        terrainMaterial.setColor("Diffuse", ColorRGBA.Green);
+
+        Geometry terrain = new Geometry("Terrain", createTerrain());
+        terrain.setMaterial(terrainMaterial);
+        terrain.setShadowMode(RenderQueue.ShadowMode.Receive);
+        app.getRootNode().attachChild(terrain);
+
+        Material boxMaterial = new Material(app.getAssetManager(), "MatDefs/Light/Lighting.minid");
+        boxMaterial.setBoolean("UseMaterialColors", true);
+        boxMaterial.setColor("Diffuse", ColorRGBA.Gray);
+        Box box = new Box(1, 3, 1);
+        float extent = TERRAIN_SIZE * CELL_SIZE / 2 - 4;
+        for (int i = 0; i < OCCLUDER_COUNT; i++) {
+            float x = (random.nextFloat() * 2 - 1) * extent;
+            float z = (random.nextFloat() * 2 - 1) * extent;
+            Geometry occluder = new Geometry("Occluder" + i, box);
+            occluder.setMaterial(boxMaterial);
+            occluder.setLocalTranslation(x, height(x, z) + 3, z);
+            occluder.setShadowMode(RenderQueue.ShadowMode.CastAndReceive);
+            app.getRootNode().attachChild(occluder);
+        }
+
+        DirectionalLight sun = new DirectionalLight(new Vector3f(-0.5f, -1f, -0.3f)
+                                                            .normalizeLocal());
+        app.getRootNode().addLight(sun);
+
+        DirectionalLightShadowRenderer shadowRenderer =
+                new DirectionalLightShadowRenderer(app.getAssetManager(), SHADOW_MAP_SIZE,
+                                                   SHADOW_SPLITS);
+        shadowRenderer.setLight(sun);
+        app.getViewPort().addProcessor(shadowRenderer);
+    }
+
+    @Override
+    public CameraPath getCameraPath() {
+        float extent = TERRAIN_SIZE * CELL_SIZE / 2;
+        return new CameraPath()
+                .add(0, new Vector3f(-extent, 20, -extent), Vector3f.ZERO)
+                .add(8, new Vector3f(0, 8, -extent / 2), new Vector3f(extent, 0, 0))
+                .add(16, new Vector3f(extent / 2, 40, extent / 2), Vector3f.ZERO)
+                .add(24, new Vector3f(-extent, 20, -extent), Vector3f.ZERO);
+    }
+}
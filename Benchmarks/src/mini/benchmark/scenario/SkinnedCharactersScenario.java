@@ -0,0 +1,96 @@
+package mini.benchmark.scenario;
+
+import mini.animation.Animation;
+import mini.animation.AnimationChannel;
+import mini.animation.AnimationControl;
+import mini.animation.BoneTrack;
+import mini.animation.Skeleton;
+import mini.animation.SkeletonControl;
+import mini.animation.presets.HumanoidPreset;
+import mini.app.SimpleApplication;
+import mini.benchmark.SyntheticInputs;
+import mini.material.Material;
+import mini.math.ColorRGBA;
+import mini.math.Quaternion;
+import mini.math.Vector3f;
+import mini.scene.Geometry;
+import mini.scene.Mesh;
+import mini.scene.Node;
+
+import java.util.Random;
+
+/**
+ * A crowd of characters animated on the CPU: every character has a skeleton of its own playing a
+ * looping animation, and a mesh skinned in software every frame.
+ */
+public class SkinnedCharactersScenario extends Scenario {
+    private static final int CHARACTER_COUNT = 50;
+    private static final int ROW_LENGTH = 10;
+    private static final int BONE_COUNT = 20;
+    private static final int CHAIN_LENGTH = 4;
+    private static final int KEYFRAMES = 30;
+    private static final float ANIMATION_LENGTH = 2f;
+
+    public SkinnedCharactersScenario() {
+        super("skinnedCharacters");
+    }
+
+    private static Animation createAnimation(Random random) {
+        HumanoidPreset.HumanoidJoints[] joints = HumanoidPreset.HumanoidJoints.values();
+        Animation animation = new Animation("Walk", ANIMATION_LENGTH);
+        for (int bone = 0; bone < BONE_COUNT; bone++) {
+            float[] times = new float[KEYFRAMES];
+            Vector3f[] translations = new Vector3f[KEYFRAMES];
+            Quaternion[] rotations = new Quaternion[KEYFRAMES];
+            for (int frame = 0; frame < KEYFRAMES; frame++) {
+                times[frame] = ANIMATION_LENGTH * frame / (KEYFRAMES - 1);
+                translations[frame] = new Vector3f(0, 0.5f, 0);
+                rotations[frame] = SyntheticInputs.randomRotation(random);
+            }
+            animation.addTrack(new BoneTrack(bone, joints[bone], times, translations, rotations));
+        }
+        return animation;
+    }
+
+    @Override
+    public void setUp(SimpleApplication app) {
+        Random random = SyntheticInputs.random();
+        Animation animation = createAnimation(random);
+        Material material = new Material(app.getAssetManager(), "MatDefs/Misc/Unshaded.minid");
+        material.setColor("Color", ColorRGBA.Orange);
+
+        for (int i = 0; i < CHARACTER_COUNT; i++) {
+            Skeleton skeleton = SyntheticInputs.createSkeleton(BONE_COUNT, CHAIN_LENGTH, random);
+            Mesh mesh = SyntheticInputs.createSkinnedMesh(16, BONE_COUNT, random);
+            Geometry body = new Geometry("Body", mesh);
+            body.setMaterial(material);
+
+            Node character = new Node("Character" + i);
+            character.attachChild(body);
+            character.setLocalTranslation((i % ROW_LENGTH) * 3f - ROW_LENGTH * 1.5f, 0,
+                                          (i / ROW_LENGTH) * -3f);
+
+            AnimationControl animationControl = new AnimationControl(skeleton);
+            animationControl.addAnimation(animation);
+            character.addControl(animationControl);
+            AnimationChannel channel = animationControl.createChannel();
+            channel.setAnim(animation.getName());
+
+            SkeletonControl skeletonControl = new SkeletonControl(skeleton);
+            skeletonControl.setHardwareSkinningPreferred(false);
+            character.addControl(skeletonControl);
+
+            app.getRootNode().attachChild(character);
+        }
+    }
+
+    @Override
+    public CameraPath getCameraPath() {
+        return new CameraPath()
+                .add(0, new Vector3f(0, 5, 10), new Vector3f(0, 0, -6))
+                .add(5, new Vector3f(-20, 3, -6), new Vector3f(0, 0, -6))
+                .add(10, new Vector3f(0, 10, -25), new Vector3f(0, 0, -6))
+                .add(15, new Vector3f(20, 3, -6), new Vector3f(0, 0, -6))
+                .add(20, new Vector3f(0, 5, 10), new Vector3f(0, 0, -6));
+    }
+}
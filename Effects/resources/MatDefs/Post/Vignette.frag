@@ -0,0 +1,12 @@
+#import "ShaderLib/MultiSample.glsllib"
+#import "MatDefs/Post/Vignette.glsllib"
+
+uniform COLORTEXTURE m_Texture;
+
+in vec2 texCoord;
+
+out vec4 out_color;
+
+void main() {
+    out_color = vignette(getColor(m_Texture, texCoord), texCoord);
+}
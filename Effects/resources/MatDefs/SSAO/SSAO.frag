@@ -0,0 +1,61 @@
+#import "MatDefs/SSAO/SSAO.glsllib"
+
+uniform vec3 m_Samples[SAMPLE_COUNT];
+uniform vec2 m_DepthTexelSize;
+uniform float m_Radius;
+uniform float m_Intensity;
+uniform float m_Bias;
+
+in vec2 texCoord;
+
+out vec4 out_color;
+
+// The normal is reconstructed from the depth, using the neighbour closest in depth on each axis
+// to avoid smearing normals across silhouettes.
+vec3 reconstructNormal(in vec2 uv, in vec3 position) {
+    vec3 right = viewPosition(uv + vec2(m_DepthTexelSize.x, 0.0)) - position;
+    vec3 left = position - viewPosition(uv - vec2(m_DepthTexelSize.x, 0.0));
+    vec3 up = viewPosition(uv + vec2(0.0, m_DepthTexelSize.y)) - position;
+    vec3 down = position - viewPosition(uv - vec2(0.0, m_DepthTexelSize.y));
+
+    vec3 dx = abs(right.z) < abs(left.z) ? right : left;
+    vec3 dy = abs(up.z) < abs(down.z) ? up : down;
+    return normalize(cross(dx, dy));
+}
+
+// Interleaved gradient noise, used to rotate the sample kernel per pixel without a noise texture
+float interleavedGradientNoise(in vec2 fragCoord) {
+    return fract(52.9829189 * fract(dot(fragCoord, vec2(0.06711056, 0.00583715))));
+}
+
+void main() {
+    float depth = texture2D(m_DepthTexture, texCoord * m_DepthScale).r;
+    if (depth >= 1.0) {
+        // Nothing was rendered here, the sky is not occluded
+        out_color = vec4(1.0, m_FrustumNearFar.y, 0.0, 1.0);
+        return;
+    }
+
+    vec3 position = viewPosition(texCoord);
+    vec3 normal = reconstructNormal(texCoord, position);
+
+    float angle = interleavedGradientNoise(gl_FragCoord.xy) * 6.28318530718;
+    vec3 random = vec3(cos(angle), sin(angle), 0.0);
+    vec3 tangent = normalize(random - normal * dot(random, normal));
+    vec3 bitangent = cross(normal, tangent);
+    mat3 tbn = mat3(tangent, bitangent, normal);
+
+    float occlusion = 0.0;
+    for (int i = 0; i < SAMPLE_COUNT; i++) {
+        vec3 samplePosition = position + tbn * m_Samples[i] * m_Radius;
+        float sceneZ = -fetchLinearDepth(projectToScreen(samplePosition));
+
+        float range = smoothstep(0.0, 1.0, m_Radius / abs(position.z - sceneZ));
+        occlusion += (sceneZ >= samplePosition.z + m_Bias ? 1.0 : 0.0) * range;
+    }
+
+    float ao = clamp(1.0 - occlusion / float(SAMPLE_COUNT) * m_Intensity, 0.0, 1.0);
+
+    // The linear depth is kept next to the occlusion for the depth-aware blur and upsampling
+    out_color = vec4(ao, -position.z, 0.0, 1.0);
+}
@@ -0,0 +1,37 @@
+uniform sampler2D m_Texture;
+uniform vec2 m_Direction;
+uniform float m_Sharpness;
+
+in vec2 texCoord;
+
+out vec4 out_color;
+
+const float weights[4] = float[](0.2270270270, 0.1945945946, 0.1216216216, 0.0540540541);
+
+// Samples further away in depth than the center get a lower weight, so the occlusion does not
+// bleed over edges
+float depthWeight(in float sampleDepth, in float centerDepth) {
+    return exp(-abs(sampleDepth - centerDepth) / centerDepth * m_Sharpness);
+}
+
+void main() {
+    vec2 center = texture2D(m_Texture, texCoord).rg;
+
+    float sum = center.r * weights[0];
+    float total = weights[0];
+    for (int i = 1; i < 4; i++) {
+        vec2 offset = m_Direction * float(i);
+
+        vec2 s = texture2D(m_Texture, texCoord + offset).rg;
+        float w = weights[i] * depthWeight(s.g, center.g);
+        sum += s.r * w;
+        total += w;
+
+        s = texture2D(m_Texture, texCoord - offset).rg;
+        w = weights[i] * depthWeight(s.g, center.g);
+        sum += s.r * w;
+        total += w;
+    }
+
+    out_color = vec4(sum / total, center.g, 0.0, 1.0);
+}
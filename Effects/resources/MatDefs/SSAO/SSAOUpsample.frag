@@ -0,0 +1,34 @@
+#import "ShaderLib/MultiSample.glsllib"
+#import "MatDefs/SSAO/SSAO.glsllib"
+
+uniform COLORTEXTURE m_Texture;
+uniform sampler2D m_SSAOMap;
+
+in vec2 texCoord;
+
+out vec4 out_color;
+
+// Bilateral upsampling: the four low resolution texels around the pixel are weighted by their
+// bilinear weight and by how close their depth is to the depth of the pixel.
+float upsampleOcclusion(in float depth) {
+    vec2 size = vec2(textureSize(m_SSAOMap, 0));
+    vec2 position = texCoord * size - 0.5;
+    vec2 base = floor(position);
+    vec2 f = position - base;
+
+    vec4 bilinear = vec4((1.0 - f.x) * (1.0 - f.y), f.x * (1.0 - f.y), (1.0 - f.x) * f.y, f.x * f.y);
+    vec2 s0 = texture2D(m_SSAOMap, (base + vec2(0.5, 0.5)) / size).rg;
+    vec2 s1 = texture2D(m_SSAOMap, (base + vec2(1.5, 0.5)) / size).rg;
+    vec2 s2 = texture2D(m_SSAOMap, (base + vec2(0.5, 1.5)) / size).rg;
+    vec2 s3 = texture2D(m_SSAOMap, (base + vec2(1.5, 1.5)) / size).rg;
+
+    vec4 weights = bilinear / (vec4(0.0001) + abs(vec4(s0.g, s1.g, s2.g, s3.g) - vec4(depth)));
+    float total = dot(weights, vec4(1.0));
+    return dot(weights, vec4(s0.r, s1.r, s2.r, s3.r)) / total;
+}
+
+void main() {
+    vec4 color = getColor(m_Texture, texCoord);
+    float ao = upsampleOcclusion(fetchLinearDepth(texCoord));
+    out_color = vec4(color.rgb * ao, color.a);
+}
@@ -0,0 +1,106 @@
+package mini.post.filters;
+
+import mini.asset.AssetManager;
+import mini.material.Material;
+import mini.post.Filter;
+import mini.post.FilterFunction;
+import mini.renderer.RenderManager;
+import mini.renderer.Renderer;
+import mini.renderer.ViewPort;
+import mini.renderer.queue.RenderQueue;
+import mini.textures.FrameBuffer;
+
+/**
+ * Adjusts brightness, contrast and saturation of the scene. The filter only reads the current
+ * pixel, so it is fused with adjacent per-pixel filters by the <code>FilterPostProcessor</code>.
+ */
+public class ColorGradingFilter extends Filter {
+    private static final FilterFunction FUNCTION = new FilterFunction(
+            "MatDefs/Post/ColorGrading.glsllib", "colorGrading", "Brightness", "Contrast",
+            "Saturation");
+
+    private float brightness = 0.0f;
+    private float contrast = 1.0f;
+    private float saturation = 1.0f;
+
+    public ColorGradingFilter() {
+        super("ColorGradingFilter");
+    }
+
+    @Override
+    public FilterFunction getFilterFunction() {
+        return FUNCTION;
+    }
+
+    @Override
+    public void postFrame(RenderManager renderManager, ViewPort viewPort, FrameBuffer buffer,
+                          FrameBuffer sceneBuffer) {
+    }
+
+    @Override
+    public void postFilter(Renderer renderer, FrameBuffer buffer) {
+    }
+
+    @Override
+    public void postQueue(RenderQueue queue) {
+    }
+
+    @Override
+    public void preFrame(float tpf) {
+    }
+
+    @Override
+    protected void initFilter(AssetManager manager, RenderManager renderManager, ViewPort viewPort,
+                              int width, int height) {
+        material = new Material(manager, "MatDefs/Post/ColorGrading.minid");
+        material.setFloat("Brightness", brightness);
+        material.setFloat("Contrast", contrast);
+        material.setFloat("Saturation", saturation);
+    }
+
+    @Override
+    protected void cleanupFilter(Renderer renderer) {
+    }
+
+    public float getBrightness() {
+        return brightness;
+    }
+
+    /**
+     * @param brightness value added to every color channel, 0 leaves the scene unchanged
+     */
+    public void setBrightness(float brightness) {
+        this.brightness = brightness;
+        if (material != null) {
+            material.setFloat("Brightness", brightness);
+        }
+    }
+
+    public float getContrast() {
+        return contrast;
+    }
+
+    /**
+     * @param contrast scale applied around mid grey, 1 leaves the scene unchanged
+     */
+    public void setContrast(float contrast) {
+        this.contrast = contrast;
+        if (material != null) {
+            material.setFloat("Contrast", contrast);
+        }
+    }
+
+    public float getSaturation() {
+        return saturation;
+    }
+
+    /**
+     * @param saturation 0 for greyscale, 1 leaves the scene unchanged
+     */
+    public void setSaturation(float saturation) {
+        this.saturation = saturation;
+        if (material != null) {
+            material.setFloat("Saturation", saturation);
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package mini.post.filters;
+
+import mini.asset.AssetManager;
+import mini.material.Material;
+import mini.math.FastMath;
+import mini.math.Vector2f;
+import mini.math.Vector3f;
+import mini.post.Filter;
+import mini.post.FilterPostProcessor;
+import mini.renderer.Camera;
+import mini.renderer.RenderManager;
+import mini.renderer.Renderer;
+import mini.renderer.ViewPort;
+import mini.renderer.queue.RenderQueue;
+import mini.shaders.VarType;
+import mini.textures.FrameBuffer;
+import mini.textures.Image;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Screen space ambient occlusion. The occlusion is computed at a reduced resolution from the
+ * depth texture of the {@link FilterPostProcessor}, normals are reconstructed from the depth so no
+ * extra scene pass is needed. The occlusion is then blurred with a depth-aware separable blur and
+ * upsampled with a bilateral filter, to keep edges sharp at the full resolution.
+ * <p>
+ * The cost of the filter is mostly controlled by the {@link Quality}, which selects the number of
+ * samples per pixel and the resolution of the occlusion.
+ */
+public class SSAOFilter extends Filter {
+    /**
+     * Quality presets, trading samples per pixel and occlusion resolution for cost.
+     */
+    public enum Quality {
+        /**
+         * 8 samples at quarter resolution.
+         */
+        Low(8, 4),
+        /**
+         * 12 samples at half resolution.
+         */
+        Medium(12, 2),
+        /**
+         * 16 samples at half resolution.
+         */
+        High(16, 2),
+        /**
+         * 32 samples at half resolution.
+         */
+        Ultra(32, 2);
+
+        private final int sampleCount;
+        private final int downSampling;
+
+        Quality(int sampleCount, int downSampling) {
+            this.sampleCount = sampleCount;
+            this.downSampling = downSampling;
+        }
+
+        public int getSampleCount() {
+            return sampleCount;
+        }
+
+        /**
+         * @return the factor by which the width and height of the occlusion are reduced
+         */
+        public int getDownSampling() {
+            return downSampling;
+        }
+    }
+
+    private static final long KERNEL_SEED = 0x55A0L;
+
+    private AssetManager assetManager;
+    private RenderManager renderManager;
+    private ViewPort viewPort;
+    private int width;
+    private int height;
+
+    private Pass ssaoPass;
+    private Pass horizontalBlurPass;
+    private Pass verticalBlurPass;
+    private Material ssaoMaterial;
+    private Material horizontalBlurMaterial;
+    private Material verticalBlurMaterial;
+
+    private Quality quality = Quality.Medium;
+    private float radius = 1.0f;
+    private float intensity = 1.0f;
+    private float bias = 0.025f;
+    private float sharpness = 8.0f;
+
+    private final Vector2f frustumNearFar = new Vector2f();
+    private final Vector2f projectionScale = new Vector2f();
+    private final Vector2f depthScale = new Vector2f(1f, 1f);
+    private final Vector2f depthTexelSize = new Vector2f();
+
+    public SSAOFilter() {
+        super("SSAOFilter");
+    }
+
+    public SSAOFilter(Quality quality) {
+        this();
+        this.quality = quality;
+    }
+
+    @Override
+    public boolean isRequiresDepthTexture() {
+        return true;
+    }
+
+    @Override
+    public void postFrame(RenderManager renderManager, ViewPort viewPort, FrameBuffer buffer,
+                          FrameBuffer sceneBuffer) {
+    }
+
+    @Override
+    public void postFilter(Renderer renderer, FrameBuffer buffer) {
+    }
+
+    @Override
+    public void postQueue(RenderQueue queue) {
+    }
+
+    @Override
+    public void preFrame(float tpf) {
+    }
+
+    @Override
+    protected void initFilter(AssetManager manager, RenderManager renderManager, ViewPort viewPort,
+                              int width, int height) {
+        this.assetManager = manager;
+        this.renderManager = renderManager;
+        this.viewPort = viewPort;
+        this.width = width;
+        this.height = height;
+
+        material = new Material(manager, "MatDefs/SSAO/SSAOUpsample.minid");
+        initPasses();
+    }
+
+    private void initPasses() {
+        Renderer renderer = renderManager.getRenderer();
+        int ssaoWidth = Math.max(1, width / quality.getDownSampling());
+        int ssaoHeight = Math.max(1, height / quality.getDownSampling());
+
+        ssaoMaterial = new Material(assetManager, "MatDefs/SSAO/SSAO.minid");
+        ssaoMaterial.setInt("SampleCount", quality.getSampleCount());
+        ssaoMaterial.setParam("Samples", VarType.Vector3fArray,
+                              createKernel(quality.getSampleCount()));
+        ssaoMaterial.setFloat("Radius", radius);
+        ssaoMaterial.setFloat("Intensity", intensity);
+        ssaoMaterial.setFloat("Bias", bias);
+        ssaoPass = new Pass("SSAO") {
+            @Override
+            public boolean requiresDepthAsTexture() {
+                return true;
+            }
+
+            @Override
+            public void beforeRender() {
+                updateProjection();
+            }
+        };
+        ssaoPass.init(renderer, ssaoWidth, ssaoHeight, Image.Format.RGBA16F, Image.Format.Depth,
+                      1, ssaoMaterial);
+
+        horizontalBlurMaterial = new Material(assetManager, "MatDefs/SSAO/SSAOBlur.minid");
+        horizontalBlurMaterial.setTexture("Texture", ssaoPass.getRenderedTexture());
+        horizontalBlurMaterial.setVector2("Direction", new Vector2f(1f / ssaoWidth, 0f));
+        horizontalBlurMaterial.setFloat("Sharpness", sharpness);
+        horizontalBlurPass = new Pass("SSAO Horizontal Blur");
+        horizontalBlurPass.init(renderer, ssaoWidth, ssaoHeight, Image.Format.RGBA16F,
+                                Image.Format.Depth, 1, horizontalBlurMaterial);
+
+        verticalBlurMaterial = new Material(assetManager, "MatDefs/SSAO/SSAOBlur.minid");
+        verticalBlurMaterial.setTexture("Texture", horizontalBlurPass.getRenderedTexture());
+        verticalBlurMaterial.setVector2("Direction", new Vector2f(0f, 1f / ssaoHeight));
+        verticalBlurMaterial.setFloat("Sharpness", sharpness);
+        verticalBlurPass = new Pass("SSAO Vertical Blur");
+        verticalBlurPass.init(renderer, ssaoWidth, ssaoHeight, Image.Format.RGBA16F,
+                              Image.Format.Depth, 1, verticalBlurMaterial);
+
+        postRenderPasses = new ArrayList<>();
+        postRenderPasses.add(ssaoPass);
+        postRenderPasses.add(horizontalBlurPass);
+        postRenderPasses.add(verticalBlurPass);
+
+        material.setTexture("SSAOMap", verticalBlurPass.getRenderedTexture());
+    }
+
+    /**
+     * Creates the sample kernel, points in the hemisphere around the z axis. Samples are scaled so
+     * that more of them are close to the center, where occlusion matters most.
+     */
+    private static Vector3f[] createKernel(int sampleCount) {
+        Random random = new Random(KERNEL_SEED);
+        Vector3f[] kernel = new Vector3f[sampleCount];
+        for (int i = 0; i < sampleCount; i++) {
+            Vector3f sample = new Vector3f(random.nextFloat() * 2f - 1f,
+                                           random.nextFloat() * 2f - 1f,
+                                           random.nextFloat()).normalizeLocal();
+            float scale = (float) i / sampleCount;
+            scale = FastMath.interpolateLinear(scale * scale, 0.1f, 1f);
+            kernel[i] = sample.multLocal(random.nextFloat() * scale);
+        }
+        return kernel;
+    }
+
+    private void updateProjection() {
+        Camera camera = viewPort.getCamera();
+        float near = camera.getFrustumNear();
+        frustumNearFar.set(near, camera.getFrustumFar());
+        projectionScale.set(camera.getFrustumRight() / near, camera.getFrustumTop() / near);
+
+        FilterPostProcessor processor = getProcessor();
+        if (processor != null) {
+            processor.getSceneTextureScale(depthScale);
+        }
+        depthTexelSize.set(1f / (width * depthScale.x), 1f / (height * depthScale.y));
+
+        ssaoMaterial.setVector2("FrustumNearFar", frustumNearFar);
+        ssaoMaterial.setVector2("ProjectionScale", projectionScale);
+        ssaoMaterial.setVector2("DepthScale", depthScale);
+        ssaoMaterial.setVector2("DepthTexelSize", depthTexelSize);
+
+        material.setVector2("FrustumNearFar", frustumNearFar);
+        material.setVector2("ProjectionScale", projectionScale);
+        material.setVector2("DepthScale", depthScale);
+    }
+
+    private void cleanupPasses(Renderer renderer) {
+        if (postRenderPasses == null) {
+            return;
+        }
+        for (Pass pass : postRenderPasses) {
+            pass.cleanup(renderer);
+        }
+        postRenderPasses = null;
+    }
+
+    @Override
+    protected void cleanupFilter(Renderer renderer) {
+        cleanupPasses(renderer);
+    }
+
+    public Quality getQuality() {
+        return quality;
+    }
+
+    /**
+     * Sets the quality preset, the occlusion passes are recreated if the filter is initialized.
+     *
+     * @param quality the quality preset
+     */
+    public void setQuality(Quality quality) {
+        if (this.quality == quality) {
+            return;
+        }
+        this.quality = quality;
+        if (postRenderPasses != null) {
+            cleanupPasses(renderManager.getRenderer());
+            initPasses();
+        }
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+
+    /**
+     * @param radius the radius of the sampled hemisphere, in world units
+     */
+    public void setRadius(float radius) {
+        this.radius = radius;
+        if (ssaoMaterial != null) {
+            ssaoMaterial.setFloat("Radius", radius);
+        }
+    }
+
+    public float getIntensity() {
+        return intensity;
+    }
+
+    public void setIntensity(float intensity) {
+        this.intensity = intensity;
+        if (ssaoMaterial != null) {
+            ssaoMaterial.setFloat("Intensity", intensity);
+        }
+    }
+
+    public float getBias() {
+        return bias;
+    }
+
+    /**
+     * @param bias the depth difference below which a sample does not occlude, avoids self
+     *             occlusion on flat surfaces
+     */
+    public void setBias(float bias) {
+        this.bias = bias;
+        if (ssaoMaterial != null) {
+            ssaoMaterial.setFloat("Bias", bias);
+        }
+    }
+
+    public float getSharpness() {
+        return sharpness;
+    }
+
+    /**
+     * @param sharpness how strongly the blur avoids mixing occlusion across depth discontinuities
+     */
+    public void setSharpness(float sharpness) {
+        this.sharpness = sharpness;
+        if (horizontalBlurMaterial != null) {
+            horizontalBlurMaterial.setFloat("Sharpness", sharpness);
+            verticalBlurMaterial.setFloat("Sharpness", sharpness);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package mini.post.filters;
+
+import mini.asset.AssetManager;
+import mini.material.Material;
+import mini.math.ColorRGBA;
+import mini.post.Filter;
+import mini.post.FilterFunction;
+import mini.renderer.RenderManager;
+import mini.renderer.Renderer;
+import mini.renderer.ViewPort;
+import mini.renderer.queue.RenderQueue;
+import mini.textures.FrameBuffer;
+
+/**
+ * Darkens the borders of the screen. The filter only reads the current pixel, so it is fused with
+ * adjacent per-pixel filters by the <code>FilterPostProcessor</code>.
+ */
+public class VignetteFilter extends Filter {
+    private static final FilterFunction FUNCTION = new FilterFunction(
+            "MatDefs/Post/Vignette.glsllib", "vignette", "VignetteColor", "VignetteRadius",
+            "VignetteSoftness");
+
+    private ColorRGBA color = new ColorRGBA(0, 0, 0, 1);
+    private float radius = 0.75f;
+    private float softness = 0.45f;
+
+    public VignetteFilter() {
+        super("VignetteFilter");
+    }
+
+    @Override
+    public FilterFunction getFilterFunction() {
+        return FUNCTION;
+    }
+
+    @Override
+    public void postFrame(RenderManager renderManager, ViewPort viewPort, FrameBuffer buffer,
+                          FrameBuffer sceneBuffer) {
+    }
+
+    @Override
+    public void postFilter(Renderer renderer, FrameBuffer buffer) {
+    }
+
+    @Override
+    public void postQueue(RenderQueue queue) {
+    }
+
+    @Override
+    public void preFrame(float tpf) {
+    }
+
+    @Override
+    protected void initFilter(AssetManager manager, RenderManager renderManager, ViewPort viewPort,
+                              int width, int height) {
+        material = new Material(manager, "MatDefs/Post/Vignette.minid");
+        material.setColor("VignetteColor", color);
+        material.setFloat("VignetteRadius", radius);
+        material.setFloat("VignetteSoftness", softness);
+    }
+
+    @Override
+    protected void cleanupFilter(Renderer renderer) {
+    }
+
+    public ColorRGBA getColor() {
+        return color;
+    }
+
+    public void setColor(ColorRGBA color) {
+        this.color = color;
+        if (material != null) {
+            material.setColor("VignetteColor", color);
+        }
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+
+    /**
+     * @param radius distance from the center of the screen where the darkening ends
+     */
+    public void setRadius(float radius) {
+        this.radius = radius;
+        if (material != null) {
+            material.setFloat("VignetteRadius", radius);
+        }
+    }
+
+    public float getSoftness() {
+        return softness;
+    }
+
+    /**
+     * @param softness width of the transition between the scene and the vignette color
+     */
+    public void setSoftness(float softness) {
+        this.softness = softness;
+        if (material != null) {
+            material.setFloat("VignetteSoftness", softness);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package mini.animation;
+
+import mini.animation.presets.HumanoidPreset.HumanoidJoints;
+import mini.math.FastMath;
+import mini.math.Quaternion;
+import mini.math.Vector3f;
+import mini.utils.TempVars;
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the error and the size of the tracks compressed by {@link AnimationCompressor}.
+ */
+public class AnimationCompressorTest {
+    private static final float LENGTH = 10;
+    private static final int KEYFRAMES = 301;
+
+    /**
+     * A track resampled at 30 frames per second from smooth curves, as imported from FBX.
+     */
+    private static BoneTrack createResampledTrack() {
+        float[] times = new float[KEYFRAMES];
+        Vector3f[] translations = new Vector3f[KEYFRAMES];
+        Quaternion[] rotations = new Quaternion[KEYFRAMES];
+        Vector3f[] scales = new Vector3f[KEYFRAMES];
+        for (int i = 0; i < KEYFRAMES; i++) {
+            float time = LENGTH * i / (KEYFRAMES - 1);
+            times[i] = time;
+            translations[i] = new Vector3f(FastMath.sin(time), 0.5f * FastMath.cos(time * 0.7f),
+                                           0.1f * time);
+            rotations[i] = new Quaternion().fromAngles(0.8f * FastMath.sin(time * 1.3f),
+                                                       time * 0.5f,
+                                                       0.3f * FastMath.cos(time));
+            scales[i] = new Vector3f(1, 1, 1);
+        }
+        return new BoneTrack(0, HumanoidJoints.values()[0], times, translations, rotations,
+                             scales);
+    }
+
+    private static Skeleton createSkeleton() {
+        Bone bone = new Bone("Root");
+        Skeleton skeleton = new Skeleton(new Bone[]{bone});
+        Map<HumanoidJoints, Bone> joints = new EnumMap<>(HumanoidJoints.class);
+        joints.put(HumanoidJoints.values()[0], bone);
+        skeleton.setJointsBoneMap(joints);
+        return skeleton;
+    }
+
+    /**
+     * @return the largest error of the compressed track, translation then rotation in radians
+     */
+    private static float[] measureError(BoneTrack original, BoneTrack compressed,
+                                        float[] sampleTimes) {
+        Bone expected = createSkeleton().getBone(0);
+        Bone actual = createSkeleton().getBone(0);
+        AnimationChannel channel = new AnimationControl().createChannel();
+        float[] error = new float[2];
+        try (TempVars vars = TempVars.get()) {
+            for (float time : sampleTimes) {
+                expected.reset();
+                original.setTime(time, 1, channel, expected, -1, vars);
+                expected.update();
+                actual.reset();
+                compressed.setTime(time, 1, channel, actual, -1, vars);
+                actual.update();
+
+                error[0] = Math.max(error[0], expected.getModelSpacePosition()
+                                                      .distance(actual.getModelSpacePosition()));
+                float dot = Math.abs(expected.getModelSpaceRotation()
+                                             .dot(actual.getModelSpaceRotation()));
+                error[1] = Math.max(error[1], 2 * FastMath.acos(Math.min(1, dot)));
+            }
+        }
+        return error;
+    }
+
+    @Test
+    public void testResampledTrackShrinksWithinTolerance() {
+        BoneTrack original = createResampledTrack();
+        AnimationCompressor compressor = new AnimationCompressor();
+        BoneTrack compressed = compressor.compress(original);
+
+        assertTrue(compressed.isCompressed());
+        assertTrue("Only " + compressed.getTimes().length + " keyframes removed",
+                   compressed.getTimes().length < KEYFRAMES / 2);
+        float ratio = original.getDataSize() / (float) compressed.getDataSize();
+        assertTrue("Compressed " + ratio + " times", ratio > 4);
+
+        float[] error = measureError(original, compressed, original.getTimes());
+        assertTrue("Translation error " + error[0],
+                   error[0] <= compressor.getTranslationTolerance() * 1.01f);
+        assertTrue("Rotation error " + error[1],
+                   error[1] <= compressor.getRotationTolerance() * 1.01f + 1e-4f);
+
+        // Between the keyframes, the original track is interpolated too
+        float[] sampleTimes = new float[1000];
+        for (int i = 0; i < sampleTimes.length; i++) {
+            sampleTimes[i] = LENGTH * (i + 0.5f) / sampleTimes.length;
+        }
+        error = measureError(original, compressed, sampleTimes);
+        assertTrue("Translation error " + error[0],
+                   error[0] <= 2 * compressor.getTranslationTolerance());
+        assertTrue("Rotation error " + error[1], error[1] <= 2 * compressor.getRotationTolerance());
+    }
+
+    @Test
+    public void testQuantizedRotations() {
+        Random random = new Random(3);
+        Quaternion[] rotations = new Quaternion[1000];
+        for (int i = 0; i < rotations.length; i++) {
+            rotations[i] = new Quaternion(random.nextFloat() * 2 - 1, random.nextFloat() * 2 - 1,
+                                          random.nextFloat() * 2 - 1,
+                                          random.nextFloat() * 2 - 1).normalizeLocal();
+        }
+        // Both signs of a rotation
+        rotations[0] = new Quaternion(0, 0, 0, -1);
+        rotations[1] = new Quaternion(0, -1, 0, 0);
+
+        QuantizedQuaternionArray quantized = new QuantizedQuaternionArray(rotations);
+        Quaternion decoded = new Quaternion();
+        for (int i = 0; i < rotations.length; i++) {
+            quantized.get(i, decoded);
+            assertEquals(1, decoded.norm(), 1e-4f);
+            // acos is too coarse near 1, the components are compared with the same sign
+            Quaternion expected = rotations[i];
+            float sign = decoded.dot(expected) < 0 ? -1 : 1;
+            assertEquals(expected.getX(), sign * decoded.getX(), 1e-4f);
+            assertEquals(expected.getY(), sign * decoded.getY(), 1e-4f);
+            assertEquals(expected.getZ(), sign * decoded.getZ(), 1e-4f);
+            assertEquals(expected.getW(), sign * decoded.getW(), 1e-4f);
+        }
+    }
+
+    @Test
+    public void testConstantTrack() {
+        Vector3f[] translations = new Vector3f[60];
+        Quaternion[] rotations = new Quaternion[60];
+        float[] times = new float[60];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = i / 30f;
+            translations[i] = new Vector3f(1, 2, 3);
+            rotations[i] = new Quaternion().fromAngles(0.1f, 0.2f, 0.3f);
+        }
+        BoneTrack original = new BoneTrack(0, HumanoidJoints.values()[0], times, translations,
+                                           rotations);
+        AnimationCompressor compressor = new AnimationCompressor();
+        BoneTrack compressed = compressor.compress(original);
+
+        assertEquals(2, compressed.getTimes().length);
+        assertEquals(new Vector3f(1, 2, 3), compressed.getTranslations()[1]);
+        assertSame(compressed, compressor.compress(compressed));
+        BoneTrack clone = compressed.clone();
+        assertNotSame(compressed, clone);
+        assertTrue(clone.isCompressed());
+    }
+
+    @Test
+    public void testCompressedAnimationPlays() {
+        Animation animation = new Animation("Walk", LENGTH);
+        BoneTrack original = createResampledTrack();
+        animation.addTrack(original);
+        new AnimationCompressor().compress(animation);
+        assertTrue(((BoneTrack) animation.getTrack(0)).isCompressed());
+
+        Skeleton skeleton = createSkeleton();
+        AnimationControl control = new AnimationControl(skeleton);
+        control.addAnimation(animation);
+        AnimationChannel channel = control.createChannel();
+        channel.setAnim("Walk");
+        for (int i = 0; i < 100; i++) {
+            control.update(1 / 60f);
+        }
+        assertTrue(skeleton.getBone(0).getModelSpacePosition().x > 0);
+    }
+}
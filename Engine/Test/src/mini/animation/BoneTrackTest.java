@@ -0,0 +1,183 @@
+package mini.animation;
+
+import mini.animation.presets.HumanoidPreset.HumanoidJoints;
+import mini.math.Quaternion;
+import mini.math.Vector3f;
+import mini.utils.TempVars;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the sampling of {@link BoneTrack} with the keyframes kept by the channels against
+ * scanning the keyframes from the first one at every sample.
+ */
+public class BoneTrackTest {
+    private static final int KEYFRAMES = 40;
+
+    private final Random random = new Random(5);
+    private float[] times;
+    private Vector3f[] translations;
+    private Quaternion[] rotations;
+    private Vector3f[] scales;
+    private BoneTrack track;
+    private Animation animation;
+
+    @Before
+    public void setUp() {
+        times = new float[KEYFRAMES];
+        translations = new Vector3f[KEYFRAMES];
+        rotations = new Quaternion[KEYFRAMES];
+        scales = new Vector3f[KEYFRAMES];
+        float time = 0.25f;
+        for (int i = 0; i < KEYFRAMES; i++) {
+            times[i] = time;
+            time += 0.01f + random.nextFloat() * 0.1f;
+            translations[i] = new Vector3f(random.nextFloat(), random.nextFloat(),
+                                           random.nextFloat());
+            rotations[i] = new Quaternion().fromAngles(random.nextFloat() * 3,
+                                                       random.nextFloat() * 3,
+                                                       random.nextFloat() * 3);
+            scales[i] = new Vector3f(1 + random.nextFloat(), 1, 1 - random.nextFloat() / 2);
+        }
+        track = new BoneTrack(1, HumanoidJoints.values()[1], times, translations, rotations,
+                              scales);
+        animation = new Animation("Test", times[KEYFRAMES - 1]);
+        animation.addTrack(track);
+    }
+
+    private static Skeleton createSkeleton() {
+        Bone root = new Bone("Root");
+        Bone child = new Bone("Child");
+        child.setBindTransforms(new Vector3f(0, 1, 0), Quaternion.IDENTITY, Vector3f.UNIT_XYZ);
+        root.addChild(child);
+        Skeleton skeleton = new Skeleton(new Bone[]{root, child});
+        Map<HumanoidJoints, Bone> joints = new EnumMap<>(HumanoidJoints.class);
+        joints.put(HumanoidJoints.values()[0], root);
+        joints.put(HumanoidJoints.values()[1], child);
+        skeleton.setJointsBoneMap(joints);
+        return skeleton;
+    }
+
+    /**
+     * Samples the keyframes by scanning them from the first one, as the track did before
+     * keeping the keyframes.
+     */
+    private void sampleByScan(float time, Bone target) {
+        Vector3f translation = new Vector3f();
+        Quaternion rotation = new Quaternion();
+        Vector3f scale = new Vector3f();
+        int lastFrame = times.length - 1;
+        if (time < 0) {
+            translation.set(translations[0]);
+            rotation.set(rotations[0]);
+            scale.set(scales[0]);
+        } else if (time >= times[lastFrame]) {
+            translation.set(translations[lastFrame]);
+            rotation.set(rotations[lastFrame]);
+            scale.set(scales[lastFrame]);
+        } else {
+            int startFrame = 0;
+            int endFrame = 1;
+            for (int i = 0; i < lastFrame && times[i] < time; i++) {
+                startFrame = i;
+                endFrame = i + 1;
+            }
+            float blend = (time - times[startFrame]) / (times[endFrame] - times[startFrame]);
+            rotation.set(rotations[startFrame]).nlerp(rotations[endFrame], blend);
+            translation.set(translations[startFrame]).interpolateLocal(translations[endFrame],
+                                                                       blend);
+            scale.set(scales[startFrame]).interpolateLocal(scales[endFrame], blend);
+        }
+        target.blendAnimTransforms(translation, rotation, scale, 1);
+    }
+
+    private static void assertSameTransforms(Skeleton expected, Skeleton actual, float time) {
+        Bone expectedBone = expected.getBone(1);
+        Bone actualBone = actual.getBone(1);
+        String message = "At " + time;
+        assertEquals(message, expectedBone.getModelSpacePosition(),
+                     actualBone.getModelSpacePosition());
+        Quaternion expectedRotation = expectedBone.getModelSpaceRotation();
+        Quaternion actualRotation = actualBone.getModelSpaceRotation();
+        assertEquals(message, Float.floatToIntBits(expectedRotation.getX()),
+                     Float.floatToIntBits(actualRotation.getX()));
+        assertEquals(message, Float.floatToIntBits(expectedRotation.getY()),
+                     Float.floatToIntBits(actualRotation.getY()));
+        assertEquals(message, Float.floatToIntBits(expectedRotation.getZ()),
+                     Float.floatToIntBits(actualRotation.getZ()));
+        assertEquals(message, Float.floatToIntBits(expectedRotation.getW()),
+                     Float.floatToIntBits(actualRotation.getW()));
+    }
+
+    private void assertSamples(float[] sampleTimes) {
+        Skeleton expected = createSkeleton();
+        Skeleton actual = createSkeleton();
+        Skeleton seeking = createSkeleton();
+        AnimationControl control = new AnimationControl(actual);
+        AnimationControl seekingControl = new AnimationControl(seeking);
+        AnimationChannel channel = control.createChannel();
+        AnimationChannel seekingChannel = seekingControl.createChannel();
+        int[] frames = {-1};
+
+        try (TempVars vars = TempVars.get()) {
+            for (float time : sampleTimes) {
+                expected.reset();
+                sampleByScan(time, expected.getBone(1));
+                expected.updateWorldVectors();
+
+                actual.reset();
+                animation.setTime(time, 1, control, channel, frames, vars);
+                actual.updateWorldVectors();
+                assertSameTransforms(expected, actual, time);
+
+                seeking.reset();
+                track.setTime(time, 1, seekingControl, seekingChannel, vars);
+                seeking.updateWorldVectors();
+                assertSameTransforms(expected, seeking, time);
+            }
+        }
+    }
+
+    @Test
+    public void testForwardPlayback() {
+        float[] sampleTimes = new float[600];
+        for (int i = 0; i < sampleTimes.length; i++) {
+            // Wraps around, the times before the first keyframe included
+            sampleTimes[i] = (i / 60f) % (times[KEYFRAMES - 1] + 0.2f);
+        }
+        assertSamples(sampleTimes);
+    }
+
+    @Test
+    public void testSeeks() {
+        float[] sampleTimes = new float[500];
+        for (int i = 0; i < sampleTimes.length; i++) {
+            sampleTimes[i] = random.nextFloat() * (times[KEYFRAMES - 1] + 1) - 0.5f;
+        }
+        // The keyframes themselves, backwards
+        for (int i = 0; i < KEYFRAMES; i++) {
+            sampleTimes[i] = times[KEYFRAMES - 1 - i];
+        }
+        assertSamples(sampleTimes);
+    }
+
+    @Test
+    public void testBonesBoundOncePerSkeleton() {
+        AnimationControl control = new AnimationControl(createSkeleton());
+        int[] boneIndices = control.getBoneIndices(animation);
+        assertEquals(1, boneIndices.length);
+        assertEquals(1, boneIndices[0]);
+        assertEquals(boneIndices, control.getBoneIndices(animation));
+
+        Skeleton other = createSkeleton();
+        other.getJointsBoneMap().put(HumanoidJoints.values()[1], other.getBone(0));
+        control.setSkeleton(other);
+        assertEquals(0, control.getBoneIndices(animation)[0]);
+    }
+}
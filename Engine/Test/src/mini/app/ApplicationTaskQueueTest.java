@@ -0,0 +1,142 @@
+package mini.app;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ApplicationTaskQueueTest {
+    private LegacyApplication app;
+
+    @Before
+    public void setUp() {
+        app = new LegacyApplication();
+        app.inputEnabled = false;
+    }
+
+    @Test
+    public void testTasksRunOnUpdate() throws Exception {
+        List<Integer> order = new ArrayList<>();
+        Future<String> result = app.enqueue(() -> "Done");
+        Future<?> first = app.enqueue(() -> order.add(1));
+        Future<?> second = app.enqueue(() -> order.add(2));
+        assertEquals(3, app.getPendingTaskCount());
+        assertFalse(result.isDone());
+
+        app.update();
+        assertEquals(0, app.getPendingTaskCount());
+        assertEquals("Done", result.get());
+        assertTrue(first.isDone() && second.isDone());
+        assertEquals(List.of(1, 2), order);
+    }
+
+    @Test
+    public void testFailure() throws InterruptedException {
+        Future<Object> failing = app.enqueue(() -> {
+            throw new IllegalStateException("Failed");
+        });
+        AtomicInteger runs = new AtomicInteger();
+        app.enqueue(runs::incrementAndGet);
+
+        app.update();
+        assertEquals(1, runs.get());
+        try {
+            failing.get();
+            fail("The failure of the task was not reported");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testTasksEnqueuedByTasksRunNextFrame() {
+        AtomicInteger runs = new AtomicInteger();
+        app.enqueue(() -> {
+            runs.incrementAndGet();
+            app.enqueue(runs::incrementAndGet);
+        });
+
+        app.update();
+        assertEquals(1, runs.get());
+        assertEquals(1, app.getPendingTaskCount());
+        app.update();
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void testBudget() {
+        app.setTaskBudget(5);
+        assertEquals(5, app.getTaskBudget(), 0.0001f);
+        AtomicInteger runs = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            app.enqueue(() -> {
+                sleep(2);
+                runs.incrementAndGet();
+            });
+        }
+
+        app.update();
+        assertTrue(runs.get() >= 1 && runs.get() < 10);
+        assertEquals(10 - runs.get(), app.getPendingTaskCount());
+        for (int frame = 0; frame < 10 && app.getPendingTaskCount() > 0; frame++) {
+            app.update();
+        }
+        assertEquals(10, runs.get());
+        assertEquals(0, app.getPendingTaskCount());
+    }
+
+    @Test
+    public void testTasksRunWhilePaused() {
+        app.paused = true;
+        AtomicInteger runs = new AtomicInteger();
+        app.enqueue(runs::incrementAndGet);
+        app.update();
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testConcurrentEnqueue() throws Exception {
+        int threads = 4;
+        int tasksPerThread = 1000;
+        AtomicInteger runs = new AtomicInteger();
+        Thread updateThread = Thread.currentThread();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < tasksPerThread; i++) {
+                    app.enqueue(() -> {
+                        assertSame(updateThread, Thread.currentThread());
+                        runs.incrementAndGet();
+                    });
+                }
+                done.countDown();
+            }).start();
+        }
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            app.update();
+        }
+        app.update();
+        assertEquals(threads * tasksPerThread, runs.get());
+        assertEquals(0, app.getPendingTaskCount());
+    }
+
+    private static void sleep(long milliseconds) {
+        try {
+            Thread.sleep(milliseconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package mini.app;
+
+import mini.post.FilterPostProcessor;
+import mini.system.TestUtil;
+import mini.system.time.Timer;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Drives {@link DynamicResolutionAppState} with synthetic frame times and checks the render scale
+ * it chooses.
+ */
+public class DynamicResolutionAppStateTest {
+    private static final float TARGET = 1f / 60f;
+    private static final float EPSILON = 1e-4f;
+
+    /**
+     * Reports the frame time set by the test.
+     */
+    private static class SyntheticTimer implements Timer {
+        private float frameTime = TARGET;
+        private long time;
+
+        @Override
+        public void update() {
+            time += (long) (frameTime * getResolution());
+        }
+
+        @Override
+        public float getTimePerFrame() {
+            return frameTime;
+        }
+
+        @Override
+        public void reset() {
+            time = 0;
+        }
+
+        @Override
+        public float getResolution() {
+            return 1000000000f;
+        }
+
+        @Override
+        public long getTime() {
+            return time;
+        }
+    }
+
+    private final SyntheticTimer timer = new SyntheticTimer();
+    private FilterPostProcessor processor;
+    private DynamicResolutionAppState state;
+
+    @Before
+    public void setUp() {
+        processor = new FilterPostProcessor(TestUtil.createAssetManager());
+        state = new DynamicResolutionAppState(processor, TARGET, timer);
+        // Every frame counts fully and the scale can change every frame
+        state.setSmoothing(1f);
+        state.setCooldownFrames(0);
+        state.initialize(null, null);
+        // The first frame is not measured
+        state.update(0f);
+    }
+
+    private void runFrames(float frameTime, int frames) {
+        timer.frameTime = frameTime;
+        for (int i = 0; i < frames; i++) {
+            state.update(frameTime);
+        }
+    }
+
+    private void assertScale(float expected) {
+        assertEquals(expected, state.getScale(), EPSILON);
+        assertEquals(expected, processor.getRenderScale(), EPSILON);
+    }
+
+    @Test
+    public void testSlowFramesStepDownToMinimum() {
+        assertScale(1f);
+        // Twice the target, the scale steps down by at most 0.1 per frame
+        for (int i = 1; i <= 5; i++) {
+            runFrames(TARGET * 2, 1);
+            assertScale(1f - i * 0.1f);
+        }
+        runFrames(TARGET * 2, 10);
+        assertScale(0.5f);
+
+        state.setScaleBounds(0.3f, 1f);
+        runFrames(TARGET * 2, 1);
+        assertScale(0.4f);
+        runFrames(TARGET * 2, 10);
+        assertScale(0.3f);
+    }
+
+    @Test
+    public void testFastFramesStepUpToMaximum() {
+        runFrames(TARGET * 2, 10);
+        assertScale(0.5f);
+
+        state.setScaleBounds(0.5f, 0.8f);
+        for (int i = 1; i <= 3; i++) {
+            runFrames(TARGET / 2, 1);
+            assertScale(0.5f + i * 0.1f);
+        }
+        runFrames(TARGET / 2, 10);
+        assertScale(0.8f);
+    }
+
+    @Test
+    public void testScaleFollowsPixelCount() {
+        runFrames(TARGET * 2, 10);
+        state.setMaxStep(1f);
+        // The cost follows the number of pixels: at 0.5 with a quarter of the target frame time,
+        // the scale doubles
+        runFrames(TARGET / 4, 1);
+        assertScale(1f);
+        runFrames(TARGET * 4, 1);
+        assertScale(0.5f);
+    }
+
+    @Test
+    public void testHysteresis() {
+        runFrames(TARGET * 1.09f, 20);
+        assertScale(1f);
+        runFrames(TARGET * 1.11f, 1);
+        assertScale(1f / (float) Math.sqrt(1.11f));
+        float scale = state.getScale();
+        runFrames(TARGET * 0.91f, 20);
+        assertScale(scale);
+    }
+
+    @Test
+    public void testCooldown() {
+        state.setCooldownFrames(3);
+        runFrames(TARGET * 2, 1);
+        assertScale(0.9f);
+        runFrames(TARGET * 2, 3);
+        assertScale(0.9f);
+        runFrames(TARGET * 2, 1);
+        assertScale(0.8f);
+    }
+
+    @Test
+    public void testDisabledRestoresMaximum() {
+        state.setScaleBounds(0.5f, 0.9f);
+        runFrames(TARGET * 2, 10);
+        assertScale(0.5f);
+        state.setEnabled(false);
+        assertScale(0.9f);
+    }
+}
@@ -0,0 +1,229 @@
+package mini.app;
+
+import mini.app.state.AbstractApplicationState;
+import mini.app.state.ApplicationState;
+import mini.app.state.ApplicationStateManager;
+import mini.post.SceneProcessor;
+import mini.renderer.Camera;
+import mini.renderer.RenderManager;
+import mini.renderer.ViewPort;
+import mini.renderer.queue.RenderQueue;
+import mini.scene.Geometry;
+import mini.scene.shape.Box;
+import mini.system.NullContext;
+import mini.system.NullRenderer;
+import mini.textures.FrameBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PipelinedApplicationTest {
+    private TestApplication app;
+
+    @Before
+    public void setUp() {
+        app = new TestApplication();
+    }
+
+    @After
+    public void tearDown() {
+        app.setPipelined(false);
+        app.update();
+    }
+
+    @Test
+    public void testUpdateOnSimulationThread() {
+        app.setPipelined(true);
+        assertTrue(app.isPipelined());
+        Thread renderThread = Thread.currentThread();
+        List<Thread> taskThreads = Collections.synchronizedList(new ArrayList<>());
+
+        for (int i = 0; i < 5; i++) {
+            app.enqueue(() -> taskThreads.add(Thread.currentThread()));
+            app.update();
+        }
+        // Waits for the last update
+        app.setPipelined(false);
+        app.update();
+
+        assertEquals(6, app.updateThreads.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("Simulation", app.updateThreads.get(i).getName());
+        }
+        assertSame(renderThread, app.updateThreads.get(5));
+        assertEquals(5, taskThreads.size());
+        for (Thread thread : taskThreads) {
+            assertSame(renderThread, thread);
+        }
+    }
+
+    @Test
+    public void testSceneUpdatedBeforeNextFrame() {
+        app.setPipelined(true);
+        Geometry geometry = new Geometry("Box", new Box(1, 1, 1));
+        app.enqueue(() -> app.getRootNode().attachChild(geometry));
+        app.update();
+        app.enqueue(() -> geometry.setLocalTranslation(1, 2, 3));
+        app.update();
+        app.update();
+        // The update of the frame moving the geometry is done when the next frame starts
+        assertEquals(3, geometry.getWorldTranslation().z, 0);
+        assertEquals(3, geometry.getWorldBound().getCenter().z, 0);
+    }
+
+    @Test
+    public void testStatesInitializedOnRenderThread() {
+        app.setPipelined(true);
+        app.update();
+        TestState state = new TestState();
+        app.enqueue(() -> app.stateManager.attach(state));
+        app.update();
+        app.update();
+
+        assertSame(Thread.currentThread(), state.initializeThread);
+        assertEquals("Simulation", state.updateThread.getName());
+    }
+
+    @Test
+    public void testUpdateFailureRethrown() {
+        app.setPipelined(true);
+        app.update();
+        IllegalStateException failure = new IllegalStateException("Failed");
+        app.enqueue(() -> app.failure = failure);
+        app.update();
+        try {
+            app.update();
+            fail("The failure of the update was not rethrown");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+        app.failure = null;
+        app.update();
+        app.update();
+    }
+
+    @Test
+    public void testSceneProcessorStopsPipeline() {
+        ViewPort viewPort = app.getRenderManager().createMainView("Test", new Camera(64, 64));
+        app.setPipelined(true);
+        app.update();
+        app.update();
+        TestProcessor processor = new TestProcessor();
+        app.enqueue(() -> viewPort.addProcessor(processor));
+        // The frame is rendered with the scene idle, then the updates run on the render thread
+        app.update();
+        app.update();
+        app.update();
+        viewPort.removeProcessor(processor);
+        app.update();
+        app.setPipelined(false);
+        app.update();
+
+        assertEquals(6, app.updateThreads.size());
+        assertEquals("Simulation", app.updateThreads.get(0).getName());
+        assertEquals("Simulation", app.updateThreads.get(1).getName());
+        assertSame(Thread.currentThread(), app.updateThreads.get(2));
+        assertSame(Thread.currentThread(), app.updateThreads.get(3));
+        assertEquals("Simulation", app.updateThreads.get(4).getName());
+        assertSame(Thread.currentThread(), app.updateThreads.get(5));
+    }
+
+    @Test
+    public void testDestroyStopsSimulation() throws InterruptedException {
+        app.setPipelined(true);
+        app.update();
+        app.update();
+        app.destroy();
+        assertTrue(app.destroyed);
+        Thread simulation = app.updateThreads.get(0);
+        simulation.join(5000);
+        assertFalse(simulation.isAlive());
+    }
+
+    private static class TestApplication extends SimpleApplication {
+        private final List<Thread> updateThreads = Collections.synchronizedList(new ArrayList<>());
+        private volatile RuntimeException failure;
+        private boolean destroyed;
+
+        TestApplication() {
+            super(new ApplicationState[0]);
+            inputEnabled = false;
+            context = new NullContext();
+            renderManager = new RenderManager(new NullRenderer());
+        }
+
+        @Override
+        public void simpleInitApp() {
+        }
+
+        @Override
+        public void simpleUpdate(float tpf) {
+            updateThreads.add(Thread.currentThread());
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        @Override
+        public void simpleDestroy() {
+            destroyed = true;
+        }
+    }
+
+    private static class TestProcessor implements SceneProcessor {
+        @Override
+        public void initialize(RenderManager rm, ViewPort vp) {
+        }
+
+        @Override
+        public boolean isInitialized() {
+            return true;
+        }
+
+        @Override
+        public void reshape(ViewPort vp, int w, int h) {
+        }
+
+        @Override
+        public void preFrame(float tpf) {
+        }
+
+        @Override
+        public void postQueue(RenderQueue rq) {
+        }
+
+        @Override
+        public void postFrame(FrameBuffer out) {
+        }
+
+        @Override
+        public void cleanup() {
+        }
+    }
+
+    private static class TestState extends AbstractApplicationState {
+        private volatile Thread initializeThread;
+        private volatile Thread updateThread;
+
+        @Override
+        public void initialize(ApplicationStateManager manager, Application app) {
+            super.initialize(manager, app);
+            initializeThread = Thread.currentThread();
+        }
+
+        @Override
+        public void update(float tpf) {
+            updateThread = Thread.currentThread();
+        }
+    }
+}
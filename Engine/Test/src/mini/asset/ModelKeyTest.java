@@ -0,0 +1,95 @@
+package mini.asset;
+
+import mini.animation.AnimationCompressor;
+import mini.scene.Node;
+import mini.scene.Spatial;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Tests that the models loaded with different animation compressors are cached apart.
+ */
+public class ModelKeyTest {
+    private static final String MODEL = "MatDefs/Misc/ShowNormals.frag";
+
+    private static int loadCount;
+
+    /**
+     * Loads an empty model named after the compressor of its key.
+     */
+    public static class CompressorLoader implements AssetLoader<Spatial> {
+        @Override
+        public Spatial load(AssetInfo assetInfo) {
+            loadCount++;
+            ModelKey key = (ModelKey) assetInfo.getKey();
+            AnimationCompressor compressor = key.getAnimationCompressor();
+            return new Node(compressor == null ? "None"
+                                               : "Tolerance " + compressor.getRotationTolerance());
+        }
+    }
+
+    private AssetManager assetManager;
+    /**
+     * The models loaded, the cache keeps them while their clones are reachable.
+     */
+    private final List<Spatial> models = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        assetManager = new AssetManager();
+        assetManager.registerLoader(CompressorLoader.class, "frag");
+        loadCount = 0;
+    }
+
+    private static ModelKey createKey(AnimationCompressor compressor) {
+        ModelKey key = new ModelKey(MODEL);
+        key.setAnimationCompressor(compressor);
+        return key;
+    }
+
+    private String load(AnimationCompressor compressor) {
+        Spatial model = assetManager.loadAsset(createKey(compressor));
+        models.add(model);
+        return model.getName();
+    }
+
+    @Test
+    public void testEquality() {
+        assertEquals(createKey(null), createKey(null));
+        assertEquals(createKey(new AnimationCompressor()), createKey(new AnimationCompressor()));
+        assertEquals(createKey(new AnimationCompressor()).hashCode(),
+                     createKey(new AnimationCompressor()).hashCode());
+        assertNotEquals(createKey(null), createKey(new AnimationCompressor()));
+        assertNotEquals(createKey(new AnimationCompressor(0.001f, 0.002f, 0.001f)),
+                        createKey(new AnimationCompressor(0.001f, 0.004f, 0.001f)));
+    }
+
+    @Test
+    public void testUncompressedFirst() {
+        assertEquals("None", load(null));
+        assertEquals("Tolerance 0.002", load(new AnimationCompressor()));
+        assertEquals("Tolerance 0.004", load(new AnimationCompressor(0.001f, 0.004f, 0.001f)));
+        assertEquals(3, loadCount);
+
+        // Cached, with compressors equal to the ones loaded
+        assertEquals("Tolerance 0.002", load(new AnimationCompressor()));
+        assertEquals("None", load(null));
+        assertEquals(3, loadCount);
+    }
+
+    @Test
+    public void testCompressedFirst() {
+        assertEquals("Tolerance 0.002", load(new AnimationCompressor()));
+        assertEquals("None", load(null));
+        assertEquals(2, loadCount);
+
+        assertEquals("Tolerance 0.002", load(new AnimationCompressor()));
+        assertEquals(2, loadCount);
+    }
+}
@@ -0,0 +1,165 @@
+package mini.bullet;
+
+import mini.bullet.collision.shapes.BoxCollisionShape;
+import mini.bullet.collision.shapes.CapsuleCollisionShape;
+import mini.bullet.collision.shapes.MeshCollisionShape;
+import mini.bullet.collision.shapes.SphereCollisionShape;
+import mini.math.Quaternion;
+import mini.math.Vector3f;
+import mini.scene.shape.Box;
+import mini.system.jobs.JobSystem;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests bodies falling and coming to rest on each other in a {@link PhysicsSpace}.
+ */
+public class PhysicsSpaceTest {
+    private static final float STEP = 1 / 60f;
+
+    private static PhysicsRigidBody floor(PhysicsSpace space) {
+        PhysicsRigidBody floor = new PhysicsRigidBody(
+                new BoxCollisionShape(new Vector3f(10, 0.5f, 10)), 0);
+        floor.setPhysicsLocation(new Vector3f(0, -0.5f, 0));
+        space.add(floor);
+        return floor;
+    }
+
+    private static void simulate(PhysicsSpace space, float seconds) {
+        for (int i = 0; i < Math.round(seconds / STEP); i++) {
+            space.step(STEP);
+        }
+    }
+
+    @Test
+    public void testSphereRestsOnBox() {
+        PhysicsSpace space = new PhysicsSpace();
+        floor(space);
+        PhysicsRigidBody sphere = new PhysicsRigidBody(new SphereCollisionShape(0.5f), 1);
+        sphere.setPhysicsLocation(new Vector3f(0, 2, 0));
+        space.add(sphere);
+
+        simulate(space, 3);
+        assertEquals(0.5f, sphere.getPhysicsLocation(null).y, 0.02f);
+        assertFalse(sphere.isActive());
+    }
+
+    @Test
+    public void testBoxStackSettles() {
+        PhysicsSpace space = new PhysicsSpace();
+        floor(space);
+        List<PhysicsRigidBody> boxes = stack(space, 5);
+
+        simulate(space, 5);
+        for (int i = 0; i < boxes.size(); i++) {
+            Vector3f location = boxes.get(i).getPhysicsLocation(null);
+            assertEquals(0.5f + i, location.y, 0.05f);
+            assertEquals(0, location.x, 0.05f);
+            assertEquals(0, location.z, 0.05f);
+            assertFalse(boxes.get(i).isActive());
+        }
+    }
+
+    private static List<PhysicsRigidBody> stack(PhysicsSpace space, int count) {
+        List<PhysicsRigidBody> boxes = new ArrayList<>();
+        BoxCollisionShape shape = new BoxCollisionShape(new Vector3f(0.5f, 0.5f, 0.5f));
+        for (int i = 0; i < count; i++) {
+            PhysicsRigidBody box = new PhysicsRigidBody(shape, 1);
+            box.setPhysicsLocation(new Vector3f(0, 0.55f + i * 1.05f, 0));
+            space.add(box);
+            boxes.add(box);
+        }
+        return boxes;
+    }
+
+    @Test
+    public void testShapesRestOnMesh() {
+        PhysicsSpace space = new PhysicsSpace();
+        PhysicsRigidBody floor = new PhysicsRigidBody(
+                new MeshCollisionShape(new Box(10, 0.5f, 10)), 0);
+        floor.setPhysicsLocation(new Vector3f(0, -0.5f, 0));
+        space.add(floor);
+
+        PhysicsRigidBody sphere = new PhysicsRigidBody(new SphereCollisionShape(0.5f), 1);
+        sphere.setPhysicsLocation(new Vector3f(-3, 1, 0));
+        space.add(sphere);
+        PhysicsRigidBody capsule = new PhysicsRigidBody(new CapsuleCollisionShape(0.3f, 1), 1);
+        capsule.setPhysicsLocation(new Vector3f(0, 1.5f, 0));
+        space.add(capsule);
+        PhysicsRigidBody box = new PhysicsRigidBody(
+                new BoxCollisionShape(new Vector3f(0.5f, 0.25f, 0.5f)), 1);
+        box.setPhysicsLocation(new Vector3f(3, 1, 0));
+        box.setPhysicsRotation(new Quaternion().fromAngles(0, 0.5f, 0));
+        space.add(box);
+
+        simulate(space, 3);
+        assertEquals(0.5f, sphere.getPhysicsLocation(null).y, 0.02f);
+        assertEquals(0.8f, capsule.getPhysicsLocation(null).y, 0.02f);
+        assertEquals(0.25f, box.getPhysicsLocation(null).y, 0.02f);
+    }
+
+    @Test
+    public void testRemovedFloorWakesBodies() {
+        PhysicsSpace space = new PhysicsSpace();
+        PhysicsRigidBody floor = floor(space);
+        PhysicsRigidBody sphere = new PhysicsRigidBody(new SphereCollisionShape(0.5f), 1);
+        sphere.setPhysicsLocation(new Vector3f(0, 1, 0));
+        space.add(sphere);
+        simulate(space, 2);
+        assertFalse(sphere.isActive());
+
+        space.remove(floor);
+        assertTrue(sphere.isActive());
+        simulate(space, 0.5f);
+        assertTrue(sphere.getPhysicsLocation(null).y < 0);
+    }
+
+    @Test
+    public void testFixedSteps() {
+        PhysicsSpace space = new PhysicsSpace();
+        space.setAccuracy(STEP);
+        space.setMaxSubSteps(4);
+        assertEquals(4, space.update(0.5f));
+        assertEquals(0, space.update(STEP / 2));
+        assertEquals(1, space.update(STEP / 2));
+    }
+
+    @Test
+    public void testParallelMatchesSerial() {
+        JobSystem jobSystem = new JobSystem(3);
+        try {
+            PhysicsSpace serial = new PhysicsSpace();
+            PhysicsSpace parallel = new PhysicsSpace(jobSystem);
+            List<PhysicsRigidBody> serialBodies = new ArrayList<>();
+            List<PhysicsRigidBody> parallelBodies = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                serialBodies.addAll(stack(serial, 3));
+                parallelBodies.addAll(stack(parallel, 3));
+            }
+            for (int i = 0; i < serialBodies.size(); i++) {
+                Vector3f offset = new Vector3f(i / 3 * 3, 0, 0.1f * i);
+                serialBodies.get(i).setPhysicsLocation(
+                        serialBodies.get(i).getPhysicsLocation(null).addLocal(offset));
+                parallelBodies.get(i).setPhysicsLocation(
+                        parallelBodies.get(i).getPhysicsLocation(null).addLocal(offset));
+            }
+            floor(serial);
+            floor(parallel);
+
+            simulate(serial, 1);
+            simulate(parallel, 1);
+            for (int i = 0; i < serialBodies.size(); i++) {
+                assertEquals(serialBodies.get(i).getPhysicsLocation(null),
+                             parallelBodies.get(i).getPhysicsLocation(null));
+            }
+        } finally {
+            jobSystem.shutdown();
+        }
+    }
+}
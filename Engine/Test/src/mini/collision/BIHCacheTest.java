@@ -0,0 +1,211 @@
+package mini.collision;
+
+import mini.collision.bih.BIHCache;
+import mini.collision.bih.BIHTree;
+import mini.math.Matrix4f;
+import mini.math.Ray;
+import mini.math.Vector3f;
+import mini.scene.Mesh;
+import mini.scene.VertexBuffer;
+import mini.scene.shape.Sphere;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the trees restored by {@link BIHCache} collide as the trees they were built from.
+ */
+public class BIHCacheTest {
+    /**
+     * Offsets in the files of the cache.
+     */
+    private static final int NODE_INTS_OFFSET = 48;
+    private static final int TRIANGLES_OFFSET = 80;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final Random random = new Random(3);
+
+    private List<Path> listTrees(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    private void assertSameCollisions(Mesh mesh, BIHTree expected, BIHTree actual) {
+        Matrix4f worldMatrix = new Matrix4f();
+        int hits = 0;
+        for (int i = 0; i < 100; i++) {
+            Vector3f origin = new Vector3f(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f,
+                                           random.nextFloat() - 0.5f).normalizeLocal().multLocal(20);
+            Ray ray = new Ray(origin, origin.negate().normalizeLocal());
+            CollisionResults expectedResults = new CollisionResults();
+            expected.collideWith(ray, worldMatrix, mesh.getBound(), expectedResults);
+            CollisionResults actualResults = new CollisionResults();
+            actual.collideWith(ray, worldMatrix, mesh.getBound(), actualResults);
+            assertEquals(expectedResults.size(), actualResults.size());
+            for (int r = 0; r < expectedResults.size(); r++) {
+                assertEquals(expectedResults.getCollision(r).getTriangleIndex(),
+                             actualResults.getCollision(r).getTriangleIndex());
+            }
+            hits += actualResults.size();
+        }
+        assertTrue(hits > 0);
+    }
+
+    @Test
+    public void testRestoredTree() throws IOException {
+        Path directory = folder.getRoot().toPath().resolve("bih");
+        BIHCache cache = new BIHCache(directory);
+        Mesh mesh = new Sphere(32, 32, 5);
+
+        BIHTree built = new BIHTree(mesh);
+        assertFalse(cache.construct(built));
+        assertEquals(1, listTrees(directory).size());
+
+        BIHTree restored = new BIHTree(mesh);
+        assertTrue(cache.construct(restored));
+        assertEquals(built.getNodeCount(), restored.getNodeCount());
+        assertSameCollisions(mesh, built, restored);
+    }
+
+    @Test
+    public void testModifiedMesh() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        BIHCache cache = new BIHCache(directory);
+        Mesh mesh = new Sphere(16, 16, 5);
+        assertFalse(cache.construct(new BIHTree(mesh)));
+
+        FloatBuffer positions = (FloatBuffer) mesh.getBuffer(VertexBuffer.Type.Position).getData();
+        positions.put(10, positions.get(10) + 0.5f);
+        BIHTree modified = new BIHTree(mesh);
+        assertFalse(cache.construct(modified));
+        assertEquals(2, listTrees(directory).size());
+
+        BIHTree fresh = new BIHTree(mesh);
+        fresh.construct();
+        assertSameCollisions(mesh, fresh, modified);
+    }
+
+    @Test
+    public void testCorruptedFile() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        BIHCache cache = new BIHCache(directory);
+        Mesh mesh = new Sphere(16, 16, 5);
+        BIHTree built = new BIHTree(mesh);
+        cache.construct(built);
+
+        Path file = listTrees(directory).get(0);
+        byte[] bytes = Files.readAllBytes(file);
+        // Overwrites the last nodes
+        for (int i = bytes.length - 64; i < bytes.length; i++) {
+            bytes[i] = (byte) 0x7F;
+        }
+        Files.write(file, bytes);
+
+        BIHTree rebuilt = new BIHTree(mesh);
+        assertFalse(cache.construct(rebuilt));
+        assertSameCollisions(mesh, built, rebuilt);
+        // Stored again
+        assertNotEquals(bytes[bytes.length - 1], Files.readAllBytes(file)[bytes.length - 1]);
+        assertTrue(cache.construct(new BIHTree(mesh)));
+
+        cache.clear();
+        assertEquals(0, listTrees(directory).size());
+    }
+
+    @Test
+    public void testSwappedTriangles() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        BIHCache cache = new BIHCache(directory);
+        Mesh mesh = new Sphere(16, 16, 5);
+        cache.construct(new BIHTree(mesh));
+
+        // Still a valid tree, of other triangles
+        Path file = listTrees(directory).get(0);
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        int first = bytes.getInt(TRIANGLES_OFFSET);
+        bytes.putInt(TRIANGLES_OFFSET, bytes.getInt(TRIANGLES_OFFSET + 4));
+        bytes.putInt(TRIANGLES_OFFSET + 4, first);
+        Files.write(file, bytes.array());
+        assertFalse(cache.construct(new BIHTree(mesh)));
+    }
+
+    /**
+     * Replaces the nodes of a stored tree by a chain of inner nodes, each with an empty leaf on
+     * the left and all the triangles on the right, and updates the checksum of the file.
+     */
+    private void writeChain(Path file, int triangles, int depth) throws IOException {
+        ByteBuffer stored = ByteBuffer.wrap(Files.readAllBytes(file));
+        int nodesOffset = TRIANGLES_OFFSET + 4 * triangles;
+        int nodeInts = (2 * depth + 1) * 4;
+        ByteBuffer bytes = ByteBuffer.allocate(nodesOffset + 4 * nodeInts);
+        bytes.put(stored.array(), 0, nodesOffset);
+        bytes.putInt(NODE_INTS_OFFSET, nodeInts);
+        for (int node = 0; node < depth; node++) {
+            bytes.putInt(0).putFloat(Float.NEGATIVE_INFINITY).putFloat(Float.NEGATIVE_INFINITY)
+                 .putInt(2 * node + 2);
+            bytes.putInt(3).putInt(0).putInt(-1).putInt(0);
+        }
+        bytes.putInt(3).putInt(0).putInt(triangles - 1).putInt(0);
+        CRC32 crc = new CRC32();
+        crc.update(bytes.array(), NODE_INTS_OFFSET + 8, bytes.capacity() - NODE_INTS_OFFSET - 8);
+        bytes.putInt(NODE_INTS_OFFSET + 4, (int) crc.getValue());
+        Files.write(file, bytes.array());
+    }
+
+    @Test
+    public void testDeepTree() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        BIHCache cache = new BIHCache(directory);
+        Mesh mesh = new Sphere(16, 16, 5);
+        cache.construct(new BIHTree(mesh));
+        Path file = listTrees(directory).get(0);
+        int triangles = mesh.getTriangleCount();
+
+        // As deep as the trees built
+        writeChain(file, triangles, 100);
+        BIHTree restored = new BIHTree(mesh);
+        assertTrue(cache.construct(restored));
+        assertEquals(201, restored.getNodeCount());
+        BIHTree built = new BIHTree(mesh);
+        built.construct();
+        assertSameCollisions(mesh, built, restored);
+
+        // Overflows the traversal stacks
+        writeChain(file, triangles, 101);
+        BIHTree rebuilt = new BIHTree(mesh);
+        assertFalse(cache.construct(rebuilt));
+        assertEquals(built.getNodeCount(), rebuilt.getNodeCount());
+    }
+
+    @Test
+    public void testMeshCollisionCache() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        Mesh.setCollisionCache(new BIHCache(directory));
+        try {
+            Mesh mesh = new Sphere(8, 8, 1);
+            mesh.createCollisionData();
+            assertEquals(1, listTrees(directory).size());
+        } finally {
+            Mesh.setCollisionCache(null);
+        }
+    }
+}
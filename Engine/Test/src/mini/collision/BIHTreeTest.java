@@ -0,0 +1,333 @@
+package mini.collision;
+
+import mini.bounding.BoundingBox;
+import mini.bounding.BoundingSphere;
+import mini.bounding.BoundingVolume;
+import mini.bounding.Intersection;
+import mini.collision.bih.BIHTree;
+import mini.math.Matrix4f;
+import mini.math.Quaternion;
+import mini.math.Ray;
+import mini.math.Transform;
+import mini.math.Vector3f;
+import mini.scene.Geometry;
+import mini.scene.Mesh;
+import mini.scene.VertexBuffer;
+import mini.scene.shape.Box;
+import mini.scene.shape.Sphere;
+import mini.utils.BufferUtils;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the ray collisions of {@link BIHTree} against the triangles of the mesh tested one by one.
+ */
+public class BIHTreeTest {
+    private final Random random = new Random(7);
+
+    private Mesh createTriangleSoup(int triangles) {
+        float[] positions = new float[triangles * 9];
+        for (int i = 0; i < triangles; i++) {
+            Vector3f center = randomVector(10);
+            for (int v = 0; v < 3; v++) {
+                Vector3f vertex = randomVector(1).addLocal(center);
+                positions[i * 9 + v * 3] = vertex.x;
+                positions[i * 9 + v * 3 + 1] = vertex.y;
+                positions[i * 9 + v * 3 + 2] = vertex.z;
+            }
+        }
+        Mesh mesh = new Mesh();
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, BufferUtils.createFloatBuffer(positions));
+        mesh.updateBound();
+        return mesh;
+    }
+
+    private Vector3f randomVector(float range) {
+        return new Vector3f((random.nextFloat() * 2 - 1) * range,
+                            (random.nextFloat() * 2 - 1) * range,
+                            (random.nextFloat() * 2 - 1) * range);
+    }
+
+    private Ray randomRay(Vector3f target) {
+        Vector3f origin = randomVector(1).normalizeLocal().multLocal(30).addLocal(target);
+        Vector3f direction = randomVector(1).addLocal(target).subtractLocal(origin).normalizeLocal();
+        return new Ray(origin, direction);
+    }
+
+    private Set<Integer> bruteForce(Mesh mesh, Matrix4f worldMatrix, Ray ray) {
+        Set<Integer> hits = new HashSet<>();
+        Vector3f v1 = new Vector3f(), v2 = new Vector3f(), v3 = new Vector3f();
+        for (int i = 0; i < mesh.getTriangleCount(); i++) {
+            mesh.getTriangle(i, v1, v2, v3);
+            worldMatrix.mult(v1, v1);
+            worldMatrix.mult(v2, v2);
+            worldMatrix.mult(v3, v3);
+            if (!Float.isInfinite(ray.intersects(v1, v2, v3))) {
+                hits.add(i);
+            }
+        }
+        return hits;
+    }
+
+    private int assertSameHits(BIHTree tree, Mesh mesh, Matrix4f worldMatrix, Ray ray) {
+        BoundingVolume worldBound = mesh.getBound().transform(worldMatrix, null);
+        CollisionResults results = new CollisionResults();
+        Vector3f origin = ray.getOrigin().clone();
+        tree.collideWith(ray, worldMatrix, worldBound, results);
+        assertEquals(origin, ray.getOrigin());
+
+        Set<Integer> hits = new HashSet<>();
+        for (CollisionResult result : results) {
+            hits.add(result.getTriangleIndex());
+            float distance = result.getContactPoint().distance(ray.getOrigin());
+            assertEquals(distance, result.getDistance(), 0.001f);
+        }
+        assertEquals(bruteForce(mesh, worldMatrix, ray), hits);
+        return hits.size();
+    }
+
+    @Test
+    public void testRaysAgainstTriangleSoup() {
+        Mesh mesh = createTriangleSoup(2000);
+        BIHTree tree = new BIHTree(mesh);
+        tree.construct();
+        assertTrue(tree.getNodeCount() > 1);
+
+        Matrix4f worldMatrix = new Matrix4f();
+        int hits = 0;
+        for (int i = 0; i < 200; i++) {
+            hits += assertSameHits(tree, mesh, worldMatrix, randomRay(randomVector(8)));
+        }
+        assertTrue(hits > 0);
+    }
+
+    @Test
+    public void testTransformedMesh() {
+        Mesh mesh = new Sphere(32, 32, 5);
+        BIHTree tree = new BIHTree(mesh, 4);
+        tree.construct();
+
+        Transform transform = new Transform(new Vector3f(3, -2, 1),
+                                            new Quaternion().fromAngles(0.3f, 1.2f, -0.5f),
+                                            new Vector3f(2, 1, 0.5f));
+        Matrix4f worldMatrix = transform.toTransformMatrix();
+        for (int i = 0; i < 100; i++) {
+            Ray ray = randomRay(new Vector3f(3, -2, 1));
+            assertSameHits(tree, mesh, worldMatrix, ray);
+        }
+    }
+
+    @Test
+    public void testBoxFaces() {
+        // The split planes lie on the faces of the box, so do the ends of the range of the rays
+        Mesh mesh = new Box(0.3f, 0.3f, 0.3f);
+        BIHTree tree = new BIHTree(mesh);
+        tree.construct();
+        int hits = 0;
+        for (int i = 0; i < 500; i++) {
+            Vector3f translation = randomVector(25);
+            Matrix4f worldMatrix = new Matrix4f();
+            worldMatrix.setTranslation(translation);
+            hits += assertSameHits(tree, mesh, worldMatrix, randomRay(translation));
+        }
+        assertTrue(hits > 0);
+    }
+
+    @Test
+    public void testParallelBuild() {
+        Mesh mesh = createTriangleSoup(20000);
+        BIHTree serial = new BIHTree(mesh);
+        serial.construct(null);
+        BIHTree parallel = new BIHTree(mesh);
+        parallel.construct();
+        assertEquals(serial.getNodeCount(), parallel.getNodeCount());
+
+        Matrix4f worldMatrix = new Matrix4f();
+        for (int i = 0; i < 50; i++) {
+            Ray ray = randomRay(randomVector(8));
+            assertSameHits(serial, mesh, worldMatrix, ray);
+            assertSameHits(parallel, mesh, worldMatrix, ray);
+        }
+    }
+
+    @Test
+    public void testRayLimit() {
+        Mesh mesh = new Sphere(16, 16, 5);
+        BIHTree tree = new BIHTree(mesh);
+        tree.construct();
+        Ray ray = new Ray(new Vector3f(-20, 0.37f, 0.21f), Vector3f.UNIT_X);
+        CollisionResults results = new CollisionResults();
+        tree.collideWith(ray, new Matrix4f(), mesh.getBound(), results);
+        assertEquals(2, results.size());
+
+        ray.setLimit(20);
+        results.clear();
+        tree.collideWith(ray, new Matrix4f(), mesh.getBound(), results);
+        assertEquals(1, results.size());
+        assertEquals(15, results.getClosestCollision().getDistance(), 0.2f);
+    }
+
+    @Test
+    public void testAsyncConstruction() {
+        Mesh mesh = createTriangleSoup(1000);
+        mesh.createCollisionDataAsync().join();
+        // Built once
+        assertTrue(mesh.createCollisionDataAsync().isDone());
+
+        Matrix4f worldMatrix = new Matrix4f();
+        for (int i = 0; i < 20; i++) {
+            Ray ray = randomRay(randomVector(8));
+            CollisionResults results = new CollisionResults();
+            mesh.collideWith(ray, worldMatrix, mesh.getBound(), results);
+            Set<Integer> hits = new HashSet<>();
+            for (CollisionResult result : results) {
+                hits.add(result.getTriangleIndex());
+            }
+            assertEquals(bruteForce(mesh, worldMatrix, ray), hits);
+        }
+    }
+
+    private Map<Integer, Float> collide(BIHTree tree, Collidable query, Matrix4f worldMatrix) {
+        CollisionResults results = new CollisionResults();
+        tree.collideWith(query, worldMatrix, null, results);
+        Map<Integer, Float> hits = new HashMap<>();
+        for (CollisionResult result : results) {
+            assertEquals(null, hits.put(result.getTriangleIndex(), result.getDistance()));
+        }
+        return hits;
+    }
+
+    private Map<Integer, Float> bruteForceVolume(Mesh mesh, Matrix4f worldMatrix,
+                                                 BoundingVolume volume) {
+        Map<Integer, Float> hits = new HashMap<>();
+        Vector3f v1 = new Vector3f(), v2 = new Vector3f(), v3 = new Vector3f();
+        Vector3f closest = new Vector3f();
+        for (int i = 0; i < mesh.getTriangleCount(); i++) {
+            mesh.getTriangle(i, v1, v2, v3);
+            worldMatrix.mult(v1, v1);
+            worldMatrix.mult(v2, v2);
+            worldMatrix.mult(v3, v3);
+            float distance = Intersection.closestPoint(volume.getCenter(), v1, v2, v3, closest)
+                                         .distance(volume.getCenter());
+            boolean hit = volume instanceof BoundingBox
+                          ? Intersection.intersect((BoundingBox) volume, v1, v2, v3)
+                          : distance <= ((BoundingSphere) volume).getRadius();
+            if (hit) {
+                hits.put(i, distance);
+            }
+        }
+        return hits;
+    }
+
+    @Test
+    public void testVolumeOverlaps() {
+        Mesh mesh = createTriangleSoup(3000);
+        BIHTree tree = new BIHTree(mesh);
+        tree.construct();
+        Transform transform = new Transform(new Vector3f(1, 2, 3),
+                                            new Quaternion().fromAngles(0.4f, -0.7f, 0.2f),
+                                            new Vector3f(1.5f, 0.5f, 1));
+        Matrix4f worldMatrix = transform.toTransformMatrix();
+
+        int hits = 0;
+        for (int i = 0; i < 100; i++) {
+            Vector3f center = worldMatrix.mult(randomVector(10), null);
+            BoundingVolume volume = i % 2 == 0
+                                    ? new BoundingBox(center, 2, 0.5f, 1.5f)
+                                    : new BoundingSphere(1.5f, center);
+            Map<Integer, Float> expected = bruteForceVolume(mesh, worldMatrix, volume);
+            Map<Integer, Float> actual = collide(tree, volume, worldMatrix);
+            assertEquals(expected.keySet(), actual.keySet());
+            for (Map.Entry<Integer, Float> entry : expected.entrySet()) {
+                assertEquals(entry.getValue(), actual.get(entry.getKey()), 0.001f);
+            }
+            hits += actual.size();
+        }
+        assertTrue(hits > 0);
+    }
+
+    @Test
+    public void testSweptSphereAgainstFloor() {
+        // Top face at y = 0.5
+        Geometry floor = new Geometry("Floor", new Box(10, 0.5f, 10));
+        floor.updateGeometricState();
+
+        SweptSphere sweep = new SweptSphere(new Vector3f(1, 5, 2), new Vector3f(1, -5, 2), 1);
+        CollisionResults results = new CollisionResults();
+        floor.collideWith(sweep, results);
+        CollisionResult closest = results.getClosestCollision();
+        assertEquals(3.5f, closest.getDistance(), 0.0001f);
+        assertEquals(new Vector3f(1, 0.5f, 2), closest.getContactPoint());
+
+        // Stops short of the floor
+        sweep.set(new Vector3f(1, 5, 2), new Vector3f(1, 2, 2), 1);
+        results.clear();
+        floor.collideWith(sweep, results);
+        assertEquals(0, results.size());
+
+        // Along the edge of the top face, touches the corner of the box first
+        sweep.set(new Vector3f(-20, 1.2f, 10.5f), new Vector3f(20, 1.2f, 10.5f), 1);
+        results.clear();
+        floor.collideWith(sweep, results);
+        closest = results.getClosestCollision();
+        assertEquals(10 - (float) Math.sqrt(1 - 0.7f * 0.7f - 0.5f * 0.5f),
+                     closest.getDistance(), 0.001f);
+        assertEquals(new Vector3f(-10, 0.5f, 10), closest.getContactPoint());
+
+        // Starts overlapping
+        sweep.set(new Vector3f(0, 1.2f, 0), new Vector3f(0, 8, 0), 1);
+        results.clear();
+        floor.collideWith(sweep, results);
+        assertEquals(0, results.getClosestCollision().getDistance(), 0);
+    }
+
+    @Test
+    public void testSweptSpheres() {
+        Mesh mesh = new Sphere(16, 16, 5);
+        BIHTree tree = new BIHTree(mesh);
+        tree.construct();
+        Matrix4f worldMatrix = new Transform(new Vector3f(0, 1, 0),
+                                             new Quaternion().fromAngles(0.3f, 0.5f, 0.1f),
+                                             new Vector3f(1, 2, 1)).toTransformMatrix();
+        Vector3f v1 = new Vector3f(), v2 = new Vector3f(), v3 = new Vector3f();
+        Vector3f closest = new Vector3f(), center = new Vector3f();
+        int hits = 0;
+        for (int i = 0; i < 50; i++) {
+            Vector3f start = randomVector(1).normalizeLocal().multLocal(20);
+            Vector3f end = randomVector(6).addLocal(start).multLocal(-0.5f);
+            SweptSphere sweep = new SweptSphere(start, end, 0.5f + random.nextFloat());
+            Map<Integer, Float> actual = collide(tree, sweep, worldMatrix);
+            hits += actual.size();
+
+            for (int t = 0; t < mesh.getTriangleCount(); t++) {
+                mesh.getTriangle(t, v1, v2, v3);
+                worldMatrix.mult(v1, v1);
+                worldMatrix.mult(v2, v2);
+                worldMatrix.mult(v3, v3);
+                Float distance = actual.get(t);
+                float travel = distance != null ? distance : sweep.getDistance();
+                // Not touching before the distance of the collision
+                for (int s = 0; s < 20; s++) {
+                    center.set(sweep.getDirection()).multLocal(travel * s / 20f).addLocal(start);
+                    float d = Intersection.closestPoint(center, v1, v2, v3, closest).distance(center);
+                    assertTrue(d > sweep.getRadius() - 0.001f);
+                }
+                if (distance != null) {
+                    // Touching at the distance of the collision
+                    center.set(sweep.getDirection()).multLocal(distance).addLocal(start);
+                    float d = Intersection.closestPoint(center, v1, v2, v3, closest).distance(center);
+                    assertEquals(sweep.getRadius(), d, 0.001f);
+                }
+            }
+        }
+        assertTrue(hits > 0);
+    }
+}
@@ -0,0 +1,253 @@
+package mini.collision;
+
+import mini.bounding.BoundingBox;
+import mini.bounding.BoundingSphere;
+import mini.bounding.BoundingVolume;
+import mini.math.Vector3f;
+import mini.scene.Geometry;
+import mini.scene.Spatial;
+import mini.scene.shape.Box;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the pairs reported by {@link Broadphase} against testing every pair of spatials.
+ */
+public class BroadphaseTest {
+    private final Random random = new Random(9);
+    private final Set<String> overlaps = new HashSet<>();
+    private final List<String> events = new ArrayList<>();
+    private Broadphase broadphase;
+    private final List<Geometry> geometries = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        broadphase = new Broadphase();
+        broadphase.addListener(new BroadphaseListener() {
+            @Override
+            public void overlapBegin(Spatial first, Spatial second) {
+                assertTrue(overlaps.add(key(first, second)));
+                events.add("begin " + key(first, second));
+            }
+
+            @Override
+            public void overlapPersist(Spatial first, Spatial second) {
+                assertTrue(overlaps.contains(key(first, second)));
+            }
+
+            @Override
+            public void overlapEnd(Spatial first, Spatial second) {
+                assertTrue(overlaps.remove(key(first, second)));
+                events.add("end " + key(first, second));
+            }
+        });
+    }
+
+    private static String key(Spatial first, Spatial second) {
+        return first.getName().compareTo(second.getName()) < 0
+               ? first.getName() + "-" + second.getName()
+               : second.getName() + "-" + first.getName();
+    }
+
+    private Geometry createBox(String name, float x, float y, float z) {
+        Geometry geometry = new Geometry(name, new Box(1, 1, 1));
+        geometry.setLocalTranslation(x, y, z);
+        geometries.add(geometry);
+        return geometry;
+    }
+
+    /**
+     * The geometries are not attached to a node, which cannot merge boxes and spheres.
+     */
+    private void updateGeometricState() {
+        for (Geometry geometry : geometries) {
+            geometry.updateGeometricState();
+        }
+    }
+
+    private Set<String> bruteForce() {
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < geometries.size(); i++) {
+            for (int j = i + 1; j < geometries.size(); j++) {
+                Spatial first = geometries.get(i), second = geometries.get(j);
+                if (broadphase.contains(first) && broadphase.contains(second)
+                    && overlap(first.getWorldBound(), second.getWorldBound())) {
+                    expected.add(key(first, second));
+                }
+            }
+        }
+        return expected;
+    }
+
+    private static float extent(BoundingVolume volume, int axis) {
+        if (volume instanceof BoundingSphere) {
+            return ((BoundingSphere) volume).getRadius();
+        }
+        return ((BoundingBox) volume).getExtent(null).get(axis);
+    }
+
+    private static boolean overlap(BoundingVolume first, BoundingVolume second) {
+        for (int axis = 0; axis < 3; axis++) {
+            float distance = Math.abs(first.getCenter().get(axis) - second.getCenter().get(axis));
+            if (distance > extent(first, axis) + extent(second, axis)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Vector3f randomVector(float range) {
+        return new Vector3f((random.nextFloat() * 2 - 1) * range,
+                            (random.nextFloat() * 2 - 1) * range,
+                            (random.nextFloat() * 2 - 1) * range);
+    }
+
+    @Test
+    public void testEvents() {
+        Geometry first = createBox("a", 0, 0, 0);
+        Geometry second = createBox("b", 5, 0, 0);
+        broadphase.add(first);
+        broadphase.add(second);
+        updateGeometricState();
+        broadphase.update();
+        assertTrue(events.isEmpty());
+
+        // Touching boxes overlap
+        second.setLocalTranslation(2, 0, 0);
+        updateGeometricState();
+        broadphase.update();
+        assertEquals(1, broadphase.getPairCount());
+        broadphase.update();
+        assertEquals("[begin a-b]", events.toString());
+
+        second.setLocalTranslation(2, 2.5f, 0);
+        updateGeometricState();
+        broadphase.update();
+        assertEquals("[begin a-b, end a-b]", events.toString());
+
+        second.setLocalTranslation(1, 0, 0);
+        updateGeometricState();
+        broadphase.update();
+        assertTrue(broadphase.remove(second));
+        assertFalse(broadphase.remove(second));
+        broadphase.update();
+        assertEquals("[begin a-b, end a-b, begin a-b, end a-b]", events.toString());
+        assertEquals(0, broadphase.getPairCount());
+        assertEquals(1, broadphase.size());
+    }
+
+    @Test
+    public void testMovingSpatials() {
+        List<Geometry> boxes = new ArrayList<>();
+        List<Vector3f> velocities = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Geometry box = createBox("box" + i, 0, 0, 0);
+            box.setLocalTranslation(randomVector(30));
+            if (i % 3 == 0) {
+                box.setModelBound(new BoundingSphere());
+                box.getMesh().updateBound();
+            }
+            boxes.add(box);
+            velocities.add(randomVector(0.5f));
+            broadphase.add(box);
+        }
+
+        int pairs = 0;
+        for (int frame = 0; frame < 60; frame++) {
+            for (int i = 0; i < boxes.size(); i++) {
+                boxes.get(i).move(velocities.get(i));
+            }
+            // Some spatials leave and come back
+            Geometry box = boxes.get(random.nextInt(boxes.size()));
+            if (!broadphase.remove(box)) {
+                broadphase.add(box);
+            }
+            if (frame == 30) {
+                // Flattened on the x axis, the swept axis changes
+                for (Geometry flattened : boxes) {
+                    Vector3f translation = flattened.getLocalTranslation();
+                    flattened.setLocalTranslation(translation.x * 0.01f, translation.y,
+                                                  translation.z);
+                }
+            }
+            updateGeometricState();
+            broadphase.update();
+
+            Set<String> expected = bruteForce();
+            assertEquals(expected, overlaps);
+            assertEquals(expected.size(), broadphase.getPairCount());
+            pairs += expected.size();
+        }
+        assertTrue(pairs > 0);
+        assertTrue(broadphase.getAxis() != 0);
+    }
+
+    @Test
+    public void testListenerRemovesSpatial() {
+        Geometry first = createBox("a", 0, 0, 0);
+        Geometry second = createBox("b", 1, 0, 0);
+        broadphase.add(first);
+        broadphase.add(second);
+        broadphase.addListener(new BroadphaseListener() {
+            @Override
+            public void overlapBegin(Spatial first, Spatial second) {
+                broadphase.remove(second);
+            }
+
+            @Override
+            public void overlapEnd(Spatial first, Spatial second) {
+            }
+        });
+        updateGeometricState();
+        broadphase.update();
+        broadphase.update();
+        assertEquals("[begin a-b, end a-b]", events.toString());
+
+        // The proxy of the removed spatial is reused
+        Geometry third = createBox("c", 30, 0, 0);
+        broadphase.add(third);
+        updateGeometricState();
+        broadphase.update();
+        assertEquals("[begin a-b, end a-b]", events.toString());
+        assertEquals(2, broadphase.size());
+    }
+
+    @Test
+    public void testSpatialAddedBack() {
+        Geometry first = createBox("a", 0, 0, 0);
+        Geometry second = createBox("b", 1, 0, 0);
+        Geometry third = createBox("c", 1, 0, 0);
+        broadphase.add(third);
+        broadphase.add(first);
+        broadphase.add(second);
+        updateGeometricState();
+        broadphase.update();
+        assertEquals(3, overlaps.size());
+
+        // The proxy of the removed spatial is released
+        broadphase.remove(third);
+        broadphase.update();
+        events.clear();
+
+        // Added back with the lower proxy released, its pair ends and begins again
+        broadphase.remove(first);
+        broadphase.add(first);
+        broadphase.update();
+        assertEquals("[end a-b, begin a-b]", events.toString());
+        assertEquals(1, broadphase.getPairCount());
+
+        broadphase.update();
+        assertEquals("[end a-b, begin a-b]", events.toString());
+        assertEquals(bruteForce(), overlaps);
+    }
+}
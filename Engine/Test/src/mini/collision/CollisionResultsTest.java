@@ -0,0 +1,198 @@
+package mini.collision;
+
+import mini.math.Ray;
+import mini.math.Triangle;
+import mini.math.Vector3f;
+import mini.scene.Geometry;
+import mini.scene.Node;
+import mini.scene.SceneIndex;
+import mini.scene.shape.Sphere;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the modes of {@link CollisionResults} against all the results of the same queries.
+ */
+public class CollisionResultsTest {
+    private final Random random = new Random(5);
+    private Node root;
+
+    @Before
+    public void setUp() {
+        root = new Node("Root");
+        Sphere sphere = new Sphere(12, 12, 2);
+        for (int i = 0; i < 40; i++) {
+            Geometry geometry = new Geometry("Sphere" + i, sphere);
+            geometry.setLocalTranslation(randomVector(15));
+            root.attachChild(geometry);
+        }
+        root.updateGeometricState();
+    }
+
+    private Vector3f randomVector(float range) {
+        return new Vector3f((random.nextFloat() * 2 - 1) * range,
+                            (random.nextFloat() * 2 - 1) * range,
+                            (random.nextFloat() * 2 - 1) * range);
+    }
+
+    private Ray randomRay() {
+        Vector3f origin = randomVector(1).normalizeLocal().multLocal(40);
+        return new Ray(origin, randomVector(5).subtractLocal(origin).normalizeLocal());
+    }
+
+    @Test
+    public void testNearestKeepsClosest() {
+        CollisionResults results = new CollisionResults(5);
+        float[] distances = new float[100];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = random.nextFloat() * 100;
+            CollisionResult result = results.obtainCollision();
+            result.setDistance(distances[i]);
+            results.addCollision(result);
+            if (i == 50) {
+                // Sorted while still added to
+                assertEquals(5, results.size());
+                results.getClosestCollision();
+            }
+        }
+        Arrays.sort(distances);
+        assertEquals(5, results.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(distances[i], results.getCollision(i).getDistance(), 0);
+        }
+        assertEquals(distances[4], results.getMaxDistance(), 0);
+        assertFalse(results.accepts(distances[4]));
+        assertTrue(results.accepts(distances[3]));
+    }
+
+    private void assertSameAsAll(CollisionResults results) {
+        int hits = 0;
+        for (int i = 0; i < 100; i++) {
+            Ray ray = randomRay();
+            CollisionResults all = new CollisionResults();
+            root.collideWith(ray, all);
+            results.clear();
+            root.collideWith(ray, results);
+            hits += all.size();
+
+            switch (results.getMode()) {
+                case Any:
+                    assertEquals(Math.min(1, all.size()), results.size());
+                    assertEquals(all.size() > 0, results.isDone());
+                    if (all.size() > 0) {
+                        CollisionResult any = results.getClosestCollision();
+                        boolean found = false;
+                        for (CollisionResult result : all) {
+                            found |= result.getGeometry() == any.getGeometry()
+                                     && result.getTriangleIndex() == any.getTriangleIndex();
+                        }
+                        assertTrue(found);
+                    }
+                    break;
+                default:
+                    int count = Math.min(results.getMaxResults(), all.size());
+                    assertEquals(count, results.size());
+                    for (int r = 0; r < count; r++) {
+                        CollisionResult expected = all.getCollision(r);
+                        CollisionResult actual = results.getCollision(r);
+                        assertEquals(expected.getDistance(), actual.getDistance(), 0.0001f);
+                        assertEquals(expected.getContactPoint(), actual.getContactPoint());
+                        if (r + 1 == all.size()
+                            || all.getCollision(r + 1).getDistance() > expected.getDistance()) {
+                            assertSame(expected.getGeometry(), actual.getGeometry());
+                        }
+                    }
+            }
+        }
+        assertTrue(hits > 0);
+    }
+
+    @Test
+    public void testClosest() {
+        assertSameAsAll(new CollisionResults(CollisionResults.Mode.Closest));
+    }
+
+    @Test
+    public void testAny() {
+        assertSameAsAll(new CollisionResults(CollisionResults.Mode.Any));
+    }
+
+    @Test
+    public void testNearest() {
+        assertSameAsAll(new CollisionResults(3));
+    }
+
+    @Test
+    public void testIndexedScene() {
+        root.setSceneIndex(new SceneIndex());
+        root.updateGeometricState();
+        assertSameAsAll(new CollisionResults(CollisionResults.Mode.Closest));
+        assertSameAsAll(new CollisionResults(4));
+    }
+
+    @Test
+    public void testPooledResults() {
+        CollisionResults results = new CollisionResults(CollisionResults.Mode.Closest);
+        Geometry geometry = (Geometry) root.getChild(0);
+        Vector3f target = geometry.getWorldTranslation().add(0.3f, 0.2f, 0);
+        Ray ray = new Ray(target.add(0, 0, -40), Vector3f.UNIT_Z);
+        root.collideWith(ray, results);
+        CollisionResult first = results.getClosestCollision();
+        Geometry hit = first.getGeometry();
+        assertTrue(hit != null);
+
+        // Reused across queries
+        results.clear();
+        root.collideWith(ray, results);
+        assertSame(first, results.getClosestCollision());
+        assertSame(hit, first.getGeometry());
+    }
+
+    private static class CollidableTriangle extends Triangle implements Collidable {
+        static final long serialVersionUID = 1;
+
+        CollidableTriangle(Vector3f p1, Vector3f p2, Vector3f p3) {
+            super(p1, p2, p3);
+        }
+
+        @Override
+        public int collideWith(Collidable other, CollisionResults results) {
+            return other.collideWith(this, results);
+        }
+    }
+
+    @Test
+    public void testPooledSweptSphereResults() {
+        CollisionResults results = new CollisionResults(CollisionResults.Mode.Closest);
+        SweptSphere sweep = new SweptSphere(new Vector3f(0, 0, -10), new Vector3f(0, 0, 10), 1);
+        CollidableTriangle near = new CollidableTriangle(new Vector3f(-5, -5, 0),
+                                                         new Vector3f(5, -5, 0),
+                                                         new Vector3f(0, 5, 0));
+        CollidableTriangle far = new CollidableTriangle(new Vector3f(-5, -5, 5),
+                                                        new Vector3f(5, -5, 5),
+                                                        new Vector3f(0, 5, 5));
+        assertEquals(1, sweep.collideWith(near, results));
+        CollisionResult first = results.getClosestCollision();
+        assertEquals(9, first.getDistance(), 0.0001f);
+        assertEquals(new Vector3f(0, 0, 0), first.getContactPoint());
+        assertEquals(1, Math.abs(first.getContactNormal().z), 0.0001f);
+
+        // Not kept behind the closest one
+        assertEquals(0, sweep.collideWith(far, results));
+        assertSame(first, results.getClosestCollision());
+
+        // Reused once cleared
+        results.clear();
+        assertEquals(1, sweep.collideWith(far, results));
+        assertSame(first, results.getClosestCollision());
+        assertEquals(14, first.getDistance(), 0.0001f);
+    }
+}
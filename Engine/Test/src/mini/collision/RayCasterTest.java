@@ -0,0 +1,183 @@
+package mini.collision;
+
+import mini.math.Quaternion;
+import mini.math.Ray;
+import mini.math.Vector3f;
+import mini.scene.Geometry;
+import mini.scene.Node;
+import mini.scene.shape.Box;
+import mini.scene.shape.Sphere;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the batches of {@link RayCaster} against the closest collisions of the scene graph.
+ */
+public class RayCasterTest {
+    private final Random random = new Random(11);
+    private Node root;
+
+    @Before
+    public void setUp() {
+        root = new Node("Root");
+        Sphere sphere = new Sphere(24, 24, 2);
+        Box box = new Box(1, 0.5f, 2);
+        for (int i = 0; i < 30; i++) {
+            Geometry geometry = new Geometry("Geometry" + i, i % 2 == 0 ? sphere : box);
+            geometry.setLocalTranslation(randomVector(20));
+            geometry.setLocalRotation(new Quaternion().fromAngles(random.nextFloat() * 3,
+                                                                   random.nextFloat() * 3,
+                                                                   random.nextFloat() * 3));
+            geometry.setLocalScale(0.5f + random.nextFloat() * 2);
+            root.attachChild(geometry);
+        }
+        root.updateGeometricState();
+    }
+
+    private Vector3f randomVector(float range) {
+        return new Vector3f((random.nextFloat() * 2 - 1) * range,
+                            (random.nextFloat() * 2 - 1) * range,
+                            (random.nextFloat() * 2 - 1) * range);
+    }
+
+    private void castAndCompare(RayCaster caster, int count, boolean limited) {
+        caster.setScene(root);
+        float[] origins = new float[count * 3];
+        float[] directions = new float[count * 3];
+        float[] maxDistances = limited ? new float[count] : null;
+        // Bundles of coherent rays
+        Vector3f origin = new Vector3f();
+        for (int i = 0; i < count; i++) {
+            if (i % 8 == 0) {
+                origin = randomVector(30);
+            }
+            // Not normalized
+            Vector3f direction = randomVector(15).subtractLocal(origin).multLocal(3);
+            origins[i * 3] = origin.x;
+            origins[i * 3 + 1] = origin.y;
+            origins[i * 3 + 2] = origin.z;
+            directions[i * 3] = direction.x;
+            directions[i * 3 + 1] = direction.y;
+            directions[i * 3 + 2] = direction.z;
+            if (limited) {
+                maxDistances[i] = random.nextFloat() * 40;
+            }
+        }
+
+        RayHits hits = new RayHits();
+        caster.rayCastBatch(origins, directions, maxDistances, hits);
+        assertEquals(count, hits.size());
+
+        int hitCount = 0;
+        for (int i = 0; i < count; i++) {
+            Ray ray = new Ray(new Vector3f(origins[i * 3], origins[i * 3 + 1], origins[i * 3 + 2]),
+                              new Vector3f(directions[i * 3], directions[i * 3 + 1],
+                                           directions[i * 3 + 2]).normalizeLocal());
+            if (limited) {
+                ray.setLimit(maxDistances[i]);
+            }
+            CollisionResults results = new CollisionResults();
+            root.collideWith(ray, results);
+            CollisionResult closest = results.getClosestCollision();
+            if (closest == null) {
+                assertFalse(hits.isHit(i));
+                assertEquals(Float.POSITIVE_INFINITY, hits.getDistance(i), 0);
+                continue;
+            }
+            hitCount++;
+            assertTrue(hits.isHit(i));
+            assertEquals(closest.getDistance(), hits.getDistance(i), 0.001f);
+            // Triangles at the same distance, e.g. on a shared edge, may be swapped
+            if (results.size() == 1
+                || results.getCollision(1).getDistance() - closest.getDistance() > 0.001f) {
+                assertSame(closest.getGeometry(), caster.getGeometry(hits.getGeometryId(i)));
+                assertEquals(closest.getTriangleIndex(), hits.getTriangleIndex(i));
+            }
+        }
+        assertTrue(hitCount > 0);
+    }
+
+    @Test
+    public void testCallingThread() {
+        RayCaster caster = new RayCaster();
+        castAndCompare(caster, 1000, false);
+        assertEquals(30, caster.getGeometryCount());
+    }
+
+    @Test
+    public void testPool() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            castAndCompare(new RayCaster(pool), 2003, false);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testMaxDistances() {
+        castAndCompare(new RayCaster(), 500, true);
+    }
+
+    @Test
+    public void testMovedGeometries() {
+        RayCaster caster = new RayCaster();
+        castAndCompare(caster, 200, false);
+        for (int i = 0; i < 10; i++) {
+            root.getChild(i).move(randomVector(5));
+        }
+        root.updateGeometricState();
+        castAndCompare(caster, 200, false);
+    }
+
+    @Test
+    public void testManyGeometries() {
+        // Small geometries in and around the others, the packets visit a few of them
+        Box box = new Box(0.3f, 0.3f, 0.3f);
+        for (int i = 0; i < 500; i++) {
+            Geometry geometry = new Geometry("Small" + i, box);
+            geometry.setLocalTranslation(randomVector(25));
+            root.attachChild(geometry);
+        }
+        root.updateGeometricState();
+        RayCaster caster = new RayCaster();
+        castAndCompare(caster, 1000, false);
+        assertEquals(530, caster.getGeometryCount());
+
+        // Fewer geometries than before, in the same arrays
+        for (int i = 529; i >= 3; i--) {
+            root.detachChildAt(i);
+        }
+        root.updateGeometricState();
+        castAndCompare(caster, 200, false);
+        assertEquals(3, caster.getGeometryCount());
+    }
+
+    @Test
+    public void testEmptyScene() {
+        RayCaster caster = new RayCaster();
+        caster.setScene(new Node("Empty"));
+        RayHits hits = new RayHits();
+        caster.rayCastBatch(new float[3], new float[]{0, 0, 1}, null, hits);
+        assertEquals(1, hits.size());
+        assertFalse(hits.isHit(0));
+    }
+
+    @Test
+    public void testMismatchedArrays() {
+        try {
+            new RayCaster().rayCastBatch(new float[6], new float[3], null, new RayHits());
+            fail("The directions of a ray are missing");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
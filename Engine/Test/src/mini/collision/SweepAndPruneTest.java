@@ -0,0 +1,121 @@
+package mini.collision;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the pairs found by {@link SweepAndPrune} against testing every pair of boxes.
+ */
+public class SweepAndPruneTest {
+    private final Random random = new Random(4);
+
+    private void randomBox(float[] bounds, int proxy, float range) {
+        for (int k = 0; k < 3; k++) {
+            float center = (random.nextFloat() * 2 - 1) * range;
+            float extent = random.nextFloat() * 2;
+            bounds[proxy * 6 + k] = center - extent;
+            bounds[proxy * 6 + 3 + k] = center + extent;
+        }
+    }
+
+    private static List<Long> bruteForce(float[] bounds, boolean[] added) {
+        List<Long> pairs = new ArrayList<>();
+        for (int i = 0; i < added.length; i++) {
+            for (int j = i + 1; j < added.length; j++) {
+                boolean overlap = added[i] && added[j];
+                for (int k = 0; k < 3 && overlap; k++) {
+                    overlap = bounds[i * 6 + k] <= bounds[j * 6 + 3 + k]
+                              && bounds[j * 6 + k] <= bounds[i * 6 + 3 + k];
+                }
+                if (overlap) {
+                    pairs.add((long) i << 32 | j);
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private static List<Long> pairs(SweepAndPrune sweepAndPrune) {
+        List<Long> pairs = new ArrayList<>();
+        for (int i = 0; i < sweepAndPrune.getPairCount(); i++) {
+            pairs.add(sweepAndPrune.getPair(i));
+        }
+        return pairs;
+    }
+
+    @Test
+    public void testMovingBoxes() {
+        int count = 300;
+        float[] bounds = new float[count * 6];
+        boolean[] added = new boolean[count];
+        SweepAndPrune sweepAndPrune = new SweepAndPrune();
+        for (int i = 0; i < count; i++) {
+            randomBox(bounds, i, 20);
+            sweepAndPrune.add(i);
+            added[i] = true;
+        }
+
+        for (int update = 0; update < 20; update++) {
+            sweepAndPrune.update(bounds);
+            assertEquals(bruteForce(bounds, added), pairs(sweepAndPrune));
+
+            // Boxes moved, removed and added back
+            for (int i = 0; i < count; i++) {
+                float move = random.nextFloat() - 0.5f;
+                for (int k = 0; k < 6; k++) {
+                    bounds[i * 6 + k] += move;
+                }
+            }
+            for (int i = 0; i < 10; i++) {
+                int proxy = random.nextInt(count);
+                if (added[proxy]) {
+                    sweepAndPrune.remove(proxy);
+                    added[proxy] = false;
+                }
+            }
+            for (int i = 0; i < count; i += 37) {
+                if (!added[i]) {
+                    sweepAndPrune.update(bounds);
+                    randomBox(bounds, i, 20);
+                    sweepAndPrune.add(i);
+                    added[i] = true;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFlatLayout() {
+        // Spread along z only, swept along z
+        int count = 100;
+        float[] bounds = new float[count * 6];
+        boolean[] added = new boolean[count];
+        SweepAndPrune sweepAndPrune = new SweepAndPrune();
+        for (int i = 0; i < count; i++) {
+            randomBox(bounds, i, 1);
+            bounds[i * 6 + 2] += i * 3;
+            bounds[i * 6 + 5] += i * 3;
+            sweepAndPrune.add(i);
+            added[i] = true;
+        }
+        sweepAndPrune.update(bounds);
+        assertEquals(2, sweepAndPrune.getAxis());
+        assertEquals(bruteForce(bounds, added), pairs(sweepAndPrune));
+
+        // An empty box overlaps nothing
+        bounds[0] = Float.POSITIVE_INFINITY;
+        bounds[3] = Float.NEGATIVE_INFINITY;
+        added[0] = false;
+        sweepAndPrune.update(bounds);
+        assertEquals(bruteForce(bounds, added), pairs(sweepAndPrune));
+
+        sweepAndPrune.clear();
+        sweepAndPrune.update(bounds);
+        assertEquals(0, sweepAndPrune.getPairCount());
+    }
+}
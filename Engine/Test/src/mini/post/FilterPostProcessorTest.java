@@ -0,0 +1,171 @@
+package mini.post;
+
+import mini.asset.AssetManager;
+import mini.material.Material;
+import mini.math.ColorRGBA;
+import mini.math.Vector3f;
+import mini.post.filters.ColorGradingFilter;
+import mini.post.filters.VignetteFilter;
+import mini.renderer.Camera;
+import mini.renderer.RenderManager;
+import mini.renderer.ViewPort;
+import mini.renderer.opengl.GLFbo;
+import mini.renderer.opengl.GLRenderer;
+import mini.renderer.opengl.RecordingGL;
+import mini.scene.Geometry;
+import mini.scene.Node;
+import mini.scene.shape.Box;
+import mini.system.TestUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Renders a scene through a {@link FilterPostProcessor} on a {@link RecordingGL} and checks where
+ * the passes are drawn.
+ */
+public class FilterPostProcessorTest {
+    private RecordingGL recorder;
+    private RenderManager renderManager;
+    private ViewPort viewPort;
+    private Node scene;
+    private FilterPostProcessor processor;
+
+    @Before
+    public void setUp() {
+        AssetManager assetManager = TestUtil.createAssetManager();
+        recorder = new RecordingGL();
+        GLRenderer renderer = new GLRenderer(recorder.getGL(), recorder.getGLExt(),
+                                             recorder.getGLFbo());
+        renderer.initialize();
+        renderManager = new RenderManager(renderer);
+
+        Camera cam = new Camera(640, 480);
+        cam.setFrustumPerspective(45f, 640f / 480f, 1f, 1000f);
+        cam.setLocation(new Vector3f(0, 0, 20));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        viewPort = renderManager.createMainView("Default", cam);
+        viewPort.setClearFlags(true, true, true);
+
+        scene = new Node("Scene");
+        Material material = new Material(assetManager, "MatDefs/Misc/Unshaded.minid");
+        material.setColor("Color", ColorRGBA.Red);
+        Geometry box = new Geometry("Box", new Box(1, 1, 1));
+        box.setMaterial(material);
+        scene.attachChild(box);
+        viewPort.attachScene(scene);
+
+        processor = new FilterPostProcessor(assetManager);
+        viewPort.addProcessor(processor);
+    }
+
+    private void renderFrame() {
+        scene.updateLogicalState(0.016f);
+        scene.updateGeometricState();
+        renderManager.render(0.016f, true);
+    }
+
+    /**
+     * @return the framebuffer bound when the last draw call of the frame was made
+     */
+    private int getLastDrawFrameBuffer() {
+        int frameBuffer = 0;
+        int lastDrawFrameBuffer = -1;
+        List<RecordingGL.Call> calls = recorder.getCalls();
+        for (RecordingGL.Call call : calls) {
+            if (call.getName().equals("glBindFramebufferEXT")
+                && (call.getIntArg(0) == GLFbo.GL_FRAMEBUFFER_EXT
+                    || call.getIntArg(0) == GLFbo.GL_DRAW_FRAMEBUFFER_EXT)) {
+                frameBuffer = call.getIntArg(1);
+            } else if (call.getName().startsWith("glDrawArrays")
+                       || call.getName().startsWith("glDrawRangeElements")
+                       || call.getName().startsWith("glDrawElements")) {
+                lastDrawFrameBuffer = frameBuffer;
+            }
+        }
+        return lastDrawFrameBuffer;
+    }
+
+    @Test
+    public void testScaledSceneWithoutFiltersReachesOutput() {
+        processor.setRenderScale(0.5f);
+        renderFrame();
+        recorder.resetCalls();
+        renderFrame();
+
+        // The scene into the scene buffer, then the upscale pass into the output
+        assertEquals(2, recorder.getDrawCallCount());
+        assertEquals(0, getLastDrawFrameBuffer());
+    }
+
+    @Test
+    public void testUnscaledSceneWithoutFiltersBypassesProcessor() {
+        renderFrame();
+        recorder.resetCalls();
+        renderFrame();
+
+        assertEquals(1, recorder.getDrawCallCount());
+        assertEquals(0, getLastDrawFrameBuffer());
+        assertTrue(recorder.getCalls("glBindFramebufferEXT").stream()
+                           .allMatch(call -> call.getIntArg(1) == 0));
+    }
+
+    @Test
+    public void testFusedFilters() {
+        ColorGradingFilter colorGrading = new ColorGradingFilter();
+        VignetteFilter vignette = new VignetteFilter();
+        processor.addFilter(colorGrading);
+        processor.addFilter(vignette);
+        renderFrame();
+        recorder.resetCalls();
+        renderFrame();
+
+        // The scene, then both filters in a single pass
+        assertEquals(2, recorder.getDrawCallCount());
+        assertEquals(0, getLastDrawFrameBuffer());
+        assertEquals(1, processor.getFusedFilterCount());
+
+        processor.setFusionEnabled(false);
+        renderFrame();
+        recorder.resetCalls();
+        renderFrame();
+
+        assertEquals(3, recorder.getDrawCallCount());
+        assertEquals(0, getLastDrawFrameBuffer());
+        assertEquals(0, processor.getFusedFilterCount());
+    }
+
+    @Test
+    public void testToggledFilterEvictsFusedFilter() {
+        ColorGradingFilter colorGrading = new ColorGradingFilter();
+        VignetteFilter vignette = new VignetteFilter();
+        processor.addFilter(colorGrading);
+        processor.addFilter(vignette);
+        renderFrame();
+        assertEquals(1, processor.getFusedFilterCount());
+
+        // A single filter left, drawn without fusing
+        vignette.setEnabled(false);
+        assertFalse(vignette.isEnabled());
+        renderFrame();
+        recorder.resetCalls();
+        renderFrame();
+
+        assertEquals(2, recorder.getDrawCallCount());
+        assertEquals(0, getLastDrawFrameBuffer());
+        assertEquals(0, processor.getFusedFilterCount());
+
+        vignette.setEnabled(true);
+        renderFrame();
+        recorder.resetCalls();
+        renderFrame();
+
+        assertEquals(2, recorder.getDrawCallCount());
+        assertEquals(1, processor.getFusedFilterCount());
+    }
+}
@@ -4,6 +4,7 @@ import mini.app.SimpleApplication;
 import mini.light.AmbientLight;
 import mini.material.Material;
 import mini.math.ColorRGBA;
+import mini.post.filters.SSAOFilter;
 import mini.scene.Node;
 
 public class TestSSAO extends SimpleApplication {
@@ -32,6 +33,12 @@ public class TestSSAO extends SimpleApplication {
 //        model.setLocalScale(0.01f, 0.01f, 0.01f);
         rootNode.attachChild(model);
 
+        FilterPostProcessor processor = new FilterPostProcessor(assetManager);
+        SSAOFilter ssaoFilter = new SSAOFilter(SSAOFilter.Quality.Medium);
+        ssaoFilter.setRadius(10f);
+        processor.addFilter(ssaoFilter);
+        viewPort.addProcessor(processor);
+
 //        MaterialDebugApplicationState debug = new MaterialDebugApplicationState();
 //        debug.registerBinding("MatDefs/Voxelization/Visualization/WorldPosShader.vert", model);
 //        debug.registerBinding("MatDefs/Voxelization/Visualization/WorldPosShader.frag", model);
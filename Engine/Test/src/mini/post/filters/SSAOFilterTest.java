@@ -0,0 +1,142 @@
+package mini.post.filters;
+
+import mini.asset.AssetManager;
+import mini.material.Material;
+import mini.math.ColorRGBA;
+import mini.math.Vector3f;
+import mini.post.FilterPostProcessor;
+import mini.renderer.Camera;
+import mini.renderer.RenderManager;
+import mini.renderer.ViewPort;
+import mini.renderer.opengl.GLExt;
+import mini.renderer.opengl.GLRenderer;
+import mini.renderer.opengl.RecordingGL;
+import mini.scene.Geometry;
+import mini.scene.Node;
+import mini.scene.shape.Box;
+import mini.system.TestUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Renders a scene through an {@link SSAOFilter} on a {@link RecordingGL} and checks the size of
+ * its render targets and the passes drawn.
+ */
+public class SSAOFilterTest {
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    private RecordingGL recorder;
+    private RenderManager renderManager;
+    private Node scene;
+    private FilterPostProcessor processor;
+
+    @Before
+    public void setUp() {
+        AssetManager assetManager = TestUtil.createAssetManager();
+        recorder = new RecordingGL();
+        GLRenderer renderer = new GLRenderer(recorder.getGL(), recorder.getGLExt(),
+                                             recorder.getGLFbo());
+        renderer.initialize();
+        renderManager = new RenderManager(renderer);
+
+        Camera cam = new Camera(WIDTH, HEIGHT);
+        cam.setFrustumPerspective(45f, (float) WIDTH / HEIGHT, 1f, 1000f);
+        cam.setLocation(new Vector3f(0, 0, 20));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        ViewPort viewPort = renderManager.createMainView("Default", cam);
+        viewPort.setClearFlags(true, true, true);
+
+        scene = new Node("Scene");
+        Material material = new Material(assetManager, "MatDefs/Misc/Unshaded.minid");
+        material.setColor("Color", ColorRGBA.Red);
+        Geometry box = new Geometry("Box", new Box(1, 1, 1));
+        box.setMaterial(material);
+        scene.attachChild(box);
+        viewPort.attachScene(scene);
+
+        processor = new FilterPostProcessor(assetManager);
+        viewPort.addProcessor(processor);
+    }
+
+    private void renderFrame() {
+        scene.updateLogicalState(0.016f);
+        scene.updateGeometricState();
+        renderManager.render(0.016f, true);
+    }
+
+    /**
+     * @return the sizes of the occlusion textures allocated, as "width x height"
+     */
+    private List<String> getOcclusionTextureSizes() {
+        List<String> sizes = new ArrayList<>();
+        for (RecordingGL.Call call : recorder.getCalls("glTexImage2D")) {
+            if (call.getIntArg(2) == GLExt.GL_RGBA16F_ARB) {
+                sizes.add(call.getIntArg(3) + "x" + call.getIntArg(4));
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * @param viewport The viewport left by the previous frame, as "width x height"
+     * @return the viewport of every draw call of the frame, as "width x height"
+     */
+    private List<String> getDrawViewports(String viewport) {
+        List<String> viewports = new ArrayList<>();
+        for (RecordingGL.Call call : recorder.getCalls()) {
+            if (call.getName().equals("glViewport")) {
+                viewport = call.getIntArg(2) + "x" + call.getIntArg(3);
+            } else if (call.getName().startsWith("glDraw")
+                       && !call.getName().equals("glDrawBuffer")
+                       && !call.getName().equals("glDrawBuffers")) {
+                viewports.add(viewport);
+            }
+        }
+        return viewports;
+    }
+
+    private void checkPasses(String occlusionSize) {
+        String fullSize = WIDTH + "x" + HEIGHT;
+        assertEquals(List.of(occlusionSize, occlusionSize, occlusionSize),
+                     getOcclusionTextureSizes());
+
+        recorder.resetCalls();
+        renderFrame();
+        // The scene, the occlusion and its two blur passes, then the upsample
+        assertEquals(5, recorder.getDrawCallCount());
+        assertEquals(List.of(fullSize, occlusionSize, occlusionSize, occlusionSize, fullSize),
+                     getDrawViewports(fullSize));
+    }
+
+    @Test
+    public void testHalfResolution() {
+        processor.addFilter(new SSAOFilter(SSAOFilter.Quality.Medium));
+        renderFrame();
+        checkPasses("320x240");
+    }
+
+    @Test
+    public void testQuarterResolution() {
+        processor.addFilter(new SSAOFilter(SSAOFilter.Quality.Low));
+        renderFrame();
+        checkPasses("160x120");
+    }
+
+    @Test
+    public void testQualityChangeReallocatesPasses() {
+        SSAOFilter filter = new SSAOFilter(SSAOFilter.Quality.Medium);
+        processor.addFilter(filter);
+        renderFrame();
+
+        recorder.resetCalls();
+        filter.setQuality(SSAOFilter.Quality.Low);
+        renderFrame();
+        checkPasses("160x120");
+    }
+}
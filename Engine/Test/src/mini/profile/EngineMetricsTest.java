@@ -0,0 +1,128 @@
+package mini.profile;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import mini.app.SimpleApplication;
+import mini.app.state.ApplicationState;
+import mini.material.Material;
+import mini.renderer.Renderer;
+import mini.renderer.opengl.GLRenderer;
+import mini.renderer.opengl.NullGL;
+import mini.scene.Geometry;
+import mini.scene.shape.Box;
+import mini.system.NullContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs a few frames of an application rendering through {@link NullGL} and reads its
+ * {@link EngineMetrics} through the MBean server and its {@link FrameEvent}s through Flight
+ * Recorder.
+ */
+public class EngineMetricsTest {
+    private TestApplication app;
+
+    @Before
+    public void setUp() {
+        app = new TestApplication();
+        app.initialize();
+    }
+
+    @After
+    public void tearDown() {
+        app.destroy();
+    }
+
+    @Test
+    public void testAttributes() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("mini:type=EngineMetrics");
+        assertTrue(server.isRegistered(name));
+
+        for (int i = 0; i < 3; i++) {
+            app.update();
+        }
+        // A frame is sampled when the next one starts, the draw calls are those of two frames
+        assertEquals(3L, server.getAttribute(name, "FrameCount"));
+        long drawCalls = (Long) server.getAttribute(name, "DrawCallsPerFrame");
+        assertTrue(drawCalls >= 1);
+        assertEquals(drawCalls * 2, server.getAttribute(name, "TotalDrawCalls"));
+        assertEquals(app.getPendingTaskCount(), server.getAttribute(name, "PendingTaskCount"));
+
+        app.destroy();
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void testFrameEvents() throws IOException {
+        Path file = Files.createTempFile("frames", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable(FrameEvent.class);
+                recording.start();
+                // The event of a frame is committed when the next one ends
+                for (int i = 0; i < 4; i++) {
+                    app.update();
+                }
+                recording.stop();
+                recording.dump(file);
+            }
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            events.removeIf(event -> !event.getEventType().getName().equals("mini.Frame"));
+            assertEquals(3, events.size());
+            for (int i = 0; i < events.size(); i++) {
+                assertEquals(i + 1, events.get(i).getLong("frame"));
+                assertTrue(events.get(i).getLong("drawCalls") >= 1);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static class TestApplication extends SimpleApplication {
+        TestApplication() {
+            super(new ApplicationState[0]);
+            inputEnabled = false;
+            context = new NullContext() {
+                private GLRenderer renderer;
+
+                @Override
+                public boolean isRenderable() {
+                    return true;
+                }
+
+                @Override
+                public Renderer getRenderer() {
+                    if (renderer == null) {
+                        NullGL gl = new NullGL();
+                        renderer = new GLRenderer(gl.getGL(), gl.getGLExt(), gl.getGLFbo());
+                        renderer.initialize();
+                    }
+                    return renderer;
+                }
+            };
+        }
+
+        @Override
+        public void simpleInitApp() {
+            Geometry box = new Geometry("Box", new Box(1, 1, 1));
+            box.setMaterial(new Material(assetManager, "MatDefs/Misc/Unshaded.minid"));
+            rootNode.attachChild(box);
+        }
+    }
+}
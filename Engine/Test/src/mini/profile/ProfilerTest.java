@@ -0,0 +1,100 @@
+package mini.profile;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that {@link Profiler} records nested phases into its history.
+ */
+public class ProfilerTest {
+
+    private static void busyWait(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+        }
+    }
+
+    @Test
+    public void testNestedPhases() {
+        Profiler profiler = new Profiler();
+        int custom = profiler.addPhase("Custom");
+
+        profiler.beginFrame();
+        profiler.begin(Profiler.RENDER);
+        profiler.profile(custom, () -> busyWait(1000000));
+        profiler.end(Profiler.RENDER);
+        assertEquals(1, profiler.getCallCount(custom));
+        profiler.beginFrame();
+
+        float[] render = new float[Profiler.HISTORY_SIZE];
+        float[] nested = new float[Profiler.HISTORY_SIZE];
+        assertEquals(1, profiler.getHistory(Profiler.RENDER, render));
+        assertEquals(1, profiler.getHistory(custom, nested));
+        assertTrue(nested[0] >= 1f);
+        assertTrue(render[0] >= nested[0]);
+    }
+
+    @Test
+    public void testProfiledBodyThrows() {
+        Profiler profiler = new Profiler();
+        profiler.beginFrame();
+        try {
+            profiler.profile(Profiler.RENDER, () -> {
+                throw new IllegalArgumentException();
+            });
+        } catch (IllegalArgumentException expected) {
+        }
+        // The phase ended, the next one is not nested in it
+        profiler.begin(Profiler.CULLING);
+        profiler.end(Profiler.CULLING);
+        assertEquals(1, profiler.getCallCount(Profiler.RENDER));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMismatchedEnd() {
+        Profiler profiler = new Profiler();
+        profiler.beginFrame();
+        profiler.begin(Profiler.RENDER);
+        profiler.end(Profiler.CULLING);
+    }
+
+    @Test
+    public void testHistoryWrapsAround() {
+        Profiler profiler = new Profiler();
+        for (int i = 0; i < Profiler.HISTORY_SIZE + 10; i++) {
+            profiler.beginFrame();
+        }
+        assertEquals(Profiler.HISTORY_SIZE, profiler.getHistoryCount());
+    }
+
+    @Test
+    public void testDisabled() {
+        Profiler profiler = new Profiler();
+        profiler.setEnabled(false);
+        profiler.beginFrame();
+        profiler.begin(Profiler.RENDER);
+        profiler.beginFrame();
+        profiler.end(Profiler.CULLING);
+        assertEquals(0, profiler.getHistoryCount());
+    }
+
+    @Test
+    public void testWriteCsv() throws IOException {
+        Profiler profiler = new Profiler();
+        for (int i = 0; i < 4; i++) {
+            profiler.beginFrame();
+        }
+        StringWriter writer = new StringWriter();
+        profiler.writeCsv(writer);
+
+        String[] lines = writer.toString().split("\n");
+        assertEquals(4, lines.length);
+        assertEquals(profiler.getPhaseCount() + 2, lines[0].split(",").length);
+        assertEquals(profiler.getPhaseCount() + 2, lines[1].split(",", -1).length);
+    }
+}
@@ -0,0 +1,143 @@
+package mini.renderer;
+
+import mini.asset.AssetManager;
+import mini.light.DirectionalLight;
+import mini.material.Material;
+import mini.math.ColorRGBA;
+import mini.math.Matrix4f;
+import mini.math.Vector3f;
+import mini.renderer.queue.GeometryList;
+import mini.renderer.queue.RenderQueue;
+import mini.renderer.queue.TransparentComparator;
+import mini.scene.Geometry;
+import mini.scene.Node;
+import mini.scene.shape.Box;
+import mini.system.TestUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RenderQueueExtractTest {
+    private RenderManager renderManager;
+    private AssetManager assetManager;
+    private Camera cam;
+
+    @Before
+    public void setUp() {
+        assetManager = TestUtil.createAssetManager();
+        renderManager = TestUtil.createRenderManager();
+        renderManager.setLightFilter(null);
+        cam = new Camera(640, 480);
+        cam.setLocation(new Vector3f(0, 0, 10));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+    }
+
+    private Geometry createGeometry(String name, float z) {
+        Geometry geometry = new Geometry(name, new Box(1, 1, 1));
+        geometry.setMaterial(new Material(assetManager, "MatDefs/Misc/Unshaded.minid"));
+        geometry.setLocalTranslation(0, 0, z);
+        return geometry;
+    }
+
+    @Test
+    public void testExtractedStateKeptWhileSceneUpdated() {
+        Node root = new Node("Root");
+        DirectionalLight light = new DirectionalLight();
+        root.addLight(light);
+        Geometry near = createGeometry("Near", 5);
+        Geometry far = createGeometry("Far", -5);
+        root.attachChild(near);
+        root.attachChild(far);
+        root.updateGeometricState();
+
+        GeometryList list = new GeometryList(new TransparentComparator());
+        list.add(near);
+        list.add(far);
+        list.setCamera(cam);
+        list.sort();
+        list.extract(renderManager);
+        assertTrue(list.isExtracted());
+
+        // Sorted back to front
+        assertSame(far, list.get(0));
+        assertSame(near, list.get(1));
+        Matrix4f nearMatrix = near.getWorldMatrix().clone();
+        Material nearMaterial = near.getMaterial();
+
+        near.setLocalTranslation(1, 2, 3);
+        near.setMaterial(new Material(assetManager, "MatDefs/Misc/Unshaded.minid"));
+        root.addLight(new DirectionalLight());
+        root.updateGeometricState();
+
+        assertEquals(nearMatrix, list.getWorldMatrix(1));
+        assertNotSame(nearMatrix, near.getWorldMatrix());
+        assertSame(nearMaterial, list.getMaterial(1));
+        assertEquals(1, list.getLightList(1).size());
+        assertSame(light, list.getLightList(1).get(0));
+
+        list.clear();
+        assertFalse(list.isExtracted());
+        assertEquals(0, list.size());
+    }
+
+    @Test
+    public void testIgnoreTransform() {
+        Geometry geometry = createGeometry("Gui", 3);
+        geometry.setIgnoreTransform(true);
+        geometry.updateGeometricState();
+
+        GeometryList list = new GeometryList(new TransparentComparator());
+        list.add(geometry);
+        list.extract(renderManager);
+        assertEquals(Matrix4f.IDENTITY, list.getWorldMatrix(0));
+    }
+
+    @Test
+    public void testListGrows() {
+        GeometryList list = new GeometryList(new TransparentComparator());
+        Node root = new Node("Root");
+        for (int i = 0; i < 100; i++) {
+            Geometry geometry = createGeometry("Box" + i, -i);
+            root.attachChild(geometry);
+            list.add(geometry);
+        }
+        root.updateGeometricState();
+        list.setCamera(cam);
+        list.sort();
+        list.extract(renderManager);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(list.get(i).getWorldMatrix(), list.getWorldMatrix(i));
+        }
+    }
+
+    @Test
+    public void testViewPortExtraction() {
+        Camera viewCam = cam.clone();
+        ViewPort vp = new ViewPort("Test", viewCam);
+        vp.setBackgroundColor(ColorRGBA.Red);
+        Node scene = new Node("Scene");
+        scene.attachChild(createGeometry("Box", 0));
+        scene.updateGeometricState();
+        vp.attachScene(scene);
+
+        renderManager.renderScene(scene, vp);
+        vp.extract();
+        vp.getQueue().extract(renderManager, vp.getRenderCamera());
+        assertTrue(vp.isExtracted());
+        assertFalse(vp.getQueue().isQueueEmpty(RenderQueue.Bucket.Opaque));
+
+        viewCam.setLocation(new Vector3f(5, 5, 5));
+        vp.setBackgroundColor(ColorRGBA.Blue);
+        assertEquals(new Vector3f(0, 0, 10), vp.getRenderCamera().getLocation());
+        assertEquals(ColorRGBA.Red, vp.getRenderBackgroundColor());
+
+        vp.clearExtracted();
+        assertSame(viewCam, vp.getRenderCamera());
+        assertEquals(ColorRGBA.Blue, vp.getRenderBackgroundColor());
+    }
+}
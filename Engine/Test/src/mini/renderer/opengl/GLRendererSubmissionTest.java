@@ -0,0 +1,126 @@
+package mini.renderer.opengl;
+
+import mini.asset.AssetManager;
+import mini.material.Material;
+import mini.math.ColorRGBA;
+import mini.math.Vector3f;
+import mini.renderer.Camera;
+import mini.renderer.RenderManager;
+import mini.renderer.ViewPort;
+import mini.scene.Geometry;
+import mini.scene.Mesh;
+import mini.scene.Node;
+import mini.scene.shape.Box;
+import mini.system.TestUtil;
+import mini.textures.Image;
+import mini.textures.Texture2D;
+import mini.textures.image.ColorSpace;
+import mini.utils.BufferUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Renders scenes through {@link RenderManager} and a {@link GLRenderer} backed by a
+ * {@link RecordingGL}, and checks the GL calls submitted for them.
+ */
+public class GLRendererSubmissionTest {
+    private static final int GEOMETRY_COUNT = 8;
+
+    private RecordingGL recorder;
+    private RenderManager renderManager;
+    private AssetManager assetManager;
+    private Node scene;
+
+    @Before
+    public void setUp() {
+        assetManager = TestUtil.createAssetManager();
+        recorder = new RecordingGL();
+        GLRenderer renderer = new GLRenderer(recorder.getGL(), recorder.getGLExt(),
+                                             recorder.getGLFbo());
+        renderer.initialize();
+        renderManager = new RenderManager(renderer);
+
+        Camera cam = new Camera(640, 480);
+        cam.setFrustumPerspective(45f, 640f / 480f, 1f, 1000f);
+        cam.setLocation(new Vector3f(0, 0, 20));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        ViewPort viewPort = renderManager.createMainView("Default", cam);
+        viewPort.setClearFlags(true, true, true);
+
+        scene = new Node("Scene");
+        viewPort.attachScene(scene);
+    }
+
+    private Texture2D createTexture() {
+        ByteBuffer data = BufferUtils.createByteBuffer(4 * 4 * 4);
+        Image image = new Image(Image.Format.RGBA8, 4, 4, data, ColorSpace.Linear);
+        return new Texture2D(image);
+    }
+
+    private void addGeometries(Material material) {
+        Mesh mesh = new Box(1, 1, 1);
+        for (int i = 0; i < GEOMETRY_COUNT; i++) {
+            Geometry geometry = new Geometry("Box" + i, mesh);
+            geometry.setMaterial(material);
+            geometry.setLocalTranslation(i - GEOMETRY_COUNT / 2f, 0, 0);
+            scene.attachChild(geometry);
+        }
+    }
+
+    private void renderFrame() {
+        scene.updateLogicalState(0.016f);
+        scene.updateGeometricState();
+        renderManager.render(0.016f, true);
+    }
+
+    @Test
+    public void testUploadsOnlyOnFirstFrame() {
+        Material material = new Material(assetManager, "MatDefs/Misc/Unshaded.minid");
+        material.setTexture("ColorMap", createTexture());
+        addGeometries(material);
+
+        renderFrame();
+        assertEquals(1, recorder.getLiveObjectCount(RecordingGL.ObjectType.Texture));
+        assertTrue(recorder.getUploadedBytes() >= 4 * 4 * 4);
+        assertTrue(recorder.getLiveObjectCount(RecordingGL.ObjectType.Buffer) > 0);
+
+        recorder.resetCalls();
+        renderFrame();
+        assertEquals(GEOMETRY_COUNT, recorder.getDrawCallCount());
+        assertEquals(0, recorder.getUploadedBytes());
+        assertEquals(0, recorder.getCallCount("glCompileShader"));
+        assertEquals(0, recorder.getCallCount("glTexImage2D"));
+    }
+
+    @Test
+    public void testNoRedundantBindsForSharedMaterial() {
+        Material material = new Material(assetManager, "MatDefs/Misc/Unshaded.minid");
+        material.setTexture("ColorMap", createTexture());
+        addGeometries(material);
+
+        renderFrame();
+        recorder.resetCalls();
+        renderFrame();
+
+        assertEquals(0, recorder.getRedundantCallCount("glUseProgram"));
+        assertEquals(0, recorder.getRedundantCallCount("glBindTexture"));
+        assertTrue(recorder.getCallCount("glUseProgram") <= 1);
+        assertTrue(recorder.getCallCount("glBindTexture") <= 1);
+    }
+
+    @Test
+    public void testClearBeforeDraw() {
+        Material material = new Material(assetManager, "MatDefs/Misc/Unshaded.minid");
+        material.setColor("Color", ColorRGBA.Red);
+        addGeometries(material);
+
+        renderFrame();
+        assertTrue(recorder.containsSequence("glClear", "glUseProgram", "glDrawRangeElements"));
+        assertEquals(GEOMETRY_COUNT, recorder.getCalls("glDrawRangeElements").size());
+    }
+}
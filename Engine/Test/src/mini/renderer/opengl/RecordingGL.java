@@ -0,0 +1,497 @@
+package mini.renderer.opengl;
+
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link NullGL} bindings which record the calls made by a {@link GLRenderer} in tests:
+ * <pre>
+ * RecordingGL recorder = new RecordingGL();
+ * GLRenderer renderer = new GLRenderer(recorder.getGL(), recorder.getGLExt(), recorder.getGLFbo());
+ * renderer.initialize();
+ * </pre>
+ * Every call made through {@link #getGL()}, {@link #getGLExt()} and {@link #getGLFbo()} is counted
+ * and recorded in order. The recorder also keeps the state the driver would: the generated object
+ * ids, the bindings, the bound program, the size of the buffers and textures and the number of
+ * bytes uploaded.
+ * <p>
+ * Calls which bind what is already bound, e.g. <code>glUseProgram</code> with the current program
+ * or <code>glBindTexture</code> with the texture already bound on the active unit, are counted as
+ * redundant so that tests can catch submission regressions.
+ */
+public class RecordingGL extends NullGL {
+
+    /**
+     * The kinds of objects the driver generates ids for.
+     */
+    public enum ObjectType {
+        Buffer, Texture, Query, FrameBuffer, RenderBuffer, VertexArray, Shader, Program
+    }
+
+    /**
+     * A recorded call. The buffer arguments are recorded as the number of elements they had
+     * remaining when the call was made, the renderer reuses its buffers so their content would
+     * not mean anything afterwards.
+     */
+    public static final class Call {
+        private final String name;
+        private final Object[] args;
+
+        private Call(String name, Object[] args) {
+            this.name = name;
+            this.args = args;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Object getArg(int index) {
+            return args[index];
+        }
+
+        public int getIntArg(int index) {
+            return ((Number) args[index]).intValue();
+        }
+
+        public int getArgCount() {
+            return args.length;
+        }
+
+        @Override
+        public String toString() {
+            return name + Arrays.toString(args);
+        }
+    }
+
+    private final List<Call> calls = new ArrayList<>();
+    private final Map<String, Integer> callCounts = new HashMap<>();
+    private final Map<String, Integer> redundantCounts = new HashMap<>();
+    private boolean recording = true;
+    private int drawCallCount;
+    private long uploadedBytes;
+
+    private final EnumMap<ObjectType, Set<Integer>> liveObjects = new EnumMap<>(ObjectType.class);
+    private final Map<Integer, Integer> bufferBindings = new HashMap<>();
+    private final Map<Integer, Long> bufferSizes = new HashMap<>();
+    private final List<Map<Integer, Integer>> textureBindings = new ArrayList<>();
+    private final int[] lastBoundTextures = new int[TEXTURE_UNITS];
+    private final Map<Integer, int[]> textureSizes = new HashMap<>();
+    private final Map<Integer, Integer> frameBufferBindings = new HashMap<>();
+    private final Set<Integer> enabledCaps = new HashSet<>();
+    private int activeTextureUnit;
+    private int boundProgram;
+    private int boundRenderBuffer;
+    private int boundVertexArray;
+
+    /**
+     * Creates a recorder reporting an OpenGL 3.3 core context without extensions.
+     */
+    public RecordingGL() {
+        this("3.3.0 Recording", "3.30");
+    }
+
+    /**
+     * @param version     The string returned for <code>GL_VERSION</code>
+     * @param glslVersion The string returned for <code>GL_SHADING_LANGUAGE_VERSION</code>
+     */
+    public RecordingGL(String version, String glslVersion) {
+        super(version, glslVersion);
+        for (ObjectType type : ObjectType.values()) {
+            liveObjects.put(type, new HashSet<>());
+        }
+        for (int i = 0; i < TEXTURE_UNITS; i++) {
+            textureBindings.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * @param recording false to stop recording the calls in {@link #getCalls()}, they are still
+     *                  counted. Recording every call of a long run uses a lot of memory.
+     */
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * Forgets the recorded calls and resets the counters, e.g. between the frame which uploads
+     * the scene and the frames which are measured. The state of the objects and bindings is kept.
+     */
+    public void resetCalls() {
+        calls.clear();
+        callCounts.clear();
+        redundantCounts.clear();
+        drawCallCount = 0;
+        uploadedBytes = 0;
+    }
+
+    public List<Call> getCalls() {
+        return calls;
+    }
+
+    /**
+     * @param name The name of a GL function, e.g. <code>glUseProgram</code>
+     * @return the recorded calls to the function, in order
+     */
+    public List<Call> getCalls(String name) {
+        List<Call> result = new ArrayList<>();
+        for (Call call : calls) {
+            if (call.name.equals(name)) {
+                result.add(call);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param name The name of a GL function, e.g. <code>glUseProgram</code>
+     * @return the number of calls to the function
+     */
+    public int getCallCount(String name) {
+        return callCounts.getOrDefault(name, 0);
+    }
+
+    /**
+     * @return the number of calls to any GL function
+     */
+    public int getTotalCallCount() {
+        int total = 0;
+        for (int count : callCounts.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * @param name The name of a binding function, e.g. <code>glBindTexture</code>
+     * @return the number of calls to the function which bound what was already bound
+     */
+    public int getRedundantCallCount(String name) {
+        return redundantCounts.getOrDefault(name, 0);
+    }
+
+    /**
+     * @return the number of calls to any binding function which bound what was already bound
+     */
+    public int getTotalRedundantCallCount() {
+        int total = 0;
+        for (int count : redundantCounts.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * @return the number of draw calls, instanced or not
+     */
+    public int getDrawCallCount() {
+        return drawCallCount;
+    }
+
+    /**
+     * @return the number of bytes uploaded to buffers and textures
+     */
+    public long getUploadedBytes() {
+        return uploadedBytes;
+    }
+
+    /**
+     * Checks whether the recorded calls contain the given functions in the given order, other
+     * calls may be interleaved.
+     *
+     * @param names The names of the GL functions
+     * @return true if the calls were made in this order
+     */
+    public boolean containsSequence(String... names) {
+        int next = 0;
+        for (int i = 0; i < calls.size() && next < names.length; i++) {
+            if (calls.get(i).name.equals(names[next])) {
+                next++;
+            }
+        }
+        return next == names.length;
+    }
+
+    /**
+     * @return the number of objects of this type generated and not deleted yet
+     */
+    public int getLiveObjectCount(ObjectType type) {
+        return liveObjects.get(type).size();
+    }
+
+    public boolean isLive(ObjectType type, int id) {
+        return liveObjects.get(type).contains(id);
+    }
+
+    public int getBoundProgram() {
+        return boundProgram;
+    }
+
+    public int getBoundBuffer(int target) {
+        return bufferBindings.getOrDefault(target, 0);
+    }
+
+    public int getBoundTexture(int unit, int target) {
+        return textureBindings.get(unit).getOrDefault(target, 0);
+    }
+
+    public int getBoundFrameBuffer(int target) {
+        return frameBufferBindings.getOrDefault(target, 0);
+    }
+
+    /**
+     * @return the size of the data store of the buffer in bytes, or -1 if it has none
+     */
+    public long getBufferSize(int buffer) {
+        return bufferSizes.getOrDefault(buffer, -1L);
+    }
+
+    /**
+     * @return the width, height and depth of the base level of the texture, or null if no image
+     * was specified for it
+     */
+    public int[] getTextureSize(int texture) {
+        return textureSizes.get(texture);
+    }
+
+    private static Object[] recordedArgs(Object[] args) {
+        if (args == null) {
+            return new Object[0];
+        }
+        Object[] copy = args.clone();
+        for (int i = 0; i < copy.length; i++) {
+            if (copy[i] instanceof Buffer) {
+                copy[i] = ((Buffer) copy[i]).remaining();
+            }
+        }
+        return copy;
+    }
+
+    private static long byteSize(Object data) {
+        if (data instanceof ByteBuffer) {
+            return ((ByteBuffer) data).remaining();
+        } else if (data instanceof Buffer) {
+            Buffer buffer = (Buffer) data;
+            int elementSize = buffer instanceof FloatBuffer || buffer instanceof IntBuffer ? 4 : 2;
+            return (long) buffer.remaining() * elementSize;
+        }
+        return 0;
+    }
+
+    private void redundant(String name) {
+        redundantCounts.merge(name, 1, Integer::sum);
+    }
+
+    /**
+     * Tracks the ids generated by {@link NullGL}.
+     */
+    private void genObjects(ObjectType type, IntBuffer ids, int count) {
+        for (int i = 0; i < count; i++) {
+            liveObjects.get(type).add(ids.get(ids.position() + i));
+        }
+    }
+
+    private void deleteObjects(ObjectType type, IntBuffer ids) {
+        for (int i = ids.position(); i < ids.limit(); i++) {
+            liveObjects.get(type).remove(ids.get(i));
+        }
+    }
+
+    private Object createObject(ObjectType type, Object id) {
+        liveObjects.get(type).add((Integer) id);
+        return id;
+    }
+
+    private void bindBuffer(int target, int buffer) {
+        Integer previous = bufferBindings.put(target, buffer);
+        if (previous != null && previous == buffer) {
+            redundant("glBindBuffer");
+        }
+    }
+
+    private void bindTexture(int target, int texture) {
+        Integer previous = textureBindings.get(activeTextureUnit).put(target, texture);
+        if (previous != null && previous == texture) {
+            redundant("glBindTexture");
+        }
+        lastBoundTextures[activeTextureUnit] = texture;
+    }
+
+    private void bufferData(int target, long size, Object data) {
+        int buffer = getBoundBuffer(target);
+        bufferSizes.put(buffer, size);
+        uploadedBytes += byteSize(data);
+    }
+
+    private void texImage(int width, int height, int depth, int level, Object data) {
+        if (level == 0) {
+            textureSizes.put(lastBoundTextures[activeTextureUnit],
+                             new int[]{width, height, depth});
+        }
+        uploadedBytes += byteSize(data);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+        if (method.getDeclaringClass() == Object.class) {
+            return super.invoke(proxy, method, args);
+        }
+
+        callCounts.merge(name, 1, Integer::sum);
+        if (recording) {
+            calls.add(new Call(name, recordedArgs(args)));
+        }
+
+        Object result = super.invoke(proxy, method, args);
+        switch (name) {
+            // Objects
+            case "glGenBuffers":
+                genObjects(ObjectType.Buffer, (IntBuffer) args[0], ((IntBuffer) args[0]).remaining());
+                break;
+            case "glGenTextures":
+                genObjects(ObjectType.Texture, (IntBuffer) args[0], ((IntBuffer) args[0]).remaining());
+                break;
+            case "glGenQueries":
+                genObjects(ObjectType.Query, (IntBuffer) args[1], (Integer) args[0]);
+                break;
+            case "glGenFramebuffersEXT":
+                genObjects(ObjectType.FrameBuffer, (IntBuffer) args[0],
+                           ((IntBuffer) args[0]).remaining());
+                break;
+            case "glGenRenderbuffersEXT":
+                genObjects(ObjectType.RenderBuffer, (IntBuffer) args[0],
+                           ((IntBuffer) args[0]).remaining());
+                break;
+            case "glGenVertexArrays":
+                genObjects(ObjectType.VertexArray, (IntBuffer) args[0],
+                           ((IntBuffer) args[0]).remaining());
+                break;
+            case "glCreateShader":
+                return createObject(ObjectType.Shader, result);
+            case "glCreateProgram":
+                return createObject(ObjectType.Program, result);
+            case "glDeleteBuffers":
+                deleteObjects(ObjectType.Buffer, (IntBuffer) args[0]);
+                break;
+            case "glDeleteTextures":
+                deleteObjects(ObjectType.Texture, (IntBuffer) args[0]);
+                break;
+            case "glDeleteFramebuffersEXT":
+                deleteObjects(ObjectType.FrameBuffer, (IntBuffer) args[0]);
+                break;
+            case "glDeleteRenderbuffersEXT":
+                deleteObjects(ObjectType.RenderBuffer, (IntBuffer) args[0]);
+                break;
+            case "glDeleteVertexArrays":
+                deleteObjects(ObjectType.VertexArray, (IntBuffer) args[0]);
+                break;
+            case "glDeleteShader":
+                liveObjects.get(ObjectType.Shader).remove((Integer) args[0]);
+                break;
+            case "glDeleteProgram":
+                liveObjects.get(ObjectType.Program).remove((Integer) args[0]);
+                break;
+
+            // Bindings
+            case "glUseProgram":
+                if (boundProgram == (Integer) args[0]) {
+                    redundant(name);
+                }
+                boundProgram = (Integer) args[0];
+                break;
+            case "glActiveTexture":
+                int unit = (Integer) args[0] - GL.GL_TEXTURE0;
+                if (unit == activeTextureUnit) {
+                    redundant(name);
+                }
+                activeTextureUnit = unit;
+                break;
+            case "glBindTexture":
+                bindTexture((Integer) args[0], (Integer) args[1]);
+                break;
+            case "glBindBuffer":
+                bindBuffer((Integer) args[0], (Integer) args[1]);
+                break;
+            case "glBindFramebufferEXT":
+                Integer previousFrameBuffer = frameBufferBindings.put((Integer) args[0],
+                                                                      (Integer) args[1]);
+                if (previousFrameBuffer != null && previousFrameBuffer.equals(args[1])) {
+                    redundant(name);
+                }
+                break;
+            case "glBindRenderbufferEXT":
+                if (boundRenderBuffer == (Integer) args[1]) {
+                    redundant(name);
+                }
+                boundRenderBuffer = (Integer) args[1];
+                break;
+            case "glBindVertexArray":
+                if (boundVertexArray == (Integer) args[0]) {
+                    redundant(name);
+                }
+                boundVertexArray = (Integer) args[0];
+                break;
+            case "glEnable":
+                enabledCaps.add((Integer) args[0]);
+                break;
+            case "glDisable":
+                enabledCaps.remove((Integer) args[0]);
+                break;
+
+            // Uploads
+            case "glBufferData":
+                long size = args[1] instanceof Long ? (Long) args[1] : byteSize(args[1]);
+                bufferData((Integer) args[0], size, args[1]);
+                break;
+            case "glBufferSubData":
+                uploadedBytes += byteSize(args[2]);
+                break;
+            case "glTexImage2D":
+                texImage((Integer) args[3], (Integer) args[4], 1, (Integer) args[1], args[8]);
+                break;
+            case "glCompressedTexImage2D":
+                texImage((Integer) args[3], (Integer) args[4], 1, (Integer) args[1], args[6]);
+                break;
+            case "glTexImage3D":
+                texImage((Integer) args[3], (Integer) args[4], (Integer) args[5],
+                         (Integer) args[1], args[9]);
+                break;
+            case "glCompressedTexImage3D":
+                texImage((Integer) args[3], (Integer) args[4], (Integer) args[5],
+                         (Integer) args[1], args[7]);
+                break;
+            case "glTexSubImage2D":
+            case "glCompressedTexSubImage2D":
+            case "glTexSubImage3D":
+            case "glCompressedTexSubImage3D":
+                uploadedBytes += byteSize(args[args.length - 1]);
+                break;
+
+            // Draw calls
+            case "glDrawArrays":
+            case "glDrawRangeElements":
+            case "glDrawArraysInstancedARB":
+            case "glDrawElementsInstancedARB":
+                drawCallCount++;
+                break;
+
+            case "glIsEnabled":
+                return enabledCaps.contains((Integer) args[0]);
+            default:
+                break;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,286 @@
+package mini.scene;
+
+import mini.light.LightList;
+import mini.light.PointLight;
+import mini.math.FastMath;
+import mini.math.Quaternion;
+import mini.math.Vector3f;
+import mini.scene.shape.Box;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that {@link Node#setFlatTransformUpdate(boolean)} gives the same world transforms, world
+ * matrices, world bounds, light order and group node notifications as the update spatial by
+ * spatial.
+ */
+public class NodeFlatTransformTest {
+    private static final int DEPTH = 4;
+    private static final int BREADTH = 4;
+
+    /**
+     * Counts the transform changes of its geometries.
+     */
+    private static final class CountingGroupNode extends GeometryGroupNode {
+        private final Map<String, Integer> transformChanges = new HashMap<>();
+
+        CountingGroupNode(String name) {
+            super(name);
+        }
+
+        void associate(Geometry geometry) {
+            geometry.groupNode = this;
+        }
+
+        @Override
+        public void onTransformChange(Geometry geom) {
+            transformChanges.merge(geom.getName(), 1, Integer::sum);
+        }
+
+        @Override
+        public void onMaterialChange(Geometry geom) {
+        }
+
+        @Override
+        public void onMeshChange(Geometry geom) {
+        }
+
+        @Override
+        public void onGeometryUnassociated(Geometry geom) {
+        }
+    }
+
+    private static Node createScene(long seed) {
+        Random random = new Random(seed);
+        Node root = new Node("Root");
+        addChildren(root, DEPTH, new Box(0.5f, 1, 2), random);
+        return root;
+    }
+
+    private static void addChildren(Node node, int depth, Mesh mesh, Random random) {
+        for (int i = 0; i < BREADTH; i++) {
+            Spatial child;
+            if (depth == 1) {
+                child = new Geometry(node.getName() + "/" + i, mesh);
+            } else {
+                Node childNode = new Node(node.getName() + "/" + i);
+                addChildren(childNode, depth - 1, mesh, random);
+                child = childNode;
+            }
+            move(child, random);
+            node.attachChild(child);
+        }
+    }
+
+    private static void move(Spatial spatial, Random random) {
+        spatial.setLocalTranslation(random.nextFloat() * 10 - 5, random.nextFloat() * 10 - 5,
+                                    random.nextInt(4) == 0 ? 0 : random.nextFloat());
+        spatial.setLocalRotation(new Quaternion().fromAngles(random.nextFloat() * FastMath.PI,
+                                                             random.nextFloat() * FastMath.PI, 0));
+        spatial.setLocalScale(0.5f + random.nextFloat());
+    }
+
+    private static void collect(Spatial spatial, List<Spatial> store) {
+        store.add(spatial);
+        if (spatial instanceof Node) {
+            for (Spatial child : ((Node) spatial).getChildren()) {
+                collect(child, store);
+            }
+        }
+    }
+
+    private static void assertSameState(Node expected, Node actual) {
+        List<Spatial> expectedSpatials = new ArrayList<>();
+        List<Spatial> actualSpatials = new ArrayList<>();
+        collect(expected, expectedSpatials);
+        collect(actual, actualSpatials);
+        assertEquals(expectedSpatials.size(), actualSpatials.size());
+
+        for (int i = 0; i < expectedSpatials.size(); i++) {
+            Spatial e = expectedSpatials.get(i);
+            Spatial a = actualSpatials.get(i);
+            assertEquals(e.getName(), a.getName());
+            assertEquals(e.getWorldTranslation(), a.getWorldTranslation());
+            assertEquals(e.getWorldRotation(), a.getWorldRotation());
+            assertEquals(e.getWorldScale(), a.getWorldScale());
+            assertEquals(e.getWorldBound().getCenter(), a.getWorldBound().getCenter());
+            if (e instanceof Geometry) {
+                assertEquals(((Geometry) e).getWorldMatrix(), ((Geometry) a).getWorldMatrix());
+
+                LightList expectedLights = e.getWorldLightList();
+                LightList actualLights = a.getWorldLightList();
+                assertEquals(expectedLights.size(), actualLights.size());
+                for (int j = 0; j < expectedLights.size(); j++) {
+                    assertEquals(((PointLight) expectedLights.get(j)).getPosition(),
+                                 ((PointLight) actualLights.get(j)).getPosition());
+                }
+            }
+        }
+    }
+
+    private static Spatial pick(Node root, Random random) {
+        List<Spatial> spatials = new ArrayList<>();
+        collect(root, spatials);
+        return spatials.get(1 + random.nextInt(spatials.size() - 1));
+    }
+
+    @Test
+    public void testSameAsSerialUpdate() {
+        Node serial = createScene(7);
+        Node flat = createScene(7);
+        flat.setFlatTransformUpdate(true);
+        assertTrue(flat.isFlatTransformUpdate());
+
+        serial.updateGeometricState();
+        flat.updateGeometricState();
+        assertSameState(serial, flat);
+
+        Random serialRandom = new Random(11);
+        Random flatRandom = new Random(11);
+        for (int frame = 0; frame < 20; frame++) {
+            for (int i = 0; i < 10; i++) {
+                move(pick(serial, serialRandom), serialRandom);
+                move(pick(flat, flatRandom), flatRandom);
+            }
+            serial.updateGeometricState();
+            flat.updateGeometricState();
+            assertSameState(serial, flat);
+        }
+    }
+
+    private static CountingGroupNode createGroupedScene(Node root) {
+        for (int i = 0; i < 4; i++) {
+            root.addLight(new PointLight(new Vector3f(i * 8 - 12, i % 2 * 6 - 3, 2)));
+        }
+        CountingGroupNode group = new CountingGroupNode("Group");
+        Mesh mesh = new Box(1, 1, 1);
+        for (int i = 0; i < 8; i++) {
+            Geometry geometry = new Geometry("Grouped" + i, mesh);
+            geometry.setLocalTranslation(i * 2 - 8, 0, 0);
+            group.attachChild(geometry);
+            group.associate(geometry);
+        }
+        root.attachChild(group);
+        return group;
+    }
+
+    @Test
+    public void testLightsAndGroupNode() {
+        Node serial = createScene(13);
+        Node flat = createScene(13);
+        CountingGroupNode serialGroup = createGroupedScene(serial);
+        CountingGroupNode flatGroup = createGroupedScene(flat);
+        flat.setFlatTransformUpdate(true);
+
+        serial.updateGeometricState();
+        flat.updateGeometricState();
+        assertSameState(serial, flat);
+        assertEquals(serialGroup.transformChanges, flatGroup.transformChanges);
+
+        Random serialRandom = new Random(17);
+        Random flatRandom = new Random(17);
+        for (int frame = 0; frame < 10; frame++) {
+            // Moving the group sweeps its geometries past the lights
+            serialGroup.setLocalTranslation(frame * 3 - 15, 0, 0);
+            flatGroup.setLocalTranslation(frame * 3 - 15, 0, 0);
+            move(serialGroup.getChild(frame % 8), serialRandom);
+            move(flatGroup.getChild(frame % 8), flatRandom);
+            serial.updateGeometricState();
+            flat.updateGeometricState();
+            assertSameState(serial, flat);
+            assertEquals(serialGroup.transformChanges, flatGroup.transformChanges);
+        }
+        assertTrue(flatGroup.transformChanges.get("Grouped0") > 1);
+    }
+
+    @Test
+    public void testRootMoved() {
+        Node serial = createScene(3);
+        Node flat = createScene(3);
+        flat.setFlatTransformUpdate(true);
+        serial.updateGeometricState();
+        flat.updateGeometricState();
+
+        serial.setLocalTranslation(1, 2, 3);
+        flat.setLocalTranslation(1, 2, 3);
+        serial.rotate(0.5f, 0, 0);
+        flat.rotate(0.5f, 0, 0);
+        serial.updateGeometricState();
+        flat.updateGeometricState();
+        assertSameState(serial, flat);
+    }
+
+    @Test
+    public void testAttachDetach() {
+        Node serial = createScene(5);
+        Node flat = createScene(5);
+        flat.setFlatTransformUpdate(true);
+        serial.updateGeometricState();
+        flat.updateGeometricState();
+
+        for (Node root : new Node[]{serial, flat}) {
+            Node first = (Node) root.getChild(0);
+            Node second = (Node) root.getChild(1);
+            Spatial moved = first.detachChildAt(0);
+            second.attachChild(moved);
+            Geometry added = new Geometry("Added", new Box(1, 1, 1));
+            added.setLocalTranslation(3, 0, 0);
+            ((Node) moved).attachChild(added);
+        }
+        serial.updateGeometricState();
+        flat.updateGeometricState();
+        assertSameState(serial, flat);
+    }
+
+    @Test
+    public void testWorldTransformReadBeforeUpdate() {
+        Node serial = createScene(9);
+        Node flat = createScene(9);
+        flat.setFlatTransformUpdate(true);
+        serial.updateGeometricState();
+        flat.updateGeometricState();
+
+        for (Node root : new Node[]{serial, flat}) {
+            Node parent = (Node) root.getChild(2);
+            parent.setLocalTranslation(new Vector3f(-4, 1, 0));
+            // Updates the world transform of the parent outside of the flat arrays
+            parent.getWorldTranslation();
+            parent.getChild(0).setLocalScale(2);
+        }
+        serial.updateGeometricState();
+        flat.updateGeometricState();
+        assertSameState(serial, flat);
+    }
+
+    @Test
+    public void testDisable() {
+        Node root = createScene(1);
+        root.setFlatTransformUpdate(true);
+        root.updateGeometricState();
+        root.setFlatTransformUpdate(false);
+        assertFalse(root.isFlatTransformUpdate());
+
+        Node serial = createScene(1);
+        serial.updateGeometricState();
+        root.getChild(0).setLocalTranslation(1, 1, 1);
+        serial.getChild(0).setLocalTranslation(1, 1, 1);
+        root.updateGeometricState();
+        serial.updateGeometricState();
+        assertSameState(serial, root);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOnlyRootCanBeFlat() {
+        Node root = createScene(1);
+        ((Node) root.getChild(0)).setFlatTransformUpdate(true);
+    }
+}
@@ -0,0 +1,195 @@
+package mini.scene;
+
+import mini.bounding.BoundingBox;
+import mini.math.Vector3f;
+import mini.scene.shape.Box;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that {@link Node#updateGeometricState()} only visits the children with refresh flags and
+ * keeps the world bound equal to the merge of all the children bounds.
+ */
+public class NodeGeometricStateTest {
+    private static final int CHILD_COUNT = 100;
+    private static final float EPSILON = 1e-4f;
+
+    private Node root;
+    private Node field;
+    private CountingGeometry[] cubes;
+
+    /**
+     * Geometry counting the calls to its updateGeometricState().
+     */
+    private static class CountingGeometry extends Geometry {
+        private int updates;
+
+        CountingGeometry(String name, Mesh mesh) {
+            super(name, mesh);
+        }
+
+        @Override
+        public void updateGeometricState() {
+            updates++;
+            super.updateGeometricState();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        root = new Node("Root");
+        field = new Node("Field");
+        root.attachChild(field);
+
+        Mesh mesh = new Box(1, 1, 1);
+        cubes = new CountingGeometry[CHILD_COUNT];
+        for (int i = 0; i < CHILD_COUNT; i++) {
+            cubes[i] = new CountingGeometry("Cube" + i, mesh);
+            cubes[i].setLocalTranslation(i % 10 * 4f, 0, i / 10 * 4f);
+            field.attachChild(cubes[i]);
+        }
+        root.updateGeometricState();
+        resetCounts();
+    }
+
+    private void resetCounts() {
+        for (CountingGeometry cube : cubes) {
+            cube.updates = 0;
+        }
+    }
+
+    private static BoundingBox mergeChildren(Node node) {
+        BoundingBox bound = null;
+        for (Spatial child : node.getChildren()) {
+            if (bound == null) {
+                bound = (BoundingBox) child.getWorldBound().clone(null);
+            } else {
+                bound.mergeLocal(child.getWorldBound());
+            }
+        }
+        return bound;
+    }
+
+    private static void assertBoundEquals(BoundingBox expected, BoundingBox actual) {
+        Vector3f expectedMin = expected.getMin(null);
+        Vector3f expectedMax = expected.getMax(null);
+        Vector3f actualMin = actual.getMin(null);
+        Vector3f actualMax = actual.getMax(null);
+        for (int axis = 0; axis < 3; axis++) {
+            assertEquals(expectedMin.get(axis), actualMin.get(axis), EPSILON);
+            assertEquals(expectedMax.get(axis), actualMax.get(axis), EPSILON);
+        }
+    }
+
+    @Test
+    public void testCleanSiblingsAreSkipped() {
+        cubes[42].move(0, 1, 0);
+        root.updateGeometricState();
+
+        assertEquals(1, cubes[42].updates);
+        for (int i = 0; i < CHILD_COUNT; i++) {
+            if (i != 42) {
+                assertEquals(0, cubes[i].updates);
+            }
+        }
+        assertEquals(1, cubes[42].getWorldTranslation().y, EPSILON);
+    }
+
+    @Test
+    public void testNothingVisitedWhenClean() {
+        root.updateGeometricState();
+        for (CountingGeometry cube : cubes) {
+            assertEquals(0, cube.updates);
+        }
+    }
+
+    @Test
+    public void testParentTransformVisitsAllChildren() {
+        field.move(0, 0, 5);
+        root.updateGeometricState();
+        for (CountingGeometry cube : cubes) {
+            assertEquals(1, cube.updates);
+            assertEquals(cube.getLocalTranslation().z + 5, cube.getWorldTranslation().z, EPSILON);
+        }
+        assertBoundEquals(mergeChildren(field), (BoundingBox) field.getWorldBound());
+    }
+
+    @Test
+    public void testBoundGrowsWithInnerChild() {
+        // An inner cube moving out of the field
+        cubes[55].move(0, 10, 0);
+        root.updateGeometricState();
+        assertBoundEquals(mergeChildren(field), (BoundingBox) field.getWorldBound());
+        assertEquals(11, field.getWorldBound().getCenter().y + ((BoundingBox) field
+                .getWorldBound()).getYExtent(), EPSILON);
+    }
+
+    @Test
+    public void testBoundShrinksWithOuterChild() {
+        // Moving every cube of the top row inwards shrinks the field
+        for (int i = 90; i < CHILD_COUNT; i++) {
+            cubes[i].move(0, 0, -2);
+        }
+        root.updateGeometricState();
+        assertBoundEquals(mergeChildren(field), (BoundingBox) field.getWorldBound());
+
+        cubes[99].move(0, 0, -20);
+        root.updateGeometricState();
+        assertBoundEquals(mergeChildren(field), (BoundingBox) field.getWorldBound());
+    }
+
+    @Test
+    public void testMovesOverManyFrames() {
+        for (int frame = 0; frame < 50; frame++) {
+            CountingGeometry cube = cubes[(frame * 37) % CHILD_COUNT];
+            cube.move(frame % 2 == 0 ? 3 : -3, frame % 3 - 1, (frame % 5 - 2) * 2);
+            root.updateGeometricState();
+            assertBoundEquals(mergeChildren(field), (BoundingBox) field.getWorldBound());
+        }
+    }
+
+    @Test
+    public void testDetachAndReattach() {
+        CountingGeometry cube = cubes[0];
+        cube.move(0, 1, 0);
+        field.detachChild(cube);
+        Node other = new Node("Other");
+        root.attachChild(other);
+        other.attachChild(cube);
+        root.updateGeometricState();
+        assertEquals(1, cube.updates);
+        assertBoundEquals(mergeChildren(field), (BoundingBox) field.getWorldBound());
+
+        cube.move(0, 1, 0);
+        other.detachChild(cube);
+        field.attachChild(cube);
+        root.updateGeometricState();
+        assertEquals(2, cube.getWorldTranslation().y, EPSILON);
+        assertBoundEquals(mergeChildren(field), (BoundingBox) field.getWorldBound());
+    }
+
+    @Test
+    public void testWorldBoundQueriedBeforeUpdate() {
+        cubes[0].move(-10, 0, 0);
+        // Updates the bound of the cube outside of updateGeometricState()
+        cubes[0].getWorldBound();
+        root.updateGeometricState();
+        assertBoundEquals(mergeChildren(field), (BoundingBox) field.getWorldBound());
+    }
+
+    @Test
+    public void testCloneKeepsDirtyChildren() {
+        cubes[3].move(0, 2, 0);
+        Node clone = field.clone(false);
+        clone.getChild(3).move(0, 2, 0);
+        clone.updateGeometricState();
+        assertEquals(4, clone.getChild(3).getWorldTranslation().y, EPSILON);
+        assertBoundEquals(mergeChildren(clone), (BoundingBox) clone.getWorldBound());
+
+        root.updateGeometricState();
+        assertTrue(cubes[3].getWorldTranslation().y > 1.5f);
+    }
+}
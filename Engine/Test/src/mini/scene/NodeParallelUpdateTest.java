@@ -0,0 +1,194 @@
+package mini.scene;
+
+import mini.bounding.BoundingBox;
+import mini.math.Quaternion;
+import mini.math.Vector3f;
+import mini.renderer.RenderManager;
+import mini.renderer.ViewPort;
+import mini.scene.shape.Box;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that updating a scene in parallel with {@link Node#setUpdatePool(ForkJoinPool)} gives the
+ * same world transforms and bounds as the serial update.
+ */
+public class NodeParallelUpdateTest {
+    private static final int CHARACTER_COUNT = 300;
+    private static final int FRAME_COUNT = 20;
+    private static final float TPF = 1 / 60f;
+
+    private static ForkJoinPool pool;
+
+    /**
+     * Thread safe control spinning and moving its own spatial.
+     */
+    private static class SpinControl extends AbstractControl {
+        private final float speed;
+        private float time;
+
+        SpinControl(float speed) {
+            this.speed = speed;
+        }
+
+        @Override
+        protected void controlUpdate(float tpf) {
+            time += tpf;
+            spatial.rotate(0, speed * tpf, 0);
+            spatial.getLocalTranslation().y = (float) Math.sin(time * speed);
+            spatial.setLocalTranslation(spatial.getLocalTranslation());
+        }
+
+        @Override
+        protected void controlRender(RenderManager renderManager, ViewPort vp) {
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return true;
+        }
+    }
+
+    /**
+     * Control which is not thread safe: it follows another spatial and counts its updates in the
+     * order they happen.
+     */
+    private static class FollowControl extends AbstractControl {
+        private final Spatial target;
+        private final int[] order;
+
+        FollowControl(Spatial target, int[] order) {
+            this.target = target;
+            this.order = order;
+        }
+
+        @Override
+        protected void controlUpdate(float tpf) {
+            spatial.setLocalTranslation(target.getLocalTranslation().add(0, 2, 0));
+            order[0]++;
+        }
+
+        @Override
+        protected void controlRender(RenderManager renderManager, ViewPort vp) {
+        }
+    }
+
+    @BeforeClass
+    public static void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    private static Node createScene(int[] followUpdates) {
+        Node root = new Node("Root");
+        Node crowd = new Node("Crowd");
+        root.attachChild(crowd);
+
+        Mesh mesh = new Box(0.5f, 1, 0.5f);
+        for (int i = 0; i < CHARACTER_COUNT; i++) {
+            Node character = new Node("Character" + i);
+            character.setLocalTranslation(i % 20 * 3f, 0, i / 20 * 3f);
+            character.addControl(new SpinControl(0.5f + i % 7));
+            Geometry body = new Geometry("Body" + i, mesh);
+            body.setLocalTranslation(1, 0, 0);
+            character.attachChild(body);
+            crowd.attachChild(character);
+
+            if (i % 50 == 0) {
+                Geometry marker = new Geometry("Marker" + i, mesh);
+                marker.addControl(new FollowControl(character, followUpdates));
+                root.attachChild(marker);
+            }
+        }
+        return root;
+    }
+
+    private static void runFrames(Node root) {
+        for (int frame = 0; frame < FRAME_COUNT; frame++) {
+            root.updateLogicalState(TPF);
+            root.updateGeometricState();
+        }
+    }
+
+    private static void assertSameState(Spatial expected, Spatial actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getWorldTranslation(), actual.getWorldTranslation());
+        Quaternion expectedRotation = expected.getWorldRotation();
+        Quaternion actualRotation = actual.getWorldRotation();
+        assertEquals(expectedRotation, actualRotation);
+
+        BoundingBox expectedBound = (BoundingBox) expected.getWorldBound();
+        BoundingBox actualBound = (BoundingBox) actual.getWorldBound();
+        assertEquals(expectedBound.getCenter(), actualBound.getCenter());
+        assertEquals(expectedBound.getExtent(null), actualBound.getExtent(null));
+
+        if (expected instanceof Node) {
+            Node expectedNode = (Node) expected;
+            Node actualNode = (Node) actual;
+            assertEquals(expectedNode.getQuantity(), actualNode.getQuantity());
+            for (int i = 0; i < expectedNode.getQuantity(); i++) {
+                assertSameState(expectedNode.getChild(i), actualNode.getChild(i));
+            }
+        }
+    }
+
+    @Test
+    public void testParallelMatchesSerial() {
+        int[] serialFollowUpdates = new int[1];
+        int[] parallelFollowUpdates = new int[1];
+        Node serial = createScene(serialFollowUpdates);
+        Node parallel = createScene(parallelFollowUpdates);
+        parallel.setUpdatePool(pool);
+
+        runFrames(serial);
+        runFrames(parallel);
+
+        assertEquals(serialFollowUpdates[0], parallelFollowUpdates[0]);
+        assertSameState(serial, parallel);
+    }
+
+    @Test
+    public void testDetachAndMoveBetweenFrames() {
+        Node serial = createScene(new int[1]);
+        Node parallel = createScene(new int[1]);
+        parallel.setUpdatePool(pool);
+        runFrames(serial);
+        runFrames(parallel);
+
+        for (Node root : new Node[]{serial, parallel}) {
+            Node crowd = (Node) root.getChild("Crowd");
+            crowd.detachChildAt(CHARACTER_COUNT - 1);
+            crowd.getChild(0).setLocalTranslation(new Vector3f(-100, 0, 0));
+        }
+        runFrames(serial);
+        runFrames(parallel);
+
+        assertSameState(serial, parallel);
+    }
+
+    @Test
+    public void testSerialWithoutPool() {
+        Node root = createScene(new int[1]);
+        root.setUpdatePool(pool);
+        assertEquals(pool, root.getUpdatePool());
+        root.setUpdatePool(null);
+        runFrames(root);
+        assertTrue(root.getChild("Crowd").getWorldBound() instanceof BoundingBox);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOnlyRootCanBeParallel() {
+        Node root = createScene(new int[1]);
+        ((Node) root.getChild("Crowd")).setUpdatePool(pool);
+    }
+}
@@ -0,0 +1,272 @@
+package mini.scene;
+
+import mini.asset.AssetManager;
+import mini.bounding.BoundingBox;
+import mini.bounding.BoundingVolume;
+import mini.collision.CollisionResults;
+import mini.material.Material;
+import mini.math.Ray;
+import mini.math.Vector3f;
+import mini.renderer.Camera;
+import mini.renderer.RenderManager;
+import mini.renderer.ViewPort;
+import mini.renderer.queue.RenderQueue;
+import mini.scene.shape.Box;
+import mini.system.TestUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SceneIndexTest {
+    private final Random random = new Random(42);
+    private final Box box = new Box(0.5f, 0.5f, 0.5f);
+    private Node root;
+    private SceneIndex index;
+    private List<Geometry> geometries;
+
+    @Before
+    public void setUp() {
+        root = new Node("Root");
+        index = new SceneIndex();
+        root.setSceneIndex(index);
+        geometries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Node group = new Node("Group" + i);
+            group.setLocalTranslation(randomPosition(50));
+            root.attachChild(group);
+            for (int j = 0; j < 25; j++) {
+                Geometry geometry = new Geometry("Box" + i + "_" + j, box);
+                geometry.setLocalTranslation(randomPosition(10));
+                group.attachChild(geometry);
+                geometries.add(geometry);
+            }
+        }
+        root.updateGeometricState();
+    }
+
+    private Vector3f randomPosition(float range) {
+        return new Vector3f((random.nextFloat() * 2 - 1) * range,
+                            (random.nextFloat() * 2 - 1) * range,
+                            (random.nextFloat() * 2 - 1) * range);
+    }
+
+    private Ray randomRay() {
+        Vector3f direction = randomPosition(1).normalizeLocal();
+        return new Ray(direction.mult(-100), direction.add(randomPosition(0.2f)).normalizeLocal());
+    }
+
+    @Test
+    public void testGeometriesIndexed() {
+        assertSame(index, root.getSceneIndex());
+        assertSame(index, geometries.get(0).getSceneIndex());
+        assertEquals(geometries.size(), index.getGeometryCount());
+        // Balanced, 500 geometries
+        assertTrue(index.getHeight() <= 20);
+    }
+
+    @Test
+    public void testOnlyRootIndexed() {
+        try {
+            ((Node) root.getChild(0)).setSceneIndex(new SceneIndex());
+            fail("A child node was indexed");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testRayMatchesBruteForce() {
+        int hits = 0;
+        for (int i = 0; i < 50; i++) {
+            hits += assertSameCollisions(randomRay());
+        }
+        assertTrue(hits > 0);
+    }
+
+    @Test
+    public void testVolumeQueries() {
+        for (int i = 0; i < 50; i++) {
+            // Boxes only, the bounding spheres cannot be tested against boxes
+            BoundingVolume volume = new BoundingBox(randomPosition(50), 5, 3, 8);
+            List<Geometry> found = new ArrayList<>();
+            index.query(volume, found);
+            Set<Geometry> expected = new HashSet<>();
+            for (Geometry geometry : geometries) {
+                if (volume.intersects(geometry.getWorldBound())) {
+                    expected.add(geometry);
+                }
+            }
+            assertEquals(expected, new HashSet<>(found));
+            assertEquals(expected.size(), found.size());
+        }
+    }
+
+    @Test
+    public void testFrustumQuery() {
+        Camera cam = new Camera(640, 480);
+        cam.setFrustumPerspective(45, 640 / 480f, 1, 60);
+        for (int i = 0; i < 20; i++) {
+            cam.setLocation(randomPosition(30));
+            cam.lookAt(randomPosition(30), Vector3f.UNIT_Y);
+            List<Geometry> found = new ArrayList<>();
+            index.query(cam, found);
+            Set<Geometry> visible = new HashSet<>(found);
+            assertEquals(found.size(), visible.size());
+            for (Geometry geometry : geometries) {
+                cam.setPlaneState(0);
+                Camera.FrustumIntersect intersect = cam.contains(geometry.getWorldBound());
+                if (intersect != Camera.FrustumIntersect.Outside) {
+                    assertTrue(visible.contains(geometry));
+                }
+            }
+            // Only the geometries near the frustum
+            assertTrue(found.size() < geometries.size());
+        }
+    }
+
+    @Test
+    public void testMovesAndDetaches() {
+        for (int frame = 0; frame < 10; frame++) {
+            for (int i = 0; i < 50; i++) {
+                Geometry geometry = geometries.get(random.nextInt(geometries.size()));
+                geometry.move(randomPosition(frame % 2 == 0 ? 0.01f : 20));
+            }
+            root.getChild(frame).move(randomPosition(5));
+            root.updateGeometricState();
+            for (int i = 0; i < 5; i++) {
+                assertSameCollisions(randomRay());
+            }
+        }
+
+        Node group = (Node) root.getChild(0);
+        Geometry detached = (Geometry) group.getChild(0);
+        group.detachChild(detached);
+        assertNull(detached.getSceneIndex());
+        assertEquals(geometries.size() - 1, index.getGeometryCount());
+        root.detachChild(group);
+        assertEquals(geometries.size() - 25, index.getGeometryCount());
+        root.updateGeometricState();
+        geometries.removeAll(group.getChildren());
+        geometries.remove(detached);
+        for (int i = 0; i < 20; i++) {
+            assertSameCollisions(randomRay());
+        }
+
+        // Attached again
+        root.attachChild(group);
+        group.attachChild(detached);
+        root.updateGeometricState();
+        assertEquals(geometries.size() + 25, index.getGeometryCount());
+
+        root.setSceneIndex(null);
+        assertEquals(0, index.getGeometryCount());
+        assertNull(detached.getSceneIndex());
+    }
+
+    @Test
+    public void testFlatTransformUpdate() {
+        root.setFlatTransformUpdate(true);
+        for (Geometry geometry : geometries) {
+            geometry.move(randomPosition(20));
+        }
+        root.updateGeometricState();
+        for (int i = 0; i < 20; i++) {
+            assertSameCollisions(randomRay());
+        }
+    }
+
+    @Test
+    public void testClonesNotIndexed() {
+        Spatial clone = root.getChild(0).clone(false);
+        assertNull(clone.getSceneIndex());
+        assertNull(((Node) clone).getChild(0).getSceneIndex());
+        root.attachChild(clone);
+        root.updateGeometricState();
+        assertEquals(geometries.size() + 25, index.getGeometryCount());
+    }
+
+    @Test
+    public void testIndexedCulling() {
+        AssetManager assetManager = TestUtil.createAssetManager();
+        Material material = new Material(assetManager, "MatDefs/Misc/Unshaded.minid");
+        root.setMaterial(material);
+        root.getChild(1).setCullHint(Spatial.CullHint.Always);
+        Set<Spatial> rendered = new HashSet<>();
+        for (Geometry geometry : geometries) {
+            geometry.addControl(new RenderedControl(rendered));
+        }
+        Spatial group = root.getChild(2);
+        group.addControl(new RenderedControl(rendered));
+        root.updateGeometricState();
+
+        Camera cam = new Camera(640, 480);
+        cam.setFrustumPerspective(45, 640 / 480f, 1, 60);
+        cam.setLocation(new Vector3f(0, 0, 60));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        ViewPort vp = new ViewPort("Test", cam);
+        RenderManager renderManager = TestUtil.createRenderManager();
+        renderManager.setIndexedCulling(true);
+        assertTrue(renderManager.isIndexedCulling());
+        renderManager.renderScene(root, vp);
+
+        assertFalse(vp.getQueue().isQueueEmpty(RenderQueue.Bucket.Opaque));
+        assertTrue(rendered.contains(group));
+        int outside = 0;
+        for (Geometry geometry : geometries) {
+            cam.setPlaneState(0);
+            boolean inside = cam.contains(geometry.getWorldBound()) != Camera.FrustumIntersect.Outside;
+            if (geometry.getParent() == root.getChild(1)) {
+                assertFalse(rendered.contains(geometry));
+            } else if (inside) {
+                assertTrue(rendered.contains(geometry));
+            } else {
+                outside++;
+            }
+        }
+        assertTrue(outside > 0);
+        assertTrue(rendered.size() < geometries.size());
+    }
+
+    private static class RenderedControl extends AbstractControl {
+        private final Set<Spatial> rendered;
+
+        RenderedControl(Set<Spatial> rendered) {
+            this.rendered = rendered;
+        }
+
+        @Override
+        protected void controlRender(RenderManager renderManager, ViewPort vp) {
+            rendered.add(getSpatial());
+        }
+
+        @Override
+        protected void controlUpdate(float tpf) {
+        }
+    }
+
+    private int assertSameCollisions(Ray ray) {
+        CollisionResults indexed = new CollisionResults();
+        root.collideWith(ray, indexed);
+        CollisionResults bruteForce = new CollisionResults();
+        for (Geometry geometry : geometries) {
+            geometry.collideWith(ray, bruteForce);
+        }
+        assertEquals(bruteForce.size(), indexed.size());
+        for (int i = 0; i < bruteForce.size(); i++) {
+            assertEquals(bruteForce.getCollision(i).getDistance(),
+                         indexed.getCollision(i).getDistance(), 0.0001f);
+        }
+        return indexed.size();
+    }
+}
@@ -20,7 +20,7 @@ public class MockApplicationSystemDelegate extends ApplicationSystemDelegate {
     }
 
     @Override
-    public ApplicationContext newContext() {
-        return null;
+    public ApplicationContext newContext(ApplicationContext.Type contextType) {
+        return contextType == ApplicationContext.Type.Headless ? new NullContext() : null;
     }
 }
@@ -0,0 +1,91 @@
+package mini.system;
+
+import mini.app.SimpleApplication;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NullContextTest {
+    static {
+        ApplicationSystem.setSystemDelegate(new MockApplicationSystemDelegate());
+    }
+
+    @Test
+    public void testHeadlessApplicationUpdates() throws InterruptedException {
+        CountDownLatch updates = new CountDownLatch(20);
+        SimpleApplication app = new SimpleApplication() {
+            @Override
+            public void simpleInitApp() {
+            }
+
+            @Override
+            public void simpleUpdate(float tpf) {
+                updates.countDown();
+            }
+        };
+
+        app.start(ApplicationContext.Type.Headless, true);
+        Assert.assertTrue("States should be updated", updates.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue("Context should be headless", app.getContext() instanceof NullContext);
+        Assert.assertTrue("Renderer should be a NullRenderer",
+                          app.getRenderer() instanceof NullRenderer);
+
+        app.stop(true);
+        Assert.assertFalse(app.getContext().isCreated());
+    }
+
+    @Test
+    public void testFrameRateLimit() throws InterruptedException {
+        AtomicInteger updates = new AtomicInteger();
+        NullContext context = new NullContext();
+        ApplicationSettings settings = new ApplicationSettings(true);
+        settings.setFrameRate(50);
+        context.setSettings(settings);
+        context.setSystemListener(new SystemListener() {
+            @Override
+            public void initialize() {
+            }
+
+            @Override
+            public void reshape(int width, int height) {
+            }
+
+            @Override
+            public void update() {
+                updates.incrementAndGet();
+            }
+
+            @Override
+            public void requestClose(boolean esc) {
+            }
+
+            @Override
+            public void gainFocus() {
+            }
+
+            @Override
+            public void loseFocus() {
+            }
+
+            @Override
+            public void handleError(String errorMsg, Throwable t) {
+            }
+
+            @Override
+            public void destroy() {
+            }
+        });
+
+        context.create(true);
+        Thread.sleep(200);
+        context.destroy(true);
+
+        // 10 updates are expected in 200 ms at 50 updates per second
+        Assert.assertTrue("Updates should be limited, got " + updates.get(), updates.get() <= 15);
+        Assert.assertTrue("Context should be updated", updates.get() > 0);
+        Assert.assertFalse(context.isCreated());
+    }
+}
@@ -0,0 +1,184 @@
+package mini.system.jobs;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JobSystemTest {
+    private JobSystem jobs;
+
+    @Before
+    public void setUp() {
+        jobs = new JobSystem(4);
+    }
+
+    @After
+    public void tearDown() {
+        jobs.shutdown();
+    }
+
+    @Test
+    public void testDependencies() {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        Job a = jobs.submit(() -> {
+            sleep();
+            order.add("a");
+        });
+        Job b = jobs.submit(() -> order.add("b"), a);
+        Job c = jobs.submit(() -> order.add("c"), a, b);
+        c.await();
+
+        assertTrue(a.isDone() && b.isDone() && c.isDone());
+        assertEquals(List.of("a", "b", "c"), order);
+    }
+
+    @Test
+    public void testFailedDependency() {
+        AtomicInteger runs = new AtomicInteger();
+        Job failing = jobs.submit(() -> {
+            throw new IllegalStateException("Failed");
+        });
+        Job dependent = jobs.submit(runs::incrementAndGet, failing);
+        try {
+            dependent.await();
+            fail("The failure of the dependency was not propagated");
+        } catch (CompletionException expected) {
+        }
+        assertTrue(dependent.isFailed());
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    public void testPhaseBarrier() {
+        AtomicInteger done = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        jobs.submit(FramePhase.LOGIC, () -> {
+            started.countDown();
+            sleep();
+            done.incrementAndGet();
+        });
+        jobs.submit(FramePhase.TRANSFORMS, () -> {
+            sleep();
+            done.incrementAndGet();
+        });
+
+        jobs.completePhase(FramePhase.INPUT);
+        await(started);
+        jobs.completePhase(FramePhase.ANIMATION);
+        assertTrue(done.get() >= 1);
+        jobs.completePhase(FramePhase.RENDER_PREP);
+        assertEquals(2, done.get());
+    }
+
+    @Test
+    public void testPhaseFailureAfterAllJobs() {
+        AtomicInteger done = new AtomicInteger();
+        jobs.submit(FramePhase.LOGIC, () -> {
+            throw new IllegalStateException("Failed");
+        });
+        jobs.submit(FramePhase.LOGIC, () -> {
+            sleep();
+            done.incrementAndGet();
+        });
+        try {
+            jobs.completePhase(FramePhase.LOGIC);
+            fail("The failure of the job was not reported");
+        } catch (CompletionException expected) {
+        }
+        assertEquals(1, done.get());
+        // The failed jobs are not reported twice
+        jobs.completeAll();
+    }
+
+    @Test
+    public void testParallelFor() {
+        long[] values = new long[100000];
+        jobs.parallelFor(0, values.length, 1000, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                values[i] = i * 2L;
+            }
+        });
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(i * 2L, values[i]);
+        }
+
+        // Nested in a job
+        AtomicLong sum = new AtomicLong();
+        jobs.submit(() -> jobs.parallelFor(0, values.length, 100, (from, to) -> {
+            long partial = 0;
+            for (int i = from; i < to; i++) {
+                partial += values[i];
+            }
+            sum.addAndGet(partial);
+        })).await();
+        assertEquals((long) values.length * (values.length - 1), sum.get());
+    }
+
+    @Test
+    public void testSerialRunsInOrderOnCallingThread() {
+        JobSystem serial = new JobSystem(0);
+        assertTrue(serial.isSerial());
+        assertEquals(0, serial.getThreadCount());
+
+        Thread caller = Thread.currentThread();
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int value = i;
+            serial.submit(FramePhase.LOGIC, () -> {
+                assertSame(caller, Thread.currentThread());
+                order.add(value);
+            });
+        }
+        serial.parallelFor(0, 1000, 1, (from, to) -> {
+            assertSame(caller, Thread.currentThread());
+            order.add(to - from);
+        });
+        serial.completeAll();
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 1000), order);
+
+        Job failing = serial.submit(() -> {
+            throw new IllegalStateException("Failed");
+        });
+        Job dependent = serial.submit(() -> fail("Ran after a failed dependency"), failing);
+        assertTrue(dependent.isFailed());
+        serial.shutdown();
+    }
+
+    @Test
+    public void testNotSerial() {
+        assertFalse(jobs.isSerial());
+        assertEquals(4, jobs.getThreadCount());
+        assertEquals(4, jobs.getPool().getParallelism());
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+uniform sampler2D m_Texture;
+uniform vec2 m_Scale;
+
+in vec2 texCoord;
+
+out vec4 out_color;
+
+void main() {
+    out_color = texture2D(m_Texture, texCoord * m_Scale);
+}
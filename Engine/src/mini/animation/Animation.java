@@ -78,6 +78,66 @@ public class Animation implements Cloneable, MiniCloneable {
         }
     }
 
+    /**
+     * Samples the tracks with the keyframes of the previous call for the same channel, and the
+     * bones bound to the tracks by the control.
+     *
+     * @param frames the keyframe of every track, updated for the next call, see
+     *               {@link BoneTrack#setTime(float, float, AnimationChannel, Bone, int, TempVars)}
+     */
+    void setTime(float time, float blendAmount, AnimationControl control,
+                 AnimationChannel channel, int[] frames, TempVars vars) {
+        int[] boneIndices = control.getBoneIndices(this);
+        Skeleton skeleton = control.getSkeleton();
+        for (int i = 0; i < tracks.size(); i++) {
+            Track track = tracks.get(i);
+            if (track instanceof BoneTrack) {
+                int boneIndex = boneIndices[i];
+                Bone target = boneIndex == -1 ? null : skeleton.getBone(boneIndex);
+                frames[i] = ((BoneTrack) track).setTime(time, blendAmount, channel, target,
+                                                        frames[i], vars);
+            } else {
+                track.setTime(time, blendAmount, control, channel, vars);
+            }
+        }
+    }
+
+    /**
+     * Finds the bones of a skeleton animated by the bone tracks, through the joints of the
+     * tracks.
+     *
+     * @return the index of the bone of every track, -1 for the tracks without bone
+     */
+    int[] bind(Skeleton skeleton) {
+        int[] boneIndices = new int[tracks.size()];
+        Arrays.fill(boneIndices, -1);
+        if (skeleton == null || skeleton.getJointsBoneMap() == null) {
+            return boneIndices;
+        }
+        for (int i = 0; i < boneIndices.length; i++) {
+            Track track = tracks.get(i);
+            if (track instanceof BoneTrack && ((BoneTrack) track).getJointName() != null) {
+                Bone bone = skeleton.getBoneFromJointName(((BoneTrack) track).getJointName());
+                if (bone != null) {
+                    boneIndices[i] = skeleton.getBoneIndex(bone);
+                }
+            }
+        }
+        return boneIndices;
+    }
+
+    int getTrackCount() {
+        return tracks.size();
+    }
+
+    Track getTrack(int index) {
+        return tracks.get(index);
+    }
+
+    void setTrack(int index, Track track) {
+        tracks.set(index, track);
+    }
+
     /**
      * Adds a track to this animation
      *
@@ -2,6 +2,7 @@ package mini.animation;
 
 import mini.utils.TempVars;
 
+import java.util.Arrays;
 import java.util.BitSet;
 
 public class AnimationChannel {
@@ -11,6 +12,12 @@ public class AnimationChannel {
     private Animation animation;
     private Animation blendFrom;
     private BitSet affectedBones;
+    /**
+     * The keyframes sampled last by every track of the animations, see
+     * {@link Animation#setTime(float, float, AnimationControl, AnimationChannel, int[], TempVars)}.
+     */
+    private int[] frames = new int[0];
+    private int[] framesBlendFrom = new int[0];
 
     private float time;
     private float speed;
@@ -61,6 +68,9 @@ public class AnimationChannel {
 
             blendTime = Math.min(blendTime, anim.getLength() / speed);
             blendFrom = animation;
+            int[] swap = framesBlendFrom;
+            framesBlendFrom = frames;
+            frames = swap;
             timeBlendFrom = time;
             speedBlendFrom = speed;
             loopModeBlendFrom = loopMode;
@@ -71,6 +81,7 @@ public class AnimationChannel {
         }
 
         this.animation = anim;
+        Arrays.fill(frames, -1);
         this.time = 0;
         this.speed = 1f;
         this.notified = false;
@@ -104,7 +115,9 @@ public class AnimationChannel {
             // The blendFrom anim is set, the actual animation
             // playing will be set
 //            blendFrom.setTime(timeBlendFrom, 1f, control, this, vars);
-            blendFrom.setTime(timeBlendFrom, 1f - blendAmount, control, this, vars);
+            framesBlendFrom = ensureFrames(framesBlendFrom, blendFrom);
+            blendFrom.setTime(timeBlendFrom, 1f - blendAmount, control, this, framesBlendFrom,
+                              vars);
 
             timeBlendFrom += tpf * speedBlendFrom;
             timeBlendFrom = AnimationUtils.clampWrapTime(timeBlendFrom,
@@ -122,7 +135,8 @@ public class AnimationChannel {
             }
         }
 
-        animation.setTime(time, blendAmount, control, this, vars);
+        frames = ensureFrames(frames, animation);
+        animation.setTime(time, blendAmount, control, this, frames, vars);
         time += tpf * speed;
         if (animation.getLength() > 0) {
             if (!notified && (time >= animation.getLength() || time < 0)) {
@@ -144,6 +158,19 @@ public class AnimationChannel {
         }
     }
 
+    /**
+     * @return the keyframes, grown with unknown keyframes if tracks were added to the animation
+     */
+    private static int[] ensureFrames(int[] frames, Animation animation) {
+        int count = animation.getTrackCount();
+        if (frames.length >= count) {
+            return frames;
+        }
+        int[] result = Arrays.copyOf(frames, count);
+        Arrays.fill(result, frames.length, count, -1);
+        return result;
+    }
+
     BitSet getAffectedBones() {
         return affectedBones;
     }
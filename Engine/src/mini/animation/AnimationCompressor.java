@@ -0,0 +1,220 @@
+package mini.animation;
+
+import mini.math.Quaternion;
+import mini.math.Vector3f;
+
+import java.util.Arrays;
+
+/**
+ * Compresses the keyframes of {@link BoneTrack bone tracks}, when the animations are loaded or
+ * offline. The compressed tracks are decompressed when they are sampled.
+ * <p>
+ * The keyframes are quantized: the rotations to 48 bits, see {@link QuantizedQuaternionArray},
+ * and the translations and the scales to 16 bits per component over the range of the track,
+ * see {@link QuantizedVector3fArray}. Then the keyframes interpolated from their neighbours
+ * within the tolerances are removed. The error is measured between the original keyframes and
+ * the interpolation of the quantized keyframes kept, so the tolerances bound the error at the
+ * keyframes removed, quantization included. The keyframes kept only have the error of the
+ * quantization.
+ * <p>
+ * A densely resampled clip, e.g. imported from FBX, usually takes 4 to 8 times less memory once
+ * compressed with the default tolerances.
+ */
+public final class AnimationCompressor {
+    /**
+     * Default error on the translations, in world units.
+     */
+    public static final float DEFAULT_TRANSLATION_TOLERANCE = 0.001f;
+    /**
+     * Default error on the rotations, in radians.
+     */
+    public static final float DEFAULT_ROTATION_TOLERANCE = 0.002f;
+    /**
+     * Default error on the scales.
+     */
+    public static final float DEFAULT_SCALE_TOLERANCE = 0.001f;
+
+    private final float translationTolerance;
+    private final float rotationTolerance;
+    private final float scaleTolerance;
+    /**
+     * Smallest dot product between two unit quaternions apart by the rotation tolerance.
+     */
+    private final float minRotationDot;
+
+    public AnimationCompressor() {
+        this(DEFAULT_TRANSLATION_TOLERANCE, DEFAULT_ROTATION_TOLERANCE, DEFAULT_SCALE_TOLERANCE);
+    }
+
+    /**
+     * @param translationTolerance The largest distance between the original and the compressed
+     *                             translations, in world units
+     * @param rotationTolerance    The largest angle between the original and the compressed
+     *                             rotations, in radians
+     * @param scaleTolerance       The largest error on the components of the scales
+     */
+    public AnimationCompressor(float translationTolerance, float rotationTolerance,
+                               float scaleTolerance) {
+        if (translationTolerance < 0 || rotationTolerance < 0 || scaleTolerance < 0) {
+            throw new IllegalArgumentException("The tolerances cannot be negative");
+        }
+        this.translationTolerance = translationTolerance;
+        this.rotationTolerance = rotationTolerance;
+        this.scaleTolerance = scaleTolerance;
+        this.minRotationDot = (float) Math.cos(Math.min(rotationTolerance, Math.PI) / 2);
+    }
+
+    public float getTranslationTolerance() {
+        return translationTolerance;
+    }
+
+    public float getRotationTolerance() {
+        return rotationTolerance;
+    }
+
+    public float getScaleTolerance() {
+        return scaleTolerance;
+    }
+
+    /**
+     * @return whether the other compressor has the same tolerances, and so compresses the tracks
+     * the same way
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof AnimationCompressor)) {
+            return false;
+        }
+        AnimationCompressor other = (AnimationCompressor) obj;
+        return Float.compare(translationTolerance, other.translationTolerance) == 0
+               && Float.compare(rotationTolerance, other.rotationTolerance) == 0
+               && Float.compare(scaleTolerance, other.scaleTolerance) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 17 * hash + Float.floatToIntBits(translationTolerance);
+        hash = 17 * hash + Float.floatToIntBits(rotationTolerance);
+        hash = 17 * hash + Float.floatToIntBits(scaleTolerance);
+        return hash;
+    }
+
+    /**
+     * Replaces the bone tracks of an animation with compressed tracks.
+     */
+    public void compress(Animation animation) {
+        for (int i = 0; i < animation.getTrackCount(); i++) {
+            Track track = animation.getTrack(i);
+            if (track instanceof BoneTrack) {
+                animation.setTrack(i, compress((BoneTrack) track));
+            }
+        }
+    }
+
+    /**
+     * @return the compressed track, or the track itself if it is already compressed
+     */
+    public BoneTrack compress(BoneTrack track) {
+        if (track.isCompressed()) {
+            return track;
+        }
+        float[] times = track.getTimes();
+        Vector3f[] translations = track.getTranslations();
+        Quaternion[] rotations = track.getRotations();
+        Vector3f[] scales = track.getScales();
+        for (Quaternion rotation : rotations) {
+            rotation.normalizeLocal();
+        }
+
+        QuantizedVector3fArray packedTranslations = new QuantizedVector3fArray(translations);
+        QuantizedQuaternionArray packedRotations = new QuantizedQuaternionArray(rotations);
+        QuantizedVector3fArray packedScales =
+                scales == null ? null : new QuantizedVector3fArray(scales);
+        BoneTrack quantized = new BoneTrack(track.getTargetBoneIndex(), track.getJointName(),
+                                            times, packedTranslations, packedRotations,
+                                            packedScales);
+
+        int[] kept = reduce(quantized, translations, rotations, scales);
+        float[] keptTimes = new float[kept.length];
+        for (int i = 0; i < kept.length; i++) {
+            keptTimes[i] = times[kept[i]];
+        }
+        return new BoneTrack(track.getTargetBoneIndex(), track.getJointName(), keptTimes,
+                             packedTranslations.subset(kept), packedRotations.subset(kept),
+                             scales == null ? null : packedScales.subset(kept));
+    }
+
+    /**
+     * Keeps the first and the last keyframes, and from each keyframe kept, skips as many
+     * keyframes as the interpolation to the next keyframe kept reproduces.
+     *
+     * @return the indices of the keyframes kept
+     */
+    private int[] reduce(BoneTrack quantized, Vector3f[] translations, Quaternion[] rotations,
+                         Vector3f[] scales) {
+        float[] times = quantized.getTimes();
+        int count = times.length;
+        int[] kept = new int[count];
+        int keptCount = 0;
+        kept[keptCount++] = 0;
+        int start = 0;
+        for (int end = 2; end < count; end++) {
+            if (!isReproduced(quantized, start, end, translations, rotations, scales)) {
+                start = end - 1;
+                kept[keptCount++] = start;
+            }
+        }
+        if (count > 1) {
+            kept[keptCount++] = count - 1;
+        }
+        return Arrays.copyOf(kept, keptCount);
+    }
+
+    /**
+     * @return whether the keyframes between two keyframes are reproduced within the tolerances
+     * by interpolating the two keyframes
+     */
+    private boolean isReproduced(BoneTrack quantized, int start, int end, Vector3f[] translations,
+                                 Quaternion[] rotations, Vector3f[] scales) {
+        float[] times = quantized.getTimes();
+        Vector3f startVector = new Vector3f(), endVector = new Vector3f();
+        Quaternion startRotation = new Quaternion(), endRotation = new Quaternion();
+        for (int i = start + 1; i < end; i++) {
+            float blend = (times[i] - times[start]) / (times[end] - times[start]);
+
+            quantized.getTranslation(start, startVector);
+            quantized.getTranslation(end, endVector);
+            if (startVector.interpolateLocal(endVector, blend).distanceSquared(translations[i])
+                > translationTolerance * translationTolerance) {
+                return false;
+            }
+
+            quantized.getRotation(start, startRotation);
+            quantized.getRotation(end, endRotation);
+            startRotation.nlerp(endRotation, blend);
+            if (Math.abs(startRotation.dot(rotations[i])) < minRotationDot) {
+                return false;
+            }
+
+            if (scales != null) {
+                quantized.getScale(start, startVector);
+                quantized.getScale(end, endVector);
+                if (!isWithin(startVector.interpolateLocal(endVector, blend), scales[i],
+                              scaleTolerance)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWithin(Vector3f value, Vector3f expected, float tolerance) {
+        return Math.abs(value.x - expected.x) <= tolerance
+               && Math.abs(value.y - expected.y) <= tolerance
+               && Math.abs(value.z - expected.z) <= tolerance;
+    }
+}
@@ -8,6 +8,7 @@ import mini.utils.clone.Cloner;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -15,6 +16,10 @@ public class AnimationControl extends AbstractControl {
     private List<AnimationChannel> channels = new ArrayList<>();
     private Map<String, Animation> animationMap = new HashMap<>();
     private Skeleton skeleton;
+    /**
+     * The bones of the skeleton animated by the tracks of every animation played.
+     */
+    private Map<Animation, int[]> boneIndices = new IdentityHashMap<>();
 
     public AnimationControl(Skeleton skeleton) {
         this.skeleton = skeleton;
@@ -51,6 +56,15 @@ public class AnimationControl extends AbstractControl {
         }
     }
 
+    /**
+     * The channels only change the skeleton of this control, the animations are shared but only
+     * read.
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     public Object miniClone() {
         throw new UnsupportedOperationException();
@@ -89,5 +103,19 @@ public class AnimationControl extends AbstractControl {
 
     public void setSkeleton(Skeleton skeleton) {
         this.skeleton = skeleton;
+        boneIndices.clear();
+    }
+
+    /**
+     * @return the index in the skeleton of the bone of every track of the animation, bound the
+     * first time the animation is played, see {@link Animation#bind(Skeleton)}
+     */
+    int[] getBoneIndices(Animation animation) {
+        int[] indices = boneIndices.get(animation);
+        if (indices == null || indices.length != animation.getTrackCount()) {
+            indices = animation.bind(skeleton);
+            boneIndices.put(animation, indices);
+        }
+        return indices;
     }
 }
@@ -21,12 +21,20 @@ public final class BoneTrack implements Track {
     private HumanoidPreset.HumanoidJoints jointName;
 
     /**
-     * Transforms and times for track.
+     * Times of the keyframes, in increasing order, and their transforms in flat arrays: x, y, z
+     * per keyframe for the translations and the scales, x, y, z, w for the rotations.
      */
-    private CompactVector3fArray translations;
-    private CompactQuaternionArray rotations;
-    private CompactVector3fArray scales;
     private float[] times;
+    private float[] translations;
+    private float[] rotations;
+    private float[] scales;
+    /**
+     * The transforms of a compressed track, decompressed at every sample instead of the arrays
+     * above, see {@link AnimationCompressor}.
+     */
+    private QuantizedVector3fArray packedTranslations;
+    private QuantizedQuaternionArray packedRotations;
+    private QuantizedVector3fArray packedScales;
 
     /**
      * Serialization-only. Do not use.
@@ -65,6 +73,20 @@ public final class BoneTrack implements Track {
         this.setKeyframes(times, translations, rotations, scales);
     }
 
+    /**
+     * Creates a compressed bone track.
+     */
+    BoneTrack(int targetBoneIndex, HumanoidPreset.HumanoidJoints jointName, float[] times,
+              QuantizedVector3fArray translations, QuantizedQuaternionArray rotations,
+              QuantizedVector3fArray scales) {
+        this.targetBoneIndex = targetBoneIndex;
+        this.jointName = jointName;
+        this.times = times;
+        this.packedTranslations = translations;
+        this.packedRotations = rotations;
+        this.packedScales = scales;
+    }
+
     /**
      * Creates a bone track for the given bone index
      *
@@ -81,13 +103,24 @@ public final class BoneTrack implements Track {
         return targetBoneIndex;
     }
 
+    /**
+     * @return the joint of the humanoid preset which this track animates
+     */
+    public HumanoidPreset.HumanoidJoints getJointName() {
+        return jointName;
+    }
+
     /**
      * return the array of rotations of this track
      *
      * @return
      */
     public Quaternion[] getRotations() {
-        return rotations.toObjectArray();
+        Quaternion[] result = new Quaternion[times.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = getRotation(i, new Quaternion());
+        }
+        return result;
     }
 
     /**
@@ -96,7 +129,14 @@ public final class BoneTrack implements Track {
      * @return
      */
     public Vector3f[] getScales() {
-        return scales == null ? null : scales.toObjectArray();
+        if (!hasScales()) {
+            return null;
+        }
+        Vector3f[] result = new Vector3f[times.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = getScale(i, new Vector3f());
+        }
+        return result;
     }
 
     /**
@@ -114,7 +154,72 @@ public final class BoneTrack implements Track {
      * @return
      */
     public Vector3f[] getTranslations() {
-        return translations.toObjectArray();
+        Vector3f[] result = new Vector3f[times.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = getTranslation(i, new Vector3f());
+        }
+        return result;
+    }
+
+    /**
+     * @return whether the keyframes are compressed
+     */
+    public boolean isCompressed() {
+        return packedRotations != null;
+    }
+
+    /**
+     * @return the size of the keyframes, in bytes
+     */
+    int getDataSize() {
+        if (isCompressed()) {
+            return times.length * 4 + packedTranslations.getDataSize()
+                   + packedRotations.getDataSize()
+                   + (packedScales != null ? packedScales.getDataSize() : 0);
+        }
+        return (times.length + translations.length + rotations.length
+                + (scales != null ? scales.length : 0)) * 4;
+    }
+
+    boolean hasScales() {
+        return scales != null || packedScales != null;
+    }
+
+    Vector3f getTranslation(int frame, Vector3f store) {
+        if (packedTranslations != null) {
+            return packedTranslations.get(frame, store);
+        }
+        return getVector(translations, frame, store);
+    }
+
+    Quaternion getRotation(int frame, Quaternion store) {
+        if (packedRotations != null) {
+            return packedRotations.get(frame, store);
+        }
+        int j = frame * 4;
+        return store.set(rotations[j], rotations[j + 1], rotations[j + 2], rotations[j + 3]);
+    }
+
+    Vector3f getScale(int frame, Vector3f store) {
+        if (packedScales != null) {
+            return packedScales.get(frame, store);
+        }
+        return getVector(scales, frame, store);
+    }
+
+    private static Vector3f getVector(float[] data, int frame, Vector3f store) {
+        int j = frame * 3;
+        return store.set(data[j], data[j + 1], data[j + 2]);
+    }
+
+    private static float[] toArray(Vector3f[] vectors) {
+        float[] data = new float[vectors.length * 3];
+        for (int i = 0; i < vectors.length; i++) {
+            data[i * 3] = vectors[i].x;
+            data[i * 3 + 1] = vectors[i].y;
+            data[i * 3 + 2] = vectors[i].z;
+        }
+        return data;
     }
 
     /**
@@ -132,12 +237,18 @@ public final class BoneTrack implements Track {
         assert times.length == translations.length && times.length == rotations.length;
 
         this.times = times;
-        this.translations = new CompactVector3fArray();
-        this.translations.add(translations);
-        this.translations.freeze();
-        this.rotations = new CompactQuaternionArray();
-        this.rotations.add(rotations);
-        this.rotations.freeze();
+        this.packedTranslations = null;
+        this.packedRotations = null;
+        this.packedScales = null;
+        this.scales = null;
+        this.translations = toArray(translations);
+        this.rotations = new float[rotations.length * 4];
+        for (int i = 0; i < rotations.length; i++) {
+            this.rotations[i * 4] = rotations[i].getX();
+            this.rotations[i * 4 + 1] = rotations[i].getY();
+            this.rotations[i * 4 + 2] = rotations[i].getZ();
+            this.rotations[i * 4 + 3] = rotations[i].getW();
+        }
     }
 
     /**
@@ -153,9 +264,7 @@ public final class BoneTrack implements Track {
         this.setKeyframes(times, translations, rotations);
         assert times.length == scales.length;
         if (scales != null) {
-            this.scales = new CompactVector3fArray();
-            this.scales.add(scales);
-            this.scales.freeze();
+            this.scales = toArray(scales);
         }
     }
 
@@ -163,6 +272,10 @@ public final class BoneTrack implements Track {
      * Modify the bone which this track modifies in the skeleton to contain
      * the correct animation transforms for a given time.
      * The transforms can be interpolated in some method from the keyframes.
+     * <p>
+     * The bone is looked up and the keyframes are searched at every call, the channels of an
+     * {@link AnimationControl} go through {@link #setTime(float, float, AnimationChannel, Bone, int,
+     * TempVars)} instead, with the bone bound once and the keyframe kept from the previous call.
      *
      * @param time    the current time of the animation
      * @param weight  the weight of the animation
@@ -181,6 +294,29 @@ public final class BoneTrack implements Track {
             return; // TODO: This could be a missing set in the humanoid preset
         }
         Bone target = control.getSkeleton().getBoneFromJointName(jointName);
+        setTime(time, weight, channel, target, -1, vars);
+    }
+
+    /**
+     * Samples the track for a bone bound beforehand, see {@link Animation#bind(Skeleton)}.
+     *
+     * @param target the bone of the skeleton animated by this track, null if the joint of the
+     *               track has no bone
+     * @param frame  the keyframe returned by the previous call for the same channel, or -1 to
+     *               search it
+     * @return the keyframe to give to the next call
+     * @throws IllegalStateException if the track has a joint without bone
+     */
+    int setTime(float time, float weight, AnimationChannel channel, Bone target, int frame,
+                TempVars vars) {
+        BitSet affectedBones = channel.getAffectedBones();
+        if (affectedBones != null && !affectedBones.get(targetBoneIndex)) {
+            return frame;
+        }
+
+        if (jointName == null) {
+            return frame;
+        }
         if (target == null) {
             throw new IllegalStateException("Mapping is not complete");
         }
@@ -194,49 +330,77 @@ public final class BoneTrack implements Track {
 
         int lastFrame = times.length - 1;
         if (time < 0 || lastFrame == 0) {
-            rotations.get(0, tempQ);
-            translations.get(0, tempV);
-            if (scales != null) {
-                scales.get(0, tempS);
+            getRotation(0, tempQ);
+            getTranslation(0, tempV);
+            if (hasScales()) {
+                getScale(0, tempS);
             }
         } else if (time >= times[lastFrame]) {
-            rotations.get(lastFrame, tempQ);
-            translations.get(lastFrame, tempV);
-            if (scales != null) {
-                scales.get(lastFrame, tempS);
+            getRotation(lastFrame, tempQ);
+            getTranslation(lastFrame, tempV);
+            if (hasScales()) {
+                getScale(lastFrame, tempS);
             }
         } else {
-            int startFrame = 0;
-            int endFrame = 1;
-            // use lastFrame so we never overflow the array
-            int i;
-            for (i = 0; i < lastFrame && times[i] < time; i++) {
-                startFrame = i;
-                endFrame = i + 1;
-            }
+            frame = findFrame(time, frame);
+            // The keyframes around the time, the first two if the time is before the first one
+            int startFrame = Math.max(frame - 1, 0);
+            int endFrame = startFrame + 1;
 
             float blend = (time - times[startFrame]) / (times[endFrame] - times[startFrame]);
 
-            rotations.get(startFrame, tempQ);
-            translations.get(startFrame, tempV);
-            if (scales != null) {
-                scales.get(startFrame, tempS);
-            }
-            rotations.get(endFrame, tempQ2);
-            translations.get(endFrame, tempV2);
-            if (scales != null) {
-                scales.get(endFrame, tempS2);
-            }
+            getRotation(startFrame, tempQ);
+            getTranslation(startFrame, tempV);
+            getRotation(endFrame, tempQ2);
+            getTranslation(endFrame, tempV2);
             tempQ.nlerp(tempQ2, blend);
             tempV.interpolateLocal(tempV2, blend);
-            tempS.interpolateLocal(tempS2, blend);
+            if (hasScales()) {
+                getScale(startFrame, tempS);
+                getScale(endFrame, tempS2);
+                tempS.interpolateLocal(tempS2, blend);
+            }
         }
 
 //        if (weight != 1f) {
-        target.blendAnimTransforms(tempV, tempQ, scales != null ? tempS : null, weight);
+        target.blendAnimTransforms(tempV, tempQ, hasScales() ? tempS : null, weight);
 //        } else {
 //            target.setAnimTransforms(tempV, tempQ, scales != null ? tempS : null);
 //        }
+        return frame;
+    }
+
+    /**
+     * Finds the first keyframe at or after a time, the last keyframe excluded. During playback
+     * the time moves forward by less than a keyframe per call, so the keyframe of the previous
+     * call or the next one is checked before searching all the keyframes.
+     *
+     * @param time  a time before the last keyframe
+     * @param frame the keyframe found for the previous time, or -1
+     * @return the keyframe, from 0 to the last keyframe
+     */
+    private int findFrame(float time, int frame) {
+        int lastFrame = times.length - 1;
+        if (frame >= 0 && frame <= lastFrame && (frame == 0 || times[frame - 1] < time)) {
+            if (frame == lastFrame || times[frame] >= time) {
+                return frame;
+            }
+            if (frame + 1 == lastFrame || times[frame + 1] >= time) {
+                return frame + 1;
+            }
+        }
+
+        int low = 0;
+        int high = lastFrame;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[middle] < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
     }
 
     /**
@@ -257,6 +421,11 @@ public final class BoneTrack implements Track {
      */
     @Override
     public BoneTrack clone() {
+        if (isCompressed()) {
+            // The compressed keyframes are never modified, they are shared
+            return new BoneTrack(targetBoneIndex, jointName, times.clone(), packedTranslations,
+                                 packedRotations, packedScales);
+        }
         int tablesLength = times.length;
 
         float[] times = this.times.clone();
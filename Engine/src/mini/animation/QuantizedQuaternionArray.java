@@ -0,0 +1,104 @@
+package mini.animation;
+
+import mini.math.Quaternion;
+
+/**
+ * {@link Quaternion}[] of unit rotations quantized to 48 bits each, with the "smallest three"
+ * encoding: the index of the largest component in 2 bits, then the three other components in 15
+ * bits each. The largest component is rebuilt from the others, the rotation being a unit
+ * quaternion, and is made positive by negating the quaternion, which gives the same rotation.
+ * The three smallest components are within +/-1/sqrt(2), so the precision of a component is
+ * about 4e-5.
+ */
+final class QuantizedQuaternionArray {
+    private static final int BITS = 15;
+    private static final int LEVELS = (1 << BITS) - 1;
+    private static final float RANGE = (float) Math.sqrt(0.5);
+
+    /**
+     * Every quaternion in three shorts, from the most significant bits to the least ones.
+     */
+    private final short[] data;
+
+    QuantizedQuaternionArray(Quaternion[] rotations) {
+        data = new short[rotations.length * 3];
+        for (int i = 0; i < rotations.length; i++) {
+            long bits = encode(rotations[i]);
+            data[i * 3] = (short) (bits >>> 32);
+            data[i * 3 + 1] = (short) (bits >>> 16);
+            data[i * 3 + 2] = (short) bits;
+        }
+    }
+
+    private QuantizedQuaternionArray(QuantizedQuaternionArray source, int[] indices) {
+        data = new short[indices.length * 3];
+        for (int i = 0; i < indices.length; i++) {
+            System.arraycopy(source.data, indices[i] * 3, data, i * 3, 3);
+        }
+    }
+
+    /**
+     * @return the rotations at the given indices
+     */
+    QuantizedQuaternionArray subset(int[] indices) {
+        return new QuantizedQuaternionArray(this, indices);
+    }
+
+    private static long encode(Quaternion rotation) {
+        float[] components = {rotation.getX(), rotation.getY(), rotation.getZ(), rotation.getW()};
+        int largest = 0;
+        float norm = 0;
+        for (int k = 0; k < 4; k++) {
+            norm += components[k] * components[k];
+            if (Math.abs(components[k]) > Math.abs(components[largest])) {
+                largest = k;
+            }
+        }
+        if (norm == 0) {
+            throw new IllegalArgumentException("Not a rotation: " + rotation);
+        }
+        float scale = (components[largest] < 0 ? -1 : 1) / (float) Math.sqrt(norm);
+
+        long bits = largest;
+        for (int k = 0; k < 4; k++) {
+            if (k != largest) {
+                float value = components[k] * scale;
+                int level = Math.round((value / RANGE + 1) / 2 * LEVELS);
+                bits = bits << BITS | Math.max(0, Math.min(LEVELS, level));
+            }
+        }
+        return bits;
+    }
+
+    Quaternion get(int index, Quaternion store) {
+        int j = index * 3;
+        long bits = (data[j] & 0xFFFFL) << 32 | (data[j + 1] & 0xFFFFL) << 16
+                    | data[j + 2] & 0xFFFFL;
+        // The three smallest components, in the order of the quaternion
+        float a = decode(bits >>> 2 * BITS);
+        float b = decode(bits >>> BITS);
+        float c = decode(bits);
+        float d = (float) Math.sqrt(Math.max(0, 1 - a * a - b * b - c * c));
+        switch ((int) (bits >>> 3 * BITS)) {
+            case 0:
+                return store.set(d, a, b, c);
+            case 1:
+                return store.set(a, d, b, c);
+            case 2:
+                return store.set(a, b, d, c);
+            default:
+                return store.set(a, b, c, d);
+        }
+    }
+
+    private static float decode(long bits) {
+        return ((bits & LEVELS) / (float) LEVELS * 2 - 1) * RANGE;
+    }
+
+    /**
+     * @return the size of the quantized data, in bytes
+     */
+    int getDataSize() {
+        return data.length * 2;
+    }
+}
@@ -0,0 +1,86 @@
+package mini.animation;
+
+import mini.math.Vector3f;
+
+/**
+ * {@link Vector3f}[] quantized to 16 bits per component over the range of the values of each
+ * component. A component which has the same value in all the vectors is not stored.
+ */
+final class QuantizedVector3fArray {
+    private static final int LEVELS = 0xFFFF;
+
+    private final float[] min = new float[3];
+    private final float[] step = new float[3];
+    /**
+     * The quantized components of every vector, or null for constant vectors.
+     */
+    private final short[] data;
+
+    QuantizedVector3fArray(Vector3f[] values) {
+        float[] max = new float[3];
+        for (int k = 0; k < 3; k++) {
+            min[k] = Float.POSITIVE_INFINITY;
+            max[k] = Float.NEGATIVE_INFINITY;
+        }
+        for (Vector3f value : values) {
+            for (int k = 0; k < 3; k++) {
+                min[k] = Math.min(min[k], value.get(k));
+                max[k] = Math.max(max[k], value.get(k));
+            }
+        }
+        boolean constant = true;
+        for (int k = 0; k < 3; k++) {
+            step[k] = (max[k] - min[k]) / LEVELS;
+            constant &= step[k] == 0;
+        }
+
+        if (constant) {
+            data = null;
+            return;
+        }
+        data = new short[values.length * 3];
+        for (int i = 0; i < values.length; i++) {
+            for (int k = 0; k < 3; k++) {
+                int level = step[k] == 0 ? 0 : Math.round((values[i].get(k) - min[k]) / step[k]);
+                data[i * 3 + k] = (short) Math.max(0, Math.min(LEVELS, level));
+            }
+        }
+    }
+
+    private QuantizedVector3fArray(QuantizedVector3fArray source, int[] indices) {
+        System.arraycopy(source.min, 0, min, 0, 3);
+        System.arraycopy(source.step, 0, step, 0, 3);
+        if (source.data == null) {
+            data = null;
+            return;
+        }
+        data = new short[indices.length * 3];
+        for (int i = 0; i < indices.length; i++) {
+            System.arraycopy(source.data, indices[i] * 3, data, i * 3, 3);
+        }
+    }
+
+    /**
+     * @return the vectors at the given indices, quantized the same way
+     */
+    QuantizedVector3fArray subset(int[] indices) {
+        return new QuantizedVector3fArray(this, indices);
+    }
+
+    Vector3f get(int index, Vector3f store) {
+        if (data == null) {
+            return store.set(min[0], min[1], min[2]);
+        }
+        int j = index * 3;
+        return store.set(min[0] + (data[j] & LEVELS) * step[0],
+                         min[1] + (data[j + 1] & LEVELS) * step[1],
+                         min[2] + (data[j + 2] & LEVELS) * step[2]);
+    }
+
+    /**
+     * @return the size of the quantized data, in bytes
+     */
+    int getDataSize() {
+        return (data == null ? 0 : data.length * 2) + 6 * 4;
+    }
+}
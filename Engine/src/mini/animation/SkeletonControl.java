@@ -92,6 +92,14 @@ public class SkeletonControl extends AbstractControl {
         meshNeedsUpdate = true;
     }
 
+    /**
+     * The update only marks the mesh for skinning, the skinning is done when rendering.
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     private void controlRenderSoftware() {
         resetToBindPose();
 
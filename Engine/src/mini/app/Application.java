@@ -2,12 +2,17 @@ package mini.app;
 
 import mini.asset.AssetManager;
 import mini.input.InputManager;
+import mini.profile.Profiler;
 import mini.renderer.Camera;
 import mini.renderer.RenderManager;
 import mini.renderer.Renderer;
 import mini.renderer.ViewPort;
 import mini.system.ApplicationContext;
 import mini.system.ApplicationSettings;
+import mini.system.jobs.JobSystem;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * The <code>Application</code> interface represents the minimum exposed
@@ -44,6 +49,48 @@ public interface Application {
      */
     Camera getCamera();
 
+    /**
+     * Sets the profiler measuring the phases of every frame.
+     *
+     * @param profiler The profiler, or null to stop profiling
+     */
+    void setProfiler(Profiler profiler);
+
+    /**
+     * @return The {@link Profiler profiler} of the application, or null if it is not profiled
+     */
+    Profiler getProfiler();
+
+    /**
+     * @return The {@link JobSystem job system} running the jobs of the application, or null before
+     * the application is initialized
+     */
+    JobSystem getJobSystem();
+
+    /**
+     * Enqueues a task which is called on the render thread at the start of the next frame. This
+     * method may be called from any thread, e.g. to attach a model loaded in the background to the
+     * scene.
+     *
+     * @param callable The task to call
+     * @return the future holding the result of the task
+     */
+    <V> Future<V> enqueue(Callable<V> callable);
+
+    /**
+     * Enqueues a task which is run on the render thread at the start of the next frame.
+     *
+     * @param runnable The task to run
+     * @return the future which is done once the task ran
+     * @see #enqueue(Callable)
+     */
+    Future<?> enqueue(Runnable runnable);
+
+    /**
+     * @return the number of enqueued tasks which did not run yet
+     */
+    int getPendingTaskCount();
+
     /**
      * Starts the application.
      */
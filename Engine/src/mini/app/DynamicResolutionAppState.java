@@ -0,0 +1,265 @@
+package mini.app;
+
+import mini.app.state.AbstractApplicationState;
+import mini.app.state.ApplicationStateManager;
+import mini.math.FastMath;
+import mini.post.FilterPostProcessor;
+import mini.system.time.NanoTimer;
+import mini.system.time.Timer;
+
+/**
+ * Adjusts the render scale of a {@link FilterPostProcessor} every frame to hold a target frame
+ * time. The scene is rendered at a lower resolution when frames take too long and the resolution
+ * is raised again when there is time to spare. The GUI viewport is not affected, it is always
+ * rendered at the native resolution.
+ * <p>
+ * The frame time is measured with a {@link NanoTimer} and smoothed before being compared to the
+ * target. The scale is only changed when the smoothed frame time leaves the hysteresis band around
+ * the target, and then not again before a number of frames have passed, to avoid oscillating
+ * between two resolutions.
+ * <p>
+ * The last {@link #HISTORY_SIZE} frame times and render scales are recorded and can be read with
+ * {@link #getFrameTimeHistory(float[])} and {@link #getScaleHistory(float[])}.
+ */
+public class DynamicResolutionAppState extends AbstractApplicationState {
+    public static final int HISTORY_SIZE = 256;
+
+    private final FilterPostProcessor processor;
+    private final Timer timer;
+    private final float[] frameTimeHistory = new float[HISTORY_SIZE];
+    private final float[] scaleHistory = new float[HISTORY_SIZE];
+    private int historyIndex;
+    private int historyCount;
+
+    private float targetFrameTime;
+    private float minScale = 0.5f;
+    private float maxScale = 1f;
+    private float hysteresis = 0.1f;
+    private float maxStep = 0.1f;
+    private float smoothing = 0.1f;
+    private int cooldownFrames = 10;
+
+    private float scale = 1f;
+    private float averageFrameTime;
+    private int cooldown;
+    private boolean firstFrame;
+
+    /**
+     * @param processor       The processor rendering the main viewport
+     * @param targetFrameTime The frame time to hold, in seconds
+     */
+    public DynamicResolutionAppState(FilterPostProcessor processor, float targetFrameTime) {
+        this(processor, targetFrameTime, new NanoTimer());
+    }
+
+    /**
+     * @param timer The timer measuring the frame times
+     */
+    DynamicResolutionAppState(FilterPostProcessor processor, float targetFrameTime, Timer timer) {
+        this.processor = processor;
+        this.timer = timer;
+        setTargetFrameTime(targetFrameTime);
+    }
+
+    @Override
+    public void initialize(ApplicationStateManager manager, Application app) {
+        super.initialize(manager, app);
+        reset();
+    }
+
+    /**
+     * Restarts the measurement, e.g. after loading a level.
+     */
+    public void reset() {
+        timer.reset();
+        firstFrame = true;
+        averageFrameTime = targetFrameTime;
+        cooldown = 0;
+    }
+
+    @Override
+    public void update(float tpf) {
+        timer.update();
+        if (firstFrame) {
+            // The first measured frame includes everything since the state was initialized
+            firstFrame = false;
+            return;
+        }
+
+        float frameTime = timer.getTimePerFrame();
+        averageFrameTime += (frameTime - averageFrameTime) * smoothing;
+        recordHistory(frameTime);
+
+        if (cooldown > 0) {
+            cooldown--;
+            return;
+        }
+
+        if (averageFrameTime > targetFrameTime * (1f + hysteresis)
+            || averageFrameTime < targetFrameTime * (1f - hysteresis)) {
+            // The cost of a frame mostly follows the number of pixels, hence the square root
+            float desired = scale * FastMath.sqrt(targetFrameTime / averageFrameTime);
+            desired = FastMath.clamp(desired, scale - maxStep, scale + maxStep);
+            desired = FastMath.clamp(desired, minScale, maxScale);
+            if (desired != scale) {
+                setScale(desired);
+                cooldown = cooldownFrames;
+            }
+        }
+    }
+
+    private void recordHistory(float frameTime) {
+        frameTimeHistory[historyIndex] = frameTime;
+        scaleHistory[historyIndex] = scale;
+        historyIndex = (historyIndex + 1) % HISTORY_SIZE;
+        historyCount = Math.min(historyCount + 1, HISTORY_SIZE);
+    }
+
+    private int copyHistory(float[] history, float[] store) {
+        int count = Math.min(historyCount, store.length);
+        int start = historyIndex - count;
+        for (int i = 0; i < count; i++) {
+            store[i] = history[(start + i + HISTORY_SIZE) % HISTORY_SIZE];
+        }
+        return count;
+    }
+
+    /**
+     * Copies the recorded render scales into <code>store</code>, oldest first.
+     *
+     * @param store The array to copy the history into
+     * @return the number of values copied
+     */
+    public int getScaleHistory(float[] store) {
+        return copyHistory(scaleHistory, store);
+    }
+
+    /**
+     * Copies the recorded frame times into <code>store</code>, oldest first.
+     *
+     * @param store The array to copy the history into
+     * @return the number of values copied
+     */
+    public int getFrameTimeHistory(float[] store) {
+        return copyHistory(frameTimeHistory, store);
+    }
+
+    private void setScale(float scale) {
+        this.scale = scale;
+        processor.setRenderScale(scale);
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        super.setEnabled(enabled);
+        if (!enabled) {
+            setScale(maxScale);
+        } else if (isInitialized()) {
+            reset();
+        }
+    }
+
+    @Override
+    public void cleanup() {
+        super.cleanup();
+        setScale(1f);
+    }
+
+    /**
+     * @return the current render scale
+     */
+    public float getScale() {
+        return scale;
+    }
+
+    /**
+     * @return the smoothed frame time in seconds
+     */
+    public float getAverageFrameTime() {
+        return averageFrameTime;
+    }
+
+    public float getTargetFrameTime() {
+        return targetFrameTime;
+    }
+
+    /**
+     * @param targetFrameTime The frame time to hold, in seconds
+     */
+    public void setTargetFrameTime(float targetFrameTime) {
+        if (targetFrameTime <= 0f) {
+            throw new IllegalArgumentException("Target frame time must be positive");
+        }
+        this.targetFrameTime = targetFrameTime;
+    }
+
+    public float getMinScale() {
+        return minScale;
+    }
+
+    public float getMaxScale() {
+        return maxScale;
+    }
+
+    /**
+     * Sets the bounds of the render scale.
+     *
+     * @param minScale The lowest scale, greater than 0
+     * @param maxScale The highest scale, at most 1
+     */
+    public void setScaleBounds(float minScale, float maxScale) {
+        if (minScale <= 0f || maxScale > 1f || minScale > maxScale) {
+            throw new IllegalArgumentException("Invalid scale bounds " + minScale + ", " + maxScale);
+        }
+        this.minScale = minScale;
+        this.maxScale = maxScale;
+        setScale(FastMath.clamp(scale, minScale, maxScale));
+    }
+
+    public float getHysteresis() {
+        return hysteresis;
+    }
+
+    /**
+     * @param hysteresis The relative distance from the target frame time within which the scale is
+     *                   left unchanged, e.g. 0.1 for +/- 10%
+     */
+    public void setHysteresis(float hysteresis) {
+        this.hysteresis = hysteresis;
+    }
+
+    public float getMaxStep() {
+        return maxStep;
+    }
+
+    /**
+     * @param maxStep The largest change of the scale in a single adjustment
+     */
+    public void setMaxStep(float maxStep) {
+        this.maxStep = maxStep;
+    }
+
+    public float getSmoothing() {
+        return smoothing;
+    }
+
+    /**
+     * @param smoothing The weight of the latest frame in the smoothed frame time, in the range
+     *                  (0, 1]
+     */
+    public void setSmoothing(float smoothing) {
+        this.smoothing = smoothing;
+    }
+
+    public int getCooldownFrames() {
+        return cooldownFrames;
+    }
+
+    /**
+     * @param cooldownFrames The number of frames to wait after a change before the scale can be
+     *                       changed again
+     */
+    public void setCooldownFrames(int cooldownFrames) {
+        this.cooldownFrames = cooldownFrames;
+    }
+}
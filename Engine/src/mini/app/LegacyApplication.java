@@ -1,5 +1,6 @@
 package mini.app;
 
+import jdk.jfr.EventType;
 import mini.app.state.ApplicationState;
 import mini.app.state.ApplicationStateManager;
 import mini.asset.AssetManager;
@@ -7,6 +8,9 @@ import mini.input.Input;
 import mini.input.InputManager;
 import mini.input.MouseInput;
 import mini.math.Vector3f;
+import mini.profile.EngineMetrics;
+import mini.profile.FrameEvent;
+import mini.profile.Profiler;
 import mini.renderer.Camera;
 import mini.renderer.RenderManager;
 import mini.renderer.Renderer;
@@ -14,12 +18,20 @@ import mini.renderer.ViewPort;
 import mini.system.ApplicationContext;
 import mini.system.ApplicationSystem;
 import mini.system.SystemListener;
+import mini.system.jobs.FramePhase;
+import mini.system.jobs.JobSystem;
 import mini.system.time.NanoTimer;
 import mini.system.time.Timer;
 
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The <code>LegacyApplication</code> class represents an instance of a real-time 3D rendering
@@ -30,6 +42,12 @@ import java.util.concurrent.Callable;
  * applications *SHOULD NOT EXTEND* this class but extend {@link mini.app.SimpleApplication} instead.
  */
 public class LegacyApplication implements Application, SystemListener {
+    /**
+     * Checked before creating the frame events, so that nothing is allocated when Flight Recorder
+     * does not record them.
+     */
+    private static final EventType FRAME_EVENT_TYPE = EventType.getEventType(FrameEvent.class);
+
     protected Renderer renderer;
     protected RenderManager renderManager;
     protected ViewPort viewPort;
@@ -47,6 +65,15 @@ public class LegacyApplication implements Application, SystemListener {
     protected InputManager inputManager;
     protected AssetManager assetManager;
     protected ApplicationStateManager stateManager;
+    protected Profiler profiler;
+    protected EngineMetrics metrics;
+    protected JobSystem jobSystem;
+    private boolean ownsJobSystem;
+    private FrameEvent frameEvent;
+
+    private final Queue<FutureTask<?>> taskQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+    private long taskBudget;
 
     public LegacyApplication(ApplicationState... initialStates) {
         initStateManager();
@@ -130,6 +157,7 @@ public class LegacyApplication implements Application, SystemListener {
 
         renderManager = new RenderManager(renderer);
         renderManager.setTimer(timer);
+        renderManager.setProfiler(profiler);
 
         viewPort = renderManager.createMainView("Default", cam);
         viewPort.setClearFlags(true, true, true);
@@ -168,6 +196,106 @@ public class LegacyApplication implements Application, SystemListener {
         return renderer;
     }
 
+    /**
+     * Sets the profiler measuring the phases of every frame.
+     *
+     * @param profiler The profiler, or null to stop profiling
+     */
+    public void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+        if (renderManager != null) {
+            renderManager.setProfiler(profiler);
+        }
+    }
+
+    /**
+     * @return The {@link Profiler profiler} of the application, or null if it is not profiled
+     */
+    public Profiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Sets the job system running the jobs of the application. It must be set before the
+     * application is initialized, otherwise the application creates one and shuts it down when it
+     * is destroyed. A job system set here is not shut down by the application.
+     *
+     * @param jobSystem The job system, e.g. a serial one to debug the jobs deterministically
+     * @throws IllegalStateException If the application is already initialized
+     */
+    public void setJobSystem(JobSystem jobSystem) {
+        if (this.jobSystem != null && ownsJobSystem) {
+            throw new IllegalStateException("The job system must be set before the application"
+                                            + " is initialized");
+        }
+        this.jobSystem = jobSystem;
+    }
+
+    @Override
+    public JobSystem getJobSystem() {
+        return jobSystem;
+    }
+
+    @Override
+    public <V> Future<V> enqueue(Callable<V> callable) {
+        FutureTask<V> task = new FutureTask<>(callable);
+        taskQueue.add(task);
+        pendingTasks.incrementAndGet();
+        return task;
+    }
+
+    @Override
+    public Future<?> enqueue(Runnable runnable) {
+        return enqueue(new RunnableWrapper(runnable));
+    }
+
+    @Override
+    public int getPendingTaskCount() {
+        return pendingTasks.get();
+    }
+
+    /**
+     * Sets the time the enqueued tasks may take every frame. Once a task exceeds the budget, the
+     * remaining tasks are delayed to the next frames, so that enqueuing many tasks at once does not
+     * stall a frame. At least one task runs every frame.
+     *
+     * @param milliseconds The time budget of the tasks per frame, 0 to run every task enqueued
+     *                     before the frame
+     */
+    public void setTaskBudget(float milliseconds) {
+        if (milliseconds < 0) {
+            throw new IllegalArgumentException("Invalid task budget: " + milliseconds);
+        }
+        taskBudget = (long) (milliseconds * TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /**
+     * @return The time the enqueued tasks may take every frame, in milliseconds, 0 if unlimited
+     */
+    public float getTaskBudget() {
+        return taskBudget / (float) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Runs the tasks enqueued before this frame until the time budget is exceeded. The tasks
+     * enqueued by these tasks run in the next frame.
+     */
+    private void runQueuedTasks() {
+        int count = pendingTasks.get();
+        long start = taskBudget > 0 ? System.nanoTime() : 0;
+        for (int i = 0; i < count; i++) {
+            FutureTask<?> task = taskQueue.poll();
+            if (task == null) {
+                break;
+            }
+            pendingTasks.decrementAndGet();
+            task.run();
+            if (taskBudget > 0 && System.nanoTime() - start >= taskBudget) {
+                break;
+            }
+        }
+    }
+
     /**
      * @return The {@link ApplicationContext display context} for the application
      */
@@ -335,6 +463,14 @@ public class LegacyApplication implements Application, SystemListener {
             initInput();
         }
 
+        metrics = new EngineMetrics(this);
+        metrics.register();
+
+        if (jobSystem == null) {
+            jobSystem = new JobSystem();
+            ownsJobSystem = true;
+        }
+
         timer.reset();
 
         // user code here..
@@ -389,14 +525,68 @@ public class LegacyApplication implements Application, SystemListener {
      * Callback from ContextListener.
      */
     public void update() {
+        // Tasks run while paused, e.g. to attach the models loaded in the background
+        runQueuedTasks();
+
         if (speed == 0 || paused) {
             return;
         }
 
         timer.update();
+        frameEnded();
+
+        if (profiler != null) {
+            profiler.beginFrame();
+        }
 
         if (inputEnabled) {
+            if (profiler != null) {
+                profiler.begin(Profiler.INPUT);
+            }
             inputManager.update(timer.getTimePerFrame());
+            if (profiler != null) {
+                profiler.end(Profiler.INPUT);
+            }
+        }
+        completePhase(FramePhase.INPUT);
+    }
+
+    /**
+     * Waits until the jobs submitted to a phase of the frame are done, see
+     * {@link JobSystem#completePhase(FramePhase)}.
+     *
+     * @param phase The phase which ends
+     */
+    protected void completePhase(FramePhase phase) {
+        if (jobSystem != null) {
+            jobSystem.completePhase(phase);
+        }
+    }
+
+    /**
+     * Closes the measurements of the previous frame and starts those of the new one.
+     */
+    private void frameEnded() {
+        if (metrics == null) {
+            return;
+        }
+        long drawCalls = metrics.getTotalDrawCalls();
+        metrics.frameEnded();
+        if (frameEvent != null) {
+            frameEvent.end();
+            if (frameEvent.shouldCommit()) {
+                frameEvent.drawCalls = metrics.getTotalDrawCalls() - drawCalls;
+                frameEvent.commit();
+            }
+        }
+
+        if (FRAME_EVENT_TYPE.isEnabled()) {
+            frameEvent = new FrameEvent();
+            frameEvent.frame = metrics.getFrameCount();
+            frameEvent.tpf = timer.getTimePerFrame();
+            frameEvent.begin();
+        } else {
+            frameEvent = null;
         }
     }
 
@@ -421,9 +611,34 @@ public class LegacyApplication implements Application, SystemListener {
 
         destroyInput();
 
+        if (metrics != null) {
+            metrics.unregister();
+        }
+
+        if (ownsJobSystem) {
+            jobSystem.shutdown();
+            jobSystem = null;
+            ownsJobSystem = false;
+        }
+
+        // Nothing runs the remaining tasks, cancel them so their futures do not block forever
+        FutureTask<?> task;
+        while ((task = taskQueue.poll()) != null) {
+            pendingTasks.decrementAndGet();
+            task.cancel(false);
+        }
+
         timer.reset();
     }
 
+    /**
+     * @return The counters of the application exposed as an MBean, or null before the application
+     * is initialized
+     */
+    public EngineMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * @return The GUI viewport. Which is used for the on screen
      * statistics and FPS.
@@ -436,7 +651,7 @@ public class LegacyApplication implements Application, SystemListener {
         return viewPort;
     }
 
-    private class RunnableWrapper implements Callable {
+    private static class RunnableWrapper implements Callable<Object> {
         private final Runnable runnable;
 
         public RunnableWrapper(Runnable runnable) {
@@ -0,0 +1,243 @@
+package mini.app;
+
+import mini.app.state.AbstractApplicationState;
+import mini.app.state.ApplicationStateManager;
+import mini.font.BitmapFont;
+import mini.font.BitmapText;
+import mini.input.InputManager;
+import mini.input.KeyboardKey;
+import mini.input.controls.ActionListener;
+import mini.input.controls.KeyTrigger;
+import mini.profile.Profiler;
+import mini.renderer.RenderManager;
+import mini.renderer.ViewPort;
+import mini.scene.Node;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Displays the measurements of a {@link Profiler} on the GUI viewport: a histogram of the recorded
+ * frame times and the average time of every phase. The display is refreshed a few times per second
+ * and can be toggled with F5. F6 writes the recorded history to a CSV file.
+ * <p>
+ * If the application is not profiled yet when the state is initialized, a profiler is created and
+ * set on the application, and removed again when the state is cleaned up.
+ */
+public class ProfilerAppState extends AbstractApplicationState {
+    public static final String INPUT_MAPPING_TOGGLE = "PROFILER_TOGGLE";
+    public static final String INPUT_MAPPING_DUMP = "PROFILER_DUMP";
+
+    private static final float[] HISTOGRAM_BOUNDS = {4f, 8f, 16.7f, 33.3f, 50f};
+    private static final int BAR_LENGTH = 30;
+
+    private final float[] frameTimes = new float[Profiler.HISTORY_SIZE];
+    private final int[] histogram = new int[HISTOGRAM_BOUNDS.length + 1];
+    private final StringBuilder sb = new StringBuilder();
+
+    private Application app;
+    private Profiler profiler;
+    private boolean ownProfiler;
+    private Node node;
+    private BitmapText text;
+    private File csvFile = new File("profile.csv");
+    private float refreshInterval = 0.25f;
+    private float timeSinceRefresh;
+
+    private final ActionListener actionListener = (name, isPressed, tpf) -> {
+        if (isPressed) {
+            return;
+        }
+        if (INPUT_MAPPING_TOGGLE.equals(name)) {
+            setDisplayed(!isDisplayed());
+        } else if (INPUT_MAPPING_DUMP.equals(name)) {
+            dumpCsv();
+        }
+    };
+
+    @Override
+    public void initialize(ApplicationStateManager manager, Application app) {
+        super.initialize(manager, app);
+        this.app = app;
+
+        profiler = app.getProfiler();
+        ownProfiler = profiler == null;
+        if (ownProfiler) {
+            profiler = new Profiler();
+            app.setProfiler(profiler);
+        }
+
+        BitmapFont font = app.getAssetManager().loadFont("Interface/Fonts/Default.fnt");
+        text = new BitmapText(font);
+        node = new Node("Profiler");
+        node.attachChild(text);
+        setDisplayed(true);
+
+        InputManager inputManager = app.getInputManager();
+        if (inputManager != null) {
+            inputManager.addMapping(INPUT_MAPPING_TOGGLE, new KeyTrigger(KeyboardKey.KEY_F5));
+            inputManager.addMapping(INPUT_MAPPING_DUMP, new KeyTrigger(KeyboardKey.KEY_F6));
+            inputManager.addListener(actionListener, INPUT_MAPPING_TOGGLE, INPUT_MAPPING_DUMP);
+        }
+    }
+
+    @Override
+    public void update(float tpf) {
+        timeSinceRefresh += tpf;
+        if (timeSinceRefresh < refreshInterval || !isDisplayed()) {
+            return;
+        }
+        timeSinceRefresh = 0;
+        refreshText();
+    }
+
+    @Override
+    public void render(RenderManager renderManager) {
+        // The node is not part of the application scene graph, it is updated here
+        node.updateLogicalState(0);
+        node.updateGeometricState();
+    }
+
+    private void refreshText() {
+        int count = profiler.getFrameTimeHistory(frameTimes);
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            int bucket = 0;
+            while (bucket < HISTOGRAM_BOUNDS.length && frameTimes[i] >= HISTOGRAM_BOUNDS[bucket]) {
+                bucket++;
+            }
+            histogram[bucket]++;
+        }
+
+        sb.setLength(0);
+        sb.append("Frame ").append(format(profiler.getAverageFrameTime())).append(" ms");
+        float gpuTime = profiler.getAverageGpuTime();
+        if (gpuTime > 0) {
+            sb.append("  GPU ").append(format(gpuTime)).append(" ms");
+        }
+        sb.append('\n');
+
+        for (int i = 0; i < histogram.length; i++) {
+            if (i < HISTOGRAM_BOUNDS.length) {
+                sb.append("< ").append(format(HISTOGRAM_BOUNDS[i]));
+            } else {
+                sb.append(">= ").append(format(HISTOGRAM_BOUNDS[i - 1]));
+            }
+            sb.append(" ms\t");
+            appendBar(count == 0 ? 0 : (float) histogram[i] / count);
+            sb.append(' ').append(histogram[i]).append('\n');
+        }
+
+        float frameTime = Math.max(profiler.getAverageFrameTime(), 0.001f);
+        for (int phase = 0; phase < profiler.getPhaseCount(); phase++) {
+            float average = profiler.getAverage(phase);
+            if (average == 0) {
+                continue;
+            }
+            sb.append(profiler.getPhaseName(phase)).append('\t');
+            appendBar(average / frameTime);
+            sb.append(' ').append(format(average)).append(" ms\n");
+        }
+
+        text.setText(sb);
+        ViewPort guiViewPort = app.getGuiViewPort();
+        text.setLocalTranslation(0, guiViewPort.getCamera().getHeight(), 0);
+    }
+
+    private void appendBar(float fraction) {
+        int length = Math.round(Math.min(fraction, 1f) * BAR_LENGTH);
+        for (int i = 0; i < length; i++) {
+            sb.append('|');
+        }
+    }
+
+    private static String format(float value) {
+        return String.format("%.2f", value);
+    }
+
+    /**
+     * Writes the history of the profiler to the CSV file.
+     *
+     * @see Profiler#writeCsv(Writer)
+     */
+    public void dumpCsv() {
+        try (Writer writer = new FileWriter(csvFile)) {
+            profiler.writeCsv(writer);
+            System.out.println("Profile written to " + csvFile.getAbsolutePath());
+        } catch (IOException e) {
+            System.err.println("Unable to write profile to " + csvFile + ": " + e.getMessage());
+        }
+    }
+
+    public boolean isDisplayed() {
+        return node != null && app.getGuiViewPort().getScenes().contains(node);
+    }
+
+    /**
+     * @param displayed true to show the profiler on the GUI viewport
+     */
+    public void setDisplayed(boolean displayed) {
+        ViewPort guiViewPort = app.getGuiViewPort();
+        if (displayed && !isDisplayed()) {
+            guiViewPort.attachScene(node);
+            timeSinceRefresh = refreshInterval;
+        } else if (!displayed) {
+            guiViewPort.detachScene(node);
+        }
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        super.setEnabled(enabled);
+        if (isInitialized()) {
+            setDisplayed(enabled);
+        }
+    }
+
+    @Override
+    public void cleanup() {
+        super.cleanup();
+        setDisplayed(false);
+
+        InputManager inputManager = app.getInputManager();
+        if (inputManager != null) {
+            inputManager.deleteMapping(INPUT_MAPPING_TOGGLE);
+            inputManager.deleteMapping(INPUT_MAPPING_DUMP);
+            inputManager.removeListener(actionListener);
+        }
+
+        if (ownProfiler) {
+            app.setProfiler(null);
+        }
+    }
+
+    public Profiler getProfiler() {
+        return profiler;
+    }
+
+    public File getCsvFile() {
+        return csvFile;
+    }
+
+    /**
+     * @param csvFile The file written by {@link #dumpCsv()}, overwritten on every dump
+     */
+    public void setCsvFile(File csvFile) {
+        this.csvFile = csvFile;
+    }
+
+    public float getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    /**
+     * @param refreshInterval The time between two refreshes of the display, in seconds
+     */
+    public void setRefreshInterval(float refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+}
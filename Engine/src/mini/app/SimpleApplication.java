@@ -6,10 +6,17 @@ import mini.input.FlyByCamera;
 import mini.input.KeyboardKey;
 import mini.input.controls.ActionListener;
 import mini.input.controls.KeyTrigger;
+import mini.profile.Profiler;
 import mini.renderer.RenderManager;
 import mini.renderer.queue.RenderQueue;
 import mini.scene.Node;
 import mini.scene.Spatial;
+import mini.system.jobs.FramePhase;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * <code>SimpleApplication</code> is the base class for all Applications.
@@ -37,6 +44,9 @@ public abstract class SimpleApplication extends LegacyApplication {
     protected FlyByCamera flyCam;
     protected boolean showSettings = true;
     private AppActionListener actionListener = new AppActionListener();
+    private volatile boolean pipelined;
+    private ExecutorService simulation;
+    private Future<?> simulatedFrame;
 
     private class AppActionListener implements ActionListener {
 
@@ -139,8 +149,50 @@ public abstract class SimpleApplication extends LegacyApplication {
         guiFont = assetManager.loadFont("Interface/Fonts/Default.fnt");
     }
 
+    /**
+     * Enables or disables the pipelined update, the change applies from the next frame. A
+     * pipelined application updates the logic, the animations and the transforms of the next frame
+     * on a simulation thread while the render thread renders the previous frame, so that a frame
+     * takes about as long as the longer of the two instead of their sum, one frame later.
+     * <p>
+     * The render thread waits for the update of a frame, then extracts the state needed to render
+     * it, see {@link RenderManager#extractFrame(boolean)}, runs the enqueued tasks and the input of
+     * the next frame, and starts its update before rendering. The scene may thus be changed from
+     * the input listeners, the enqueued tasks, the application states and the update methods but
+     * not from {@link #simpleRender(RenderManager)}, the scene processors or
+     * {@link mini.app.state.ApplicationState#postRender()}, which run during the update. The
+     * meshes and the parameters of the materials are not extracted: changing them from the update
+     * may show in the frame being rendered. The profiler only measures the render thread.
+     * <p>
+     * While a viewport has {@link mini.post.SceneProcessor scene processors}, the frames are
+     * updated and rendered one after the other as if the application was not pipelined: the
+     * processors read the scene and modify the cameras while they render, e.g. the shadow
+     * renderers cull the scene for the shadow maps. The pipeline resumes once they are removed.
+     *
+     * @param pipelined True to update the next frame while the previous one is rendered
+     */
+    public void setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+    }
+
+    /**
+     * @return true if the next frame is updated while the previous one is rendered
+     * @see #setPipelined(boolean)
+     */
+    public boolean isPipelined() {
+        return pipelined;
+    }
+
     @Override
     public void update() {
+        if (pipelined && !renderManager.hasSceneProcessors()) {
+            updatePipelined();
+            return;
+        }
+        if (simulation != null) {
+            stopPipeline();
+        }
+
         super.update(); // makes sure to execute AppTasks
         if (speed == 0 || paused) {
             return;
@@ -148,28 +200,141 @@ public abstract class SimpleApplication extends LegacyApplication {
 
         float tpf = timer.getTimePerFrame() * speed;
 
+        updateScene(tpf);
+
+        // render states
+        stateManager.render(renderManager);
+
+        completePhase(FramePhase.RENDER_PREP);
+        renderManager.render(tpf, context.isRenderable());
+        simpleRender(renderManager);
+        stateManager.postRender();
+    }
+
+    private void updateScene(float tpf) {
         // update states
         stateManager.update(tpf);
 
         // simple update and root node
+        if (profiler != null) {
+            profiler.begin(Profiler.SIMPLE_UPDATE);
+        }
         simpleUpdate(tpf);
+        if (profiler != null) {
+            profiler.end(Profiler.SIMPLE_UPDATE);
+        }
+        completePhase(FramePhase.LOGIC);
+        if (profiler != null) {
+            profiler.begin(Profiler.LOGICAL_STATE);
+        }
 
         rootNode.updateLogicalState(tpf);
         guiNode.updateLogicalState(tpf);
 
+        if (profiler != null) {
+            profiler.end(Profiler.LOGICAL_STATE);
+        }
+        completePhase(FramePhase.ANIMATION);
+        if (profiler != null) {
+            profiler.begin(Profiler.GEOMETRIC_STATE);
+        }
+
         rootNode.updateGeometricState();
         guiNode.updateGeometricState();
 
-        // render states
-        stateManager.render(renderManager);
+        if (profiler != null) {
+            profiler.end(Profiler.GEOMETRIC_STATE);
+        }
+        completePhase(FramePhase.TRANSFORMS);
+    }
 
-        renderManager.render(tpf, context.isRenderable());
-        simpleRender(renderManager);
-        stateManager.postRender();
+    private void updatePipelined() {
+        if (simulation == null) {
+            simulation = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Simulation");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        // The scene does not change until the update of the next frame starts
+        boolean extracted = false;
+        if (simulatedFrame != null) {
+            awaitSimulation();
+            stateManager.render(renderManager);
+            completePhase(FramePhase.RENDER_PREP);
+            renderManager.extractFrame(context.isRenderable());
+            extracted = true;
+        }
+
+        super.update(); // makes sure to execute AppTasks
+        if (speed == 0 || paused) {
+            return;
+        }
+
+        float tpf = timer.getTimePerFrame() * speed;
+        stateManager.updatePending();
+        // Processors attached meanwhile render with the scene idle, the next frame is not pipelined
+        if (!renderManager.hasSceneProcessors()) {
+            simulatedFrame = simulation.submit(() -> updateScene(tpf));
+        }
+
+        if (extracted) {
+            renderManager.render(tpf, context.isRenderable());
+            simpleRender(renderManager);
+            stateManager.postRender();
+        }
+    }
+
+    private void awaitSimulation() {
+        try {
+            simulatedFrame.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while the scene is updated", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            simulatedFrame = null;
+        }
+    }
+
+    private void stopPipeline() {
+        try {
+            if (simulatedFrame != null) {
+                awaitSimulation();
+            }
+        } finally {
+            simulation.shutdown();
+            simulation = null;
+            if (renderManager != null) {
+                renderManager.discardExtractedFrame();
+            }
+        }
+    }
+
+    @Override
+    public void reshape(int w, int h) {
+        if (simulation != null) {
+            // The cameras may be read by the update running on the simulation thread
+            enqueue(() -> super.reshape(w, h));
+        } else {
+            super.reshape(w, h);
+        }
     }
 
     @Override
     public void destroy() {
+        if (simulation != null) {
+            stopPipeline();
+        }
         simpleDestroy();
         super.destroy();
     }
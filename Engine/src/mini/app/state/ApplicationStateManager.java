@@ -1,7 +1,9 @@
 package mini.app.state;
 
 import mini.app.Application;
+import mini.profile.Profiler;
 import mini.renderer.RenderManager;
+import mini.system.jobs.JobSystem;
 
 import java.util.Arrays;
 import java.util.List;
@@ -28,6 +30,15 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * after the state has been detached or when the application is
  * terminating.</li>
  * </ul>
+ * <p>
+ * States may run work in the background through the {@link Application#getJobSystem() job system}
+ * of the application, submitting it to the phase of the frame by the end of which it must be done.
+ * All the jobs are done before the states are cleaned up when the application terminates.
+ * <p>
+ * When the application is {@link mini.app.SimpleApplication#setPipelined(boolean) pipelined}, the
+ * states are still initialized, rendered and cleaned up on the render thread while the scene is
+ * not updated, but they are updated on the simulation thread and their postRender() runs while the
+ * next frame is updated.
  */
 public class ApplicationStateManager {
     /**
@@ -98,11 +109,12 @@ public class ApplicationStateManager {
      * @param tpf Time per frame
      */
     public void update(float tpf) {
-        // Cleanup any states pending
-        terminatePending();
+        updatePending();
 
-        // Initialize any states pending
-        initializePending();
+        Profiler profiler = application.getProfiler();
+        if (profiler != null) {
+            profiler.begin(Profiler.STATES_UPDATE);
+        }
 
         // Update enabled states
         for (ApplicationState state : getStates()) {
@@ -110,6 +122,23 @@ public class ApplicationStateManager {
                 state.update(tpf);
             }
         }
+
+        if (profiler != null) {
+            profiler.end(Profiler.STATES_UPDATE);
+        }
+    }
+
+    /**
+     * Cleans up the detached states and initializes the attached states, do not call directly.
+     * This is done at the start of {@link #update(float)}, a pipelined application calls it on the
+     * render thread before the update runs on the simulation thread.
+     */
+    public void updatePending() {
+        // Cleanup any states pending
+        terminatePending();
+
+        // Initialize any states pending
+        initializePending();
     }
 
     /**
@@ -118,9 +147,18 @@ public class ApplicationStateManager {
      * @param renderManager The RenderManager
      */
     public void render(RenderManager renderManager) {
+        Profiler profiler = application.getProfiler();
+        if (profiler != null) {
+            profiler.begin(Profiler.STATES_RENDER);
+        }
+
         Arrays.stream(getStates())
               .filter(ApplicationState::isEnabled)
               .forEach(state -> state.render(renderManager));
+
+        if (profiler != null) {
+            profiler.end(Profiler.STATES_RENDER);
+        }
     }
 
     /**
@@ -129,9 +167,18 @@ public class ApplicationStateManager {
      * @param renderManager The RenderManager
      */
     public void postRender() {
+        Profiler profiler = application.getProfiler();
+        if (profiler != null) {
+            profiler.begin(Profiler.STATES_POST_RENDER);
+        }
+
         Arrays.stream(getStates())
               .filter(ApplicationState::isEnabled)
               .forEach(ApplicationState::postRender);
+
+        if (profiler != null) {
+            profiler.end(Profiler.STATES_POST_RENDER);
+        }
     }
 
     private void initializePending() {
@@ -205,6 +252,11 @@ public class ApplicationStateManager {
      * Calls cleanup on attached states, do not call directly.
      */
     public void cleanup() {
+        // The states are not cleaned up while their jobs are still running
+        JobSystem jobSystem = application.getJobSystem();
+        if (jobSystem != null) {
+            jobSystem.completeAll();
+        }
         for (ApplicationState state : getStates()) {
             state.cleanup();
         }
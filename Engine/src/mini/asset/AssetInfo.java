@@ -28,6 +28,13 @@ public abstract class AssetInfo {
         return getClass().getName() + "[key=" + key + ']';
     }
 
+    /**
+     * @return The size of the asset data in bytes, or -1 if it is not known.
+     */
+    public long getSize() {
+        return -1;
+    }
+
     /**
      * Implementations of this method should return an {@link InputStream} allowing access to the
      * data represented by the {@link AssetKey}.
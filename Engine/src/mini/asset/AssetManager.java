@@ -3,6 +3,7 @@ package mini.asset;
 import mini.asset.cache.AssetCache;
 import mini.font.BitmapFont;
 import mini.material.Material;
+import mini.profile.AssetLoadEvent;
 import mini.scene.Spatial;
 import mini.system.ApplicationSystem;
 import mini.textures.Texture;
@@ -104,6 +105,8 @@ public class AssetManager {
     private <T> T loadLocatedAsset(AssetKey<T> key, AssetInfo info, AssetProcessor processor,
                                    AssetCache cache) {
         AssetLoader<T> loader = handler.acquireLoader(key);
+        AssetLoadEvent event = new AssetLoadEvent();
+        event.begin();
         T obj;
         try {
             handler.establishParentKey(key);
@@ -115,6 +118,13 @@ public class AssetManager {
         } finally {
             handler.releaseParentKey(key);
         }
+        event.end();
+        if (event.shouldCommit()) {
+            event.key = key.toString();
+            event.loader = loader.getClass().getName();
+            event.bytes = info.getSize();
+            event.commit();
+        }
         if (obj == null) {
             throw new RuntimeException("Error occurred while loading asset \"" + key + "\" using "
                                        + loader.getClass().getSimpleName());
@@ -250,4 +260,11 @@ public class AssetManager {
     public void clearCache(){
         handler.clearCache();
     }
+
+    /**
+     * @return The number of assets held by all the asset caches.
+     */
+    public int getCachedAssetCount() {
+        return handler.getCachedAssetCount();
+    }
 }
@@ -121,6 +121,16 @@ public class ImplHandler {
         }
     }
 
+    public int getCachedAssetCount() {
+        int count = 0;
+        synchronized (classToCacheMap) {
+            for (AssetCache cache : classToCacheMap.values()) {
+                count += cache.getCachedCount();
+            }
+        }
+        return count;
+    }
+
     public <T extends AssetCache> T getCache(Class<T> cacheClass) {
         if (cacheClass == null) {
             return null;
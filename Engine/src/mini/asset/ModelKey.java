@@ -1,9 +1,12 @@
 package mini.asset;
 
+import mini.animation.AnimationCompressor;
 import mini.asset.cache.AssetCache;
 import mini.asset.cache.WeakRefCloneAssetCache;
 import mini.scene.Spatial;
 
+import java.util.Objects;
+
 /**
  * Used to load model files, such as OBJ or Blender models.
  * This uses cloneable smart asset management, so that when all clones of
@@ -12,6 +15,8 @@ import mini.scene.Spatial;
  * become collected.
  */
 public class ModelKey extends AssetKey<Spatial> {
+    private AnimationCompressor animationCompressor;
+
     public ModelKey(String name) {
         super(name);
     }
@@ -20,6 +25,33 @@ public class ModelKey extends AssetKey<Spatial> {
         super();
     }
 
+    public AnimationCompressor getAnimationCompressor() {
+        return animationCompressor;
+    }
+
+    /**
+     * @param animationCompressor The compressor of the bone tracks of the animations of the
+     *                            model, or null to keep the keyframes as they are loaded. Keys
+     *                            with different compressors are cached apart.
+     */
+    public void setAnimationCompressor(AnimationCompressor animationCompressor) {
+        this.animationCompressor = animationCompressor;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return super.equals(obj)
+               && Objects.equals(animationCompressor, ((ModelKey) obj).animationCompressor);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 17 * hash + super.hashCode();
+        hash = 17 * hash + Objects.hashCode(animationCompressor);
+        return hash;
+    }
+
     @Override
     public Class<? extends AssetCache> getCacheType() {
         return WeakRefCloneAssetCache.class;
@@ -61,4 +61,11 @@ public interface AssetCache {
      * <p><font color="red">Thread-Safe</font>
      */
     void clearCache();
+
+    /**
+     * <p><font color="red">Thread-Safe</font>
+     *
+     * @return The number of assets currently held by the cache.
+     */
+    int getCachedCount();
 }
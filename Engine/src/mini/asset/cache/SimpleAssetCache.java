@@ -34,4 +34,9 @@ public class SimpleAssetCache implements AssetCache {
     public void clearCache() {
         keyToAssetMap.clear();
     }
+
+    @Override
+    public int getCachedCount() {
+        return keyToAssetMap.size();
+    }
 }
@@ -49,6 +49,11 @@ public class WeakRefCloneAssetCache implements AssetCache {
         smartCache.clear();
     }
 
+    @Override
+    public int getCachedCount() {
+        return smartCache.size();
+    }
+
     private final ConcurrentMap<AssetKey, AssetRef> smartCache = new ConcurrentHashMap<>();
     private final ReferenceQueue<AssetKey> referenceQueue = new ReferenceQueue<>();
     private final ThreadLocal<List<AssetKey>> assetLoadStack =
@@ -79,5 +79,10 @@ public class FileLocator implements AssetLocator {
                 throw new AssetLoadException("Failed to open file: " + file, e);
             }
         }
+
+        @Override
+        public long getSize() {
+            return file.length();
+        }
     }
 }
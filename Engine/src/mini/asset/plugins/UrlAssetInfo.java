@@ -15,11 +15,14 @@ import java.net.URLConnection;
 public class UrlAssetInfo extends AssetInfo {
     private URL url;
     private InputStream in;
+    private long size;
 
-    private UrlAssetInfo(AssetManager assetManager, AssetKey key, URL url, InputStream in) {
+    private UrlAssetInfo(AssetManager assetManager, AssetKey key, URL url, InputStream in,
+                         long size) {
         super(assetManager, key);
         this.url = url;
         this.in = in;
+        this.size = size;
     }
 
     public static UrlAssetInfo create(AssetManager assetManager, AssetKey key, URL url) throws
@@ -34,7 +37,7 @@ public class UrlAssetInfo extends AssetInfo {
         if (in == null) {
             return null;
         } else {
-            return new UrlAssetInfo(assetManager, key, url, in);
+            return new UrlAssetInfo(assetManager, key, url, in, conn.getContentLengthLong());
         }
     }
 
@@ -57,6 +60,11 @@ public class UrlAssetInfo extends AssetInfo {
         }
     }
 
+    @Override
+    public long getSize() {
+        return size;
+    }
+
     public URL getUrl() {
         return url;
     }
@@ -396,7 +396,7 @@ public class BoundingBox extends BoundingVolume {
 
     @Override
     public boolean intersectsBoundingSphere(BoundingSphere boundingSphere) {
-        throw new UnsupportedOperationException();
+        return Intersection.intersect(this, boundingSphere.center, boundingSphere.getRadius());
     }
 
     @Override
@@ -441,6 +441,13 @@ public class BoundingBox extends BoundingVolume {
         if (other instanceof Ray) {
             Ray ray = (Ray) other;
             return collideWithRay(ray, results);
+        } else if (other instanceof BoundingVolume) {
+            if (!intersects((BoundingVolume) other)) {
+                return 0;
+            }
+
+            results.addCollision(new CollisionResult());
+            return 1;
         } else {
             throw new UnsupportedOperationException("With: " + other.getClass().getSimpleName());
         }
@@ -53,4 +53,122 @@ public final class Intersection {
 
         return distSqr > 0;
     }
+
+    /**
+     * Tests a triangle against a box with the separating axis theorem, from "Fast 3D Triangle-Box
+     * Overlap Testing" by Tomas Akenine-Möller: they are disjoint if they are separated along
+     * an axis of the box, the normal of the triangle or a cross product of an axis and an edge.
+     */
+    public static boolean intersect(BoundingBox box, Vector3f v1, Vector3f v2, Vector3f v3) {
+        assert Vector3f.isValidVector(box.center);
+
+        float hx = box.getXExtent();
+        float hy = box.getYExtent();
+        float hz = box.getZExtent();
+        try (TempVars vars = TempVars.get()) {
+            // Relative to the center of the box
+            Vector3f a = v1.subtract(box.center, vars.vect1);
+            Vector3f b = v2.subtract(box.center, vars.vect2);
+            Vector3f c = v3.subtract(box.center, vars.vect3);
+
+            if (Math.min(a.x, Math.min(b.x, c.x)) > hx || Math.max(a.x, Math.max(b.x, c.x)) < -hx
+                || Math.min(a.y, Math.min(b.y, c.y)) > hy || Math.max(a.y, Math.max(b.y, c.y)) < -hy
+                || Math.min(a.z, Math.min(b.z, c.z)) > hz || Math.max(a.z, Math.max(b.z, c.z)) < -hz) {
+                return false;
+            }
+
+            Vector3f e0 = b.subtract(a, vars.vect4);
+            Vector3f e1 = c.subtract(b, vars.vect5);
+            Vector3f e2 = a.subtract(c, vars.vect6);
+            if (separated(e0.y * e1.z - e0.z * e1.y, e0.z * e1.x - e0.x * e1.z,
+                          e0.x * e1.y - e0.y * e1.x, a, b, c, hx, hy, hz)) {
+                return false;
+            }
+            return !separated(e0, a, b, c, hx, hy, hz)
+                   && !separated(e1, a, b, c, hx, hy, hz)
+                   && !separated(e2, a, b, c, hx, hy, hz);
+        }
+    }
+
+    /**
+     * @return whether the triangle and the box centered on the origin are separated along one of
+     * the cross products of the axes of the box with the edge
+     */
+    private static boolean separated(Vector3f edge, Vector3f a, Vector3f b, Vector3f c,
+                                     float hx, float hy, float hz) {
+        return separated(0, -edge.z, edge.y, a, b, c, hx, hy, hz)
+               || separated(edge.z, 0, -edge.x, a, b, c, hx, hy, hz)
+               || separated(-edge.y, edge.x, 0, a, b, c, hx, hy, hz);
+    }
+
+    /**
+     * @return whether the triangle and the box centered on the origin are separated along the axis
+     */
+    private static boolean separated(float nx, float ny, float nz, Vector3f a, Vector3f b,
+                                     Vector3f c, float hx, float hy, float hz) {
+        float p0 = nx * a.x + ny * a.y + nz * a.z;
+        float p1 = nx * b.x + ny * b.y + nz * b.z;
+        float p2 = nx * c.x + ny * c.y + nz * c.z;
+        float r = hx * Math.abs(nx) + hy * Math.abs(ny) + hz * Math.abs(nz);
+        return Math.min(p0, Math.min(p1, p2)) > r || Math.max(p0, Math.max(p1, p2)) < -r;
+    }
+
+    /**
+     * Computes the point of a triangle closest to a point, from "Real-Time Collision Detection" by
+     * Christer Ericson: the point is projected on the vertex, the edge or the face of the triangle
+     * whose Voronoi region contains it.
+     *
+     * @param store The closest point, not one of the vertices
+     * @return the store
+     */
+    public static Vector3f closestPoint(Vector3f point, Vector3f v1, Vector3f v2, Vector3f v3,
+                                        Vector3f store) {
+        float abx = v2.x - v1.x, aby = v2.y - v1.y, abz = v2.z - v1.z;
+        float acx = v3.x - v1.x, acy = v3.y - v1.y, acz = v3.z - v1.z;
+        float apx = point.x - v1.x, apy = point.y - v1.y, apz = point.z - v1.z;
+        float d1 = abx * apx + aby * apy + abz * apz;
+        float d2 = acx * apx + acy * apy + acz * apz;
+        if (d1 <= 0 && d2 <= 0) {
+            return store.set(v1);
+        }
+
+        float bpx = point.x - v2.x, bpy = point.y - v2.y, bpz = point.z - v2.z;
+        float d3 = abx * bpx + aby * bpy + abz * bpz;
+        float d4 = acx * bpx + acy * bpy + acz * bpz;
+        if (d3 >= 0 && d4 <= d3) {
+            return store.set(v2);
+        }
+
+        float vc = d1 * d4 - d3 * d2;
+        if (vc <= 0 && d1 >= 0 && d3 <= 0) {
+            float v = d1 / (d1 - d3);
+            return store.set(v1.x + abx * v, v1.y + aby * v, v1.z + abz * v);
+        }
+
+        float cpx = point.x - v3.x, cpy = point.y - v3.y, cpz = point.z - v3.z;
+        float d5 = abx * cpx + aby * cpy + abz * cpz;
+        float d6 = acx * cpx + acy * cpy + acz * cpz;
+        if (d6 >= 0 && d5 <= d6) {
+            return store.set(v3);
+        }
+
+        float vb = d5 * d2 - d1 * d6;
+        if (vb <= 0 && d2 >= 0 && d6 <= 0) {
+            float w = d2 / (d2 - d6);
+            return store.set(v1.x + acx * w, v1.y + acy * w, v1.z + acz * w);
+        }
+
+        float va = d3 * d6 - d5 * d4;
+        if (va <= 0 && d4 - d3 >= 0 && d5 - d6 >= 0) {
+            float w = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+            return store.set(v2.x + (v3.x - v2.x) * w, v2.y + (v3.y - v2.y) * w,
+                             v2.z + (v3.z - v2.z) * w);
+        }
+
+        float denominator = 1f / (va + vb + vc);
+        float v = vb * denominator;
+        float w = vc * denominator;
+        return store.set(v1.x + abx * v + acx * w, v1.y + aby * v + acy * w,
+                         v1.z + abz * v + acz * w);
+    }
 }
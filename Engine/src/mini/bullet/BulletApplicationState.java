@@ -0,0 +1,39 @@
+package mini.bullet;
+
+import mini.app.Application;
+import mini.app.state.AbstractApplicationState;
+import mini.app.state.ApplicationStateManager;
+
+/**
+ * Steps a {@link PhysicsSpace} every frame, before the controls of the scene are updated so that
+ * the {@link mini.bullet.control.RigidBodyControl rigid body controls} move their spatials to the
+ * new locations of their bodies in the same frame. The space uses the job system of the
+ * application.
+ */
+public class BulletApplicationState extends AbstractApplicationState {
+    private final PhysicsSpace physicsSpace = new PhysicsSpace();
+
+    /**
+     * @return the space, which can be filled before the state is initialized
+     */
+    public PhysicsSpace getPhysicsSpace() {
+        return physicsSpace;
+    }
+
+    @Override
+    public void initialize(ApplicationStateManager manager, Application app) {
+        super.initialize(manager, app);
+        physicsSpace.setJobSystem(app.getJobSystem());
+    }
+
+    @Override
+    public void update(float tpf) {
+        physicsSpace.update(tpf);
+    }
+
+    @Override
+    public void cleanup() {
+        physicsSpace.setJobSystem(null);
+        super.cleanup();
+    }
+}
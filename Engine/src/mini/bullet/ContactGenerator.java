@@ -0,0 +1,781 @@
+package mini.bullet;
+
+import mini.bounding.BoundingBox;
+import mini.bounding.Intersection;
+import mini.bullet.collision.shapes.BoxCollisionShape;
+import mini.bullet.collision.shapes.CapsuleCollisionShape;
+import mini.bullet.collision.shapes.CollisionShape;
+import mini.bullet.collision.shapes.MeshCollisionShape;
+import mini.bullet.collision.shapes.SphereCollisionShape;
+import mini.collision.CollisionResults;
+import mini.math.Matrix3f;
+import mini.math.Matrix4f;
+import mini.math.Vector3f;
+
+/**
+ * Generates the contacts of the manifolds, from the shapes of their two bodies. Every pair of
+ * shapes has its own test: spheres and capsules are tested by the closest points of their centers
+ * and segments, boxes against boxes by separating axes, keeping the incident face clipped by the
+ * reference face or the closest points of two edges, and the convex shapes against the triangles
+ * of a mesh found through its collision tree.
+ * <p>
+ * The contacts are generated up to a margin: bodies apart by less than the margin get contacts
+ * of negative depth, which keep them from closing the gap within the step.
+ * <p>
+ * A generator holds the temporary data of the tests, there is one per thread, see
+ * {@link #get()}.
+ */
+final class ContactGenerator {
+    private static final ThreadLocal<ContactGenerator> generators =
+            ThreadLocal.withInitial(ContactGenerator::new);
+
+    private static final int SPHERE = 0;
+    private static final int CAPSULE = 1;
+    private static final int BOX = 2;
+    private static final int MESH = 3;
+    private static final float EPSILON = 1e-6f;
+
+    private final Vector3f start1 = new Vector3f(), end1 = new Vector3f();
+    private final Vector3f start2 = new Vector3f(), end2 = new Vector3f();
+    private final Vector3f point1 = new Vector3f(), point2 = new Vector3f();
+    private final Vector3f closest = new Vector3f();
+    private final Vector3f v1 = new Vector3f(), v2 = new Vector3f(), v3 = new Vector3f();
+    private final Vector3f[] axes1 = {new Vector3f(), new Vector3f(), new Vector3f()};
+    private final Vector3f[] axes2 = {new Vector3f(), new Vector3f(), new Vector3f()};
+    private final float[] half1 = new float[3], half2 = new float[3];
+    private final Vector3f halfExtents = new Vector3f();
+    private final float[] rotation = new float[9];
+    private final float[] polygon = new float[16 * 3], clipped = new float[16 * 3];
+    private final float[] bounds = new float[6];
+    private final BoundingBox queryBox = new BoundingBox();
+    private final Matrix4f meshMatrix = new Matrix4f();
+    private final Vector3f meshScale = new Vector3f();
+    private final CollisionResults triangles = new CollisionResults();
+    private float segment1, segment2;
+
+    /**
+     * @return the generator of the calling thread
+     */
+    static ContactGenerator get() {
+        return generators.get();
+    }
+
+    private static int type(CollisionShape shape) {
+        if (shape instanceof SphereCollisionShape) {
+            return SPHERE;
+        } else if (shape instanceof CapsuleCollisionShape) {
+            return CAPSULE;
+        } else if (shape instanceof BoxCollisionShape) {
+            return BOX;
+        } else if (shape instanceof MeshCollisionShape) {
+            return MESH;
+        }
+        throw new UnsupportedOperationException("Unsupported shape: " + shape);
+    }
+
+    /**
+     * Generates the contacts of a manifold, replacing those of the previous step.
+     *
+     * @param margin The distance up to which contacts are generated between bodies apart
+     */
+    void collide(ContactManifold manifold, float margin) {
+        manifold.beginContacts();
+        PhysicsRigidBody a = manifold.bodyA, b = manifold.bodyB;
+        int typeA = type(a.collisionShape), typeB = type(b.collisionShape);
+        if (typeA <= typeB) {
+            collide(a, typeA, b, typeB, manifold, margin);
+        } else {
+            manifold.setFlipped(true);
+            collide(b, typeB, a, typeA, manifold, margin);
+        }
+        manifold.endContacts();
+    }
+
+    private void collide(PhysicsRigidBody a, int typeA, PhysicsRigidBody b, int typeB,
+                         ContactManifold m, float margin) {
+        switch (typeA * 4 + typeB) {
+            case SPHERE * 4 + SPHERE:
+                spheres(m, a.location, radius(a), b.location, radius(b), margin);
+                break;
+            case SPHERE * 4 + CAPSULE:
+                segment(b, start2, end2);
+                closestOnSegment(a.location, start2, end2, closest);
+                spheres(m, a.location, radius(a), closest, radius(b), margin);
+                break;
+            case SPHERE * 4 + BOX:
+                sphereBox(m, a.location, radius(a), b, margin);
+                break;
+            case CAPSULE * 4 + CAPSULE:
+                capsules(m, a, b, margin);
+                break;
+            case CAPSULE * 4 + BOX:
+                capsuleBox(m, a, b, margin);
+                break;
+            case BOX * 4 + BOX:
+                boxes(m, a, b, margin);
+                break;
+            case SPHERE * 4 + MESH:
+            case CAPSULE * 4 + MESH:
+            case BOX * 4 + MESH:
+                mesh(m, a, typeA, b, margin);
+                break;
+            default:
+                // Meshes are static, they do not collide with each other
+                break;
+        }
+    }
+
+    private static float radius(PhysicsRigidBody body) {
+        CollisionShape shape = body.collisionShape;
+        if (shape instanceof SphereCollisionShape) {
+            return ((SphereCollisionShape) shape).getRadius();
+        }
+        return ((CapsuleCollisionShape) shape).getRadius();
+    }
+
+    private static void segment(PhysicsRigidBody body, Vector3f start, Vector3f end) {
+        ((CapsuleCollisionShape) body.collisionShape).getSegment(body.location,
+                                                                  body.rotationMatrix, start, end);
+    }
+
+    /**
+     * Stores the point of a segment closest to a point.
+     *
+     * @return the parameter of the point along the segment, from 0 to 1
+     */
+    private static float closestOnSegment(Vector3f point, Vector3f start, Vector3f end,
+                                          Vector3f store) {
+        float dx = end.x - start.x, dy = end.y - start.y, dz = end.z - start.z;
+        float length = dx * dx + dy * dy + dz * dz;
+        float t = 0;
+        if (length > EPSILON) {
+            t = ((point.x - start.x) * dx + (point.y - start.y) * dy + (point.z - start.z) * dz)
+                / length;
+            t = Math.max(0, Math.min(1, t));
+        }
+        store.set(start.x + dx * t, start.y + dy * t, start.z + dz * t);
+        return t;
+    }
+
+    /**
+     * Computes the closest points of two segments, from "Real-Time Collision Detection" by
+     * Christer Ericson, into {@link #point1} and {@link #point2}, with their parameters along
+     * the segments in {@link #segment1} and {@link #segment2}.
+     */
+    private void closestSegments(Vector3f start1, Vector3f end1, Vector3f start2, Vector3f end2) {
+        float d1x = end1.x - start1.x, d1y = end1.y - start1.y, d1z = end1.z - start1.z;
+        float d2x = end2.x - start2.x, d2y = end2.y - start2.y, d2z = end2.z - start2.z;
+        float rx = start1.x - start2.x, ry = start1.y - start2.y, rz = start1.z - start2.z;
+        float a = d1x * d1x + d1y * d1y + d1z * d1z;
+        float e = d2x * d2x + d2y * d2y + d2z * d2z;
+        float f = d2x * rx + d2y * ry + d2z * rz;
+        float s, t;
+        if (a <= EPSILON && e <= EPSILON) {
+            s = 0;
+            t = 0;
+        } else if (a <= EPSILON) {
+            s = 0;
+            t = clamp(f / e);
+        } else {
+            float c = d1x * rx + d1y * ry + d1z * rz;
+            if (e <= EPSILON) {
+                t = 0;
+                s = clamp(-c / a);
+            } else {
+                float b = d1x * d2x + d1y * d2y + d1z * d2z;
+                float denominator = a * e - b * b;
+                s = denominator > EPSILON ? clamp((b * f - c * e) / denominator) : 0;
+                t = (b * s + f) / e;
+                if (t < 0) {
+                    t = 0;
+                    s = clamp(-c / a);
+                } else if (t > 1) {
+                    t = 1;
+                    s = clamp((b - c) / a);
+                }
+            }
+        }
+        point1.set(start1.x + d1x * s, start1.y + d1y * s, start1.z + d1z * s);
+        point2.set(start2.x + d2x * t, start2.y + d2y * t, start2.z + d2z * t);
+        segment1 = s;
+        segment2 = t;
+    }
+
+    private static float clamp(float value) {
+        return Math.max(0, Math.min(1, value));
+    }
+
+    /**
+     * Adds the contact of two spheres, the normal goes from the first to the second.
+     */
+    private static void spheres(ContactManifold m, Vector3f center1, float radius1,
+                                Vector3f center2, float radius2, float margin) {
+        float dx = center2.x - center1.x, dy = center2.y - center1.y, dz = center2.z - center1.z;
+        float distance = dx * dx + dy * dy + dz * dz;
+        float reach = radius1 + radius2 + margin;
+        if (distance > reach * reach) {
+            return;
+        }
+        distance = (float) Math.sqrt(distance);
+        float nx = 0, ny = 1, nz = 0;
+        if (distance > EPSILON) {
+            nx = dx / distance;
+            ny = dy / distance;
+            nz = dz / distance;
+        }
+        float depth = radius1 + radius2 - distance;
+        float offset = radius1 - depth / 2;
+        m.addContact(center1.x + nx * offset, center1.y + ny * offset, center1.z + nz * offset,
+                     nx, ny, nz, depth);
+    }
+
+    /**
+     * Stores the axes and the half extents of a box.
+     */
+    private void box(PhysicsRigidBody body, Vector3f[] axes, float[] half) {
+        ((BoxCollisionShape) body.collisionShape).getHalfExtents(halfExtents);
+        half[0] = halfExtents.x;
+        half[1] = halfExtents.y;
+        half[2] = halfExtents.z;
+        for (int i = 0; i < 3; i++) {
+            body.rotationMatrix.getColumn(i, axes[i]);
+        }
+    }
+
+    /**
+     * Adds the contact of a sphere with a box, the normal goes from the sphere to the box.
+     */
+    private void sphereBox(ContactManifold m, Vector3f center, float radius, PhysicsRigidBody box,
+                           float margin) {
+        box(box, axes2, half2);
+        Vector3f origin = box.location;
+        float dx = center.x - origin.x, dy = center.y - origin.y, dz = center.z - origin.z;
+
+        float distance = 0;
+        int face = -1;
+        float faceDepth = Float.POSITIVE_INFINITY;
+        float outX = 0, outY = 0, outZ = 0;
+        float surfaceX = origin.x, surfaceY = origin.y, surfaceZ = origin.z;
+        for (int k = 0; k < 3; k++) {
+            Vector3f axis = axes2[k];
+            float local = dx * axis.x + dy * axis.y + dz * axis.z;
+            float clamped = Math.max(-half2[k], Math.min(half2[k], local));
+            float outside = local - clamped;
+            distance += outside * outside;
+            outX += axis.x * outside;
+            outY += axis.y * outside;
+            outZ += axis.z * outside;
+            surfaceX += axis.x * clamped;
+            surfaceY += axis.y * clamped;
+            surfaceZ += axis.z * clamped;
+            float depth = half2[k] - Math.abs(local);
+            if (depth < faceDepth) {
+                faceDepth = depth;
+                face = k;
+            }
+        }
+
+        float nx, ny, nz, depth;
+        if (distance > 0) {
+            float reach = radius + margin;
+            if (distance > reach * reach) {
+                return;
+            }
+            distance = (float) Math.sqrt(distance);
+            // Normal from the box to the sphere
+            nx = outX / distance;
+            ny = outY / distance;
+            nz = outZ / distance;
+            depth = radius - distance;
+        } else {
+            Vector3f axis = axes2[face];
+            float sign = dx * axis.x + dy * axis.y + dz * axis.z < 0 ? -1 : 1;
+            nx = axis.x * sign;
+            ny = axis.y * sign;
+            nz = axis.z * sign;
+            depth = radius + faceDepth;
+            surfaceX = center.x + nx * faceDepth;
+            surfaceY = center.y + ny * faceDepth;
+            surfaceZ = center.z + nz * faceDepth;
+        }
+        m.addContact((surfaceX + center.x - nx * radius) / 2,
+                     (surfaceY + center.y - ny * radius) / 2,
+                     (surfaceZ + center.z - nz * radius) / 2, -nx, -ny, -nz, depth);
+    }
+
+    /**
+     * Adds the contacts of two capsules: their closest points and the ends of each segment
+     * against the other segment, so that parallel capsules rest on two contacts.
+     */
+    private void capsules(ContactManifold m, PhysicsRigidBody a, PhysicsRigidBody b,
+                          float margin) {
+        float radiusA = radius(a), radiusB = radius(b);
+        segment(a, start1, end1);
+        segment(b, start2, end2);
+        closestSegments(start1, end1, start2, end2);
+        spheres(m, point1, radiusA, point2, radiusB, margin);
+
+        closestOnSegment(start1, start2, end2, closest);
+        spheres(m, start1, radiusA, closest, radiusB, margin);
+        closestOnSegment(end1, start2, end2, closest);
+        spheres(m, end1, radiusA, closest, radiusB, margin);
+        closestOnSegment(start2, start1, end1, closest);
+        spheres(m, closest, radiusA, start2, radiusB, margin);
+        closestOnSegment(end2, start1, end1, closest);
+        spheres(m, closest, radiusA, end2, radiusB, margin);
+    }
+
+    /**
+     * Adds the contacts of a capsule with a box: the two ends of the segment and the point of
+     * the segment closest to the box, found by projecting back and forth between them.
+     */
+    private void capsuleBox(ContactManifold m, PhysicsRigidBody capsule, PhysicsRigidBody box,
+                            float margin) {
+        float radius = radius(capsule);
+        segment(capsule, start1, end1);
+        sphereBox(m, start1, radius, box, margin);
+        sphereBox(m, end1, radius, box, margin);
+
+        float t = 0.5f;
+        for (int i = 0; i < 3; i++) {
+            point1.set(start1).interpolateLocal(end1, t);
+            closestOnBox(point1, box, closest);
+            t = closestOnSegment(closest, start1, end1, point1);
+        }
+        if (t > 0 && t < 1) {
+            sphereBox(m, point1, radius, box, margin);
+        }
+    }
+
+    private void closestOnBox(Vector3f point, PhysicsRigidBody box, Vector3f store) {
+        box(box, axes2, half2);
+        Vector3f origin = box.location;
+        float dx = point.x - origin.x, dy = point.y - origin.y, dz = point.z - origin.z;
+        store.set(origin);
+        for (int k = 0; k < 3; k++) {
+            Vector3f axis = axes2[k];
+            float local = dx * axis.x + dy * axis.y + dz * axis.z;
+            float clamped = Math.max(-half2[k], Math.min(half2[k], local));
+            store.addLocal(axis.x * clamped, axis.y * clamped, axis.z * clamped);
+        }
+    }
+
+    /**
+     * Adds the contacts of two boxes. The axis of least penetration is searched among the faces
+     * of both boxes and the cross products of their edges, faces being preferred to edges for
+     * the stability of resting boxes. For a face, the face of the other box most facing it is
+     * clipped by the sides of the face, and its points below the face are the contacts. For two
+     * edges, the contact is between their closest points.
+     */
+    private void boxes(ContactManifold m, PhysicsRigidBody a, PhysicsRigidBody b, float margin) {
+        box(a, axes1, half1);
+        box(b, axes2, half2);
+        float tx = b.location.x - a.location.x;
+        float ty = b.location.y - a.location.y;
+        float tz = b.location.z - a.location.z;
+
+        float[] r = rotation;
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                r[i * 3 + j] = Math.abs(axes1[i].dot(axes2[j])) + EPSILON;
+            }
+        }
+
+        float faceA = Float.NEGATIVE_INFINITY;
+        int axisA = 0;
+        for (int i = 0; i < 3; i++) {
+            float distance = Math.abs(tx * axes1[i].x + ty * axes1[i].y + tz * axes1[i].z);
+            float s = distance
+                      - (half1[i] + half2[0] * r[i * 3] + half2[1] * r[i * 3 + 1]
+                         + half2[2] * r[i * 3 + 2]);
+            if (s > margin) {
+                return;
+            }
+            if (s > faceA) {
+                faceA = s;
+                axisA = i;
+            }
+        }
+
+        float faceB = Float.NEGATIVE_INFINITY;
+        int axisB = 0;
+        for (int j = 0; j < 3; j++) {
+            float distance = Math.abs(tx * axes2[j].x + ty * axes2[j].y + tz * axes2[j].z);
+            float s = distance
+                      - (half2[j] + half1[0] * r[j] + half1[1] * r[3 + j] + half1[2] * r[6 + j]);
+            if (s > margin) {
+                return;
+            }
+            if (s > faceB) {
+                faceB = s;
+                axisB = j;
+            }
+        }
+
+        float edge = Float.NEGATIVE_INFINITY;
+        int edgeA = -1, edgeB = -1;
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                Vector3f u = axes1[i], w = axes2[j];
+                float nx = u.y * w.z - u.z * w.y;
+                float ny = u.z * w.x - u.x * w.z;
+                float nz = u.x * w.y - u.y * w.x;
+                float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+                if (length < 1e-4f) {
+                    // Parallel edges, covered by the faces
+                    continue;
+                }
+                nx /= length;
+                ny /= length;
+                nz /= length;
+                float s = Math.abs(tx * nx + ty * ny + tz * nz)
+                          - project(axes1, half1, nx, ny, nz)
+                          - project(axes2, half2, nx, ny, nz);
+                if (s > margin) {
+                    return;
+                }
+                if (s > edge) {
+                    edge = s;
+                    edgeA = i;
+                    edgeB = j;
+                }
+            }
+        }
+
+        boolean referenceB = faceB > 0.95f * faceA + 0.01f;
+        float face = referenceB ? faceB : faceA;
+        if (edgeA != -1 && edge > 0.95f * face + 0.01f) {
+            edges(m, a, b, edgeA, edgeB, -edge, tx, ty, tz);
+        } else if (referenceB) {
+            faces(m, b, axes2, half2, axisB, a, axes1, half1, true, margin);
+        } else {
+            faces(m, a, axes1, half1, axisA, b, axes2, half2, false, margin);
+        }
+    }
+
+    /**
+     * @return the half length of the projection of a box on an axis
+     */
+    private static float project(Vector3f[] axes, float[] half, float nx, float ny, float nz) {
+        return half[0] * Math.abs(axes[0].x * nx + axes[0].y * ny + axes[0].z * nz)
+               + half[1] * Math.abs(axes[1].x * nx + axes[1].y * ny + axes[1].z * nz)
+               + half[2] * Math.abs(axes[2].x * nx + axes[2].y * ny + axes[2].z * nz);
+    }
+
+    /**
+     * Clips the incident face against a reference face.
+     *
+     * @param flip Whether the reference box is the second body of the manifold
+     */
+    private void faces(ContactManifold m, PhysicsRigidBody reference, Vector3f[] referenceAxes,
+                       float[] referenceHalf, int axis, PhysicsRigidBody incident,
+                       Vector3f[] incidentAxes, float[] incidentHalf, boolean flip,
+                       float margin) {
+        Vector3f center = reference.location;
+        Vector3f normal = referenceAxes[axis];
+        float sign = normal.dot(incident.location) - normal.dot(center) < 0 ? -1 : 1;
+        float nx = normal.x * sign, ny = normal.y * sign, nz = normal.z * sign;
+
+        // Face of the incident box most opposed to the normal
+        int incidentAxis = 0;
+        float most = -1;
+        for (int j = 0; j < 3; j++) {
+            float alignment = Math.abs(incidentAxes[j].x * nx + incidentAxes[j].y * ny
+                                       + incidentAxes[j].z * nz);
+            if (alignment > most) {
+                most = alignment;
+                incidentAxis = j;
+            }
+        }
+        Vector3f faceNormal = incidentAxes[incidentAxis];
+        float faceSign = faceNormal.x * nx + faceNormal.y * ny + faceNormal.z * nz > 0 ? -1 : 1;
+        float fh = incidentHalf[incidentAxis] * faceSign;
+        float cx = incident.location.x + faceNormal.x * fh;
+        float cy = incident.location.y + faceNormal.y * fh;
+        float cz = incident.location.z + faceNormal.z * fh;
+        Vector3f u = incidentAxes[(incidentAxis + 1) % 3];
+        Vector3f w = incidentAxes[(incidentAxis + 2) % 3];
+        float hu = incidentHalf[(incidentAxis + 1) % 3];
+        float hw = incidentHalf[(incidentAxis + 2) % 3];
+        float[] in = polygon;
+        vertex(in, 0, cx, cy, cz, u, hu, w, hw);
+        vertex(in, 1, cx, cy, cz, u, -hu, w, hw);
+        vertex(in, 2, cx, cy, cz, u, -hu, w, -hw);
+        vertex(in, 3, cx, cy, cz, u, hu, w, -hw);
+        int count = 4;
+
+        // Sides of the reference face
+        float[] out = clipped;
+        for (int side = 1; side <= 2 && count > 0; side++) {
+            Vector3f sideAxis = referenceAxes[(axis + side) % 3];
+            float offset = sideAxis.dot(center);
+            float half = referenceHalf[(axis + side) % 3];
+            count = clip(in, count, out, sideAxis.x, sideAxis.y, sideAxis.z, offset + half);
+            count = clip(out, count, in, -sideAxis.x, -sideAxis.y, -sideAxis.z, half - offset);
+        }
+
+        float plane = nx * center.x + ny * center.y + nz * center.z + referenceHalf[axis];
+        float contactX = flip ? -nx : nx, contactY = flip ? -ny : ny, contactZ = flip ? -nz : nz;
+        for (int i = 0; i < count; i++) {
+            float px = in[i * 3], py = in[i * 3 + 1], pz = in[i * 3 + 2];
+            float separation = nx * px + ny * py + nz * pz - plane;
+            if (separation <= margin) {
+                float half = separation / 2;
+                m.addContact(px - nx * half, py - ny * half, pz - nz * half,
+                             contactX, contactY, contactZ, -separation);
+            }
+        }
+    }
+
+    private static void vertex(float[] store, int index, float cx, float cy, float cz,
+                               Vector3f u, float hu, Vector3f w, float hw) {
+        store[index * 3] = cx + u.x * hu + w.x * hw;
+        store[index * 3 + 1] = cy + u.y * hu + w.y * hw;
+        store[index * 3 + 2] = cz + u.z * hu + w.z * hw;
+    }
+
+    /**
+     * Clips a polygon by a plane, keeping the part where the dot product with the normal is at
+     * most the offset.
+     *
+     * @return the number of vertices of the clipped polygon
+     */
+    private static int clip(float[] in, int count, float[] out, float nx, float ny, float nz,
+                            float offset) {
+        int result = 0;
+        for (int i = 0; i < count; i++) {
+            int o1 = i * 3, o2 = (i + 1) % count * 3;
+            float d1 = nx * in[o1] + ny * in[o1 + 1] + nz * in[o1 + 2] - offset;
+            float d2 = nx * in[o2] + ny * in[o2 + 1] + nz * in[o2 + 2] - offset;
+            if (d1 <= 0) {
+                out[result * 3] = in[o1];
+                out[result * 3 + 1] = in[o1 + 1];
+                out[result * 3 + 2] = in[o1 + 2];
+                result++;
+            }
+            if ((d1 <= 0) != (d2 <= 0)) {
+                float t = d1 / (d1 - d2);
+                out[result * 3] = in[o1] + (in[o2] - in[o1]) * t;
+                out[result * 3 + 1] = in[o1 + 1] + (in[o2 + 1] - in[o1 + 1]) * t;
+                out[result * 3 + 2] = in[o1 + 2] + (in[o2 + 2] - in[o1 + 2]) * t;
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the contact between an edge of each box.
+     */
+    private void edges(ContactManifold m, PhysicsRigidBody a, PhysicsRigidBody b, int edgeA,
+                       int edgeB, float depth, float tx, float ty, float tz) {
+        Vector3f u = axes1[edgeA], w = axes2[edgeB];
+        float nx = u.y * w.z - u.z * w.y;
+        float ny = u.z * w.x - u.x * w.z;
+        float nz = u.x * w.y - u.y * w.x;
+        float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+        float sign = tx * nx + ty * ny + tz * nz < 0 ? -1 / length : 1 / length;
+        nx *= sign;
+        ny *= sign;
+        nz *= sign;
+
+        // Edges supporting the boxes along the normal
+        point1.set(a.location);
+        point2.set(b.location);
+        for (int k = 0; k < 3; k++) {
+            if (k != edgeA) {
+                Vector3f axis = axes1[k];
+                float h = axis.x * nx + axis.y * ny + axis.z * nz < 0 ? -half1[k] : half1[k];
+                point1.addLocal(axis.x * h, axis.y * h, axis.z * h);
+            }
+            if (k != edgeB) {
+                Vector3f axis = axes2[k];
+                float h = axis.x * nx + axis.y * ny + axis.z * nz < 0 ? half2[k] : -half2[k];
+                point2.addLocal(axis.x * h, axis.y * h, axis.z * h);
+            }
+        }
+        float h1 = half1[edgeA], h2 = half2[edgeB];
+        start1.set(point1).subtractLocal(u.x * h1, u.y * h1, u.z * h1);
+        end1.set(point1).addLocal(u.x * h1, u.y * h1, u.z * h1);
+        start2.set(point2).subtractLocal(w.x * h2, w.y * h2, w.z * h2);
+        end2.set(point2).addLocal(w.x * h2, w.y * h2, w.z * h2);
+        closestSegments(start1, end1, start2, end2);
+        m.addContact((point1.x + point2.x) / 2, (point1.y + point2.y) / 2,
+                     (point1.z + point2.z) / 2, nx, ny, nz, depth);
+    }
+
+    /**
+     * Adds the contacts of a convex shape with the triangles of a mesh overlapping its box.
+     */
+    private void mesh(ContactManifold m, PhysicsRigidBody convex, int type, PhysicsRigidBody mesh,
+                      float margin) {
+        MeshCollisionShape shape = (MeshCollisionShape) mesh.collisionShape;
+        convex.collisionShape.getBounds(convex.location, convex.rotationMatrix, bounds);
+        queryBox.setCenter((bounds[0] + bounds[3]) / 2, (bounds[1] + bounds[4]) / 2,
+                           (bounds[2] + bounds[5]) / 2);
+        queryBox.setXExtent((bounds[3] - bounds[0]) / 2 + margin);
+        queryBox.setYExtent((bounds[4] - bounds[1]) / 2 + margin);
+        queryBox.setZExtent((bounds[5] - bounds[2]) / 2 + margin);
+        meshMatrix.setTransform(mesh.location, shape.getScale(meshScale), mesh.rotationMatrix);
+
+        triangles.clear();
+        shape.getCollisionData().collideWith(queryBox, meshMatrix, null, triangles);
+        Matrix3f meshRotation = mesh.rotationMatrix;
+        for (int i = 0; i < triangles.size(); i++) {
+            shape.getTriangle(triangles.getCollisionDirect(i).getTriangleIndex(), v1, v2, v3);
+            meshRotation.mult(v1, v1).addLocal(mesh.location);
+            meshRotation.mult(v2, v2).addLocal(mesh.location);
+            meshRotation.mult(v3, v3).addLocal(mesh.location);
+            switch (type) {
+                case SPHERE:
+                    sphereTriangle(m, convex.location, radius(convex), margin);
+                    break;
+                case CAPSULE:
+                    capsuleTriangle(m, convex, margin);
+                    break;
+                default:
+                    boxTriangle(m, convex, margin);
+                    break;
+            }
+        }
+        triangles.clear();
+    }
+
+    /**
+     * Adds the contact of a sphere with the triangle {@link #v1}, {@link #v2}, {@link #v3}.
+     */
+    private void sphereTriangle(ContactManifold m, Vector3f center, float radius, float margin) {
+        Intersection.closestPoint(center, v1, v2, v3, closest);
+        float dx = center.x - closest.x, dy = center.y - closest.y, dz = center.z - closest.z;
+        float distance = dx * dx + dy * dy + dz * dz;
+        float reach = radius + margin;
+        if (distance > reach * reach) {
+            return;
+        }
+        distance = (float) Math.sqrt(distance);
+        // Normal from the triangle to the sphere
+        float nx, ny, nz;
+        if (distance > EPSILON) {
+            nx = dx / distance;
+            ny = dy / distance;
+            nz = dz / distance;
+        } else {
+            point1.set(v2).subtractLocal(v1).crossLocal(v3.x - v1.x, v3.y - v1.y, v3.z - v1.z);
+            point1.normalizeLocal();
+            nx = point1.x;
+            ny = point1.y;
+            nz = point1.z;
+        }
+        float depth = radius - distance;
+        m.addContact((closest.x + center.x - nx * radius) / 2,
+                     (closest.y + center.y - ny * radius) / 2,
+                     (closest.z + center.z - nz * radius) / 2, -nx, -ny, -nz, depth);
+    }
+
+    /**
+     * Adds the contacts of a capsule with the triangle {@link #v1}, {@link #v2}, {@link #v3}: the
+     * ends of its segment and the point of the segment closest to the triangle.
+     */
+    private void capsuleTriangle(ContactManifold m, PhysicsRigidBody capsule, float margin) {
+        float radius = radius(capsule);
+        segment(capsule, start1, end1);
+        sphereTriangle(m, start1, radius, margin);
+        sphereTriangle(m, end1, radius, margin);
+
+        float t = 0.5f;
+        for (int i = 0; i < 3; i++) {
+            point2.set(start1).interpolateLocal(end1, t);
+            Intersection.closestPoint(point2, v1, v2, v3, closest);
+            t = closestOnSegment(closest, start1, end1, point2);
+        }
+        if (t > 0 && t < 1) {
+            sphereTriangle(m, point2, radius, margin);
+        }
+    }
+
+    /**
+     * Adds the contacts of a box with the triangle {@link #v1}, {@link #v2}, {@link #v3}: the
+     * vertices of the box below the triangle, and the vertices of the triangle inside the box.
+     * The normal is the normal of the triangle facing the center of the box.
+     */
+    private void boxTriangle(ContactManifold m, PhysicsRigidBody box, float margin) {
+        box(box, axes1, half1);
+        Vector3f center = box.location;
+        Vector3f normal = point1.set(v2).subtractLocal(v1)
+                                .crossLocal(v3.x - v1.x, v3.y - v1.y, v3.z - v1.z);
+        float length = normal.length();
+        if (length < EPSILON) {
+            return;
+        }
+        normal.divideLocal(length);
+        if (normal.dot(center) < normal.dot(v1)) {
+            normal.negateLocal();
+        }
+        float nx = normal.x, ny = normal.y, nz = normal.z;
+        float plane = normal.dot(v1);
+
+        for (int corner = 0; corner < 8; corner++) {
+            float px = center.x, py = center.y, pz = center.z;
+            for (int k = 0; k < 3; k++) {
+                float h = (corner & (1 << k)) == 0 ? -half1[k] : half1[k];
+                px += axes1[k].x * h;
+                py += axes1[k].y * h;
+                pz += axes1[k].z * h;
+            }
+            float separation = nx * px + ny * py + nz * pz - plane;
+            if (separation <= margin
+                && insideTriangle(px - nx * separation, py - ny * separation,
+                                  pz - nz * separation, nx, ny, nz)) {
+                float half = separation / 2;
+                m.addContact(px - nx * half, py - ny * half, pz - nz * half, -nx, -ny, -nz,
+                             -separation);
+            }
+        }
+
+        float extent = project(axes1, half1, nx, ny, nz);
+        float bottom = normal.dot(center) - extent;
+        for (int i = 0; i < 3; i++) {
+            Vector3f vertex = i == 0 ? v1 : i == 1 ? v2 : v3;
+            float dx = vertex.x - center.x, dy = vertex.y - center.y, dz = vertex.z - center.z;
+            boolean inside = true;
+            for (int k = 0; k < 3 && inside; k++) {
+                float local = dx * axes1[k].x + dy * axes1[k].y + dz * axes1[k].z;
+                inside = Math.abs(local) <= half1[k] + margin;
+            }
+            float depth = normal.dot(vertex) - bottom;
+            if (inside && depth >= -margin) {
+                float half = depth / 2;
+                m.addContact(vertex.x - nx * half, vertex.y - ny * half, vertex.z - nz * half,
+                             -nx, -ny, -nz, depth);
+            }
+        }
+    }
+
+    /**
+     * @return whether a point of the plane of the triangle {@link #v1}, {@link #v2}, {@link #v3}
+     * is inside the triangle
+     */
+    private boolean insideTriangle(float px, float py, float pz, float nx, float ny, float nz) {
+        return sameSide(v1, v2, px, py, pz, nx, ny, nz)
+               && sameSide(v2, v3, px, py, pz, nx, ny, nz)
+               && sameSide(v3, v1, px, py, pz, nx, ny, nz);
+    }
+
+    /**
+     * @return whether the point is on the inner side of the edge, for a counterclockwise
+     * triangle around the normal or on the other side for a clockwise one
+     */
+    private boolean sameSide(Vector3f from, Vector3f to, float px, float py, float pz, float nx,
+                             float ny, float nz) {
+        float ex = to.x - from.x, ey = to.y - from.y, ez = to.z - from.z;
+        float dx = px - from.x, dy = py - from.y, dz = pz - from.z;
+        float cx = ey * dz - ez * dy, cy = ez * dx - ex * dz, cz = ex * dy - ey * dx;
+        float side = cx * nx + cy * ny + cz * nz;
+        // The winding relative to the normal, which may have been reversed
+        float ax = v2.x - v1.x, ay = v2.y - v1.y, az = v2.z - v1.z;
+        float bx = v3.x - v1.x, by = v3.y - v1.y, bz = v3.z - v1.z;
+        float winding = (ay * bz - az * by) * nx + (az * bx - ax * bz) * ny
+                        + (ax * by - ay * bx) * nz;
+        return winding >= 0 ? side >= -EPSILON : side <= EPSILON;
+    }
+}
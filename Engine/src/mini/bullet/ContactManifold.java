@@ -0,0 +1,245 @@
+package mini.bullet;
+
+import mini.math.Matrix3f;
+import mini.math.Vector3f;
+
+/**
+ * The contacts between two bodies whose boxes overlap. The contact generation adds candidate
+ * points, of which at most {@link #MAX_CONTACTS} are kept: the deepest one and the ones spanning
+ * the largest area around it. The points kept are matched with the points of the previous step
+ * to carry their impulses over.
+ */
+final class ContactManifold {
+    static final int MAX_CONTACTS = 4;
+    private static final int MAX_CANDIDATES = 16;
+    /**
+     * Position, normal and depth of every candidate.
+     */
+    private static final int STRIDE = 7;
+    private static final float MATCH_DISTANCE_SQUARED = 0.02f * 0.02f;
+    private static final float MERGE_DISTANCE_SQUARED = 0.005f * 0.005f;
+
+    PhysicsRigidBody bodyA;
+    PhysicsRigidBody bodyB;
+    long key;
+    final ContactPoint[] points = new ContactPoint[MAX_CONTACTS];
+    int count;
+    /**
+     * Index of the island of the manifold, set by the space at every step.
+     */
+    int island;
+
+    private final float[] candidates = new float[MAX_CANDIDATES * STRIDE];
+    private int candidateCount;
+    private boolean flipped;
+    private final ContactPoint[] previous = new ContactPoint[MAX_CONTACTS];
+    private final boolean[] matched = new boolean[MAX_CONTACTS];
+    private final int[] selected = new int[MAX_CONTACTS];
+    private final Vector3f local = new Vector3f();
+
+    ContactManifold() {
+        for (int i = 0; i < MAX_CONTACTS; i++) {
+            points[i] = new ContactPoint();
+            previous[i] = new ContactPoint();
+        }
+    }
+
+    void reset(PhysicsRigidBody bodyA, PhysicsRigidBody bodyB, long key) {
+        this.bodyA = bodyA;
+        this.bodyB = bodyB;
+        this.key = key;
+        count = 0;
+    }
+
+    /**
+     * Starts the generation of the contacts of a step.
+     */
+    void beginContacts() {
+        candidateCount = 0;
+        flipped = false;
+    }
+
+    /**
+     * @param flipped Whether the contacts added next are generated from the second body to the
+     *                first one, their normals are then reversed
+     */
+    void setFlipped(boolean flipped) {
+        this.flipped = flipped;
+    }
+
+    /**
+     * Adds a candidate contact. A candidate close to another one is merged with it, and when
+     * there are too many candidates the shallowest one is dropped. The normal goes from the first
+     * body to the second one, or the reverse when {@link #setFlipped(boolean) flipped}.
+     */
+    void addContact(float px, float py, float pz, float nx, float ny, float nz, float depth) {
+        if (flipped) {
+            nx = -nx;
+            ny = -ny;
+            nz = -nz;
+        }
+        int slot = -1;
+        for (int i = 0; i < candidateCount && slot == -1; i++) {
+            int o = i * STRIDE;
+            float dx = candidates[o] - px, dy = candidates[o + 1] - py, dz = candidates[o + 2] - pz;
+            if (dx * dx + dy * dy + dz * dz < MERGE_DISTANCE_SQUARED) {
+                if (depth <= candidates[o + 6]) {
+                    return;
+                }
+                slot = i;
+            }
+        }
+        if (slot == -1 && candidateCount < MAX_CANDIDATES) {
+            slot = candidateCount++;
+        } else if (slot == -1) {
+            slot = 0;
+            for (int i = 1; i < candidateCount; i++) {
+                if (candidates[i * STRIDE + 6] < candidates[slot * STRIDE + 6]) {
+                    slot = i;
+                }
+            }
+            if (depth <= candidates[slot * STRIDE + 6]) {
+                return;
+            }
+        }
+        int o = slot * STRIDE;
+        candidates[o] = px;
+        candidates[o + 1] = py;
+        candidates[o + 2] = pz;
+        candidates[o + 3] = nx;
+        candidates[o + 4] = ny;
+        candidates[o + 5] = nz;
+        candidates[o + 6] = depth;
+    }
+
+    /**
+     * Ends the generation of the contacts: keeps the best candidates and matches them with the
+     * contacts of the previous step.
+     */
+    void endContacts() {
+        int kept = select();
+        int previousCount = count;
+        for (int i = 0; i < previousCount; i++) {
+            previous[i].set(points[i]);
+            matched[i] = false;
+        }
+
+        Matrix3f rotation = bodyA.rotationMatrix;
+        Vector3f origin = bodyA.location;
+        for (int k = 0; k < kept; k++) {
+            int o = selected[k] * STRIDE;
+            ContactPoint point = points[k];
+            point.position.set(candidates[o], candidates[o + 1], candidates[o + 2]);
+            point.normal.set(candidates[o + 3], candidates[o + 4], candidates[o + 5]);
+            point.depth = candidates[o + 6];
+            // Transposed rotation, to the frame of the first body
+            local.set(point.position).subtractLocal(origin);
+            point.localPosition.set(
+                    rotation.get(0, 0) * local.x + rotation.get(1, 0) * local.y
+                    + rotation.get(2, 0) * local.z,
+                    rotation.get(0, 1) * local.x + rotation.get(1, 1) * local.y
+                    + rotation.get(2, 1) * local.z,
+                    rotation.get(0, 2) * local.x + rotation.get(1, 2) * local.y
+                    + rotation.get(2, 2) * local.z);
+
+            point.normalImpulse = 0;
+            point.tangentImpulse1 = 0;
+            point.tangentImpulse2 = 0;
+            int match = -1;
+            float closest = MATCH_DISTANCE_SQUARED;
+            for (int i = 0; i < previousCount; i++) {
+                float distance = previous[i].localPosition.distanceSquared(point.localPosition);
+                if (!matched[i] && distance < closest) {
+                    closest = distance;
+                    match = i;
+                }
+            }
+            if (match != -1) {
+                matched[match] = true;
+                point.normalImpulse = previous[match].normalImpulse;
+                point.tangentImpulse1 = previous[match].tangentImpulse1;
+                point.tangentImpulse2 = previous[match].tangentImpulse2;
+            }
+        }
+        count = kept;
+    }
+
+    /**
+     * Selects the candidates kept: the deepest, the farthest from it, the farthest from the line
+     * through both and the farthest from those three.
+     *
+     * @return the number of candidates kept
+     */
+    private int select() {
+        if (candidateCount <= MAX_CONTACTS) {
+            for (int i = 0; i < candidateCount; i++) {
+                selected[i] = i;
+            }
+            return candidateCount;
+        }
+
+        int deepest = 0;
+        for (int i = 1; i < candidateCount; i++) {
+            if (candidates[i * STRIDE + 6] > candidates[deepest * STRIDE + 6]) {
+                deepest = i;
+            }
+        }
+        selected[0] = deepest;
+
+        int farthest = -1;
+        float best = -1;
+        for (int i = 0; i < candidateCount; i++) {
+            float distance = distanceSquared(i, deepest);
+            if (distance > best) {
+                best = distance;
+                farthest = i;
+            }
+        }
+        selected[1] = farthest;
+
+        int o0 = deepest * STRIDE, o1 = farthest * STRIDE;
+        float ex = candidates[o1] - candidates[o0];
+        float ey = candidates[o1 + 1] - candidates[o0 + 1];
+        float ez = candidates[o1 + 2] - candidates[o0 + 2];
+        int third = -1;
+        best = -1;
+        for (int i = 0; i < candidateCount; i++) {
+            int o = i * STRIDE;
+            float dx = candidates[o] - candidates[o0];
+            float dy = candidates[o + 1] - candidates[o0 + 1];
+            float dz = candidates[o + 2] - candidates[o0 + 2];
+            float cx = dy * ez - dz * ey, cy = dz * ex - dx * ez, cz = dx * ey - dy * ex;
+            float area = cx * cx + cy * cy + cz * cz;
+            if (i != deepest && i != farthest && area > best) {
+                best = area;
+                third = i;
+            }
+        }
+        selected[2] = third;
+
+        int fourth = -1;
+        best = -1;
+        for (int i = 0; i < candidateCount; i++) {
+            if (i == deepest || i == farthest || i == third) {
+                continue;
+            }
+            float distance = Math.min(distanceSquared(i, deepest),
+                                      Math.min(distanceSquared(i, farthest),
+                                               distanceSquared(i, third)));
+            if (distance > best) {
+                best = distance;
+                fourth = i;
+            }
+        }
+        selected[3] = fourth;
+        return MAX_CONTACTS;
+    }
+
+    private float distanceSquared(int candidate1, int candidate2) {
+        int o1 = candidate1 * STRIDE, o2 = candidate2 * STRIDE;
+        float dx = candidates[o1] - candidates[o2];
+        float dy = candidates[o1 + 1] - candidates[o2 + 1];
+        float dz = candidates[o1 + 2] - candidates[o2 + 2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
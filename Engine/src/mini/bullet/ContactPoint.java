@@ -0,0 +1,50 @@
+package mini.bullet;
+
+import mini.math.Vector3f;
+
+/**
+ * A point of contact between two bodies, with the impulses the solver applied at it. The
+ * impulses are kept from one step to the next while the contact persists, they are applied
+ * again at the start of the next step so that stacks of bodies settle in a few iterations.
+ */
+final class ContactPoint {
+    /**
+     * Middle of the penetration, in world space.
+     */
+    final Vector3f position = new Vector3f();
+    /**
+     * Normal from the first body to the second one.
+     */
+    final Vector3f normal = new Vector3f();
+    /**
+     * Position in the frame of the first body, to match the contact in the next step.
+     */
+    final Vector3f localPosition = new Vector3f();
+    /**
+     * Penetration depth, negative when the bodies are apart by less than the contact margin.
+     */
+    float depth;
+
+    final Vector3f relativeA = new Vector3f();
+    final Vector3f relativeB = new Vector3f();
+    final Vector3f tangent1 = new Vector3f();
+    final Vector3f tangent2 = new Vector3f();
+    float normalMass;
+    float tangentMass1;
+    float tangentMass2;
+    float bias;
+
+    float normalImpulse;
+    float tangentImpulse1;
+    float tangentImpulse2;
+
+    void set(ContactPoint point) {
+        position.set(point.position);
+        normal.set(point.normal);
+        localPosition.set(point.localPosition);
+        depth = point.depth;
+        normalImpulse = point.normalImpulse;
+        tangentImpulse1 = point.tangentImpulse1;
+        tangentImpulse2 = point.tangentImpulse2;
+    }
+}
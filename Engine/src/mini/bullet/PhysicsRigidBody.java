@@ -0,0 +1,323 @@
+package mini.bullet;
+
+import mini.bullet.collision.shapes.CollisionShape;
+import mini.math.Matrix3f;
+import mini.math.Quaternion;
+import mini.math.Vector3f;
+
+/**
+ * A rigid body simulated by a {@link PhysicsSpace}. A body with a mass is moved by the forces,
+ * the gravity and the contacts. A body without mass is static, it collides with the dynamic
+ * bodies but does not move. A kinematic body is not moved by the space either, it is moved by
+ * setting its location, and pushes the dynamic bodies with its velocity.
+ * <p>
+ * A dynamic body which stays still for a while falls asleep: it is not simulated until it is
+ * touched by an awake body, or until it is {@link #activate() activated}. Setting the location,
+ * the velocities or applying forces activates the body.
+ * <p>
+ * The body must not be modified while its space is stepping.
+ */
+public class PhysicsRigidBody {
+    protected CollisionShape collisionShape;
+    private float mass;
+
+    final Vector3f location = new Vector3f();
+    final Quaternion rotation = new Quaternion();
+    final Vector3f linearVelocity = new Vector3f();
+    final Vector3f angularVelocity = new Vector3f();
+    final Vector3f force = new Vector3f();
+    final Vector3f torque = new Vector3f();
+
+    float invMass;
+    final Vector3f localInvInertia = new Vector3f();
+    /**
+     * Rotation matrix and world inverse inertia, updated by the space at the start of every step.
+     */
+    final Matrix3f rotationMatrix = new Matrix3f();
+    final Matrix3f worldInvInertia = new Matrix3f();
+
+    float friction = 0.5f;
+    float restitution;
+    float linearDamping;
+    float angularDamping;
+    boolean kinematic;
+
+    boolean sleeping;
+    float sleepTime;
+
+    PhysicsSpace space;
+    /**
+     * Index of the body in its space, -1 when not in a space.
+     */
+    int proxy = -1;
+
+    /**
+     * Creates a body without shape, which must be set before the body is added to a space.
+     */
+    protected PhysicsRigidBody(float mass) {
+        if (mass < 0) {
+            throw new IllegalArgumentException("The mass cannot be negative: " + mass);
+        }
+        this.mass = mass;
+    }
+
+    /**
+     * @param shape The shape of the body
+     * @param mass  The mass of the body, 0 for a static body
+     */
+    public PhysicsRigidBody(CollisionShape shape, float mass) {
+        this(mass);
+        setCollisionShape(shape);
+    }
+
+    public CollisionShape getCollisionShape() {
+        return collisionShape;
+    }
+
+    public void setCollisionShape(CollisionShape shape) {
+        if (shape == null) {
+            throw new IllegalArgumentException("The shape cannot be null");
+        }
+        if (mass > 0 && !shape.isDynamic()) {
+            throw new IllegalArgumentException(shape + " cannot have a mass");
+        }
+        this.collisionShape = shape;
+        updateMassProperties();
+    }
+
+    public float getMass() {
+        return mass;
+    }
+
+    /**
+     * @param mass The mass of the body, 0 for a static body
+     */
+    public void setMass(float mass) {
+        if (mass < 0) {
+            throw new IllegalArgumentException("The mass cannot be negative: " + mass);
+        }
+        if (mass > 0 && collisionShape != null && !collisionShape.isDynamic()) {
+            throw new IllegalArgumentException(collisionShape + " cannot have a mass");
+        }
+        this.mass = mass;
+        updateMassProperties();
+        activate();
+    }
+
+    private void updateMassProperties() {
+        if (mass == 0 || kinematic || collisionShape == null) {
+            invMass = 0;
+            localInvInertia.set(0, 0, 0);
+            return;
+        }
+        invMass = 1 / mass;
+        collisionShape.computeLocalInertia(mass, localInvInertia);
+        localInvInertia.set(localInvInertia.x == 0 ? 0 : 1 / localInvInertia.x,
+                            localInvInertia.y == 0 ? 0 : 1 / localInvInertia.y,
+                            localInvInertia.z == 0 ? 0 : 1 / localInvInertia.z);
+    }
+
+    /**
+     * @return whether the body is moved by the space: it has a mass and is not kinematic
+     */
+    public boolean isDynamic() {
+        return invMass > 0;
+    }
+
+    public boolean isKinematic() {
+        return kinematic;
+    }
+
+    /**
+     * @param kinematic Whether the body is moved by setting its location rather than by the space
+     */
+    public void setKinematic(boolean kinematic) {
+        this.kinematic = kinematic;
+        updateMassProperties();
+        activate();
+    }
+
+    public Vector3f getPhysicsLocation(Vector3f store) {
+        if (store == null) {
+            store = new Vector3f();
+        }
+        return store.set(location);
+    }
+
+    public void setPhysicsLocation(Vector3f location) {
+        this.location.set(location);
+        activate();
+    }
+
+    public Quaternion getPhysicsRotation(Quaternion store) {
+        if (store == null) {
+            store = new Quaternion();
+        }
+        return store.set(rotation);
+    }
+
+    public void setPhysicsRotation(Quaternion rotation) {
+        this.rotation.set(rotation).normalizeLocal();
+        activate();
+    }
+
+    public Vector3f getLinearVelocity(Vector3f store) {
+        if (store == null) {
+            store = new Vector3f();
+        }
+        return store.set(linearVelocity);
+    }
+
+    public void setLinearVelocity(Vector3f velocity) {
+        linearVelocity.set(velocity);
+        activate();
+    }
+
+    public Vector3f getAngularVelocity(Vector3f store) {
+        if (store == null) {
+            store = new Vector3f();
+        }
+        return store.set(angularVelocity);
+    }
+
+    public void setAngularVelocity(Vector3f velocity) {
+        angularVelocity.set(velocity);
+        activate();
+    }
+
+    /**
+     * Applies a force at the center of mass during the next step.
+     */
+    public void applyCentralForce(Vector3f force) {
+        this.force.addLocal(force);
+        activate();
+    }
+
+    /**
+     * Applies a force at a point during the next step.
+     *
+     * @param force    The force
+     * @param position The point, relative to the location of the body
+     */
+    public void applyForce(Vector3f force, Vector3f position) {
+        this.force.addLocal(force);
+        torque.addLocal(position.y * force.z - position.z * force.y,
+                        position.z * force.x - position.x * force.z,
+                        position.x * force.y - position.y * force.x);
+        activate();
+    }
+
+    /**
+     * Applies a torque during the next step.
+     */
+    public void applyTorque(Vector3f torque) {
+        this.torque.addLocal(torque);
+        activate();
+    }
+
+    /**
+     * Applies an impulse at a point, changing the velocities immediately.
+     *
+     * @param impulse  The impulse
+     * @param position The point, relative to the location of the body
+     */
+    public void applyImpulse(Vector3f impulse, Vector3f position) {
+        if (invMass == 0) {
+            return;
+        }
+        linearVelocity.addLocal(impulse.x * invMass, impulse.y * invMass, impulse.z * invMass);
+        Vector3f angular = new Vector3f(position.y * impulse.z - position.z * impulse.y,
+                                        position.z * impulse.x - position.x * impulse.z,
+                                        position.x * impulse.y - position.y * impulse.x);
+        updateInertia();
+        angularVelocity.addLocal(worldInvInertia.multLocal(angular));
+        activate();
+    }
+
+    public void clearForces() {
+        force.set(0, 0, 0);
+        torque.set(0, 0, 0);
+    }
+
+    public float getFriction() {
+        return friction;
+    }
+
+    /**
+     * @param friction The friction coefficient, the coefficient of a contact is the product of
+     *                 those of the two bodies
+     */
+    public void setFriction(float friction) {
+        this.friction = friction;
+    }
+
+    public float getRestitution() {
+        return restitution;
+    }
+
+    /**
+     * @param restitution The restitution, from 0 for inelastic contacts to 1 for elastic ones.
+     *                    The restitution of a contact is the largest of those of the two bodies.
+     */
+    public void setRestitution(float restitution) {
+        this.restitution = restitution;
+    }
+
+    public float getLinearDamping() {
+        return linearDamping;
+    }
+
+    public float getAngularDamping() {
+        return angularDamping;
+    }
+
+    /**
+     * @param linearDamping  The fraction of the linear velocity lost per second
+     * @param angularDamping The fraction of the angular velocity lost per second
+     */
+    public void setDamping(float linearDamping, float angularDamping) {
+        this.linearDamping = linearDamping;
+        this.angularDamping = angularDamping;
+    }
+
+    /**
+     * @return whether the body is simulated, false if it fell asleep or has no mass
+     */
+    public boolean isActive() {
+        return invMass > 0 && !sleeping;
+    }
+
+    /**
+     * Wakes the body up.
+     */
+    public void activate() {
+        sleeping = false;
+        sleepTime = 0;
+    }
+
+    public PhysicsSpace getPhysicsSpace() {
+        return space;
+    }
+
+    /**
+     * Updates the rotation matrix and the world inverse inertia from the rotation.
+     */
+    void updateInertia() {
+        rotation.toRotationMatrix(rotationMatrix);
+        Matrix3f r = rotationMatrix;
+        float ix = localInvInertia.x, iy = localInvInertia.y, iz = localInvInertia.z;
+        for (int i = 0; i < 3; i++) {
+            for (int j = i; j < 3; j++) {
+                float value = r.get(i, 0) * ix * r.get(j, 0) + r.get(i, 1) * iy * r.get(j, 1)
+                              + r.get(i, 2) * iz * r.get(j, 2);
+                worldInvInertia.set(i, j, value);
+                worldInvInertia.set(j, i, value);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + collisionShape + ", " + mass + "]";
+    }
+}
@@ -0,0 +1,718 @@
+package mini.bullet;
+
+import mini.collision.SweepAndPrune;
+import mini.math.Matrix3f;
+import mini.math.Quaternion;
+import mini.math.Vector3f;
+import mini.system.jobs.JobSystem;
+import mini.system.jobs.JobSystem.RangeTask;
+import mini.utils.TempVars;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Simulates rigid bodies with fixed time steps. Every step:
+ * <ol>
+ * <li>the boxes of the bodies, grown by their motion during the step, are sorted along an axis
+ * and swept to find the pairs of overlapping boxes, see {@link SweepAndPrune},</li>
+ * <li>the contacts of the pairs are generated, see {@link ContactGenerator},</li>
+ * <li>the bodies are grouped in islands of bodies touching each other, static bodies excepted,
+ * and the islands with an awake body are solved: the velocities are integrated, the contacts
+ * are solved by sequential impulses, starting from the impulses of the previous step, and the
+ * positions are integrated,</li>
+ * <li>the islands whose bodies all stayed still for a while fall asleep.</li>
+ * </ol>
+ * The contacts and the islands are processed in parallel by the {@link JobSystem} of the space,
+ * if any. An island is solved by a single thread, the results do not depend on the number of
+ * threads.
+ * <p>
+ * The space must be used by a single thread, bodies cannot be added, removed or modified while
+ * it is stepping.
+ */
+public class PhysicsSpace {
+    private static final Logger logger = Logger.getLogger(PhysicsSpace.class.getName());
+
+    /**
+     * Distance up to which contacts are generated between bodies apart.
+     */
+    static final float CONTACT_MARGIN = 0.02f;
+    /**
+     * Penetration left to the contacts, so that resting contacts persist.
+     */
+    private static final float SLOP = 0.005f;
+    /**
+     * Fraction of the penetration corrected per step.
+     */
+    private static final float BAUMGARTE = 0.2f;
+    /**
+     * Approach speed above which the contacts bounce.
+     */
+    private static final float RESTITUTION_THRESHOLD = 1;
+    private static final float SLEEP_LINEAR_VELOCITY = 0.1f;
+    private static final float SLEEP_ANGULAR_VELOCITY = 0.15f;
+    private static final float TIME_TO_SLEEP = 0.5f;
+    private static final int NARROWPHASE_GRAIN = 16;
+
+    private final List<PhysicsRigidBody> bodies = new ArrayList<>();
+    private final Vector3f gravity = new Vector3f(0, -9.81f, 0);
+    private JobSystem jobSystem;
+    private float accuracy = 1 / 60f;
+    private int maxSubSteps = 4;
+    private int solverIterations = 10;
+    private float accumulator;
+
+    private float[] bounds = new float[0];
+    private final float[] boundsStore = new float[6];
+    private final SweepAndPrune sweepAndPrune = new SweepAndPrune();
+    private boolean proxiesDirty = true;
+    private long[] pairs = new long[64];
+    private int pairCount;
+
+    private ContactManifold[] manifolds = new ContactManifold[16];
+    private ContactManifold[] nextManifolds = new ContactManifold[16];
+    private int manifoldCount;
+    private final List<ContactManifold> manifoldPool = new ArrayList<>();
+
+    private int[] parent = new int[0];
+    private int[] bodyIsland = new int[0];
+    private int[] islandBodyStart = new int[1];
+    private int[] islandBodies = new int[0];
+    private int[] islandManifoldStart = new int[1];
+    private ContactManifold[] islandManifolds = new ContactManifold[0];
+    private int[] awakeIslands = new int[0];
+    private int awakeIslandCount;
+
+    private float stepTime;
+    private final RangeTask narrowphase = this::collide;
+    private final RangeTask solver = this::solveIslands;
+
+    public PhysicsSpace() {
+        this(null);
+    }
+
+    /**
+     * @param jobSystem The job system processing the contacts and the islands in parallel, or
+     *                  null to step on the calling thread
+     */
+    public PhysicsSpace(JobSystem jobSystem) {
+        this.jobSystem = jobSystem;
+    }
+
+    public JobSystem getJobSystem() {
+        return jobSystem;
+    }
+
+    public void setJobSystem(JobSystem jobSystem) {
+        this.jobSystem = jobSystem;
+    }
+
+    /**
+     * Adds a body to the space.
+     *
+     * @throws IllegalStateException if the body has no shape
+     */
+    public void add(PhysicsRigidBody body) {
+        if (body.getCollisionShape() == null) {
+            throw new IllegalStateException(body + " has no shape");
+        }
+        if (body.space == this) {
+            logger.warning(body + " is already in the space");
+            return;
+        }
+        if (body.space != null) {
+            throw new IllegalArgumentException(body + " is in another space");
+        }
+        body.space = this;
+        body.proxy = bodies.size();
+        body.updateInertia();
+        bodies.add(body);
+        proxiesDirty = true;
+    }
+
+    /**
+     * Removes a body from the space, the bodies touching it are woken up.
+     */
+    public void remove(PhysicsRigidBody body) {
+        if (body.space != this) {
+            return;
+        }
+        for (int i = 0; i < manifoldCount; i++) {
+            ContactManifold manifold = manifolds[i];
+            if (manifold.bodyA == body) {
+                manifold.bodyB.activate();
+            } else if (manifold.bodyB == body) {
+                manifold.bodyA.activate();
+            }
+        }
+        int last = bodies.size() - 1;
+        PhysicsRigidBody moved = bodies.remove(last);
+        if (moved != body) {
+            bodies.set(body.proxy, moved);
+            moved.proxy = body.proxy;
+        }
+        body.space = null;
+        body.proxy = -1;
+        proxiesDirty = true;
+    }
+
+    public List<PhysicsRigidBody> getRigidBodyList() {
+        return Collections.unmodifiableList(bodies);
+    }
+
+    public Vector3f getGravity(Vector3f store) {
+        if (store == null) {
+            store = new Vector3f();
+        }
+        return store.set(gravity);
+    }
+
+    public void setGravity(Vector3f gravity) {
+        this.gravity.set(gravity);
+        for (PhysicsRigidBody body : bodies) {
+            body.activate();
+        }
+    }
+
+    public float getAccuracy() {
+        return accuracy;
+    }
+
+    /**
+     * @param accuracy The duration of a step, in seconds
+     */
+    public void setAccuracy(float accuracy) {
+        if (accuracy <= 0) {
+            throw new IllegalArgumentException("Invalid accuracy: " + accuracy);
+        }
+        this.accuracy = accuracy;
+    }
+
+    public int getMaxSubSteps() {
+        return maxSubSteps;
+    }
+
+    /**
+     * @param maxSubSteps The largest number of steps per update, the remaining time is dropped
+     *                    so that a slow frame does not slow the next ones down
+     */
+    public void setMaxSubSteps(int maxSubSteps) {
+        if (maxSubSteps < 1) {
+            throw new IllegalArgumentException("Invalid number of steps: " + maxSubSteps);
+        }
+        this.maxSubSteps = maxSubSteps;
+    }
+
+    public int getSolverNumIterations() {
+        return solverIterations;
+    }
+
+    public void setSolverNumIterations(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Invalid number of iterations: " + iterations);
+        }
+        this.solverIterations = iterations;
+    }
+
+    /**
+     * Advances the simulation by the steps fitting in the elapsed time, the remainder is kept for
+     * the next update.
+     *
+     * @param tpf The time elapsed since the last update, in seconds
+     * @return the number of steps done
+     */
+    public int update(float tpf) {
+        accumulator += tpf;
+        int steps = 0;
+        while (accumulator >= accuracy && steps < maxSubSteps) {
+            step(accuracy);
+            accumulator -= accuracy;
+            steps++;
+        }
+        if (accumulator >= accuracy) {
+            accumulator = 0;
+        }
+        return steps;
+    }
+
+    /**
+     * Advances the simulation by a single step.
+     *
+     * @param time The duration of the step, in seconds
+     */
+    public void step(float time) {
+        stepTime = time;
+        for (PhysicsRigidBody body : bodies) {
+            body.updateInertia();
+        }
+        findPairs(time);
+        updateManifolds();
+        if (jobSystem != null) {
+            jobSystem.parallelFor(0, manifoldCount, NARROWPHASE_GRAIN, narrowphase);
+        } else {
+            collide(0, manifoldCount);
+        }
+        buildIslands();
+        if (jobSystem != null) {
+            jobSystem.parallelFor(0, awakeIslandCount, 1, solver);
+        } else {
+            solveIslands(0, awakeIslandCount);
+        }
+        for (PhysicsRigidBody body : bodies) {
+            body.clearForces();
+            if (body.kinematic) {
+                // Until moved again, a kinematic body does not wake the bodies it touches
+                body.sleeping = true;
+            }
+        }
+    }
+
+    /**
+     * @return whether a body can set its contacts in motion: an awake dynamic body or a kinematic
+     * body moved since the last step
+     */
+    private static boolean isMoving(PhysicsRigidBody body) {
+        return !body.sleeping && (body.invMass > 0 || body.kinematic);
+    }
+
+    /**
+     * Sweeps the boxes of the bodies to find the overlapping pairs with a dynamic body. The
+     * proxies of the bodies are their indices, added again when bodies are added or removed.
+     */
+    private void findPairs(float time) {
+        int count = bodies.size();
+        if (bounds.length < count * 6) {
+            bounds = new float[count * 12];
+        }
+        if (proxiesDirty) {
+            sweepAndPrune.clear();
+            for (int i = 0; i < count; i++) {
+                sweepAndPrune.add(i);
+            }
+            proxiesDirty = false;
+        }
+
+        for (int i = 0; i < count; i++) {
+            PhysicsRigidBody body = bodies.get(i);
+            body.collisionShape.getBounds(body.location, body.rotationMatrix, boundsStore);
+            Vector3f velocity = body.linearVelocity;
+            for (int k = 0; k < 3; k++) {
+                float motion = isMoving(body) ? velocity.get(k) * time : 0;
+                bounds[i * 6 + k] = boundsStore[k] - CONTACT_MARGIN + Math.min(motion, 0);
+                bounds[i * 6 + 3 + k] = boundsStore[3 + k] + CONTACT_MARGIN + Math.max(motion, 0);
+            }
+        }
+        sweepAndPrune.update(bounds);
+
+        // Still sorted
+        pairCount = 0;
+        for (int i = 0; i < sweepAndPrune.getPairCount(); i++) {
+            long pair = sweepAndPrune.getPair(i);
+            PhysicsRigidBody a = bodies.get((int) (pair >>> 32)), b = bodies.get((int) pair);
+            if (a.invMass == 0 && b.invMass == 0) {
+                continue;
+            }
+            if (pairCount == pairs.length) {
+                pairs = Arrays.copyOf(pairs, pairCount * 2);
+            }
+            pairs[pairCount++] = pair;
+        }
+    }
+
+    /**
+     * Keeps the manifolds of the pairs still overlapping, with their contacts, and pools the
+     * others. Both lists are sorted by key.
+     */
+    private void updateManifolds() {
+        if (nextManifolds.length < pairCount) {
+            nextManifolds = new ContactManifold[pairCount * 2];
+        }
+        int previous = 0;
+        for (int i = 0; i < pairCount; i++) {
+            long key = pairs[i];
+            while (previous < manifoldCount && manifolds[previous].key < key) {
+                release(manifolds[previous++]);
+            }
+            PhysicsRigidBody a = bodies.get((int) (key >>> 32));
+            PhysicsRigidBody b = bodies.get((int) key);
+            ContactManifold manifold = null;
+            if (previous < manifoldCount && manifolds[previous].key == key) {
+                manifold = manifolds[previous++];
+                if (manifold.bodyA != a || manifold.bodyB != b) {
+                    // The proxies were reused by other bodies
+                    manifold.reset(a, b, key);
+                }
+            }
+            if (manifold == null) {
+                manifold = manifoldPool.isEmpty() ? new ContactManifold()
+                                                  : manifoldPool.remove(manifoldPool.size() - 1);
+                manifold.reset(a, b, key);
+            }
+            nextManifolds[i] = manifold;
+        }
+        while (previous < manifoldCount) {
+            release(manifolds[previous++]);
+        }
+
+        ContactManifold[] swap = manifolds;
+        manifolds = nextManifolds;
+        nextManifolds = swap;
+        Arrays.fill(nextManifolds, null);
+        manifoldCount = pairCount;
+    }
+
+    private void release(ContactManifold manifold) {
+        manifold.reset(null, null, 0);
+        manifoldPool.add(manifold);
+    }
+
+    /**
+     * Generates the contacts of a range of manifolds. The manifolds between sleeping bodies keep
+     * their contacts.
+     */
+    private void collide(int from, int to) {
+        ContactGenerator generator = ContactGenerator.get();
+        for (int i = from; i < to; i++) {
+            ContactManifold manifold = manifolds[i];
+            PhysicsRigidBody a = manifold.bodyA, b = manifold.bodyB;
+            if (isMoving(a) || isMoving(b)) {
+                float margin = CONTACT_MARGIN
+                               + stepTime * (speed(a) + speed(b));
+                generator.collide(manifold, margin);
+            }
+        }
+    }
+
+    private static float speed(PhysicsRigidBody body) {
+        return isMoving(body) ? body.linearVelocity.length() : 0;
+    }
+
+    /**
+     * Groups the dynamic bodies touching each other in islands, by union find, and lists the
+     * bodies and the manifolds of every island. The islands with an awake body are woken up.
+     */
+    private void buildIslands() {
+        int count = bodies.size();
+        if (parent.length < count) {
+            parent = new int[count * 2];
+            bodyIsland = new int[count * 2];
+            islandBodies = new int[count * 2];
+        }
+        for (int i = 0; i < count; i++) {
+            parent[i] = i;
+        }
+        for (int i = 0; i < manifoldCount; i++) {
+            ContactManifold manifold = manifolds[i];
+            if (manifold.count > 0 && manifold.bodyA.invMass > 0 && manifold.bodyB.invMass > 0) {
+                int rootA = find(manifold.bodyA.proxy), rootB = find(manifold.bodyB.proxy);
+                if (rootA != rootB) {
+                    parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+                }
+            }
+        }
+
+        // Islands numbered in the order of their first body, counted then listed
+        int islands = 0;
+        for (int i = 0; i < count; i++) {
+            if (bodies.get(i).invMass == 0) {
+                bodyIsland[i] = -1;
+            } else {
+                int root = find(i);
+                bodyIsland[i] = root == i ? islands++ : bodyIsland[root];
+            }
+        }
+        if (islandBodyStart.length < islands + 2) {
+            islandBodyStart = new int[islands * 2 + 2];
+            islandManifoldStart = new int[islands * 2 + 2];
+            awakeIslands = new int[islands * 2 + 2];
+        }
+        Arrays.fill(islandBodyStart, 0, islands + 2, 0);
+        Arrays.fill(islandManifoldStart, 0, islands + 2, 0);
+        for (int i = 0; i < count; i++) {
+            if (bodyIsland[i] != -1) {
+                islandBodyStart[bodyIsland[i] + 2]++;
+            }
+        }
+        for (int i = 0; i < manifoldCount; i++) {
+            ContactManifold manifold = manifolds[i];
+            manifold.island = -1;
+            if (manifold.count > 0) {
+                PhysicsRigidBody dynamic = manifold.bodyA.invMass > 0 ? manifold.bodyA
+                                                                     : manifold.bodyB;
+                manifold.island = bodyIsland[dynamic.proxy];
+                islandManifoldStart[manifold.island + 2]++;
+            }
+        }
+        for (int i = 2; i < islands + 2; i++) {
+            islandBodyStart[i] += islandBodyStart[i - 1];
+            islandManifoldStart[i] += islandManifoldStart[i - 1];
+        }
+        if (islandManifolds.length < manifoldCount) {
+            islandManifolds = new ContactManifold[manifoldCount * 2];
+        }
+        for (int i = 0; i < count; i++) {
+            if (bodyIsland[i] != -1) {
+                islandBodies[islandBodyStart[bodyIsland[i] + 1]++] = i;
+            }
+        }
+        for (int i = 0; i < manifoldCount; i++) {
+            ContactManifold manifold = manifolds[i];
+            if (manifold.island != -1) {
+                islandManifolds[islandManifoldStart[manifold.island + 1]++] = manifold;
+            }
+        }
+
+        awakeIslandCount = 0;
+        for (int island = 0; island < islands; island++) {
+            boolean awake = false;
+            for (int i = islandBodyStart[island]; i < islandBodyStart[island + 1] && !awake; i++) {
+                awake = !bodies.get(islandBodies[i]).sleeping;
+            }
+            for (int i = islandManifoldStart[island];
+                 i < islandManifoldStart[island + 1] && !awake; i++) {
+                awake = isMoving(islandManifolds[i].bodyA) || isMoving(islandManifolds[i].bodyB);
+            }
+            if (awake) {
+                awakeIslands[awakeIslandCount++] = island;
+                for (int i = islandBodyStart[island]; i < islandBodyStart[island + 1]; i++) {
+                    PhysicsRigidBody body = bodies.get(islandBodies[i]);
+                    if (body.sleeping) {
+                        body.activate();
+                    }
+                }
+            }
+        }
+    }
+
+    private int find(int proxy) {
+        while (parent[proxy] != proxy) {
+            parent[proxy] = parent[parent[proxy]];
+            proxy = parent[proxy];
+        }
+        return proxy;
+    }
+
+    private void solveIslands(int from, int to) {
+        TempVars vars = TempVars.get();
+        try {
+            for (int i = from; i < to; i++) {
+                solveIsland(awakeIslands[i], vars);
+            }
+        } finally {
+            vars.release();
+        }
+    }
+
+    private void solveIsland(int island, TempVars vars) {
+        float time = stepTime;
+        int bodyStart = islandBodyStart[island], bodyEnd = islandBodyStart[island + 1];
+        int manifoldStart = islandManifoldStart[island];
+        int manifoldEnd = islandManifoldStart[island + 1];
+
+        Vector3f temp = vars.vect1;
+        for (int i = bodyStart; i < bodyEnd; i++) {
+            PhysicsRigidBody body = bodies.get(islandBodies[i]);
+            Vector3f velocity = body.linearVelocity;
+            velocity.addLocal((gravity.x + body.force.x * body.invMass) * time,
+                              (gravity.y + body.force.y * body.invMass) * time,
+                              (gravity.z + body.force.z * body.invMass) * time);
+            body.worldInvInertia.mult(body.torque, temp).multLocal(time);
+            body.angularVelocity.addLocal(temp);
+            velocity.multLocal(Math.max(0, 1 - body.linearDamping * time));
+            body.angularVelocity.multLocal(Math.max(0, 1 - body.angularDamping * time));
+        }
+
+        for (int i = manifoldStart; i < manifoldEnd; i++) {
+            prepare(islandManifolds[i], time, vars);
+        }
+        for (int iteration = 0; iteration < solverIterations; iteration++) {
+            for (int i = manifoldStart; i < manifoldEnd; i++) {
+                solve(islandManifolds[i], vars);
+            }
+        }
+
+        float sleepTime = Float.POSITIVE_INFINITY;
+        Quaternion spin = vars.quat1;
+        for (int i = bodyStart; i < bodyEnd; i++) {
+            PhysicsRigidBody body = bodies.get(islandBodies[i]);
+            Vector3f velocity = body.linearVelocity, angular = body.angularVelocity;
+            body.location.addLocal(velocity.x * time, velocity.y * time, velocity.z * time);
+            float half = time / 2;
+            spin.set(angular.x * half, angular.y * half, angular.z * half, 0);
+            spin.multLocal(body.rotation);
+            Quaternion rotation = body.rotation;
+            rotation.set(rotation.getX() + spin.getX(), rotation.getY() + spin.getY(),
+                         rotation.getZ() + spin.getZ(), rotation.getW() + spin.getW());
+            rotation.normalizeLocal();
+
+            if (velocity.lengthSquared() < SLEEP_LINEAR_VELOCITY * SLEEP_LINEAR_VELOCITY
+                && angular.lengthSquared() < SLEEP_ANGULAR_VELOCITY * SLEEP_ANGULAR_VELOCITY) {
+                body.sleepTime += time;
+            } else {
+                body.sleepTime = 0;
+            }
+            sleepTime = Math.min(sleepTime, body.sleepTime);
+        }
+
+        if (sleepTime >= TIME_TO_SLEEP) {
+            for (int i = bodyStart; i < bodyEnd; i++) {
+                PhysicsRigidBody body = bodies.get(islandBodies[i]);
+                body.sleeping = true;
+                body.linearVelocity.set(0, 0, 0);
+                body.angularVelocity.set(0, 0, 0);
+            }
+        }
+    }
+
+    /**
+     * Computes the masses and the targets of the contacts of a manifold, and applies the
+     * impulses of the previous step.
+     */
+    private void prepare(ContactManifold manifold, float time, TempVars vars) {
+        PhysicsRigidBody a = manifold.bodyA, b = manifold.bodyB;
+        float friction = a.friction * b.friction;
+        float restitution = Math.max(a.restitution, b.restitution);
+        Vector3f impulse = vars.vect2;
+        for (int i = 0; i < manifold.count; i++) {
+            ContactPoint point = manifold.points[i];
+            Vector3f normal = point.normal;
+            point.relativeA.set(point.position).subtractLocal(a.location);
+            point.relativeB.set(point.position).subtractLocal(b.location);
+            tangents(normal, point.tangent1, point.tangent2);
+            point.normalMass = 1 / effectiveMass(a, b, point, normal, vars);
+            point.tangentMass1 = 1 / effectiveMass(a, b, point, point.tangent1, vars);
+            point.tangentMass2 = 1 / effectiveMass(a, b, point, point.tangent2, vars);
+
+            if (point.depth >= 0) {
+                point.bias = BAUMGARTE / time * Math.max(0, point.depth - SLOP);
+            } else {
+                // Speculative contact, the bodies may close the gap but not more
+                point.bias = point.depth / time;
+            }
+            float approach = relativeVelocity(a, b, point, normal, vars);
+            if (restitution > 0 && approach < -RESTITUTION_THRESHOLD) {
+                point.bias = Math.max(point.bias, -restitution * approach);
+            }
+
+            if (friction == 0) {
+                point.tangentImpulse1 = 0;
+                point.tangentImpulse2 = 0;
+            }
+            impulse.set(normal).multLocal(point.normalImpulse);
+            impulse.addLocal(point.tangent1.x * point.tangentImpulse1,
+                             point.tangent1.y * point.tangentImpulse1,
+                             point.tangent1.z * point.tangentImpulse1);
+            impulse.addLocal(point.tangent2.x * point.tangentImpulse2,
+                             point.tangent2.y * point.tangentImpulse2,
+                             point.tangent2.z * point.tangentImpulse2);
+            apply(a, b, point, impulse, vars);
+        }
+    }
+
+    /**
+     * Runs an iteration over the contacts of a manifold: the friction impulses, bounded by the
+     * normal impulse, then the normal impulses, which only push the bodies apart.
+     */
+    private void solve(ContactManifold manifold, TempVars vars) {
+        PhysicsRigidBody a = manifold.bodyA, b = manifold.bodyB;
+        float friction = a.friction * b.friction;
+        Vector3f impulse = vars.vect2;
+        for (int i = 0; i < manifold.count; i++) {
+            ContactPoint point = manifold.points[i];
+            if (friction > 0) {
+                float limit = friction * point.normalImpulse;
+
+                float speed = relativeVelocity(a, b, point, point.tangent1, vars);
+                float total = Math.max(-limit, Math.min(limit, point.tangentImpulse1
+                                                               - speed * point.tangentMass1));
+                impulse.set(point.tangent1).multLocal(total - point.tangentImpulse1);
+                point.tangentImpulse1 = total;
+                apply(a, b, point, impulse, vars);
+
+                speed = relativeVelocity(a, b, point, point.tangent2, vars);
+                total = Math.max(-limit, Math.min(limit, point.tangentImpulse2
+                                                         - speed * point.tangentMass2));
+                impulse.set(point.tangent2).multLocal(total - point.tangentImpulse2);
+                point.tangentImpulse2 = total;
+                apply(a, b, point, impulse, vars);
+            }
+
+            float speed = relativeVelocity(a, b, point, point.normal, vars);
+            float total = Math.max(0, point.normalImpulse
+                                      + (point.bias - speed) * point.normalMass);
+            impulse.set(point.normal).multLocal(total - point.normalImpulse);
+            point.normalImpulse = total;
+            apply(a, b, point, impulse, vars);
+        }
+    }
+
+    /**
+     * Stores two tangents orthogonal to each other and to a normal, depending only on the normal
+     * so that the friction impulses can be carried over to the next step.
+     */
+    private static void tangents(Vector3f normal, Vector3f tangent1, Vector3f tangent2) {
+        if (Math.abs(normal.x) >= 0.57735f) {
+            tangent1.set(normal.y, -normal.x, 0);
+        } else {
+            tangent1.set(0, normal.z, -normal.y);
+        }
+        tangent1.normalizeLocal();
+        normal.cross(tangent1, tangent2);
+    }
+
+    /**
+     * @return the inverse of the mass of the bodies along a direction at a contact
+     */
+    private static float effectiveMass(PhysicsRigidBody a, PhysicsRigidBody b, ContactPoint point,
+                                       Vector3f direction, TempVars vars) {
+        return a.invMass + b.invMass
+               + angularMass(a.worldInvInertia, point.relativeA, direction, vars)
+               + angularMass(b.worldInvInertia, point.relativeB, direction, vars);
+    }
+
+    private static float angularMass(Matrix3f invInertia, Vector3f relative, Vector3f direction,
+                                     TempVars vars) {
+        Vector3f cross = relative.cross(direction, vars.vect3);
+        Vector3f rotated = invInertia.mult(cross, vars.vect4);
+        return rotated.dot(cross);
+    }
+
+    /**
+     * @return the velocity of the second body relative to the first one at a contact, along a
+     * direction
+     */
+    private static float relativeVelocity(PhysicsRigidBody a, PhysicsRigidBody b,
+                                          ContactPoint point, Vector3f direction,
+                                          TempVars vars) {
+        Vector3f velocityA = a.angularVelocity.cross(point.relativeA, vars.vect3)
+                              .addLocal(a.linearVelocity);
+        Vector3f velocityB = b.angularVelocity.cross(point.relativeB, vars.vect4)
+                              .addLocal(b.linearVelocity);
+        return velocityB.subtractLocal(velocityA).dot(direction);
+    }
+
+    /**
+     * Applies an impulse at a contact, pushing the second body along it and the first one in
+     * the opposite direction. Bodies without mass are left untouched, they may be shared by
+     * islands solved concurrently.
+     */
+    private static void apply(PhysicsRigidBody a, PhysicsRigidBody b, ContactPoint point,
+                              Vector3f impulse, TempVars vars) {
+        Vector3f angular = vars.vect3;
+        if (a.invMass > 0) {
+            a.linearVelocity.subtractLocal(impulse.x * a.invMass, impulse.y * a.invMass,
+                                           impulse.z * a.invMass);
+            point.relativeA.cross(impulse, angular);
+            a.angularVelocity.subtractLocal(a.worldInvInertia.mult(angular, vars.vect4));
+        }
+        if (b.invMass > 0) {
+            b.linearVelocity.addLocal(impulse.x * b.invMass, impulse.y * b.invMass,
+                                      impulse.z * b.invMass);
+            point.relativeB.cross(impulse, angular);
+            b.angularVelocity.addLocal(b.worldInvInertia.mult(angular, vars.vect4));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package mini.bullet.collision.shapes;
+
+import mini.math.Matrix3f;
+import mini.math.Vector3f;
+
+/**
+ * A box, given by its half extents along the axes of the body.
+ */
+public class BoxCollisionShape extends CollisionShape {
+    private final Vector3f halfExtents;
+
+    /**
+     * @param halfExtents The half extents of the box
+     */
+    public BoxCollisionShape(Vector3f halfExtents) {
+        if (halfExtents.x <= 0 || halfExtents.y <= 0 || halfExtents.z <= 0) {
+            throw new IllegalArgumentException("Invalid half extents: " + halfExtents);
+        }
+        this.halfExtents = halfExtents.clone();
+    }
+
+    public Vector3f getHalfExtents(Vector3f store) {
+        if (store == null) {
+            store = new Vector3f();
+        }
+        return store.set(halfExtents);
+    }
+
+    @Override
+    public void getBounds(Vector3f location, Matrix3f rotation, float[] store) {
+        getBounds(location, rotation, halfExtents.x, halfExtents.y, halfExtents.z, store);
+    }
+
+    @Override
+    public Vector3f computeLocalInertia(float mass, Vector3f store) {
+        if (store == null) {
+            store = new Vector3f();
+        }
+        float x2 = halfExtents.x * halfExtents.x;
+        float y2 = halfExtents.y * halfExtents.y;
+        float z2 = halfExtents.z * halfExtents.z;
+        return store.set(mass / 3 * (y2 + z2), mass / 3 * (x2 + z2), mass / 3 * (x2 + y2));
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + halfExtents + "]";
+    }
+}
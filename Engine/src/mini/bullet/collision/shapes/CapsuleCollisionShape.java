@@ -0,0 +1,74 @@
+package mini.bullet.collision.shapes;
+
+import mini.math.Matrix3f;
+import mini.math.Vector3f;
+
+/**
+ * A capsule along the y axis of the body: the points within a radius of a segment.
+ */
+public class CapsuleCollisionShape extends CollisionShape {
+    private final float radius;
+    private final float height;
+
+    /**
+     * @param radius The radius of the capsule
+     * @param height The length of the segment, the distance between the centers of the two
+     *               hemispheres
+     */
+    public CapsuleCollisionShape(float radius, float height) {
+        if (radius <= 0 || height < 0) {
+            throw new IllegalArgumentException("Invalid capsule: " + radius + ", " + height);
+        }
+        this.radius = radius;
+        this.height = height;
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+
+    public float getHeight() {
+        return height;
+    }
+
+    /**
+     * Computes the two ends of the segment of the capsule.
+     */
+    public void getSegment(Vector3f location, Matrix3f rotation, Vector3f start, Vector3f end) {
+        float half = height / 2;
+        float ax = rotation.get(0, 1) * half;
+        float ay = rotation.get(1, 1) * half;
+        float az = rotation.get(2, 1) * half;
+        start.set(location.x - ax, location.y - ay, location.z - az);
+        end.set(location.x + ax, location.y + ay, location.z + az);
+    }
+
+    @Override
+    public void getBounds(Vector3f location, Matrix3f rotation, float[] store) {
+        float half = height / 2;
+        for (int i = 0; i < 3; i++) {
+            float extent = Math.abs(rotation.get(i, 1)) * half + radius;
+            float center = location.get(i);
+            store[i] = center - extent;
+            store[3 + i] = center + extent;
+        }
+    }
+
+    /**
+     * Approximates the capsule by the box bounding it.
+     */
+    @Override
+    public Vector3f computeLocalInertia(float mass, Vector3f store) {
+        if (store == null) {
+            store = new Vector3f();
+        }
+        float x2 = 4 * radius * radius;
+        float y2 = (2 * radius + height) * (2 * radius + height);
+        return store.set(mass / 12 * (y2 + x2), mass / 12 * (x2 + x2), mass / 12 * (x2 + y2));
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + radius + ", " + height + "]";
+    }
+}
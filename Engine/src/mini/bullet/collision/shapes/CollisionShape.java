@@ -0,0 +1,49 @@
+package mini.bullet.collision.shapes;
+
+import mini.math.Matrix3f;
+import mini.math.Vector3f;
+
+/**
+ * The shape of a {@link mini.bullet.PhysicsRigidBody}, centered on the location of the body and
+ * rotated with it. Shapes are immutable, a shape can be shared by several bodies.
+ */
+public abstract class CollisionShape {
+    /**
+     * Computes the axis aligned box bounding the shape at a location and a rotation.
+     *
+     * @param location The location of the shape
+     * @param rotation The rotation of the shape
+     * @param store    The box, min x, y, z then max x, y, z
+     */
+    public abstract void getBounds(Vector3f location, Matrix3f rotation, float[] store);
+
+    /**
+     * Computes the diagonal of the inertia tensor of the shape, in the frame of the shape.
+     *
+     * @param mass  The mass of the body
+     * @param store The vector to store the result in, or null for a new vector
+     * @return the principal moments of inertia
+     */
+    public abstract Vector3f computeLocalInertia(float mass, Vector3f store);
+
+    /**
+     * @return whether the shape can be the shape of a body with a mass
+     */
+    public boolean isDynamic() {
+        return true;
+    }
+
+    /**
+     * Stores the box of the given half extents, along the axes of the rotation.
+     */
+    protected static void getBounds(Vector3f location, Matrix3f rotation, float ex, float ey,
+                                    float ez, float[] store) {
+        for (int i = 0; i < 3; i++) {
+            float extent = Math.abs(rotation.get(i, 0)) * ex + Math.abs(rotation.get(i, 1)) * ey
+                           + Math.abs(rotation.get(i, 2)) * ez;
+            float center = location.get(i);
+            store[i] = center - extent;
+            store[3 + i] = center + extent;
+        }
+    }
+}
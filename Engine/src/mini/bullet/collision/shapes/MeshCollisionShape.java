@@ -0,0 +1,119 @@
+package mini.bullet.collision.shapes;
+
+import mini.math.Matrix3f;
+import mini.math.Vector3f;
+import mini.scene.CollisionData;
+import mini.scene.Mesh;
+
+/**
+ * The triangles of a mesh, for static bodies only. The triangles touching a body are found with
+ * the {@link mini.collision.bih.BIHTree collision tree} of the mesh, built when the shape is
+ * created if the mesh has none. The positions are copied and scaled when the shape is created,
+ * later changes to the mesh are not seen by the shape.
+ */
+public class MeshCollisionShape extends CollisionShape {
+    private final Mesh mesh;
+    private final Vector3f scale;
+    private final float[] positions;
+    private final Vector3f center = new Vector3f();
+    private final Vector3f extent = new Vector3f();
+
+    public MeshCollisionShape(Mesh mesh) {
+        this(mesh, Vector3f.UNIT_XYZ);
+    }
+
+    /**
+     * @param mesh  The mesh
+     * @param scale The scale of the mesh in the body, e.g. the world scale of its geometry
+     */
+    public MeshCollisionShape(Mesh mesh, Vector3f scale) {
+        if (mesh.getCollisionData() == null) {
+            mesh.createCollisionData();
+        }
+        this.mesh = mesh;
+        this.scale = scale.clone();
+
+        int triangles = mesh.getTriangleCount();
+        positions = new float[triangles * 9];
+        Vector3f v1 = new Vector3f(), v2 = new Vector3f(), v3 = new Vector3f();
+        Vector3f min = new Vector3f(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+                                    Float.POSITIVE_INFINITY);
+        Vector3f max = min.negate();
+        for (int i = 0; i < triangles; i++) {
+            mesh.getTriangle(i, v1, v2, v3);
+            store(i * 9, v1.multLocal(scale), min, max);
+            store(i * 9 + 3, v2.multLocal(scale), min, max);
+            store(i * 9 + 6, v3.multLocal(scale), min, max);
+        }
+        if (triangles > 0) {
+            center.set(min).addLocal(max).multLocal(0.5f);
+            extent.set(max).subtractLocal(min).multLocal(0.5f);
+        }
+    }
+
+    private void store(int offset, Vector3f vertex, Vector3f min, Vector3f max) {
+        positions[offset] = vertex.x;
+        positions[offset + 1] = vertex.y;
+        positions[offset + 2] = vertex.z;
+        min.minLocal(vertex);
+        max.maxLocal(vertex);
+    }
+
+    public Mesh getMesh() {
+        return mesh;
+    }
+
+    public Vector3f getScale(Vector3f store) {
+        if (store == null) {
+            store = new Vector3f();
+        }
+        return store.set(scale);
+    }
+
+    /**
+     * @return the collision tree of the mesh, in the space of the mesh before scaling
+     */
+    public CollisionData getCollisionData() {
+        return mesh.getCollisionData();
+    }
+
+    public int getTriangleCount() {
+        return positions.length / 9;
+    }
+
+    /**
+     * Gets the scaled vertices of a triangle, in the frame of the body.
+     */
+    public void getTriangle(int index, Vector3f v1, Vector3f v2, Vector3f v3) {
+        int o = index * 9;
+        v1.set(positions[o], positions[o + 1], positions[o + 2]);
+        v2.set(positions[o + 3], positions[o + 4], positions[o + 5]);
+        v3.set(positions[o + 6], positions[o + 7], positions[o + 8]);
+    }
+
+    @Override
+    public void getBounds(Vector3f location, Matrix3f rotation, float[] store) {
+        getBounds(location, rotation, extent.x, extent.y, extent.z, store);
+        for (int i = 0; i < 3; i++) {
+            float offset = rotation.get(i, 0) * center.x + rotation.get(i, 1) * center.y
+                           + rotation.get(i, 2) * center.z;
+            store[i] += offset;
+            store[3 + i] += offset;
+        }
+    }
+
+    @Override
+    public Vector3f computeLocalInertia(float mass, Vector3f store) {
+        throw new UnsupportedOperationException("A mesh shape is static");
+    }
+
+    @Override
+    public boolean isDynamic() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + mesh + "]";
+    }
+}
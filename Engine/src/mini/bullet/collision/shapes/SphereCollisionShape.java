@@ -0,0 +1,46 @@
+package mini.bullet.collision.shapes;
+
+import mini.math.Matrix3f;
+import mini.math.Vector3f;
+
+/**
+ * A sphere, given by its radius.
+ */
+public class SphereCollisionShape extends CollisionShape {
+    private final float radius;
+
+    public SphereCollisionShape(float radius) {
+        if (radius <= 0) {
+            throw new IllegalArgumentException("Invalid radius: " + radius);
+        }
+        this.radius = radius;
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+
+    @Override
+    public void getBounds(Vector3f location, Matrix3f rotation, float[] store) {
+        store[0] = location.x - radius;
+        store[1] = location.y - radius;
+        store[2] = location.z - radius;
+        store[3] = location.x + radius;
+        store[4] = location.y + radius;
+        store[5] = location.z + radius;
+    }
+
+    @Override
+    public Vector3f computeLocalInertia(float mass, Vector3f store) {
+        if (store == null) {
+            store = new Vector3f();
+        }
+        float inertia = 0.4f * mass * radius * radius;
+        return store.set(inertia, inertia, inertia);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + radius + "]";
+    }
+}
@@ -0,0 +1,99 @@
+package mini.bullet.control;
+
+import mini.bullet.PhysicsRigidBody;
+import mini.bullet.collision.shapes.CollisionShape;
+import mini.bullet.util.CollisionShapeFactory;
+import mini.math.Quaternion;
+import mini.math.Vector3f;
+import mini.renderer.RenderManager;
+import mini.renderer.ViewPort;
+import mini.scene.Node;
+import mini.scene.Spatial;
+import mini.scene.control.Control;
+import mini.utils.TempVars;
+
+/**
+ * A rigid body moving its spatial. A dynamic body moves its spatial to its own location and
+ * rotation after every update of the space. A kinematic body follows its spatial instead. When
+ * no shape is given, the shape is created from the spatial the control is added to, see
+ * {@link CollisionShapeFactory}.
+ * <p>
+ * The body is placed at the world location and rotation of the spatial when the control is added
+ * to it, the control must still be added to a {@link mini.bullet.PhysicsSpace}.
+ */
+public class RigidBodyControl extends PhysicsRigidBody implements Control {
+    private Spatial spatial;
+    private boolean enabled = true;
+
+    /**
+     * @param mass The mass of the body, 0 for a static body
+     */
+    public RigidBodyControl(float mass) {
+        super(mass);
+    }
+
+    public RigidBodyControl(CollisionShape shape) {
+        this(shape, 0);
+    }
+
+    public RigidBodyControl(CollisionShape shape, float mass) {
+        super(shape, mass);
+    }
+
+    @Override
+    public void setSpatial(Spatial spatial) {
+        this.spatial = spatial;
+        if (spatial == null) {
+            return;
+        }
+        if (collisionShape == null) {
+            setCollisionShape(CollisionShapeFactory.createShape(spatial, getMass() > 0));
+        }
+        setPhysicsLocation(spatial.getWorldTranslation());
+        setPhysicsRotation(spatial.getWorldRotation());
+    }
+
+    @Override
+    public Spatial getSpatial() {
+        return spatial;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void update(float tpf) {
+        if (!enabled || spatial == null) {
+            return;
+        }
+        if (isKinematic()) {
+            setPhysicsLocation(spatial.getWorldTranslation());
+            setPhysicsRotation(spatial.getWorldRotation());
+        } else if (isDynamic()) {
+            TempVars vars = TempVars.get();
+            try {
+                Vector3f location = getPhysicsLocation(vars.vect1);
+                Quaternion rotation = getPhysicsRotation(vars.quat1);
+                Node parent = spatial.getParent();
+                if (parent != null) {
+                    parent.worldToLocal(location, location);
+                    rotation.set(vars.quat2.set(parent.getWorldRotation()).inverseLocal()
+                                         .multLocal(rotation));
+                }
+                spatial.setLocalTranslation(location);
+                spatial.setLocalRotation(rotation);
+            } finally {
+                vars.release();
+            }
+        }
+    }
+
+    @Override
+    public void render(RenderManager renderManager, ViewPort vp) {
+    }
+}
@@ -0,0 +1,63 @@
+package mini.bullet.util;
+
+import mini.bounding.BoundingBox;
+import mini.bounding.BoundingSphere;
+import mini.bounding.BoundingVolume;
+import mini.bullet.collision.shapes.BoxCollisionShape;
+import mini.bullet.collision.shapes.CollisionShape;
+import mini.bullet.collision.shapes.MeshCollisionShape;
+import mini.bullet.collision.shapes.SphereCollisionShape;
+import mini.math.Vector3f;
+import mini.scene.Geometry;
+import mini.scene.Mesh;
+import mini.scene.Spatial;
+import mini.scene.shape.AbstractBox;
+import mini.scene.shape.Sphere;
+
+/**
+ * Creates the collision shapes of spatials, scaled by their world scale.
+ */
+public final class CollisionShapeFactory {
+    private CollisionShapeFactory() {
+    }
+
+    /**
+     * Creates the shape of a spatial: a box or a sphere for the geometries of box and sphere
+     * meshes, the triangles of the mesh for other static geometries and the bounding volume of
+     * the spatial for anything else.
+     *
+     * @param spatial The spatial
+     * @param dynamic Whether the shape is for a body with a mass, which cannot have a mesh shape
+     * @return the shape, centered on the origin of the spatial
+     */
+    public static CollisionShape createShape(Spatial spatial, boolean dynamic) {
+        Vector3f scale = spatial.getWorldScale();
+        if (spatial instanceof Geometry) {
+            Mesh mesh = ((Geometry) spatial).getMesh();
+            if (mesh instanceof AbstractBox) {
+                AbstractBox box = (AbstractBox) mesh;
+                return new BoxCollisionShape(new Vector3f(box.getXExtent(), box.getYExtent(),
+                                                          box.getZExtent()).multLocal(scale));
+            } else if (mesh instanceof Sphere) {
+                float radius = ((Sphere) mesh).getRadius();
+                return new SphereCollisionShape(
+                        radius * Math.max(scale.x, Math.max(scale.y, scale.z)));
+            } else if (!dynamic) {
+                return new MeshCollisionShape(mesh, scale);
+            }
+        }
+        return createBoundsShape(spatial);
+    }
+
+    private static CollisionShape createBoundsShape(Spatial spatial) {
+        BoundingVolume bound = spatial.getWorldBound();
+        if (bound instanceof BoundingSphere) {
+            return new SphereCollisionShape(((BoundingSphere) bound).getRadius());
+        } else if (bound instanceof BoundingBox) {
+            BoundingBox box = (BoundingBox) bound;
+            return new BoxCollisionShape(new Vector3f(box.getXExtent(), box.getYExtent(),
+                                                      box.getZExtent()));
+        }
+        throw new UnsupportedOperationException("Cannot create the shape of " + spatial);
+    }
+}
@@ -0,0 +1,251 @@
+package mini.collision;
+
+import mini.bounding.BoundingBox;
+import mini.bounding.BoundingSphere;
+import mini.bounding.BoundingVolume;
+import mini.math.Vector3f;
+import mini.scene.Spatial;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the pairs of spatials whose world bounds overlap, among all the spatials added to it,
+ * without testing every spatial against every other one.
+ * <p>
+ * Every {@link #update()} reads the world bounds of the spatials as axis aligned boxes and
+ * finds the overlapping boxes by {@link SweepAndPrune sweep and prune}: the ends of the boxes stay
+ * sorted along one axis from one update to the next, so sorting them again only takes a few
+ * swaps when the spatials move a little.
+ * <p>
+ * The overlapping pairs are compared to the pairs of the previous update and reported to the
+ * {@link BroadphaseListener listeners}: the pairs that start, still or stop overlapping. The
+ * spatials must have their world bounds updated, {@link #update()} is called after
+ * {@link Spatial#updateGeometricState()}. A broadphase is not thread safe.
+ */
+public class Broadphase {
+    private final List<BroadphaseListener> listeners = new ArrayList<>();
+    private final Map<Spatial, Integer> proxies = new IdentityHashMap<>();
+
+    private Spatial[] spatials = new Spatial[16];
+    private boolean[] removed = new boolean[16];
+    /**
+     * Boxes of the spatials, min x, y, z then max x, y, z.
+     */
+    private float[] bounds = new float[16 * 6];
+    private int proxyCount;
+    private int[] freeProxies = new int[16];
+    private int freeCount;
+    private int[] removedProxies = new int[16];
+    private int removedCount;
+
+    private final SweepAndPrune sweepAndPrune = new SweepAndPrune();
+
+    /**
+     * Pairs overlapping at the previous update, sorted, the lower proxy in the high bits.
+     */
+    private long[] previousPairs = new long[16];
+    private int previousPairCount;
+
+    private final Vector3f center = new Vector3f();
+
+    public void addListener(BroadphaseListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("The listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+
+    public void removeListener(BroadphaseListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Adds a spatial, its overlaps are reported from the next {@link #update()}.
+     *
+     * @return whether the spatial was added, false if it already was
+     */
+    public boolean add(Spatial spatial) {
+        if (spatial == null) {
+            throw new IllegalArgumentException("The spatial cannot be null");
+        }
+        if (proxies.containsKey(spatial)) {
+            return false;
+        }
+
+        int proxy;
+        if (freeCount > 0) {
+            proxy = freeProxies[--freeCount];
+        } else {
+            proxy = proxyCount++;
+            if (proxy == spatials.length) {
+                int capacity = proxy * 2;
+                spatials = Arrays.copyOf(spatials, capacity);
+                removed = Arrays.copyOf(removed, capacity);
+                bounds = Arrays.copyOf(bounds, capacity * 6);
+            }
+        }
+        spatials[proxy] = spatial;
+        proxies.put(spatial, proxy);
+        sweepAndPrune.add(proxy);
+        return true;
+    }
+
+    /**
+     * Removes a spatial, the end of its overlaps is reported by the next {@link #update()}.
+     *
+     * @return whether the spatial was removed, false if it was not added
+     */
+    public boolean remove(Spatial spatial) {
+        Integer proxy = proxies.remove(spatial);
+        if (proxy == null) {
+            return false;
+        }
+        removed[proxy] = true;
+        sweepAndPrune.remove(proxy);
+        if (removedCount == removedProxies.length) {
+            removedProxies = Arrays.copyOf(removedProxies, removedCount * 2);
+        }
+        removedProxies[removedCount++] = proxy;
+        return true;
+    }
+
+    public boolean contains(Spatial spatial) {
+        return proxies.containsKey(spatial);
+    }
+
+    /**
+     * @return the number of spatials in the broadphase
+     */
+    public int size() {
+        return proxies.size();
+    }
+
+    /**
+     * @return the number of pairs overlapping at the last update
+     */
+    public int getPairCount() {
+        return previousPairCount;
+    }
+
+    /**
+     * @return the axis swept at the last update, 0 for x, 1 for y and 2 for z
+     */
+    public int getAxis() {
+        return sweepAndPrune.getAxis();
+    }
+
+    /**
+     * Reads the world bounds of the spatials, finds the pairs overlapping and notifies the
+     * listeners. The listeners may add and remove spatials, which is taken into account by the
+     * next update.
+     */
+    public void update() {
+        int released = removedCount;
+        for (int proxy = 0; proxy < proxyCount; proxy++) {
+            Spatial spatial = spatials[proxy];
+            if (spatial != null && !removed[proxy]) {
+                readBounds(spatial.getWorldBound(), proxy * 6);
+            }
+        }
+        sweepAndPrune.update(bounds);
+        notifyListeners();
+
+        // The proxies removed by the listeners are released by the next update
+        for (int i = 0; i < released; i++) {
+            int proxy = removedProxies[i];
+            spatials[proxy] = null;
+            removed[proxy] = false;
+            if (freeCount == freeProxies.length) {
+                freeProxies = Arrays.copyOf(freeProxies, freeCount * 2);
+            }
+            freeProxies[freeCount++] = proxy;
+        }
+        System.arraycopy(removedProxies, released, removedProxies, 0, removedCount - released);
+        removedCount -= released;
+
+        previousPairCount = sweepAndPrune.getPairCount();
+        if (previousPairs.length < previousPairCount) {
+            previousPairs = new long[previousPairCount * 2];
+        }
+        for (int i = 0; i < previousPairCount; i++) {
+            previousPairs[i] = sweepAndPrune.getPair(i);
+        }
+    }
+
+    /**
+     * Stores the box of a volume. A spatial without bound gets an empty box, which overlaps
+     * nothing.
+     */
+    private void readBounds(BoundingVolume volume, int offset) {
+        float ex, ey, ez;
+        if (volume instanceof BoundingBox) {
+            BoundingBox box = (BoundingBox) volume;
+            ex = box.getXExtent();
+            ey = box.getYExtent();
+            ez = box.getZExtent();
+        } else if (volume instanceof BoundingSphere) {
+            float radius = ((BoundingSphere) volume).getRadius();
+            ex = radius;
+            ey = radius;
+            ez = radius;
+        } else {
+            Arrays.fill(bounds, offset, offset + 3, Float.POSITIVE_INFINITY);
+            Arrays.fill(bounds, offset + 3, offset + 6, Float.NEGATIVE_INFINITY);
+            return;
+        }
+        volume.getCenter(center);
+        bounds[offset] = center.x - ex;
+        bounds[offset + 1] = center.y - ey;
+        bounds[offset + 2] = center.z - ez;
+        bounds[offset + 3] = center.x + ex;
+        bounds[offset + 4] = center.y + ey;
+        bounds[offset + 5] = center.z + ez;
+    }
+
+    /**
+     * Merges the sorted pairs of this update and of the previous one. All the ends are reported
+     * before the beginnings: a spatial removed and added back before an update overlaps through
+     * another proxy, its pairs end and begin again in the same update.
+     */
+    private void notifyListeners() {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        int pairCount = sweepAndPrune.getPairCount();
+        int current = 0;
+        for (int previous = 0; previous < previousPairCount; previous++) {
+            long pair = previousPairs[previous];
+            while (current < pairCount && sweepAndPrune.getPair(current) < pair) {
+                current++;
+            }
+            if (current == pairCount || sweepAndPrune.getPair(current) != pair) {
+                Spatial first = spatials[(int) (pair >>> 32)], second = spatials[(int) pair];
+                for (int i = 0; i < listeners.size(); i++) {
+                    listeners.get(i).overlapEnd(first, second);
+                }
+            }
+        }
+
+        int previous = 0;
+        for (current = 0; current < pairCount; current++) {
+            long pair = sweepAndPrune.getPair(current);
+            while (previous < previousPairCount && previousPairs[previous] < pair) {
+                previous++;
+            }
+            Spatial first = spatials[(int) (pair >>> 32)], second = spatials[(int) pair];
+            if (previous < previousPairCount && previousPairs[previous] == pair) {
+                for (int i = 0; i < listeners.size(); i++) {
+                    listeners.get(i).overlapPersist(first, second);
+                }
+            } else {
+                for (int i = 0; i < listeners.size(); i++) {
+                    listeners.get(i).overlapBegin(first, second);
+                }
+            }
+        }
+    }
+}
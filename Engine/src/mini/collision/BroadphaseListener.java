@@ -0,0 +1,28 @@
+package mini.collision;
+
+import mini.scene.Spatial;
+
+/**
+ * <code>BroadphaseListener</code> is notified by a {@link Broadphase} of the pairs of spatials
+ * whose world bounds overlap. The two spatials of a pair are given in the same order by all the
+ * calls for that pair.
+ */
+public interface BroadphaseListener {
+    /**
+     * Called by {@link Broadphase#update()} when the bounds of two spatials start to overlap.
+     */
+    void overlapBegin(Spatial first, Spatial second);
+
+    /**
+     * Called by {@link Broadphase#update()} for every update the bounds of two spatials still
+     * overlap after {@link #overlapBegin(Spatial, Spatial)}.
+     */
+    default void overlapPersist(Spatial first, Spatial second) {
+    }
+
+    /**
+     * Called by {@link Broadphase#update()} when the bounds of two spatials stop overlapping, or
+     * one of them was removed from the broadphase.
+     */
+    void overlapEnd(Spatial first, Spatial second);
+}
@@ -15,6 +15,10 @@ public class CollisionResult implements Comparable<CollisionResult> {
     private Vector3f contactNormal;
     private float distance;
     private int triangleIndex;
+    /**
+     * The results pooling this collision, null if it is not pooled.
+     */
+    transient CollisionResults owner;
 
     public CollisionResult(Geometry geometry, Vector3f contactPoint, float distance, int triangleIndex) {
         this.geometry = geometry;
@@ -31,6 +35,17 @@ public class CollisionResult implements Comparable<CollisionResult> {
     public CollisionResult(){
     }
 
+    /**
+     * Resets a pooled collision before it is reused, keeping its vectors.
+     */
+    void reset() {
+        geometry = null;
+        distance = 0;
+        triangleIndex = 0;
+        contactPoint = contactPoint != null ? contactPoint.set(0, 0, 0) : new Vector3f();
+        contactNormal = contactNormal != null ? contactNormal.set(0, 0, 0) : new Vector3f();
+    }
+
     public void setGeometry(Geometry geom){
         this.geometry = geom;
     }
@@ -6,48 +6,265 @@ import java.util.Iterator;
 import java.util.List;
 
 /**
- * <code>CollisionResults</code> is a collection returned as a result of a 
+ * <code>CollisionResults</code> is a collection returned as a result of a
  * collision detection operation done by {@link Collidable}.
+ * <p>
+ * The {@link Mode mode} of the results selects the collisions kept: all of them, the closest one,
+ * any one or the closest ones up to a maximum count. The collision queries ask the results
+ * whether they {@link #accepts(float) accept} a distance before building a collision, skip the
+ * parts of the scene farther than the {@link #getMaxDistance() maximum distance} and stop once
+ * the results are {@link #isDone() done}.
+ * <p>
+ * The collisions built by the queries are {@link #obtainCollision() pooled}: they are reused
+ * once discarded or once the results are cleared, so the same results can be reused across
+ * frames without allocating.
  */
 public class CollisionResults implements Iterable<CollisionResult> {
 
+    /**
+     * The collisions kept by the results.
+     */
+    public enum Mode {
+        /**
+         * Keeps all the collisions.
+         */
+        All,
+        /**
+         * Keeps the closest collision only.
+         */
+        Closest,
+        /**
+         * Keeps the first collision found, the queries stop there.
+         */
+        Any,
+        /**
+         * Keeps the closest collisions, up to the maximum count of the results.
+         */
+        Nearest
+    }
+
+    private final Mode mode;
+    private final int maxResults;
     private ArrayList<CollisionResult> results = null;
+    /**
+     * Whether the results are sorted by distance; when not, the results of a bounded mode are a
+     * heap whose root is the farthest result.
+     */
     private boolean sorted = true;
+    private ArrayList<CollisionResult> pool = null;
+
+    /**
+     * Creates results keeping all the collisions.
+     */
+    public CollisionResults() {
+        this(Mode.All);
+    }
+
+    /**
+     * @param mode The collisions kept, {@link Mode#Nearest} needs the maximum count of
+     *             {@link #CollisionResults(int)}
+     */
+    public CollisionResults(Mode mode) {
+        if (mode == Mode.Nearest) {
+            throw new IllegalArgumentException("The nearest results need a maximum count");
+        }
+        this.mode = mode;
+        this.maxResults = mode == Mode.All ? Integer.MAX_VALUE : 1;
+    }
+
+    /**
+     * Creates results keeping the closest collisions, in {@link Mode#Nearest} mode.
+     *
+     * @param maxResults The maximum number of collisions kept
+     */
+    public CollisionResults(int maxResults) {
+        if (maxResults < 1) {
+            throw new IllegalArgumentException("At least one result must be kept: " + maxResults);
+        }
+        this.mode = Mode.Nearest;
+        this.maxResults = maxResults;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return the maximum number of collisions kept
+     */
+    public int getMaxResults() {
+        return maxResults;
+    }
 
     /**
-     * Clears all collision results added to this list
+     * Clears all collision results added to this list. The collisions obtained from
+     * {@link #obtainCollision()} return to the pool and must not be used anymore.
      */
     public void clear(){
         if (results != null) {
+            for (int i = 0; i < results.size(); i++) {
+                recycle(results.get(i));
+            }
             results.clear();
         }
+        sorted = true;
+    }
+
+    /**
+     * Gives a collision to fill and {@link #addCollision(CollisionResult) add}, reused from the
+     * collisions discarded or cleared. The collision has a contact point and a contact normal to
+     * set, no geometry, a distance and a triangle index of 0.
+     */
+    public CollisionResult obtainCollision() {
+        CollisionResult result;
+        if (pool != null && !pool.isEmpty()) {
+            result = pool.remove(pool.size() - 1);
+        } else {
+            result = new CollisionResult();
+            result.owner = this;
+        }
+        result.reset();
+        return result;
+    }
+
+    private void recycle(CollisionResult result) {
+        if (result.owner != this) {
+            return;
+        }
+        if (pool == null) {
+            pool = new ArrayList<>();
+        }
+        pool.add(result);
+    }
+
+    /**
+     * @return whether the results are complete, the queries stop when they are
+     */
+    public boolean isDone() {
+        return mode == Mode.Any && size() > 0;
+    }
+
+    /**
+     * @return the distance beyond which the collisions are discarded, positive infinity if all
+     * the distances are accepted
+     */
+    public float getMaxDistance() {
+        if (mode == Mode.All) {
+            return Float.POSITIVE_INFINITY;
+        }
+        if (size() < maxResults) {
+            return Float.POSITIVE_INFINITY;
+        }
+        if (mode == Mode.Any) {
+            return Float.NEGATIVE_INFINITY;
+        }
+        return getFarthestDirect().getDistance();
+    }
+
+    /**
+     * @return whether a collision at the distance would be kept
+     */
+    public boolean accepts(float distance) {
+        if (mode == Mode.All || size() < maxResults) {
+            return true;
+        }
+        return mode != Mode.Any && distance < getFarthestDirect().getDistance();
     }
 
     /**
      * Iterator for iterating over the collision results.
-     * 
+     *
      * @return the iterator
      */
     public Iterator<CollisionResult> iterator() {
         if (results == null) {
-            List<CollisionResult> dumbCompiler = Collections.emptyList();            
+            List<CollisionResult> dumbCompiler = Collections.emptyList();
             return dumbCompiler.iterator();
         }
-        
-        if (!sorted){
-            Collections.sort(results);
-            sorted = true;
-        }
+
+        sort();
 
         return results.iterator();
     }
 
+    /**
+     * Adds a collision, or discards it if the mode of the results does not keep it. A discarded
+     * collision, or the collision it replaces, returns to the pool if it was obtained from it.
+     */
     public void addCollision(CollisionResult result){
         if (results == null) {
             results = new ArrayList<>();
         }
-        results.add(result);
+        if (mode == Mode.All) {
+            results.add(result);
+            sorted = false;
+            return;
+        }
+
+        if (sorted && results.size() > 1) {
+            // Sorted by increasing distance, the reverse order is a heap
+            Collections.reverse(results);
+        }
         sorted = false;
+        if (results.size() < maxResults) {
+            results.add(result);
+            siftUp(results.size() - 1);
+        } else if (mode != Mode.Any && result.getDistance() < results.get(0).getDistance()) {
+            recycle(results.set(0, result));
+            siftDown(0);
+        } else {
+            recycle(result);
+        }
+    }
+
+    private void siftUp(int index) {
+        CollisionResult result = results.get(index);
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            CollisionResult parentResult = results.get(parent);
+            if (parentResult.getDistance() >= result.getDistance()) {
+                break;
+            }
+            results.set(index, parentResult);
+            index = parent;
+        }
+        results.set(index, result);
+    }
+
+    private void siftDown(int index) {
+        int size = results.size();
+        CollisionResult result = results.get(index);
+        while (true) {
+            int child = index * 2 + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size
+                && results.get(child + 1).getDistance() > results.get(child).getDistance()) {
+                child++;
+            }
+            CollisionResult childResult = results.get(child);
+            if (childResult.getDistance() <= result.getDistance()) {
+                break;
+            }
+            results.set(index, childResult);
+            index = child;
+        }
+        results.set(index, result);
+    }
+
+    private void sort() {
+        if (!sorted) {
+            Collections.sort(results);
+            sorted = true;
+        }
+    }
+
+    /**
+     * @return the farthest result kept, without sorting the results
+     */
+    private CollisionResult getFarthestDirect() {
+        return sorted ? results.get(results.size() - 1) : results.get(0);
     }
 
     public int size(){
@@ -61,10 +278,7 @@ public class CollisionResults implements Iterable<CollisionResult> {
         if (results == null || size() == 0)
             return null;
 
-        if (!sorted){
-            Collections.sort(results);
-            sorted = true;
-        }
+        sort();
 
         return results.get(0);
     }
@@ -73,10 +287,7 @@ public class CollisionResults implements Iterable<CollisionResult> {
         if (results == null || size() == 0)
             return null;
 
-        if (!sorted){
-            Collections.sort(results);
-            sorted = true;
-        }
+        sort();
 
         return results.get(size()-1);
     }
@@ -85,11 +296,8 @@ public class CollisionResults implements Iterable<CollisionResult> {
         if (results == null) {
             throw new IndexOutOfBoundsException("Index: " + index + ", Size: 0");
         }
-        
-        if (!sorted){
-            Collections.sort(results);
-            sorted = true;
-        }
+
+        sort();
 
         return results.get(index);
     }
@@ -116,7 +324,7 @@ public class CollisionResults implements Iterable<CollisionResult> {
             }
             if (results.size() > 0)
                 sb.setLength(sb.length()-2);
-        }                
+        }
 
         sb.append("]");
         return sb.toString();
@@ -0,0 +1,570 @@
+package mini.collision;
+
+import mini.bounding.BoundingBox;
+import mini.bounding.BoundingSphere;
+import mini.bounding.BoundingVolume;
+import mini.collision.bih.BIHTree;
+import mini.collision.bih.RayPacket;
+import mini.math.Matrix4f;
+import mini.math.Vector3f;
+import mini.scene.CollisionData;
+import mini.scene.Geometry;
+import mini.scene.Mesh;
+import mini.scene.Node;
+import mini.scene.Spatial;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Casts batches of rays against the geometries of a scene, for the queries firing thousands of
+ * rays at once such as lines of sight or AI sensors. The rays and their closest hits are stored in
+ * primitive arrays, nothing is allocated per ray.
+ * <p>
+ * The rays are cast in packets of {@link RayPacket#SIZE} consecutive rays walking the collision
+ * trees of the meshes together, the batches should list coherent rays next to each other, e.g.
+ * the rays starting from the same point in close directions. A packet only visits the geometries
+ * whose world box one of its rays reaches, through a hierarchy of boxes built over the geometries
+ * when the scene is set. With a pool, the packets are split across its threads.
+ * <p>
+ * The geometries are captured by {@link #setScene(Spatial)}, once the scene is updated; the
+ * geometries moved afterwards are cast against where they were when captured.
+ */
+public class RayCaster {
+    /**
+     * Minimum number of packets cast by a task of the pool.
+     */
+    private static final int PACKETS_PER_TASK = 4;
+    /**
+     * Maximum number of geometries in a leaf of the hierarchy of world boxes.
+     */
+    private static final int GEOMETRIES_PER_LEAF = 4;
+
+    private static final ThreadLocal<Workspace> workspaces = ThreadLocal.withInitial(Workspace::new);
+
+    private final ForkJoinPool pool;
+    private final List<Geometry> geometries = new ArrayList<>();
+    /**
+     * Collision tree of every geometry, null while it is built in the background
+     */
+    private BIHTree[] trees = new BIHTree[0];
+    /**
+     * First three rows of the inverse world matrix of every geometry
+     */
+    private float[] worldToModel = new float[0];
+    /**
+     * World box of every geometry, minimum then maximum
+     */
+    private float[] worldBoxes = new float[0];
+
+    /**
+     * Box of every node of the hierarchy over the world boxes, minimum then maximum. The root is
+     * the first node.
+     */
+    private float[] nodeBoxes = new float[0];
+    /**
+     * First child of every node of the hierarchy, the second child follows it, -1 for the leaves
+     */
+    private int[] nodeChildren = new int[0];
+    /**
+     * Axis along which the geometries of every inner node are split between its children
+     */
+    private int[] nodeAxes = new int[0];
+    /**
+     * Range of the geometries of every node in {@link #order}
+     */
+    private int[] nodeStarts = new int[0];
+    private int[] nodeEnds = new int[0];
+    /**
+     * The geometries, sorted so that every node holds a range of them
+     */
+    private int[] order = new int[0];
+
+    /**
+     * Creates a caster casting the rays on the calling thread.
+     */
+    public RayCaster() {
+        this(null);
+    }
+
+    /**
+     * @param pool The pool casting the rays, null to cast them on the calling thread
+     */
+    public RayCaster(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Captures the geometries of a scene, their world transforms and their world bounds. The
+     * collision trees of the meshes are built if needed, in the background for the meshes of at
+     * least {@link Mesh#ASYNC_COLLISION_TRIANGLES} triangles: until then, the rays are only cast
+     * against the bound of their geometries.
+     * <p>
+     * The geometries are numbered in depth-first order, see {@link #getGeometry(int)}.
+     *
+     * @param scene The updated scene
+     */
+    public void setScene(Spatial scene) {
+        geometries.clear();
+        collectGeometries(scene);
+        int count = geometries.size();
+        if (trees.length < count) {
+            trees = new BIHTree[count];
+            worldToModel = new float[count * 12];
+            worldBoxes = new float[count * 6];
+            order = new int[count];
+            // Less than two nodes per geometry
+            nodeBoxes = new float[count * 2 * 6];
+            nodeChildren = new int[count * 2];
+            nodeAxes = new int[count * 2];
+            nodeStarts = new int[count * 2];
+            nodeEnds = new int[count * 2];
+        }
+
+        Matrix4f inverse = new Matrix4f();
+        for (int i = 0; i < count; i++) {
+            Geometry geometry = geometries.get(i);
+            trees[i] = getCollisionTree(geometry.getMesh());
+
+            geometry.computeWorldMatrix();
+            geometry.getWorldMatrix().invert(inverse);
+            float[] m = worldToModel;
+            int offset = i * 12;
+            m[offset] = inverse.m00;
+            m[offset + 1] = inverse.m01;
+            m[offset + 2] = inverse.m02;
+            m[offset + 3] = inverse.m03;
+            m[offset + 4] = inverse.m10;
+            m[offset + 5] = inverse.m11;
+            m[offset + 6] = inverse.m12;
+            m[offset + 7] = inverse.m13;
+            m[offset + 8] = inverse.m20;
+            m[offset + 9] = inverse.m21;
+            m[offset + 10] = inverse.m22;
+            m[offset + 11] = inverse.m23;
+
+            BoundingVolume bound = geometry.getWorldBound();
+            Vector3f center = bound.getCenter();
+            float x, y, z;
+            if (bound instanceof BoundingBox) {
+                BoundingBox box = (BoundingBox) bound;
+                x = box.getXExtent();
+                y = box.getYExtent();
+                z = box.getZExtent();
+            } else {
+                x = y = z = ((BoundingSphere) bound).getRadius();
+            }
+            offset = i * 6;
+            worldBoxes[offset] = center.x - x;
+            worldBoxes[offset + 1] = center.y - y;
+            worldBoxes[offset + 2] = center.z - z;
+            worldBoxes[offset + 3] = center.x + x;
+            worldBoxes[offset + 4] = center.y + y;
+            worldBoxes[offset + 5] = center.z + z;
+        }
+        for (int i = count; i < trees.length; i++) {
+            trees[i] = null;
+        }
+
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        if (count > 0) {
+            buildNode(0, 0, count, 1);
+        }
+    }
+
+    /**
+     * Computes the box of a node of the hierarchy and splits its geometries at the median of
+     * their centers along the longest axis of the box, until at most
+     * {@link #GEOMETRIES_PER_LEAF} geometries are left.
+     *
+     * @param nodeCount The number of nodes allocated
+     * @return the number of nodes allocated
+     */
+    private int buildNode(int node, int start, int end, int nodeCount) {
+        nodeStarts[node] = start;
+        nodeEnds[node] = end;
+        int o = node * 6;
+        for (int k = 0; k < 3; k++) {
+            nodeBoxes[o + k] = Float.POSITIVE_INFINITY;
+            nodeBoxes[o + 3 + k] = Float.NEGATIVE_INFINITY;
+        }
+        for (int i = start; i < end; i++) {
+            int b = order[i] * 6;
+            for (int k = 0; k < 3; k++) {
+                nodeBoxes[o + k] = Math.min(nodeBoxes[o + k], worldBoxes[b + k]);
+                nodeBoxes[o + 3 + k] = Math.max(nodeBoxes[o + 3 + k], worldBoxes[b + 3 + k]);
+            }
+        }
+        if (end - start <= GEOMETRIES_PER_LEAF) {
+            nodeChildren[node] = -1;
+            return nodeCount;
+        }
+
+        int axis = 0;
+        for (int k = 1; k < 3; k++) {
+            if (nodeBoxes[o + 3 + k] - nodeBoxes[o + k]
+                > nodeBoxes[o + 3 + axis] - nodeBoxes[o + axis]) {
+                axis = k;
+            }
+        }
+        int middle = (start + end) >>> 1;
+        selectMedian(start, end, middle, axis);
+
+        int child = nodeCount;
+        nodeChildren[node] = child;
+        nodeAxes[node] = axis;
+        nodeCount = buildNode(child, start, middle, nodeCount + 2);
+        return buildNode(child + 1, middle, end, nodeCount);
+    }
+
+    /**
+     * Reorders the geometries of a range so that the geometry at <code>k</code> has the center
+     * it would have if the range was sorted along the axis.
+     */
+    private void selectMedian(int start, int end, int k, int axis) {
+        while (end - start > 1) {
+            float pivot = getCenter(order[(start + end) >>> 1], axis);
+            int i = start;
+            int j = end - 1;
+            while (i <= j) {
+                while (getCenter(order[i], axis) < pivot) {
+                    i++;
+                }
+                while (getCenter(order[j], axis) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = order[i];
+                    order[i++] = order[j];
+                    order[j--] = swap;
+                }
+            }
+            if (k <= j) {
+                end = j + 1;
+            } else if (k >= i) {
+                start = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return twice the center of the world box of a geometry along an axis
+     */
+    private float getCenter(int geometry, int axis) {
+        return worldBoxes[geometry * 6 + axis] + worldBoxes[geometry * 6 + 3 + axis];
+    }
+
+    private void collectGeometries(Spatial spatial) {
+        if (spatial instanceof Geometry) {
+            Geometry geometry = (Geometry) spatial;
+            if (geometry.getMesh() != null && geometry.getMesh().getTriangleCount() > 0
+                && geometry.getWorldBound() != null) {
+                geometries.add(geometry);
+            }
+        } else if (spatial instanceof Node) {
+            for (Spatial child : ((Node) spatial).getChildren()) {
+                collectGeometries(child);
+            }
+        }
+    }
+
+    private static BIHTree getCollisionTree(Mesh mesh) {
+        CollisionData data = mesh.getCollisionData();
+        if (data == null) {
+            if (mesh.getTriangleCount() < Mesh.ASYNC_COLLISION_TRIANGLES) {
+                mesh.createCollisionData();
+            } else if (mesh.createCollisionDataAsync().isCompletedExceptionally()) {
+                // Rethrows the failure of the construction
+                mesh.createCollisionDataAsync().join();
+            }
+            data = mesh.getCollisionData();
+        }
+        return data instanceof BIHTree ? (BIHTree) data : null;
+    }
+
+    /**
+     * @return the number of geometries captured by {@link #setScene(Spatial)}
+     */
+    public int getGeometryCount() {
+        return geometries.size();
+    }
+
+    /**
+     * @param id The id of a geometry, as returned in {@link RayHits#getGeometryId(int)}
+     * @return the geometry
+     */
+    public Geometry getGeometry(int id) {
+        return geometries.get(id);
+    }
+
+    /**
+     * Casts a batch of rays, keeping the closest hit of every ray.
+     *
+     * @param origins      The origins of the rays, x, y and z of every ray
+     * @param directions   The directions of the rays, x, y and z of every ray, normalized if needed
+     * @param maxDistances The maximum distance of every ray, null for rays of infinite length
+     * @param hits         Receives the closest hits, indexed by ray
+     */
+    public void rayCastBatch(float[] origins, float[] directions, float[] maxDistances,
+                             RayHits hits) {
+        if (origins.length % 3 != 0 || directions.length != origins.length) {
+            throw new IllegalArgumentException("Expected x, y and z for every ray");
+        }
+        int count = origins.length / 3;
+        if (maxDistances != null && maxDistances.length != count) {
+            throw new IllegalArgumentException("Expected a maximum distance for every ray");
+        }
+        hits.reset(count);
+        int packets = (count + RayPacket.SIZE - 1) / RayPacket.SIZE;
+        if (pool == null || packets <= PACKETS_PER_TASK) {
+            castPackets(origins, directions, maxDistances, hits, 0, packets);
+        } else {
+            pool.invoke(new CastTask(this, origins, directions, maxDistances, hits, 0, packets));
+        }
+    }
+
+    private void castPackets(float[] origins, float[] directions, float[] maxDistances,
+                             RayHits hits, int firstPacket, int endPacket) {
+        Workspace workspace = workspaces.get();
+        RayPacket packet = workspace.packet;
+        float[] far = packet.far;
+        int[] triangles = packet.triangles;
+        int[] hitGeometries = workspace.geometries;
+        int count = origins.length / 3;
+
+        for (int p = firstPacket; p < endPacket; p++) {
+            int first = p * RayPacket.SIZE;
+            int size = Math.min(RayPacket.SIZE, count - first);
+            int rays = 0;
+            for (int r = 0; r < size; r++) {
+                int i = (first + r) * 3;
+                float dx = directions[i], dy = directions[i + 1], dz = directions[i + 2];
+                float length = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+                float maxDistance = maxDistances != null ? maxDistances[first + r]
+                                                         : Float.POSITIVE_INFINITY;
+                far[r] = maxDistance;
+                triangles[r] = -1;
+                hitGeometries[r] = -1;
+                if (length > 0 && maxDistance >= 0) {
+                    workspace.scale[r] = 1f / length;
+                    rays |= 1 << r;
+                }
+            }
+
+            // The children of the nodes are visited nearest first along the direction of a ray,
+            // so that the closest hits found early skip the farther geometries
+            int[] stack = workspace.stack;
+            int top = 0;
+            if (rays != 0 && geometries.size() > 0) {
+                stack[top++] = 0;
+            }
+            while (top > 0) {
+                int node = stack[--top];
+                int mask = intersectBoxes(nodeBoxes, node, origins, directions, first, size, rays,
+                                          workspace);
+                if (mask == 0) {
+                    continue;
+                }
+                int child = nodeChildren[node];
+                if (child == -1) {
+                    for (int i = nodeStarts[node]; i < nodeEnds[node]; i++) {
+                        castGeometry(order[i], origins, directions, first, size, mask, workspace);
+                    }
+                    continue;
+                }
+                int ray = first + Integer.numberOfTrailingZeros(mask);
+                if (directions[ray * 3 + nodeAxes[node]] < 0) {
+                    stack[top++] = child;
+                    stack[top++] = child + 1;
+                } else {
+                    stack[top++] = child + 1;
+                    stack[top++] = child;
+                }
+            }
+
+            for (int r = 0; r < size; r++) {
+                if (hitGeometries[r] >= 0) {
+                    hits.set(first + r, far[r], triangles[r], hitGeometries[r]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Casts the rays of the mask reaching the world box of a geometry before their closest hit
+     * so far against the geometry.
+     */
+    private void castGeometry(int g, float[] origins, float[] directions, int first, int size,
+                              int rays, Workspace workspace) {
+        RayPacket packet = workspace.packet;
+        float[] far = packet.far;
+        int[] triangles = packet.triangles;
+        int[] hitGeometries = workspace.geometries;
+        int mask = intersectBoxes(worldBoxes, g, origins, directions, first, size, rays,
+                                  workspace);
+        if (mask == 0) {
+            return;
+        }
+
+        BIHTree tree = trees[g];
+        if (tree == null) {
+            // Not built yet, the bound stands for the geometry
+            for (int r = 0; r < size; r++) {
+                if ((mask & (1 << r)) != 0) {
+                    far[r] = workspace.entries[r];
+                    triangles[r] = -1;
+                    hitGeometries[r] = g;
+                }
+            }
+            return;
+        }
+
+        float[] m = worldToModel;
+        int o = g * 12;
+        for (int r = 0; r < size; r++) {
+            if ((mask & (1 << r)) == 0) {
+                continue;
+            }
+            int i = (first + r) * 3;
+            float scale = workspace.scale[r];
+            float ox = origins[i], oy = origins[i + 1], oz = origins[i + 2];
+            float dx = directions[i] * scale;
+            float dy = directions[i + 1] * scale;
+            float dz = directions[i + 2] * scale;
+            // Not normalized in model space, the distances stay world distances
+            packet.setRay(r,
+                          m[o] * ox + m[o + 1] * oy + m[o + 2] * oz + m[o + 3],
+                          m[o + 4] * ox + m[o + 5] * oy + m[o + 6] * oz + m[o + 7],
+                          m[o + 8] * ox + m[o + 9] * oy + m[o + 10] * oz + m[o + 11],
+                          m[o] * dx + m[o + 1] * dy + m[o + 2] * dz,
+                          m[o + 4] * dx + m[o + 5] * dy + m[o + 6] * dz,
+                          m[o + 8] * dx + m[o + 9] * dy + m[o + 10] * dz);
+        }
+        int hit = tree.intersectClosest(packet, mask);
+        for (int r = 0; r < size; r++) {
+            if ((hit & (1 << r)) != 0) {
+                hitGeometries[r] = g;
+            }
+        }
+    }
+
+    /**
+     * Intersects the rays of the mask with a box, the distance of every ray reaching the box
+     * before its closest hit so far is stored in the entries of the workspace.
+     *
+     * @return the mask of the rays reaching the box
+     */
+    private static int intersectBoxes(float[] boxes, int box, float[] origins, float[] directions,
+                                      int first, int size, int rays, Workspace workspace) {
+        float[] far = workspace.packet.far;
+        int mask = 0;
+        for (int r = 0; r < size; r++) {
+            if ((rays & (1 << r)) == 0) {
+                continue;
+            }
+            float distance = intersectBox(boxes, box, origins, directions, first + r,
+                                          workspace.scale[r]);
+            // Missed boxes are at an infinite distance, as far as the rays without a hit yet
+            if (distance <= far[r] && distance != Float.POSITIVE_INFINITY) {
+                workspace.entries[r] = distance;
+                mask |= 1 << r;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @return the distance along the ray to a box, 0 if the ray starts in the box, positive
+     * infinity if it misses the box
+     */
+    private static float intersectBox(float[] box, int index, float[] origins,
+                                      float[] directions, int ray, float scale) {
+        int b = index * 6;
+        int i = ray * 3;
+        float near = 0;
+        float far = Float.POSITIVE_INFINITY;
+        for (int axis = 0; axis < 3; axis++) {
+            float origin = origins[i + axis];
+            float direction = directions[i + axis] * scale;
+            float min = box[b + axis];
+            float max = box[b + 3 + axis];
+            if (direction == 0) {
+                if (origin < min || origin > max) {
+                    return Float.POSITIVE_INFINITY;
+                }
+                continue;
+            }
+            float inverse = 1f / direction;
+            float t1 = (min - origin) * inverse;
+            float t2 = (max - origin) * inverse;
+            if (t1 > t2) {
+                float t = t1;
+                t1 = t2;
+                t2 = t;
+            }
+            near = Math.max(near, t1);
+            far = Math.min(far, t2);
+            if (near > far) {
+                return Float.POSITIVE_INFINITY;
+            }
+        }
+        return near;
+    }
+
+    /**
+     * The packet and the per ray state of a thread casting rays.
+     */
+    private static final class Workspace {
+        private final RayPacket packet = new RayPacket();
+        private final float[] scale = new float[RayPacket.SIZE];
+        private final float[] entries = new float[RayPacket.SIZE];
+        private final int[] geometries = new int[RayPacket.SIZE];
+        /**
+         * Nodes of the hierarchy left to visit, the median splits keep it shallow
+         */
+        private final int[] stack = new int[64];
+    }
+
+    private static final class CastTask extends RecursiveAction {
+        static final long serialVersionUID = 1;
+
+        private final RayCaster caster;
+        private final float[] origins;
+        private final float[] directions;
+        private final float[] maxDistances;
+        private final RayHits hits;
+        private final int firstPacket;
+        private final int endPacket;
+
+        CastTask(RayCaster caster, float[] origins, float[] directions, float[] maxDistances,
+                 RayHits hits, int firstPacket, int endPacket) {
+            this.caster = caster;
+            this.origins = origins;
+            this.directions = directions;
+            this.maxDistances = maxDistances;
+            this.hits = hits;
+            this.firstPacket = firstPacket;
+            this.endPacket = endPacket;
+        }
+
+        @Override
+        protected void compute() {
+            if (endPacket - firstPacket <= PACKETS_PER_TASK) {
+                caster.castPackets(origins, directions, maxDistances, hits, firstPacket,
+                                   endPacket);
+                return;
+            }
+            int middle = (firstPacket + endPacket) >>> 1;
+            invokeAll(new CastTask(caster, origins, directions, maxDistances, hits, firstPacket,
+                                   middle),
+                      new CastTask(caster, origins, directions, maxDistances, hits, middle,
+                                   endPacket));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package mini.collision;
+
+import java.util.Arrays;
+
+/**
+ * The closest hits of a batch of rays cast by a {@link RayCaster}, stored in primitive arrays
+ * indexed by ray. The arrays are reused from one batch to the next and only grow when a batch has
+ * more rays than any previous one.
+ */
+public final class RayHits {
+    private float[] distances = new float[0];
+    private int[] triangles = new int[0];
+    private int[] geometries = new int[0];
+    private int size;
+
+    /**
+     * Prepares the hits of a batch of rays, nothing hit.
+     */
+    void reset(int count) {
+        if (distances.length < count) {
+            distances = new float[count];
+            triangles = new int[count];
+            geometries = new int[count];
+        }
+        Arrays.fill(distances, 0, count, Float.POSITIVE_INFINITY);
+        Arrays.fill(triangles, 0, count, -1);
+        Arrays.fill(geometries, 0, count, -1);
+        size = count;
+    }
+
+    void set(int ray, float distance, int triangle, int geometry) {
+        distances[ray] = distance;
+        triangles[ray] = triangle;
+        geometries[ray] = geometry;
+    }
+
+    /**
+     * @return the number of rays of the last batch
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isHit(int ray) {
+        return geometries[ray] >= 0;
+    }
+
+    /**
+     * @return the distance from the origin of the ray to its closest hit, positive infinity if it
+     * hit nothing
+     */
+    public float getDistance(int ray) {
+        return distances[ray];
+    }
+
+    /**
+     * @return the triangle of the mesh hit by the ray, -1 if it hit nothing or if only the bound
+     * of the geometry was hit because the collision tree of its mesh is not built yet
+     */
+    public int getTriangleIndex(int ray) {
+        return triangles[ray];
+    }
+
+    /**
+     * @return the id of the geometry hit by the ray, -1 if it hit nothing
+     * @see RayCaster#getGeometry(int)
+     */
+    public int getGeometryId(int ray) {
+        return geometries[ray];
+    }
+
+    /**
+     * @return the distances of all the rays, only the first {@link #size()} are valid
+     */
+    public float[] getDistances() {
+        return distances;
+    }
+
+    /**
+     * @return the triangles of all the rays, only the first {@link #size()} are valid
+     */
+    public int[] getTriangleIndices() {
+        return triangles;
+    }
+
+    /**
+     * @return the geometry ids of all the rays, only the first {@link #size()} are valid
+     */
+    public int[] getGeometryIds() {
+        return geometries;
+    }
+}
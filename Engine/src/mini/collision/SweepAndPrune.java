@@ -0,0 +1,296 @@
+package mini.collision;
+
+import java.util.Arrays;
+
+/**
+ * Finds the pairs of overlapping axis aligned boxes, without testing every box against every
+ * other one. The boxes are identified by proxies, small integers chosen by the caller which
+ * index their bounds.
+ * <p>
+ * Every {@link #update(float[])} sorts the two ends of the boxes along one axis. Sweeping the
+ * sorted ends, a box is only tested against the boxes whose interval along the axis it starts
+ * in, so the cost is linear in the number of boxes and in the number of overlaps along that
+ * axis. The ends stay sorted from one update to the next and the boxes move a little between
+ * updates, so sorting them again only takes a few swaps. The axis swept is the one the centers
+ * of the boxes are the most spread along, chosen again when the boxes spread along another
+ * axis, so that boxes laid out on a plane are not swept along its normal.
+ * <p>
+ * Boxes touching each other overlap. An empty box, with its minimum above its maximum,
+ * overlaps nothing.
+ *
+ * @see Broadphase
+ */
+public class SweepAndPrune {
+    private static final int NULL = -1;
+    private static final int MAX_END = 0x80000000;
+    /**
+     * How many times the centers must be more spread along another axis to sweep it instead.
+     */
+    private static final float AXIS_SWITCH_RATIO = 1.5f;
+    /**
+     * Beyond this number of boxes added between two updates, the ends are sorted from scratch
+     * rather than inserted one by one.
+     */
+    private static final int INSERTION_LIMIT = 64;
+
+    private boolean[] removed = new boolean[16];
+    private int removedCount;
+
+    /**
+     * Ends of the boxes along the swept axis: the position, as an int ordered as the float, in
+     * the high bits and the proxy in the low bits, with {@link #MAX_END} set on the maximums so
+     * that boxes touching overlap.
+     */
+    private long[] ends = new long[32];
+    private int endCount;
+    private int insertedCount;
+    private int axis;
+
+    private int[] active = new int[16];
+    private int[] activeIndices = new int[16];
+    private int activeCount;
+
+    /**
+     * Overlapping pairs, sorted, the lower proxy in the high bits.
+     */
+    private long[] pairs = new long[16];
+    private int pairCount;
+
+    /**
+     * Adds a box, its overlaps are found from the next {@link #update(float[])}. A proxy
+     * removed cannot be added again before the next update.
+     *
+     * @param proxy The index of the box in the bounds of the updates
+     */
+    public void add(int proxy) {
+        if (proxy < 0) {
+            throw new IllegalArgumentException("Invalid proxy: " + proxy);
+        }
+        if (proxy >= removed.length) {
+            int capacity = Math.max(proxy + 1, removed.length * 2);
+            removed = Arrays.copyOf(removed, capacity);
+            active = Arrays.copyOf(active, capacity);
+            activeIndices = Arrays.copyOf(activeIndices, capacity);
+        }
+        activeIndices[proxy] = NULL;
+
+        if (endCount + 2 > ends.length) {
+            ends = Arrays.copyOf(ends, ends.length * 2);
+        }
+        ends[endCount++] = proxy;
+        ends[endCount++] = proxy | (MAX_END & 0xFFFFFFFFL);
+        insertedCount++;
+    }
+
+    /**
+     * Removes a box, from the next {@link #update(float[])}.
+     */
+    public void remove(int proxy) {
+        if (proxy < 0 || proxy >= removed.length) {
+            throw new IllegalArgumentException("Invalid proxy: " + proxy);
+        }
+        if (!removed[proxy]) {
+            removed[proxy] = true;
+            removedCount++;
+        }
+    }
+
+    /**
+     * Removes all the boxes.
+     */
+    public void clear() {
+        Arrays.fill(removed, false);
+        removedCount = 0;
+        endCount = 0;
+        insertedCount = 0;
+        pairCount = 0;
+    }
+
+    /**
+     * @return the axis swept at the last update, 0 for x, 1 for y and 2 for z
+     */
+    public int getAxis() {
+        return axis;
+    }
+
+    /**
+     * @return the number of pairs overlapping at the last update
+     */
+    public int getPairCount() {
+        return pairCount;
+    }
+
+    /**
+     * @return a pair overlapping at the last update, the lower proxy in the high 32 bits and
+     * the higher one in the low 32 bits. The pairs are sorted.
+     */
+    public long getPair(int index) {
+        if (index < 0 || index >= pairCount) {
+            throw new IndexOutOfBoundsException("Pair " + index + " of " + pairCount);
+        }
+        return pairs[index];
+    }
+
+    /**
+     * Sorts the ends of the boxes and finds the pairs overlapping.
+     *
+     * @param bounds The boxes, indexed by proxy: min x, y, z then max x, y, z
+     */
+    public void update(float[] bounds) {
+        if (removedCount > 0) {
+            compactEnds();
+        }
+
+        boolean axisChanged = chooseAxis(bounds);
+        int inserted = insertedCount;
+        insertedCount = 0;
+        for (int i = 0; i < endCount; i++) {
+            long end = ends[i];
+            int proxy = (int) end & ~MAX_END;
+            int offset = (int) end < 0 ? 3 : 0;
+            ends[i] = key(bounds[proxy * 6 + offset + axis], (int) end);
+        }
+        if (axisChanged || inserted > INSERTION_LIMIT) {
+            Arrays.sort(ends, 0, endCount);
+        } else {
+            insertionSort(ends, endCount);
+        }
+
+        pairCount = 0;
+        sweep(bounds);
+        Arrays.sort(pairs, 0, pairCount);
+    }
+
+    private void compactEnds() {
+        int count = 0;
+        for (int i = 0; i < endCount; i++) {
+            long end = ends[i];
+            if (!removed[(int) end & ~MAX_END]) {
+                ends[count++] = end;
+            }
+        }
+        endCount = count;
+        Arrays.fill(removed, false);
+        removedCount = 0;
+    }
+
+    /**
+     * Chooses the axis to sweep from the spread of the centers of the boxes.
+     *
+     * @return whether the axis changed
+     */
+    private boolean chooseAxis(float[] bounds) {
+        double sumX = 0, sumY = 0, sumZ = 0;
+        double squareX = 0, squareY = 0, squareZ = 0;
+        int count = 0;
+        for (int i = 0; i < endCount; i++) {
+            int end = (int) ends[i];
+            if (end < 0) {
+                continue;
+            }
+            int o = end * 6;
+            if (bounds[o] > bounds[o + 3]) {
+                continue;
+            }
+            double x = bounds[o] + bounds[o + 3];
+            double y = bounds[o + 1] + bounds[o + 4];
+            double z = bounds[o + 2] + bounds[o + 5];
+            sumX += x;
+            sumY += y;
+            sumZ += z;
+            squareX += x * x;
+            squareY += y * y;
+            squareZ += z * z;
+            count++;
+        }
+        if (count < 2) {
+            return false;
+        }
+
+        double[] variances = {
+                squareX - sumX * sumX / count,
+                squareY - sumY * sumY / count,
+                squareZ - sumZ * sumZ / count
+        };
+        int best = axis;
+        for (int i = 0; i < 3; i++) {
+            if (variances[i] > variances[best]) {
+                best = i;
+            }
+        }
+        if (best != axis && variances[best] > variances[axis] * AXIS_SWITCH_RATIO) {
+            axis = best;
+            return true;
+        }
+        return false;
+    }
+
+    private static long key(float position, int end) {
+        int bits = Float.floatToIntBits(position);
+        bits ^= (bits >> 31) & 0x7FFFFFFF;
+        return ((long) bits << 32) | (end & 0xFFFFFFFFL);
+    }
+
+    private static void insertionSort(long[] keys, int count) {
+        for (int i = 1; i < count; i++) {
+            long key = keys[i];
+            int j = i - 1;
+            if (keys[j] <= key) {
+                continue;
+            }
+            do {
+                keys[j + 1] = keys[j];
+                j--;
+            } while (j >= 0 && keys[j] > key);
+            keys[j + 1] = key;
+        }
+    }
+
+    private void sweep(float[] bounds) {
+        int axis1 = (axis + 1) % 3;
+        int axis2 = (axis + 2) % 3;
+        for (int i = 0; i < endCount; i++) {
+            int end = (int) ends[i];
+            int proxy = end & ~MAX_END;
+            if (end < 0) {
+                int index = activeIndices[proxy];
+                if (index != NULL) {
+                    int last = active[--activeCount];
+                    active[index] = last;
+                    activeIndices[last] = index;
+                    activeIndices[proxy] = NULL;
+                }
+                continue;
+            }
+
+            int o = proxy * 6;
+            float min1 = bounds[o + axis1], max1 = bounds[o + 3 + axis1];
+            float min2 = bounds[o + axis2], max2 = bounds[o + 3 + axis2];
+            for (int a = 0; a < activeCount; a++) {
+                int other = active[a];
+                int p = other * 6;
+                if (bounds[p + axis1] <= max1 && min1 <= bounds[p + 3 + axis1]
+                    && bounds[p + axis2] <= max2 && min2 <= bounds[p + 3 + axis2]) {
+                    addPair(proxy, other);
+                }
+            }
+            activeIndices[proxy] = activeCount;
+            active[activeCount++] = proxy;
+        }
+
+        // Empty boxes end before they start
+        for (int a = 0; a < activeCount; a++) {
+            activeIndices[active[a]] = NULL;
+        }
+        activeCount = 0;
+    }
+
+    private void addPair(int proxy1, int proxy2) {
+        if (pairCount == pairs.length) {
+            pairs = Arrays.copyOf(pairs, pairCount * 2);
+        }
+        pairs[pairCount++] = proxy1 < proxy2
+                             ? ((long) proxy1 << 32) | proxy2
+                             : ((long) proxy2 << 32) | proxy1;
+    }
+}
@@ -0,0 +1,254 @@
+package mini.collision;
+
+import mini.bounding.BoundingBox;
+import mini.bounding.Intersection;
+import mini.math.AbstractTriangle;
+import mini.math.Triangle;
+import mini.math.Vector3f;
+import mini.utils.TempVars;
+
+/**
+ * A sphere moving along a segment, for the continuous collisions of a character or a projectile
+ * with the triangles of meshes. The distance of a collision is the distance travelled by the
+ * sphere until it touches the triangle, the contact point is on the triangle: the closest
+ * collision of a sweep is where the sphere has to stop.
+ * <p>
+ * A sphere overlapping a triangle at its start collides with it at distance 0.
+ */
+public final class SweptSphere implements Collidable {
+    private final Vector3f start = new Vector3f();
+    private final Vector3f direction = new Vector3f(Vector3f.UNIT_Z);
+    private final BoundingBox bounds = new BoundingBox();
+    private float distance;
+    private float radius;
+
+    public SweptSphere() {
+    }
+
+    public SweptSphere(Vector3f start, Vector3f end, float radius) {
+        set(start, end, radius);
+    }
+
+    /**
+     * Sets the segment travelled by the sphere.
+     */
+    public void set(Vector3f start, Vector3f end, float radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("The radius cannot be negative: " + radius);
+        }
+        this.start.set(start);
+        this.radius = radius;
+        direction.set(end).subtractLocal(start);
+        distance = direction.length();
+        if (distance > 0) {
+            direction.divideLocal(distance);
+        } else {
+            direction.set(Vector3f.UNIT_Z);
+        }
+
+        Vector3f center = bounds.getCenter();
+        center.set(start).addLocal(end).multLocal(0.5f);
+        bounds.setXExtent(Math.abs(end.x - start.x) * 0.5f + radius);
+        bounds.setYExtent(Math.abs(end.y - start.y) * 0.5f + radius);
+        bounds.setZExtent(Math.abs(end.z - start.z) * 0.5f + radius);
+    }
+
+    public Vector3f getStart() {
+        return start;
+    }
+
+    /**
+     * @return the normalized direction of the sweep
+     */
+    public Vector3f getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return the length of the sweep
+     */
+    public float getDistance() {
+        return distance;
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+
+    /**
+     * @return the box of the whole sweep, not to be modified
+     */
+    public BoundingBox getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Computes where the sphere first touches a triangle along the sweep. The sphere touches the
+     * face of the triangle first if it hits the plane of the triangle inside the triangle,
+     * otherwise it touches the closest of its vertices and edges.
+     *
+     * @param contactStore The point of the triangle touched, not one of the vertices
+     * @return the distance travelled until the sphere touches the triangle, positive infinity if
+     * it does not touch it along the sweep
+     */
+    public float intersects(Vector3f v1, Vector3f v2, Vector3f v3, Vector3f contactStore) {
+        float radiusSquared = radius * radius;
+        if (Intersection.closestPoint(start, v1, v2, v3, contactStore)
+                        .distanceSquared(start) <= radiusSquared) {
+            return 0;
+        }
+
+        try (TempVars vars = TempVars.get()) {
+            Vector3f edge1 = v2.subtract(v1, vars.vect1);
+            Vector3f edge2 = v3.subtract(v1, vars.vect2);
+            Vector3f normal = edge1.cross(edge2, vars.vect3);
+            float length = normal.length();
+            if (length > 0) {
+                normal.divideLocal(length);
+                float startDistance = normal.dot(start) - normal.dot(v1);
+                float speed = normal.dot(direction);
+                // Double sided, the sphere comes from the side of its start
+                float side = startDistance > 0 ? 1 : -1;
+                if (speed * side < 0 && Math.abs(startDistance) > radius) {
+                    float t = (side * radius - startDistance) / speed;
+                    if (t > distance) {
+                        return Float.POSITIVE_INFINITY;
+                    }
+                    // Where the sphere touches the plane
+                    float offset = side * radius;
+                    Vector3f point = vars.vect4.set(start.x + direction.x * t - normal.x * offset,
+                                                    start.y + direction.y * t - normal.y * offset,
+                                                    start.z + direction.z * t - normal.z * offset);
+                    if (isInside(v1, v2, point, normal) && isInside(v2, v3, point, normal)
+                        && isInside(v3, v1, point, normal)) {
+                        contactStore.set(point);
+                        return t;
+                    }
+                } else if (Math.abs(startDistance) > radius) {
+                    // Moving away from the plane, or along it
+                    return Float.POSITIVE_INFINITY;
+                }
+            }
+
+            float best = Float.POSITIVE_INFINITY;
+            Vector3f contact = vars.vect5;
+            best = sweepVertex(v1, best, contact);
+            best = sweepVertex(v2, best, contact);
+            best = sweepVertex(v3, best, contact);
+            best = sweepEdge(v1, v2, best, contact, vars.vect6);
+            best = sweepEdge(v2, v3, best, contact, vars.vect6);
+            best = sweepEdge(v3, v1, best, contact, vars.vect6);
+            if (best != Float.POSITIVE_INFINITY) {
+                contactStore.set(contact);
+            }
+            return best;
+        }
+    }
+
+    /**
+     * @return whether the point of the plane of the triangle is on the inner side of the edge
+     */
+    private static boolean isInside(Vector3f from, Vector3f to, Vector3f point, Vector3f normal) {
+        float ex = to.x - from.x, ey = to.y - from.y, ez = to.z - from.z;
+        float px = point.x - from.x, py = point.y - from.y, pz = point.z - from.z;
+        return (ey * pz - ez * py) * normal.x + (ez * px - ex * pz) * normal.y
+               + (ex * py - ey * px) * normal.z >= 0;
+    }
+
+    /**
+     * @return the distance to the vertex if the sphere touches it before the best distance so
+     * far, the best distance otherwise
+     */
+    private float sweepVertex(Vector3f vertex, float best, Vector3f contact) {
+        float dx = start.x - vertex.x, dy = start.y - vertex.y, dz = start.z - vertex.z;
+        float b = 2 * (direction.x * dx + direction.y * dy + direction.z * dz);
+        float c = dx * dx + dy * dy + dz * dz - radius * radius;
+        float t = lowestRoot(1, b, c, Math.min(best, distance));
+        if (t < best) {
+            contact.set(vertex);
+            return t;
+        }
+        return best;
+    }
+
+    /**
+     * @return the distance to the edge if the sphere touches it between its ends before the best
+     * distance so far, the best distance otherwise
+     */
+    private float sweepEdge(Vector3f from, Vector3f to, float best, Vector3f contact,
+                            Vector3f edge) {
+        to.subtract(from, edge);
+        float bx = from.x - start.x, by = from.y - start.y, bz = from.z - start.z;
+        float edgeSquared = edge.lengthSquared();
+        float edgeDotDirection = edge.dot(direction);
+        float edgeDotBase = edge.x * bx + edge.y * by + edge.z * bz;
+        float a = -edgeSquared + edgeDotDirection * edgeDotDirection;
+        if (a == 0) {
+            // Parallel to the edge, touches a vertex first
+            return best;
+        }
+        float b = edgeSquared * 2 * (direction.x * bx + direction.y * by + direction.z * bz)
+                  - 2 * edgeDotDirection * edgeDotBase;
+        float c = edgeSquared * (radius * radius - (bx * bx + by * by + bz * bz))
+                  + edgeDotBase * edgeDotBase;
+        float t = lowestRoot(a, b, c, Math.min(best, distance));
+        if (t < best) {
+            float f = (edgeDotDirection * t - edgeDotBase) / edgeSquared;
+            if (f >= 0 && f <= 1) {
+                contact.set(edge).multLocal(f).addLocal(from);
+                return t;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the lowest root of the quadratic between 0 and the maximum, positive infinity if
+     * none
+     */
+    private static float lowestRoot(float a, float b, float c, float max) {
+        float determinant = b * b - 4 * a * c;
+        if (determinant < 0) {
+            return Float.POSITIVE_INFINITY;
+        }
+        float root = (float) Math.sqrt(determinant);
+        float r1 = (-b - root) / (2 * a);
+        float r2 = (-b + root) / (2 * a);
+        if (r1 > r2) {
+            float r = r1;
+            r1 = r2;
+            r2 = r;
+        }
+        if (r1 >= 0 && r1 <= max) {
+            return r1;
+        }
+        if (r2 >= 0 && r2 <= max) {
+            return r2;
+        }
+        return Float.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public int collideWith(Collidable other, CollisionResults results) {
+        if (other instanceof AbstractTriangle) {
+            AbstractTriangle triangle = (AbstractTriangle) other;
+            try (TempVars vars = TempVars.get()) {
+                Vector3f contactPoint = vars.vect1;
+                float d = intersects(triangle.get1(), triangle.get2(), triangle.get3(),
+                                     contactPoint);
+                if (Float.isInfinite(d) || !results.accepts(d)) {
+                    return 0;
+                }
+                CollisionResult result = results.obtainCollision();
+                result.getContactPoint().set(contactPoint);
+                Triangle.computeTriangleNormal(triangle.get1(), triangle.get2(), triangle.get3(),
+                                               result.getContactNormal());
+                result.setDistance(d);
+                results.addCollision(result);
+            }
+            return 1;
+        } else {
+            throw new UnsupportedOperationException("With: " + other.getClass().getSimpleName());
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package mini.collision.bih;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Directory of the collision trees built earlier, so that the meshes of a level loaded again get
+ * their trees without building them. A tree is stored in a file named after the SHA-256 hash of
+ * its triangles, as copied from the position and index buffers of the mesh, and of its maximum
+ * number of triangles per leaf: any change to the mesh selects another file.
+ * <p>
+ * A file holds the order of the triangles and the nodes of the tree, with a CRC32 checksum. It is
+ * memory mapped when loaded, its header, its checksum and the layout of its nodes are checked,
+ * and it is discarded if they do not match the tree. The files are written to a temporary file first and then moved, several
+ * processes can share a directory.
+ *
+ * @see mini.scene.Mesh#setCollisionCache(BIHCache)
+ */
+public class BIHCache {
+    private static final Logger logger = Logger.getLogger(BIHCache.class.getName());
+
+    private static final int MAGIC = 0x42494843; // "BIHC"
+    private static final int VERSION = 2;
+    private static final int HASH_SIZE = 32;
+    /**
+     * Magic, version, hash, maximum triangles per leaf, triangle count, node int count, CRC32 of
+     * the rest of the file.
+     */
+    private static final int CHECKED_OFFSET = 4 + 4 + HASH_SIZE + 4 + 4 + 4 + 4;
+    /**
+     * The header followed by the bounds.
+     */
+    private static final int HEADER_SIZE = CHECKED_OFFSET + 6 * 4;
+    private static final String EXTENSION = ".bih";
+
+    private final Path directory;
+
+    /**
+     * @param directory The directory of the trees, created when the first tree is stored
+     */
+    public BIHCache(Path directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("The directory cannot be null");
+        }
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Constructs a tree, restoring it from the cache if it was stored before, otherwise building
+     * it and storing it. The cache failing to read or write a file is logged, not thrown, the tree
+     * is then built as without cache.
+     *
+     * @param tree The tree to construct, not constructed yet
+     * @return whether the tree was restored from the cache
+     */
+    public boolean construct(BIHTree tree) {
+        byte[] hash = hash(tree);
+        Path file = directory.resolve(toHex(hash) + EXTENSION);
+        if (Files.isRegularFile(file)) {
+            try {
+                if (load(file, hash, tree)) {
+                    return true;
+                }
+                logger.log(Level.WARNING, "Discarded the invalid collision tree {0}", file);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.log(Level.WARNING, "Could not load the collision tree " + file, e);
+            }
+        }
+
+        tree.construct();
+        try {
+            store(file, hash, tree);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not store the collision tree " + file, e);
+        }
+        return false;
+    }
+
+    /**
+     * @return the SHA-256 hash of the triangles of the tree, in the order of the mesh, and of its
+     * maximum number of triangles per leaf
+     */
+    private static byte[] hash(BIHTree tree) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        float[] points = tree.getPointData();
+        ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+        chunk.putInt(VERSION).putInt(tree.getMaxTrisPerNode()).putInt(tree.getTriangleCount());
+        for (float point : points) {
+            if (!chunk.hasRemaining()) {
+                digest.update(chunk.array(), 0, chunk.position());
+                chunk.clear();
+            }
+            chunk.putFloat(point);
+        }
+        digest.update(chunk.array(), 0, chunk.position());
+        return digest.digest();
+    }
+
+    private static boolean load(Path file, byte[] hash, BIHTree tree) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                return false;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return false;
+            }
+            byte[] storedHash = new byte[HASH_SIZE];
+            buffer.get(storedHash);
+            int maxTrisPerNode = buffer.getInt();
+            int triangles = buffer.getInt();
+            int nodeInts = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (!MessageDigest.isEqual(hash, storedHash)
+                || maxTrisPerNode != tree.getMaxTrisPerNode()
+                || triangles != tree.getTriangleCount()
+                || nodeInts < 0
+                || size != HEADER_SIZE + 4L * triangles + 4L * nodeInts) {
+                return false;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                return false;
+            }
+            float[] bounds = new float[6];
+            buffer.asFloatBuffer().get(bounds);
+            buffer.position(buffer.position() + 6 * 4);
+            int[] triIndices = new int[triangles];
+            buffer.asIntBuffer().get(triIndices);
+            buffer.position(buffer.position() + 4 * triangles);
+            int[] nodes = new int[nodeInts];
+            buffer.asIntBuffer().get(nodes);
+            tree.restore(triIndices, nodes, bounds);
+            return true;
+        }
+    }
+
+    private void store(Path file, byte[] hash, BIHTree tree) throws IOException {
+        int[] triIndices = tree.getTriIndices();
+        int[] nodes = tree.getNodes();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4 * triIndices.length
+                                                + 4 * nodes.length);
+        buffer.putInt(MAGIC).putInt(VERSION).put(hash);
+        buffer.putInt(tree.getMaxTrisPerNode()).putInt(triIndices.length).putInt(nodes.length);
+        buffer.position(CHECKED_OFFSET);
+        for (float bound : tree.getBounds()) {
+            buffer.putFloat(bound);
+        }
+        buffer.asIntBuffer().put(triIndices);
+        buffer.position(buffer.position() + 4 * triIndices.length);
+        buffer.asIntBuffer().put(nodes);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), CHECKED_OFFSET, buffer.capacity() - CHECKED_OFFSET);
+        buffer.putInt(CHECKED_OFFSET - 4, (int) crc.getValue());
+        buffer.clear();
+
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Deletes all the trees of the cache.
+     *
+     * @throws UncheckedIOException If a tree could not be deleted
+     */
+    public void clear() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().endsWith(EXTENSION)) {
+                    Files.delete(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
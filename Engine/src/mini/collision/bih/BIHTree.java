@@ -1,12 +1,17 @@
 package mini.collision.bih;
 
 import mini.bounding.BoundingBox;
+import mini.bounding.BoundingSphere;
 import mini.bounding.BoundingVolume;
+import mini.bounding.Intersection;
 import mini.collision.Collidable;
+import mini.collision.CollisionResult;
 import mini.collision.CollisionResults;
+import mini.collision.SweptSphere;
 import mini.math.FastMath;
 import mini.math.Matrix4f;
 import mini.math.Ray;
+import mini.math.Triangle;
 import mini.math.Vector3f;
 import mini.scene.CollisionData;
 import mini.scene.Mesh;
@@ -19,8 +24,8 @@ import mini.scene.mesh.WrappedIndexBuffer;
 import mini.utils.TempVars;
 
 import java.nio.FloatBuffer;
-
-import static java.lang.Math.max;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Bounding Interval Hierachy.
@@ -29,23 +34,54 @@ import static java.lang.Math.max;
  * <p>
  * Instant Ray Tracing: The Bounding Interval Hierachy
  * By Carsten Wächter and Alexander Keller
+ * <p>
+ * Every inner node splits its triangles in two along one axis, and keeps the two planes bounding
+ * the triangles of its children on that axis: the maximum of the left triangles and the minimum of
+ * the right ones. The split is chosen with the surface area heuristic over binned triangle
+ * centroids, and ranges of more than {@link #PARALLEL_GRAIN} triangles are split in parallel with
+ * fork/join. The nodes are flattened into one int array in depth first order, the left child of an
+ * inner node directly follows it, so that a ray walks contiguous memory without dereferencing node
+ * objects.
  */
 public class BIHTree implements CollisionData {
     private static final int MAX_TRIS_PER_NODE = 21;
     private static final int MAX_TREE_DEPTH = 100;
+    /**
+     * Size of the traversal stacks, a ray pushes at most one node per level.
+     */
+    public static final int MAX_STACK_SIZE = MAX_TREE_DEPTH + 2;
+    /**
+     * Minimum number of triangles of a range split in parallel with its sibling.
+     */
+    private static final int PARALLEL_GRAIN = 4096;
+    private static final int BINS = 16;
+    /**
+     * Cost of visiting a node, relative to the cost of intersecting a triangle.
+     */
+    private static final float TRAVERSAL_COST = 1f;
+    /**
+     * Relative margin added around the range of a ray inside the bound of the tree.
+     */
+    private static final float RANGE_TOLERANCE = 1e-5f;
 
-    private Mesh mesh;
-    private BIHNode root;
-    private int maxTrisPerNode;
-    private int numTris;
+    /**
+     * Layout of a node: the axis, or LEAF, followed by the bits of the left and right planes and
+     * the index of the right child for inner nodes, the first and last triangles for leaves.
+     */
+    private static final int NODE_SIZE = 4;
+    private static final int LEAF = 3;
+
+    private final int maxTrisPerNode;
+    private final int numTris;
     private float[] pointData;
     private int[] triIndices;
-
-    // private transient CollisionResults boundResults = new CollisionResults();
-    private transient float[] bihSwapTmp;
+    private int[] nodes;
+    /**
+     * Box of all the triangles, min x, y, z then max x, y, z.
+     */
+    private final float[] bounds = new float[6];
 
     public BIHTree(Mesh mesh, int maxTrisPerNode) {
-        this.mesh = mesh;
         this.maxTrisPerNode = maxTrisPerNode;
 
         if (maxTrisPerNode < 1) {
@@ -55,8 +91,6 @@ public class BIHTree implements CollisionData {
             throw new IllegalArgumentException("Mesh cannot be null");
         }
 
-        bihSwapTmp = new float[9];
-
         VertexBuffer vBuffer = mesh.getBuffer(Type.Position);
         if (vBuffer == null) {
             throw new IllegalArgumentException("A mesh should at least contain a Position buffer");
@@ -104,154 +138,123 @@ public class BIHTree implements CollisionData {
         }
     }
 
+    /**
+     * Builds the tree, splitting large meshes in parallel on the common fork/join pool.
+     */
     public void construct() {
-        BoundingBox sceneBbox = createBox(0, numTris - 1);
-        root = createNode(0, numTris - 1, sceneBbox, 0);
-    }
-
-    private BoundingBox createBox(int l, int r) {
-        TempVars vars = TempVars.get();
-
-        Vector3f min = vars.vect1.set(new Vector3f(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
-                                                   Float.POSITIVE_INFINITY));
-        Vector3f max = vars.vect2.set(new Vector3f(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY,
-                                                   Float.NEGATIVE_INFINITY));
-
-        Vector3f v1 = vars.vect3,
-                v2 = vars.vect4,
-                v3 = vars.vect5;
-
-        for (int i = l; i <= r; i++) {
-            getTriangle(i, v1, v2, v3);
-            BoundingBox.checkMinMax(min, max, v1);
-            BoundingBox.checkMinMax(min, max, v2);
-            BoundingBox.checkMinMax(min, max, v3);
-        }
-
-        BoundingBox bbox = new BoundingBox(min, max);
-        vars.release();
-        return bbox;
+        construct(ForkJoinPool.commonPool());
     }
 
-    int getTriangleIndex(int triIndex) {
-        return triIndices[triIndex];
-    }
-
-    private int sortTriangles(int l, int r, float split, int axis) {
-        int pivot = l;
-        int j = r;
-
-        TempVars vars = TempVars.get();
-
-        Vector3f v1 = vars.vect1,
-                v2 = vars.vect2,
-                v3 = vars.vect3;
-
-        while (pivot <= j) {
-            getTriangle(pivot, v1, v2, v3);
-            v1.addLocal(v2).addLocal(v3).multLocal(FastMath.ONE_THIRD);
-            if (v1.get(axis) > split) {
-                swapTriangles(pivot, j);
-                --j;
-            } else {
-                ++pivot;
+    /**
+     * Builds the tree.
+     *
+     * @param pool The pool splitting large meshes in parallel, or null to build the tree on the
+     *             calling thread only
+     */
+    public void construct(ForkJoinPool pool) {
+        BuildTask task = new BuildTask(0, numTris - 1, 0, pool != null);
+        BuildNode root = pool != null && numTris >= PARALLEL_GRAIN ? pool.invoke(task)
+                                                                   : task.compute();
+        int[] flat = new int[root.nodeCount * NODE_SIZE];
+        flatten(root, flat, 0);
+        resetBox(bounds, 0);
+        for (int i = 0; i < numTris; i++) {
+            for (int k = 0; k < 3; k++) {
+                bounds[k] = Math.min(bounds[k], triangleMin(i, k));
+                bounds[3 + k] = Math.max(bounds[3 + k], triangleMax(i, k));
             }
         }
-
-        vars.release();
-        pivot = (pivot == l && j < pivot) ? j : pivot;
-        return pivot;
+        nodes = flat;
     }
 
-    private void setMinMax(BoundingBox bbox, boolean doMin, int axis, float value) {
-        Vector3f min = bbox.getMin(null);
-        Vector3f max = bbox.getMax(null);
-
-        if (doMin) {
-            min.set(axis, value);
-        } else {
-            max.set(axis, value);
+    /**
+     * Restores the nodes of a tree built earlier for the same triangles, see {@link BIHCache}.
+     * The triangles are sorted in the order of the restored indices.
+     *
+     * @throws IllegalArgumentException If the indices or the nodes do not make a tree of the
+     *                                  triangles, or if the tree is deeper than the trees built
+     */
+    void restore(int[] triIndices, int[] nodes, float[] bounds) {
+        if (this.nodes != null) {
+            throw new IllegalStateException("The tree is already constructed");
         }
-
-        bbox.setMinMax(min, max);
-    }
-
-    private float getMinMax(BoundingBox bbox, boolean doMin, int axis) {
-        if (doMin) {
-            return bbox.getMin(null).get(axis);
-        } else {
-            return bbox.getMax(null).get(axis);
+        if (triIndices.length != numTris || nodes.length == 0 || nodes.length % NODE_SIZE != 0) {
+            throw new IllegalArgumentException("Not a tree of " + numTris + " triangles");
         }
-    }
-
-    private BIHNode createNode(int l, int r, BoundingBox nodeBbox, int depth) {
-        if ((r - l) < maxTrisPerNode || depth > MAX_TREE_DEPTH) {
-            return new BIHNode(l, r);
+        boolean[] restored = new boolean[numTris];
+        for (int index : triIndices) {
+            if (index < 0 || index >= numTris || restored[index]) {
+                throw new IllegalArgumentException("Not a permutation of the triangles");
+            }
+            restored[index] = true;
         }
-
-        BoundingBox currentBox = createBox(l, r);
-
-        Vector3f exteriorExt = nodeBbox.getExtent(null);
-        Vector3f interiorExt = currentBox.getExtent(null);
-        exteriorExt.subtractLocal(interiorExt);
-
-        int axis;
-        if (exteriorExt.x > exteriorExt.y) {
-            if (exteriorExt.x > exteriorExt.z) {
-                axis = 0;
-            } else {
-                axis = 2;
+        int nodeCount = nodes.length / NODE_SIZE;
+        // The children follow their parent, the depths are final when a node is reached
+        int[] depths = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            int o = node * NODE_SIZE;
+            if (nodes[o] == LEAF) {
+                if (nodes[o + 1] < 0 || nodes[o + 2] >= numTris || nodes[o + 1] > nodes[o + 2] + 1) {
+                    throw new IllegalArgumentException("Invalid triangles in leaf " + node);
+                }
+                continue;
             }
-        } else {
-            if (exteriorExt.y > exteriorExt.z) {
-                axis = 1;
-            } else {
-                axis = 2;
+            if (nodes[o] < 0 || nodes[o] > 2 || nodes[o + 3] <= node + 1
+                || nodes[o + 3] >= nodeCount) {
+                throw new IllegalArgumentException("Invalid inner node " + node);
             }
-        }
-        if (exteriorExt.equals(Vector3f.ZERO)) {
-            axis = 0;
+            // The traversal stacks are sized for the trees built
+            int depth = depths[node] + 1;
+            if (depth > MAX_TREE_DEPTH) {
+                throw new IllegalArgumentException("Tree deeper than " + MAX_TREE_DEPTH);
+            }
+            depths[node + 1] = Math.max(depths[node + 1], depth);
+            depths[nodes[o + 3]] = Math.max(depths[nodes[o + 3]], depth);
         }
 
-        float split = currentBox.getCenter().get(axis);
-        int pivot = sortTriangles(l, r, split, axis);
-        if (pivot == l || pivot == r) {
-            pivot = (r + l) / 2;
+        float[] sorted = new float[pointData.length];
+        for (int i = 0; i < numTris; i++) {
+            System.arraycopy(pointData, triIndices[i] * 9, sorted, i * 9, 9);
         }
+        pointData = sorted;
+        this.triIndices = triIndices;
+        System.arraycopy(bounds, 0, this.bounds, 0, 6);
+        this.nodes = nodes;
+    }
 
-        //If one of the partitions is empty, continue with recursion: same level but different bbox
-        if (pivot < l) {
-            // only right side
-            BoundingBox rbbox = new BoundingBox(currentBox);
-            setMinMax(rbbox, true, axis, split);
-            return createNode(l, r, rbbox, depth + 1);
-        } else if (pivot > r) {
-            // only left
-            BoundingBox lbbox = new BoundingBox(currentBox);
-            setMinMax(lbbox, false, axis, split);
-            return createNode(l, r, lbbox, depth + 1);
-        } else {
-            // Build the node
-            BIHNode node = new BIHNode(axis);
+    int getMaxTrisPerNode() {
+        return maxTrisPerNode;
+    }
 
-            // Left child
-            BoundingBox lbbox = new BoundingBox(currentBox);
-            setMinMax(lbbox, false, axis, split);
+    float[] getPointData() {
+        return pointData;
+    }
 
-            // The left node right border is the plane most right
-            node.setLeftPlane(getMinMax(createBox(l, max(l, pivot - 1)), false, axis));
-            node.setLeftChild(createNode(l, max(l, pivot - 1), lbbox, depth + 1)); // Recursive call
+    int[] getTriIndices() {
+        return triIndices;
+    }
 
-            // Right child
-            BoundingBox rbbox = new BoundingBox(currentBox);
-            setMinMax(rbbox, true, axis, split);
+    int[] getNodes() {
+        return nodes;
+    }
 
-            // The right node left border is the plane most left
-            node.setRightPlane(getMinMax(createBox(pivot, r), true, axis));
-            node.setRightChild(createNode(pivot, r, rbbox, depth + 1)); // Recursive call
+    float[] getBounds() {
+        return bounds;
+    }
 
-            return node;
-        }
+    /**
+     * @return the number of nodes of the tree, 0 before it is built
+     */
+    public int getNodeCount() {
+        return nodes == null ? 0 : nodes.length / NODE_SIZE;
+    }
+
+    public int getTriangleCount() {
+        return numTris;
+    }
+
+    int getTriangleIndex(int triIndex) {
+        return triIndices[triIndex];
     }
 
     public void getTriangle(int index, Vector3f v1, Vector3f v2, Vector3f v3) {
@@ -273,15 +276,12 @@ public class BIHTree implements CollisionData {
     public void swapTriangles(int index1, int index2) {
         int p1 = index1 * 9;
         int p2 = index2 * 9;
-
-        // store p1 in tmp
-        System.arraycopy(pointData, p1, bihSwapTmp, 0, 9);
-
-        // copy p2 to p1
-        System.arraycopy(pointData, p2, pointData, p1, 9);
-
-        // copy tmp to p2
-        System.arraycopy(bihSwapTmp, 0, pointData, p2, 9);
+        // Swapped in place, the ranges of the triangles are sorted concurrently
+        for (int k = 0; k < 9; k++) {
+            float tmp = pointData[p1 + k];
+            pointData[p1 + k] = pointData[p2 + k];
+            pointData[p2 + k] = tmp;
+        }
 
         // swap indices
         int tmp2 = triIndices[index1];
@@ -289,6 +289,53 @@ public class BIHTree implements CollisionData {
         triIndices[index2] = tmp2;
     }
 
+    private float triangleMin(int index, int axis) {
+        int p = index * 9 + axis;
+        return Math.min(pointData[p], Math.min(pointData[p + 3], pointData[p + 6]));
+    }
+
+    private float triangleMax(int index, int axis) {
+        int p = index * 9 + axis;
+        return Math.max(pointData[p], Math.max(pointData[p + 3], pointData[p + 6]));
+    }
+
+    private static float area(float[] box, int o) {
+        float dx = box[o + 3] - box[o];
+        float dy = box[o + 4] - box[o + 1];
+        float dz = box[o + 5] - box[o + 2];
+        return dx * dy + dy * dz + dz * dx;
+    }
+
+    private static void resetBox(float[] box, int o) {
+        for (int k = 0; k < 3; k++) {
+            box[o + k] = Float.POSITIVE_INFINITY;
+            box[o + 3 + k] = Float.NEGATIVE_INFINITY;
+        }
+    }
+
+    private static void mergeBox(float[] box, int o, float[] other, int p) {
+        for (int k = 0; k < 3; k++) {
+            box[o + k] = Math.min(box[o + k], other[p + k]);
+            box[o + 3 + k] = Math.max(box[o + 3 + k], other[p + 3 + k]);
+        }
+    }
+
+    private int flatten(BuildNode node, int[] flat, int index) {
+        int o = index * NODE_SIZE;
+        if (node.left == null) {
+            flat[o] = LEAF;
+            flat[o + 1] = node.first;
+            flat[o + 2] = node.last;
+            return index + 1;
+        }
+        flat[o] = node.axis;
+        flat[o + 1] = Float.floatToRawIntBits(node.leftPlane);
+        flat[o + 2] = Float.floatToRawIntBits(node.rightPlane);
+        int right = flatten(node.left, flat, index + 1);
+        flat[o + 3] = right;
+        return flatten(node.right, flat, right);
+    }
+
     private int collideWithRay(Ray r, Matrix4f worldMatrix, BoundingVolume worldBound,
                                CollisionResults results) {
         TempVars vars = TempVars.get();
@@ -317,8 +364,12 @@ public class BIHTree implements CollisionData {
                     }
                 }
 
-                //            return root.intersectBrute(r, worldMatrix, this, tMin, tMax, results);
-                return root.intersectWhere(r, worldMatrix, this, tMin, tMax, results);
+                // The split planes may lie on the faces of the bound, the distances to them are
+                // rounded otherwise than the range and would cut off the nodes on the faces
+                tMin -= tMin * RANGE_TOLERANCE;
+                tMax += tMax * RANGE_TOLERANCE;
+
+                return intersectWhere(r, worldMatrix, tMin, tMax, results, vars);
             }
             return 0;
         } finally {
@@ -326,32 +377,673 @@ public class BIHTree implements CollisionData {
         }
     }
 
-//    private int collideWithBoundingVolume(BoundingVolume bv,
-////                                          Matrix4f worldMatrix,
-////                                          CollisionResults results) {
-////        BoundingBox bbox;
-////        if (bv instanceof BoundingBox) {
-////            bbox = new BoundingBox((BoundingBox) bv);
-////        } else {
-////            throw new UnsupportedOperationException("BoundingVolume:" + bv);
-////        }
-////
-////        bbox.transform(worldMatrix.invert(), bbox);
-////        return root.intersectWhere(bv, bbox, worldMatrix, this, results);
-////    }
+    /**
+     * Walks the nodes intersecting the ray between the two distances and adds the triangles hit.
+     * The ray is transformed in model space, with a direction that is not normalized so that the
+     * distances along it are the distances in world space.
+     */
+    private int intersectWhere(Ray ray, Matrix4f worldMatrix, float sceneMin, float sceneMax,
+                               CollisionResults results, TempVars vars) {
+        int[] nodeStack = vars.bihNodeStack;
+        float[] rangeStack = vars.bihRangeStack;
+        Matrix4f inv = vars.tempMat4.set(worldMatrix).invertLocal();
+        Ray modelRay = vars.bihRay;
+        inv.mult(ray.origin, modelRay.origin);
+        inv.multNormal(ray.direction, modelRay.direction);
+
+        Vector3f origin = modelRay.origin;
+        Vector3f direction = modelRay.direction;
+        float ox = origin.x, oy = origin.y, oz = origin.z;
+        float ix = 1f / direction.x, iy = 1f / direction.y, iz = 1f / direction.z;
+        direction.normalizeLocal();
+
+        Vector3f v1 = vars.vect3,
+                v2 = vars.vect4,
+                v3 = vars.vect5;
+        int[] nodes = this.nodes;
+        int collisions = 0;
+
+        int size = 0;
+        nodeStack[0] = 0;
+        rangeStack[0] = sceneMin;
+        rangeStack[1] = sceneMax;
+        size++;
+
+        stackloop:
+        while (size > 0) {
+            size--;
+            int node = nodeStack[size];
+            float tMin = rangeStack[size * 2];
+            // Beyond the collisions kept by the results
+            float tMax = Math.min(rangeStack[size * 2 + 1], results.getMaxDistance());
+
+            if (tMax < tMin) {
+                continue;
+            }
+
+            int o = node * NODE_SIZE;
+            while (nodes[o] != LEAF) {
+                int axis = nodes[o];
+                float rayOrigin;
+                float invDirection;
+                if (axis == 0) {
+                    rayOrigin = ox;
+                    invDirection = ix;
+                } else if (axis == 1) {
+                    rayOrigin = oy;
+                    invDirection = iy;
+                } else {
+                    rayOrigin = oz;
+                    invDirection = iz;
+                }
+
+                float tNearSplit = (Float.intBitsToFloat(nodes[o + 1]) - rayOrigin) * invDirection;
+                float tFarSplit = (Float.intBitsToFloat(nodes[o + 2]) - rayOrigin) * invDirection;
+                int nearNode = node + 1;
+                int farNode = nodes[o + 3];
+
+                if (invDirection < 0) {
+                    float tmpSplit = tNearSplit;
+                    tNearSplit = tFarSplit;
+                    tFarSplit = tmpSplit;
+
+                    int tmpNode = nearNode;
+                    nearNode = farNode;
+                    farNode = tmpNode;
+                }
+
+                if (tMin > tNearSplit && tMax < tFarSplit) {
+                    continue stackloop;
+                }
+
+                if (tMin > tNearSplit) {
+                    tMin = Math.max(tMin, tFarSplit);
+                    node = farNode;
+                } else if (tMax < tFarSplit) {
+                    tMax = Math.min(tMax, tNearSplit);
+                    node = nearNode;
+                } else {
+                    nodeStack[size] = farNode;
+                    rangeStack[size * 2] = Math.max(tMin, tFarSplit);
+                    rangeStack[size * 2 + 1] = tMax;
+                    size++;
+                    tMax = Math.min(tMax, tNearSplit);
+                    node = nearNode;
+                }
+                o = node * NODE_SIZE;
+            }
+
+            // a leaf
+            for (int i = nodes[o + 1]; i <= nodes[o + 2]; i++) {
+                getTriangle(i, v1, v2, v3);
+
+                float t = modelRay.intersects(v1, v2, v3);
+                if (!Float.isInfinite(t)) {
+                    Vector3f contactPoint = vars.vect6.set(direction).multLocal(t).addLocal(origin);
+                    worldMatrix.mult(contactPoint, contactPoint);
+                    float worldSpaceDist = ray.origin.distance(contactPoint);
+                    if (worldSpaceDist > ray.limit || !results.accepts(worldSpaceDist)) {
+                        continue;
+                    }
+
+                    worldMatrix.mult(v1, v1);
+                    worldMatrix.mult(v2, v2);
+                    worldMatrix.mult(v3, v3);
+
+                    CollisionResult cr = results.obtainCollision();
+                    cr.getContactPoint().set(contactPoint);
+                    Triangle.computeTriangleNormal(v1, v2, v3, cr.getContactNormal());
+                    cr.setDistance(worldSpaceDist);
+                    cr.setTriangleIndex(getTriangleIndex(i));
+                    results.addCollision(cr);
+                    collisions++;
+                    if (results.isDone()) {
+                        return collisions;
+                    }
+                }
+            }
+        }
+
+        return collisions;
+    }
+
+    /**
+     * Intersects the rays of a packet with the triangles, keeping the closest hit of every ray. The
+     * packet walks the tree as a whole: a node is visited if one of the rays intersects its box
+     * before its closest hit so far, and the children are visited in the order of the first ray.
+     * Coherent rays, e.g. starting from the same point in close directions, share most of their
+     * nodes.
+     *
+     * @param packet The rays, in the model space of the tree
+     * @param mask   The rays of the packet to intersect, bit i for the ray i
+     * @return the rays whose closest hit is now on a triangle of this tree
+     */
+    public int intersectClosest(RayPacket packet, int mask) {
+        if (nodes == null) {
+            throw new IllegalStateException("The tree is not constructed");
+        }
+        int[] nodes = this.nodes;
+        int[] nodeStack = packet.nodeStack;
+        int[] maskStack = packet.maskStack;
+        float[] boxStack = packet.boxStack;
+        float[] far = packet.far;
+        int hits = 0;
+
+        int size = 0;
+        nodeStack[0] = 0;
+        maskStack[0] = mask;
+        System.arraycopy(bounds, 0, boxStack, 0, 6);
+        size++;
+
+        while (size > 0) {
+            size--;
+            int node = nodeStack[size];
+            int b = size * 6;
+            int active = 0;
+            for (int rays = maskStack[size]; rays != 0; rays &= rays - 1) {
+                int ray = Integer.numberOfTrailingZeros(rays);
+                if (intersectsBox(packet, ray, boxStack, b)) {
+                    active |= 1 << ray;
+                }
+            }
+            if (active == 0) {
+                continue;
+            }
+
+            int o = node * NODE_SIZE;
+            int axis = nodes[o];
+            if (axis == LEAF) {
+                for (int i = nodes[o + 1]; i <= nodes[o + 2]; i++) {
+                    int p = i * 9;
+                    for (int rays = active; rays != 0; rays &= rays - 1) {
+                        int ray = Integer.numberOfTrailingZeros(rays);
+                        float t = intersectTriangle(p, packet.originX[ray], packet.originY[ray],
+                                                    packet.originZ[ray], packet.directionX[ray],
+                                                    packet.directionY[ray], packet.directionZ[ray]);
+                        if (t <= far[ray] && t != Float.POSITIVE_INFINITY) {
+                            far[ray] = t;
+                            packet.triangles[ray] = triIndices[i];
+                            hits |= 1 << ray;
+                        }
+                    }
+                }
+                continue;
+            }
+
+            // The children get the box of this node clipped by their plane
+            int left = size;
+            int right = size + 1;
+            System.arraycopy(boxStack, b, boxStack, right * 6, 6);
+            boxStack[left * 6 + 3 + axis] = Math.min(boxStack[b + 3 + axis],
+                                                     Float.intBitsToFloat(nodes[o + 1]));
+            boxStack[right * 6 + axis] = Math.max(boxStack[b + axis],
+                                                  Float.intBitsToFloat(nodes[o + 2]));
+            int first = Integer.numberOfTrailingZeros(active);
+            float direction = axis == 0 ? packet.directionX[first]
+                                        : axis == 1 ? packet.directionY[first]
+                                                    : packet.directionZ[first];
+            // The near child is popped first
+            int leftNode = node + 1;
+            int rightNode = nodes[o + 3];
+            if (direction >= 0) {
+                swapBoxes(boxStack, left, right);
+                nodeStack[left] = rightNode;
+                nodeStack[right] = leftNode;
+            } else {
+                nodeStack[left] = leftNode;
+                nodeStack[right] = rightNode;
+            }
+            maskStack[left] = active;
+            maskStack[right] = active;
+            size += 2;
+        }
+        return hits;
+    }
+
+    private static void swapBoxes(float[] boxStack, int a, int b) {
+        for (int k = 0; k < 6; k++) {
+            float tmp = boxStack[a * 6 + k];
+            boxStack[a * 6 + k] = boxStack[b * 6 + k];
+            boxStack[b * 6 + k] = tmp;
+        }
+    }
+
+    /**
+     * Slab test of a ray of the packet against a box, before the closest hit of the ray.
+     */
+    private static boolean intersectsBox(RayPacket packet, int ray, float[] box, int o) {
+        float ox = packet.originX[ray], oy = packet.originY[ray], oz = packet.originZ[ray];
+        float ix = packet.inverseX[ray], iy = packet.inverseY[ray], iz = packet.inverseZ[ray];
+        float t1 = (box[o] - ox) * ix, t2 = (box[o + 3] - ox) * ix;
+        float near = Math.min(t1, t2), far = Math.max(t1, t2);
+        t1 = (box[o + 1] - oy) * iy;
+        t2 = (box[o + 4] - oy) * iy;
+        near = Math.max(near, Math.min(t1, t2));
+        far = Math.min(far, Math.max(t1, t2));
+        t1 = (box[o + 2] - oz) * iz;
+        t2 = (box[o + 5] - oz) * iz;
+        near = Math.max(near, Math.min(t1, t2));
+        far = Math.min(far, Math.max(t1, t2));
+        // NaN when the ray is parallel to a face of the box, which does not cull it
+        return !(near > far) && !(far < 0) && !(near > packet.far[ray]);
+    }
+
+    /**
+     * Same test as {@link Ray#intersects(Vector3f, Vector3f, Vector3f)}, on the triangle starting
+     * at the given offset of the point data.
+     *
+     * @return the distance of the hit along the direction, or positive infinity
+     */
+    private float intersectTriangle(int p, float ox, float oy, float oz,
+                                    float dx, float dy, float dz) {
+        float[] points = pointData;
+        float v0x = points[p], v0y = points[p + 1], v0z = points[p + 2];
+        float edge1X = points[p + 3] - v0x;
+        float edge1Y = points[p + 4] - v0y;
+        float edge1Z = points[p + 5] - v0z;
+        float edge2X = points[p + 6] - v0x;
+        float edge2Y = points[p + 7] - v0y;
+        float edge2Z = points[p + 8] - v0z;
+
+        float normX = edge1Y * edge2Z - edge1Z * edge2Y;
+        float normY = edge1Z * edge2X - edge1X * edge2Z;
+        float normZ = edge1X * edge2Y - edge1Y * edge2X;
+        float dirDotNorm = dx * normX + dy * normY + dz * normZ;
+
+        float sign;
+        if (dirDotNorm > FastMath.FLT_EPSILON) {
+            sign = 1;
+        } else if (dirDotNorm < -FastMath.FLT_EPSILON) {
+            sign = -1f;
+            dirDotNorm = -dirDotNorm;
+        } else {
+            return Float.POSITIVE_INFINITY;
+        }
+
+        float diffX = ox - v0x;
+        float diffY = oy - v0y;
+        float diffZ = oz - v0z;
+        float dirDotDiffxEdge2 = sign * (dx * (diffY * edge2Z - diffZ * edge2Y)
+                                         + dy * (diffZ * edge2X - diffX * edge2Z)
+                                         + dz * (diffX * edge2Y - diffY * edge2X));
+        if (dirDotDiffxEdge2 < 0) {
+            return Float.POSITIVE_INFINITY;
+        }
+        float dirDotEdge1xDiff = sign * (dx * (edge1Y * diffZ - edge1Z * diffY)
+                                         + dy * (edge1Z * diffX - edge1X * diffZ)
+                                         + dz * (edge1X * diffY - edge1Y * diffX));
+        if (dirDotEdge1xDiff < 0 || dirDotDiffxEdge2 + dirDotEdge1xDiff > dirDotNorm) {
+            return Float.POSITIVE_INFINITY;
+        }
+        float diffDotNorm = -sign * (diffX * normX + diffY * normY + diffZ * normZ);
+        if (diffDotNorm < 0) {
+            return Float.POSITIVE_INFINITY;
+        }
+        return diffDotNorm / dirDotNorm;
+    }
 
     public int collideWith(Collidable other,
                            Matrix4f worldMatrix,
                            BoundingVolume worldBound,
                            CollisionResults results) {
+        if (nodes == null) {
+            throw new IllegalStateException("The tree is not constructed");
+        }
 
         if (other instanceof Ray) {
             Ray ray = (Ray) other;
             return collideWithRay(ray, worldMatrix, worldBound, results);
-        } else if (other instanceof BoundingVolume) {
-            throw new UnsupportedOperationException();
+        } else if (other instanceof BoundingBox) {
+            BoundingBox box = (BoundingBox) other;
+            return collideWithVolume(box, box, worldMatrix, results);
+        } else if (other instanceof BoundingSphere) {
+            BoundingSphere sphere = (BoundingSphere) other;
+            TempVars vars = TempVars.get();
+            try {
+                float radius = sphere.getRadius();
+                BoundingBox box = vars.bbox;
+                box.setCenter(sphere.getCenter());
+                box.setXExtent(radius);
+                box.setYExtent(radius);
+                box.setZExtent(radius);
+                return collideWithVolume(sphere, box, worldMatrix, results);
+            } finally {
+                vars.release();
+            }
+        } else if (other instanceof SweptSphere) {
+            SweptSphere sweep = (SweptSphere) other;
+            return collideWithVolume(sweep, sweep.getBounds(), worldMatrix, results);
         } else {
             throw new UnsupportedOperationException("Collidable:" + other);
         }
     }
+
+    /**
+     * Walks the nodes overlapping the box of a query and adds the triangles colliding with the
+     * query: the triangles overlapping a box or a sphere, with the point of the triangle closest
+     * to its center as contact, or the triangles touched by a swept sphere. The nodes are walked
+     * in model space, with the box of the query transformed in model space, and the triangles are
+     * tested in world space. The results are pooled, nothing is allocated.
+     */
+    private int collideWithVolume(Collidable query, BoundingBox worldBox, Matrix4f worldMatrix,
+                                  CollisionResults results) {
+        TempVars vars = TempVars.get();
+        try {
+            // Box of the query in model space
+            Matrix4f inv = vars.tempMat4.set(worldMatrix).invertLocal();
+            Vector3f center = inv.mult(worldBox.getCenter(), vars.vect1);
+            float ex = worldBox.getXExtent(), ey = worldBox.getYExtent(), ez = worldBox.getZExtent();
+            float[] box = vars.bihQueryBox;
+            for (int k = 0; k < 3; k++) {
+                float extent = Math.abs(inv.get(k, 0)) * ex + Math.abs(inv.get(k, 1)) * ey
+                               + Math.abs(inv.get(k, 2)) * ez;
+                box[k] = center.get(k) - extent;
+                box[3 + k] = center.get(k) + extent;
+                if (box[k] > bounds[3 + k] || box[3 + k] < bounds[k]) {
+                    return 0;
+                }
+            }
+
+            Vector3f v1 = vars.vect3, v2 = vars.vect4, v3 = vars.vect5;
+            Vector3f contact = vars.vect6;
+            int[] nodeStack = vars.bihNodeStack;
+            int[] nodes = this.nodes;
+            int collisions = 0;
+            int size = 0;
+            nodeStack[size++] = 0;
+
+            stackloop:
+            while (size > 0) {
+                int node = nodeStack[--size];
+                int o = node * NODE_SIZE;
+                while (nodes[o] != LEAF) {
+                    int axis = nodes[o];
+                    boolean left = box[axis] <= Float.intBitsToFloat(nodes[o + 1]);
+                    boolean right = box[3 + axis] >= Float.intBitsToFloat(nodes[o + 2]);
+                    if (left && right) {
+                        nodeStack[size++] = nodes[o + 3];
+                        node++;
+                    } else if (left) {
+                        node++;
+                    } else if (right) {
+                        node = nodes[o + 3];
+                    } else {
+                        continue stackloop;
+                    }
+                    o = node * NODE_SIZE;
+                }
+
+                for (int i = nodes[o + 1]; i <= nodes[o + 2]; i++) {
+                    if (!overlaps(i, box)) {
+                        continue;
+                    }
+                    getTriangle(i, v1, v2, v3);
+                    worldMatrix.mult(v1, v1);
+                    worldMatrix.mult(v2, v2);
+                    worldMatrix.mult(v3, v3);
+
+                    float distance = intersects(query, v1, v2, v3, contact);
+                    if (distance != Float.POSITIVE_INFINITY && results.accepts(distance)) {
+                        CollisionResult cr = results.obtainCollision();
+                        cr.getContactPoint().set(contact);
+                        Triangle.computeTriangleNormal(v1, v2, v3, cr.getContactNormal());
+                        cr.setDistance(distance);
+                        cr.setTriangleIndex(getTriangleIndex(i));
+                        results.addCollision(cr);
+                        collisions++;
+                        if (results.isDone()) {
+                            return collisions;
+                        }
+                    }
+                }
+            }
+            return collisions;
+        } finally {
+            vars.release();
+        }
+    }
+
+    private boolean overlaps(int triangle, float[] box) {
+        for (int k = 0; k < 3; k++) {
+            if (triangleMin(triangle, k) > box[3 + k] || triangleMax(triangle, k) < box[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the distance of the collision of the query with the triangle in world space,
+     * positive infinity if they do not collide
+     */
+    private static float intersects(Collidable query, Vector3f v1, Vector3f v2, Vector3f v3,
+                                    Vector3f contactStore) {
+        if (query instanceof SweptSphere) {
+            return ((SweptSphere) query).intersects(v1, v2, v3, contactStore);
+        }
+        BoundingVolume volume = (BoundingVolume) query;
+        Vector3f center = volume.getCenter();
+        if (volume instanceof BoundingSphere) {
+            float radius = ((BoundingSphere) volume).getRadius();
+            float distanceSquared = Intersection.closestPoint(center, v1, v2, v3, contactStore)
+                                                .distanceSquared(center);
+            return distanceSquared <= radius * radius ? FastMath.sqrt(distanceSquared)
+                                                      : Float.POSITIVE_INFINITY;
+        }
+        if (!Intersection.intersect((BoundingBox) volume, v1, v2, v3)) {
+            return Float.POSITIVE_INFINITY;
+        }
+        return Intersection.closestPoint(center, v1, v2, v3, contactStore).distance(center);
+    }
+
+    /**
+     * Node of the tree while it is built, flattened once the whole tree is built.
+     */
+    private static final class BuildNode {
+        private final int first;
+        private final int last;
+        private final int nodeCount;
+        private int axis;
+        private float leftPlane;
+        private float rightPlane;
+        private BuildNode left;
+        private BuildNode right;
+
+        BuildNode(int first, int last) {
+            this.first = first;
+            this.last = last;
+            this.nodeCount = 1;
+        }
+
+        BuildNode(int axis, float leftPlane, float rightPlane, BuildNode left, BuildNode right) {
+            this.first = left.first;
+            this.last = right.last;
+            this.nodeCount = 1 + left.nodeCount + right.nodeCount;
+            this.axis = axis;
+            this.leftPlane = leftPlane;
+            this.rightPlane = rightPlane;
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    /**
+     * Splits a range of triangles, the ranges of the two children are split in parallel when they
+     * are large.
+     */
+    private final class BuildTask extends RecursiveTask<BuildNode> {
+        static final long serialVersionUID = 1;
+
+        private final int l;
+        private final int r;
+        private final int depth;
+        private final boolean parallel;
+
+        BuildTask(int l, int r, int depth, boolean parallel) {
+            this.l = l;
+            this.r = r;
+            this.depth = depth;
+            this.parallel = parallel;
+        }
+
+        @Override
+        protected BuildNode compute() {
+            int count = r - l + 1;
+            if (count <= 1 || depth >= MAX_TREE_DEPTH) {
+                return new BuildNode(l, r);
+            }
+
+            // Bounds of the triangles and of their centroids
+            float[] box = new float[6];
+            float[] centroids = new float[6];
+            resetBox(box, 0);
+            resetBox(centroids, 0);
+            for (int i = l; i <= r; i++) {
+                for (int k = 0; k < 3; k++) {
+                    float min = triangleMin(i, k);
+                    float max = triangleMax(i, k);
+                    box[k] = Math.min(box[k], min);
+                    box[3 + k] = Math.max(box[3 + k], max);
+                    float centroid = (min + max) * 0.5f;
+                    centroids[k] = Math.min(centroids[k], centroid);
+                    centroids[3 + k] = Math.max(centroids[3 + k], centroid);
+                }
+            }
+
+            // Binned surface area heuristic, the three axes are binned in one pass
+            float nodeArea = area(box, 0);
+            if (nodeArea <= 0) {
+                nodeArea = 1;
+            }
+            int[] binCounts = new int[3 * BINS];
+            float[] binBoxes = new float[3 * BINS * 6];
+            for (int b = 0; b < 3 * BINS; b++) {
+                resetBox(binBoxes, b * 6);
+            }
+            float[] scales = new float[3];
+            for (int k = 0; k < 3; k++) {
+                float extent = centroids[3 + k] - centroids[k];
+                scales[k] = extent > 0 ? BINS / extent : 0;
+            }
+            float[] triangle = new float[6];
+            for (int i = l; i <= r; i++) {
+                for (int k = 0; k < 3; k++) {
+                    triangle[k] = triangleMin(i, k);
+                    triangle[3 + k] = triangleMax(i, k);
+                }
+                for (int k = 0; k < 3; k++) {
+                    if (scales[k] == 0) {
+                        continue;
+                    }
+                    float centroid = (triangle[k] + triangle[3 + k]) * 0.5f;
+                    int b = k * BINS + Math.min(BINS - 1, (int) ((centroid - centroids[k]) * scales[k]));
+                    binCounts[b]++;
+                    mergeBox(binBoxes, b * 6, triangle, 0);
+                }
+            }
+
+            int bestAxis = -1;
+            int bestSplit = 0;
+            float bestCost = Float.POSITIVE_INFINITY;
+            float[] rightAreas = new float[BINS];
+            int[] rightCounts = new int[BINS];
+            float[] sweep = new float[6];
+            for (int k = 0; k < 3; k++) {
+                if (scales[k] == 0) {
+                    continue;
+                }
+                // Sweep from the right, then from the left evaluating the splits between bins
+                int first = k * BINS;
+                resetBox(sweep, 0);
+                int rightCount = 0;
+                for (int b = BINS - 1; b > 0; b--) {
+                    rightCount += binCounts[first + b];
+                    if (binCounts[first + b] > 0) {
+                        mergeBox(sweep, 0, binBoxes, (first + b) * 6);
+                    }
+                    rightCounts[b] = rightCount;
+                    rightAreas[b] = rightCount > 0 ? area(sweep, 0) : 0;
+                }
+                resetBox(sweep, 0);
+                int leftCount = 0;
+                for (int b = 1; b < BINS; b++) {
+                    leftCount += binCounts[first + b - 1];
+                    if (binCounts[first + b - 1] > 0) {
+                        mergeBox(sweep, 0, binBoxes, (first + b - 1) * 6);
+                    }
+                    if (leftCount == 0 || rightCounts[b] == 0) {
+                        continue;
+                    }
+                    float cost = TRAVERSAL_COST
+                                 + (leftCount * area(sweep, 0) + rightCounts[b] * rightAreas[b])
+                                   / nodeArea;
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestAxis = k;
+                        bestSplit = b;
+                    }
+                }
+            }
+
+            int pivot;
+            int axis;
+            if (bestAxis >= 0 && (count > maxTrisPerNode || bestCost < count)) {
+                axis = bestAxis;
+                pivot = partition(axis, centroids[axis], scales[axis], bestSplit);
+            } else if (count > maxTrisPerNode) {
+                // All the centroids are the same, split the range in two halves
+                axis = 0;
+                pivot = (l + r + 1) / 2;
+            } else {
+                return new BuildNode(l, r);
+            }
+
+            float leftPlane = Float.NEGATIVE_INFINITY;
+            for (int i = l; i < pivot; i++) {
+                leftPlane = Math.max(leftPlane, triangleMax(i, axis));
+            }
+            float rightPlane = Float.POSITIVE_INFINITY;
+            for (int i = pivot; i <= r; i++) {
+                rightPlane = Math.min(rightPlane, triangleMin(i, axis));
+            }
+
+            BuildTask leftTask = new BuildTask(l, pivot - 1, depth + 1, parallel);
+            BuildTask rightTask = new BuildTask(pivot, r, depth + 1, parallel);
+            BuildNode left;
+            BuildNode right;
+            if (parallel && count >= PARALLEL_GRAIN) {
+                leftTask.fork();
+                right = rightTask.compute();
+                left = leftTask.join();
+            } else {
+                left = leftTask.compute();
+                right = rightTask.compute();
+            }
+            return new BuildNode(axis, leftPlane, rightPlane, left, right);
+        }
+
+        private int bin(int index, int axis, float min, float scale) {
+            float centroid = (triangleMin(index, axis) + triangleMax(index, axis)) * 0.5f;
+            return Math.min(BINS - 1, (int) ((centroid - min) * scale));
+        }
+
+        /**
+         * Moves the triangles in the bins before the split to the start of the range.
+         *
+         * @return the first triangle of the right child
+         */
+        private int partition(int axis, float min, float scale, int split) {
+            int pivot = l;
+            int j = r;
+            while (pivot <= j) {
+                if (bin(pivot, axis, min, scale) >= split) {
+                    swapTriangles(pivot, j);
+                    --j;
+                } else {
+                    ++pivot;
+                }
+            }
+            return pivot;
+        }
+    }
 }
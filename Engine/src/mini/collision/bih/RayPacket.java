@@ -0,0 +1,55 @@
+package mini.collision.bih;
+
+/**
+ * A group of up to {@link #SIZE} rays traversing a {@link BIHTree} together, along with the
+ * closest hit of every ray and the stacks of the traversal. The rays are stored in the model space
+ * of the tree, their directions are not normalized so that the distances along them are the
+ * distances in world space. A packet is reused for all the rays cast by a thread, nothing is
+ * allocated per ray.
+ *
+ * @see BIHTree#intersectClosest(RayPacket, int)
+ */
+public final class RayPacket {
+    /**
+     * Maximum number of rays in a packet, the rays are selected with an int mask.
+     */
+    public static final int SIZE = 16;
+
+    public final float[] originX = new float[SIZE];
+    public final float[] originY = new float[SIZE];
+    public final float[] originZ = new float[SIZE];
+    public final float[] directionX = new float[SIZE];
+    public final float[] directionY = new float[SIZE];
+    public final float[] directionZ = new float[SIZE];
+    /**
+     * Distance of the closest hit of every ray so far, or the maximum distance of the ray if it hit
+     * nothing yet.
+     */
+    public final float[] far = new float[SIZE];
+    /**
+     * Triangle of the closest hit of every ray so far, -1 if it hit nothing yet.
+     */
+    public final int[] triangles = new int[SIZE];
+
+    final float[] inverseX = new float[SIZE];
+    final float[] inverseY = new float[SIZE];
+    final float[] inverseZ = new float[SIZE];
+    final int[] nodeStack = new int[BIHTree.MAX_STACK_SIZE * 2];
+    final int[] maskStack = new int[BIHTree.MAX_STACK_SIZE * 2];
+    final float[] boxStack = new float[BIHTree.MAX_STACK_SIZE * 2 * 6];
+
+    /**
+     * Sets a ray of the packet, in model space.
+     */
+    public void setRay(int ray, float ox, float oy, float oz, float dx, float dy, float dz) {
+        originX[ray] = ox;
+        originY[ray] = oy;
+        originZ[ray] = oz;
+        directionX[ray] = dx;
+        directionY[ray] = dy;
+        directionZ[ray] = dz;
+        inverseX[ray] = 1f / dx;
+        inverseY[ray] = 1f / dy;
+        inverseZ[ray] = 1f / dz;
+    }
+}
@@ -0,0 +1,49 @@
+package mini.input.dummy;
+
+import mini.input.Input;
+import mini.input.RawInputListener;
+
+/**
+ * Input which never generates any event. Used by contexts without any input device, such as the
+ * headless context, so that input mappings can still be registered by the application.
+ */
+public class DummyInput implements Input {
+    private boolean initialized = false;
+
+    @Override
+    public void initialize() {
+        if (initialized) {
+            throw new IllegalStateException("Input already initialized.");
+        }
+        initialized = true;
+    }
+
+    @Override
+    public void update() {
+        if (!initialized) {
+            throw new IllegalStateException("Input not initialized.");
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (!initialized) {
+            throw new IllegalStateException("Input not initialized.");
+        }
+        initialized = false;
+    }
+
+    @Override
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    @Override
+    public void setInputListener(RawInputListener listener) {
+    }
+
+    @Override
+    public long getInputTimeNanos() {
+        return System.nanoTime();
+    }
+}
@@ -0,0 +1,22 @@
+package mini.input.dummy;
+
+import mini.input.MouseInput;
+
+/**
+ * Mouse input which never generates any event.
+ *
+ * @see DummyInput
+ */
+public class DummyMouseInput extends DummyInput implements MouseInput {
+    @Override
+    public void setCursorVisible(boolean visible) {
+        if (!isInitialized()) {
+            throw new IllegalStateException("Input not initialized.");
+        }
+    }
+
+    @Override
+    public int getButtonCount() {
+        return 0;
+    }
+}
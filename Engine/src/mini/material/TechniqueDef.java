@@ -2,6 +2,7 @@ package mini.material;
 
 import mini.asset.AssetManager;
 import mini.material.logic.TechniqueDefLogic;
+import mini.profile.ShaderCompileEvent;
 import mini.renderer.Caps;
 import mini.shaders.DefineList;
 import mini.shaders.Glsl100ShaderGenerator;
@@ -115,6 +116,7 @@ public class TechniqueDef implements Cloneable {
 
     private EnumMap<Shader.ShaderType, String> shaderLanguages;
     private EnumMap<Shader.ShaderType, String> shaderNames;
+    private EnumMap<Shader.ShaderType, String> shaderSources;
 
     private String shaderPrologue;
     private List<String> defineNames;
@@ -154,6 +156,7 @@ public class TechniqueDef implements Cloneable {
     public TechniqueDef() {
         shaderLanguages = new EnumMap<>(Shader.ShaderType.class);
         shaderNames = new EnumMap<>(Shader.ShaderType.class);
+        shaderSources = new EnumMap<>(Shader.ShaderType.class);
         defineNames = new ArrayList<>();
         defineTypes = new ArrayList<>();
         paramToDefineId = new HashMap<>();
@@ -454,6 +457,8 @@ public class TechniqueDef implements Cloneable {
 
     private Shader loadShader(AssetManager assetManager, Set<Caps> rendererCaps,
                               DefineList defines) {
+        ShaderCompileEvent event = new ShaderCompileEvent();
+        event.begin();
         StringBuilder sb = new StringBuilder();
         sb.append(shaderPrologue);
         defines.generateSource(sb, defineNames, defineTypes);
@@ -473,7 +478,10 @@ public class TechniqueDef implements Cloneable {
                     continue;
                 }
 
-                String shaderSourceCode = (String) assetManager.loadAsset(shaderSourceAssetName);
+                String shaderSourceCode = shaderSources.get(type);
+                if (shaderSourceCode == null) {
+                    shaderSourceCode = (String) assetManager.loadAsset(shaderSourceAssetName);
+                }
                 shader.addSource(type, shaderSourceAssetName, shaderSourceCode, definesSourceCode,
                                  language);
             }
@@ -485,6 +493,13 @@ public class TechniqueDef implements Cloneable {
             }
         }
 
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = ShaderCompileEvent.STAGE_SOURCE;
+            event.shader = shaderNames.values().toString();
+            event.defines = definesSourceCode;
+            event.commit();
+        }
         return shader;
     }
 
@@ -527,6 +542,27 @@ public class TechniqueDef implements Cloneable {
         }
     }
 
+    /**
+     * Sets generated source code for the given shader stage. The source is used as is instead of
+     * loading the shader by name through the asset manager, so any <code>#import</code>
+     * statements must already have been resolved.
+     *
+     * @param shaderType The shader stage
+     * @param name       A name identifying the generated shader, used for debugging
+     * @param language   The shader language
+     * @param source     The complete source code of the shader
+     */
+    public void setShaderSource(Shader.ShaderType shaderType, String name, String language,
+                                String source) {
+        shaderSources.put(shaderType, source);
+
+        EnumMap<Shader.ShaderType, String> names = new EnumMap<>(shaderNames);
+        EnumMap<Shader.ShaderType, String> languages = new EnumMap<>(shaderLanguages);
+        names.put(shaderType, name);
+        languages.put(shaderType, language);
+        setShaderFile(names, languages);
+    }
+
     /**
      * Returns the name of the fragment shader used by the technique, or null
      * if no fragment shader is specified.
@@ -703,6 +739,7 @@ public class TechniqueDef implements Cloneable {
         clone.shaderPrologue = shaderPrologue;
 
         clone.setShaderFile(shaderNames, shaderLanguages);
+        clone.shaderSources.putAll(shaderSources);
 
         clone.defineNames = new ArrayList<>(defineNames.size());
         clone.defineNames.addAll(defineNames);
@@ -13,6 +13,7 @@ import mini.textures.Image;
 import mini.textures.Texture2D;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Filters are 2D effects applied to the rendered scene. The filter is fed with the rendered scene
@@ -26,6 +27,11 @@ import java.util.Collection;
 public abstract class Filter implements Savable {
     protected Material material;
     protected Pass defaultPass;
+    /**
+     * Passes rendered by the <code>FilterPostProcessor</code> just before the filter material,
+     * in the order of the list. Null if the filter has no extra passes.
+     */
+    protected List<Pass> postRenderPasses;
     private String name;
     protected boolean enabled = true;
     private FilterPostProcessor processor;
@@ -86,6 +92,36 @@ public abstract class Filter implements Savable {
         return true;
     }
 
+    /**
+     * Override this method and return true if your filter needs the depth texture of the scene.
+     * The texture is set as the <code>DepthTexture</code> parameter of the filter material and of
+     * every pass requiring it.
+     *
+     * @return false if your <code>Filter</code> does not need the scene depth texture
+     */
+    public boolean isRequiresDepthTexture() {
+        return false;
+    }
+
+    /**
+     * @return the processor this filter has been added to, or null
+     */
+    protected FilterPostProcessor getProcessor() {
+        return processor;
+    }
+
+    /**
+     * Per-pixel filters can describe their effect as a GLSL function, allowing the
+     * <code>FilterPostProcessor</code> to merge them with adjacent per-pixel filters into a single
+     * full-screen pass. The filter material is still used when the filter is rendered on its own.
+     *
+     * @return the function of this filter, or null if the filter cannot be fused
+     * @see FilterFunction
+     */
+    public FilterFunction getFilterFunction() {
+        return null;
+    }
+
     /**
      * Initialization of sub classes filters.
      * <p>
@@ -0,0 +1,56 @@
+package mini.post;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes the GLSL function of a per-pixel {@link Filter} so that it can be fused with adjacent
+ * filters into a single full-screen pass by the {@link FilterPostProcessor}.
+ * <p>
+ * The library must declare the uniforms it reads (<code>m_&lt;ParamName&gt;</code>) and a
+ * function with the following signature:
+ * <pre>
+ * vec4 functionName(in vec4 color, in vec2 texCoord)
+ * </pre>
+ * The function receives the color produced by the previous filter for the current pixel and
+ * returns the filtered color. It must not sample the scene texture at other coordinates, filters
+ * requiring neighboring pixels or extra passes cannot be fused.
+ */
+public class FilterFunction {
+    private final String libraryName;
+    private final String functionName;
+    private final List<String> paramNames;
+
+    /**
+     * @param libraryName  Asset name of the <code>.glsllib</code> declaring the function
+     * @param functionName Name of the function in the library
+     * @param paramNames   Names of the filter material parameters used by the function
+     */
+    public FilterFunction(String libraryName, String functionName, String... paramNames) {
+        this.libraryName = libraryName;
+        this.functionName = functionName;
+        this.paramNames = Collections.unmodifiableList(Arrays.asList(paramNames));
+    }
+
+    public String getLibraryName() {
+        return libraryName;
+    }
+
+    public String getFunctionName() {
+        return functionName;
+    }
+
+    /**
+     * @return names of the material parameters that will be copied from the filter material to the
+     * fused material every frame.
+     */
+    public List<String> getParamNames() {
+        return paramNames;
+    }
+
+    @Override
+    public String toString() {
+        return libraryName + ":" + functionName;
+    }
+}
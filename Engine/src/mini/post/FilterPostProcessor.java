@@ -2,6 +2,8 @@ package mini.post;
 
 import mini.asset.AssetManager;
 import mini.material.Material;
+import mini.math.Vector2f;
+import mini.profile.Profiler;
 import mini.renderer.Camera;
 import mini.renderer.Caps;
 import mini.renderer.RenderManager;
@@ -14,7 +16,9 @@ import mini.textures.Texture2D;
 import mini.ui.Picture;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -29,11 +33,27 @@ public class FilterPostProcessor implements SceneProcessor {
     private float left, right, top, bottom;
     private int originalWidth, originalHeight;
     private int width, height;
-    private int lastFilterIndex;
+    private int lastFilterIndex = -1;
     private int numSamples;
     private List<Filter> filters = new ArrayList<>();
+    private List<Filter> fusionGroup = new ArrayList<>();
+    private Map<List<Filter>, FusedFilter> fusedFilters = new HashMap<>();
+    /**
+     * Set when the enabled filters change, the fused filters not used by the next frame are then
+     * evicted.
+     */
+    private boolean fusedFiltersStale;
+    private List<FusedFilter> usedFusedFilters = new ArrayList<>();
+    private boolean fusionEnabled = true;
+    private float renderScale = 1f;
+    private boolean scaled;
+    private Material upscaleMaterial;
+    private Vector2f upscaleFactor = new Vector2f(1f, 1f);
+    private FrameBuffer upscaleFrameBuffer;
+    private Texture2D upscaleTexture;
     private FrameBuffer renderFrameBuffer;
     private Texture2D filterTexture;
+    private Texture2D depthTexture;
     private Renderer renderer;
     private FrameBuffer outputBuffer;
     private Picture fsQuad;
@@ -58,6 +78,8 @@ public class FilterPostProcessor implements SceneProcessor {
         fullScreenQuad.setWidth(1);
         fullScreenQuad.setHeight(1);
 
+        upscaleMaterial = new Material(assetManager, "MatDefs/Post/Upscale.minid");
+
         Camera camera = vp.getCamera();
 
         left = camera.getViewPortLeft();
@@ -115,11 +137,18 @@ public class FilterPostProcessor implements SceneProcessor {
 
         // There is a different setup for more than one samples
         renderFrameBuffer = new FrameBuffer(this.width, this.height, 1);
-        renderFrameBuffer.setDepthBuffer(Image.Format.Depth);
+        if (isRequiresDepthTexture()) {
+            setupDepthTexture();
+        } else {
+            renderFrameBuffer.setDepthBuffer(Image.Format.Depth);
+        }
 
         filterTexture = new Texture2D(this.width, this.height, Image.Format.RGB111110F);
         renderFrameBuffer.setColorTexture(filterTexture);
 
+        // The upscale target is reallocated lazily at the new size
+        disposeUpscaleFrameBuffer();
+
         for (Filter filter : filters) {
             initFilter(filter, vp);
         }
@@ -127,14 +156,37 @@ public class FilterPostProcessor implements SceneProcessor {
         setupViewportFrameBuffer();
     }
 
+    private boolean isRequiresDepthTexture() {
+        for (Filter filter : filters) {
+            if (filter.isRequiresDepthTexture()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Renders the scene depth into a texture instead of a render buffer, so that filters can
+     * sample it.
+     */
+    private void setupDepthTexture() {
+        if (depthTexture != null) {
+            depthTexture.getImage().dispose();
+        }
+        depthTexture = new Texture2D(width, height, Image.Format.Depth24);
+        renderFrameBuffer.setDepthTexture(depthTexture);
+        computeDepth = true;
+    }
+
     private void setupViewportFrameBuffer() {
         viewPort.setOutputFrameBuffer(renderFrameBuffer);
     }
 
     @Override
     public void preFrame(float tpf) {
-        if (filters.isEmpty() || lastFilterIndex == -1) {
-            if (cameraInit) {
+        boolean scaling = isScaling();
+        if ((filters.isEmpty() || lastFilterIndex == -1) && !scaling) {
+            if (cameraInit || scaled) {
                 viewPort.getCamera().setViewPort(left, right, bottom, top);
                 viewPort.getCamera().resize(originalWidth, originalHeight, true);
                 viewPort.setOutputFrameBuffer(outputBuffer);
@@ -143,13 +195,15 @@ public class FilterPostProcessor implements SceneProcessor {
         } else {
             setupViewportFrameBuffer();
 
-            if (multiView) {
-                viewPort.getCamera().setViewPort(0, 1, 0, 1);
+            if (multiView || scaling) {
+                // A scaled scene is rendered in the lower left part of the scene buffer
+                viewPort.getCamera().setViewPort(0, renderScale, 0, renderScale);
                 viewPort.getCamera().resize(width, height, false);
                 viewPort.getCamera().update();
                 renderManager.setCamera(viewPort.getCamera(), false);
             }
         }
+        scaled = scaling;
 
         for (Filter filter : filters) {
             if (filter.isEnabled()) {
@@ -169,24 +223,42 @@ public class FilterPostProcessor implements SceneProcessor {
 
     @Override
     public void postFrame(FrameBuffer out) {
+        Profiler profiler = renderManager.getProfiler();
+        if (profiler != null) {
+            profiler.begin(Profiler.POST_PROCESSING);
+        }
+
         FrameBuffer sceneBuffer = renderFrameBuffer;
 
-        renderFilterChain(renderer, sceneBuffer);
+        Texture2D sceneTexture = filterTexture;
+        if (isScaling()) {
+            sceneTexture = renderUpscale(renderer);
+        }
+        if (sceneTexture != null) {
+            renderFilterChain(renderer, sceneBuffer, sceneTexture);
+        }
         renderer.setFrameBuffer(outputBuffer);
 
         if (viewPort != null) {
             renderManager.setCamera(viewPort.getCamera(), false);
         }
+
+        if (profiler != null) {
+            profiler.end(Profiler.POST_PROCESSING);
+        }
     }
 
     /**
-     * Iterator through the filter list and renders filters
+     * Iterator through the filter list and renders filters. Adjacent filters providing a
+     * {@link FilterFunction} are rendered together in a single pass when fusion is enabled.
      *
      * @param renderer
      * @param sceneBuffer
+     * @param sceneTexture the texture holding the scene at full resolution
      */
-    private void renderFilterChain(Renderer renderer, FrameBuffer sceneBuffer) {
-        Texture2D texture = this.filterTexture;
+    private void renderFilterChain(Renderer renderer, FrameBuffer sceneBuffer,
+                                   Texture2D sceneTexture) {
+        Texture2D texture = sceneTexture;
         FrameBuffer buffer = sceneBuffer;
         for (int i = 0; i < filters.size(); i++) {
             Filter filter = filters.get(i);
@@ -197,7 +269,20 @@ public class FilterPostProcessor implements SceneProcessor {
             // Post render pass
             filter.postFrame(renderManager, viewPort, buffer, sceneBuffer);
 
-            Material material = filter.getMaterial();
+            int last = collectFusionGroup(i, buffer, sceneBuffer);
+            Filter lastFilter = filters.get(last);
+
+            renderPostRenderPasses(renderer, filter, texture);
+
+            Material material;
+            FusedFilter fusedFilter = null;
+            if (fusionGroup.size() > 1) {
+                fusedFilter = getFusedFilter();
+                fusedFilter.updateParams();
+                material = fusedFilter.getMaterial();
+            } else {
+                material = filter.getMaterial();
+            }
 
             if (filter.isRequiresSceneTexture()) {
                 material.setTexture("Texture", texture);
@@ -207,15 +292,148 @@ public class FilterPostProcessor implements SceneProcessor {
                     material.clearParam("NumSamples");
                 }
             }
+            if (filter.isRequiresDepthTexture()) {
+                material.setTexture("DepthTexture", depthTexture);
+            }
 
             buffer = outputBuffer;
-            if (i != lastFilterIndex) {
-                buffer = filter.getRenderFrameBuffer();
-                texture = filter.getRenderedTexture();
+            if (last != lastFilterIndex) {
+                buffer = lastFilter.getRenderFrameBuffer();
+                texture = lastFilter.getRenderedTexture();
             }
             renderProcessing(renderer, buffer, material);
 
-            filter.postFilter(renderer, buffer);
+            if (fusedFilter == null) {
+                filter.postFilter(renderer, buffer);
+            } else {
+                for (Filter fused : fusedFilter.getFilters()) {
+                    fused.postFilter(renderer, buffer);
+                }
+            }
+            i = last;
+        }
+
+        if (fusedFiltersStale) {
+            fusedFilters.values().retainAll(usedFusedFilters);
+            usedFusedFilters.clear();
+            fusedFiltersStale = false;
+        }
+    }
+
+    /**
+     * Renders the extra passes of a filter, each into its own frame buffer.
+     *
+     * @param renderer
+     * @param filter
+     * @param texture  the texture holding the result of the previous filter
+     */
+    private void renderPostRenderPasses(Renderer renderer, Filter filter, Texture2D texture) {
+        if (filter.postRenderPasses == null) {
+            return;
+        }
+
+        for (Filter.Pass pass : filter.postRenderPasses) {
+            pass.beforeRender();
+            Material passMaterial = pass.getPassMaterial();
+            if (pass.requiresSceneAsTexture()) {
+                passMaterial.setTexture("Texture", texture);
+            }
+            if (pass.requiresDepthAsTexture()) {
+                passMaterial.setTexture("DepthTexture", depthTexture);
+            }
+            renderProcessing(renderer, pass.getRenderFrameBuffer(), passMaterial);
+        }
+    }
+
+    /**
+     * Collects the enabled filters starting at <code>start</code> which can be rendered in the
+     * same pass into {@link #fusionGroup}. The post frame pass of every appended filter is
+     * rendered.
+     *
+     * @return the index of the last filter in the group
+     */
+    private int collectFusionGroup(int start, FrameBuffer buffer, FrameBuffer sceneBuffer) {
+        fusionGroup.clear();
+        Filter filter = filters.get(start);
+        fusionGroup.add(filter);
+        if (!fusionEnabled || !isFusable(filter)) {
+            return start;
+        }
+
+        int last = start;
+        for (int i = start + 1; i < filters.size(); i++) {
+            Filter next = filters.get(i);
+            if (!next.isEnabled()) {
+                continue;
+            }
+            if (!isFusable(next) || !FusedFilter.canFuse(fusionGroup, next)) {
+                break;
+            }
+            next.postFrame(renderManager, viewPort, buffer, sceneBuffer);
+            fusionGroup.add(next);
+            last = i;
+        }
+        return last;
+    }
+
+    private static boolean isFusable(Filter filter) {
+        return filter.getFilterFunction() != null && filter.isRequiresSceneTexture()
+               && !filter.isRequiresDepthTexture() && filter.postRenderPasses == null;
+    }
+
+    /**
+     * @return the number of fused filters kept for the fusion groups
+     */
+    int getFusedFilterCount() {
+        return fusedFilters.size();
+    }
+
+    private FusedFilter getFusedFilter() {
+        FusedFilter fusedFilter = fusedFilters.get(fusionGroup);
+        if (fusedFilter == null) {
+            fusedFilter = new FusedFilter(assetManager, fusionGroup);
+            fusedFilters.put(fusedFilter.getFilters(), fusedFilter);
+        }
+        if (fusedFiltersStale) {
+            usedFusedFilters.add(fusedFilter);
+        }
+        return fusedFilter;
+    }
+
+    /**
+     * Stretches the scaled scene over the full viewport. The result is rendered directly to the
+     * output when no filter is enabled.
+     *
+     * @param renderer
+     * @return the upscaled scene texture, or null if it was rendered to the output
+     */
+    private Texture2D renderUpscale(Renderer renderer) {
+        // Use the actual pixel size of the scaled viewport to avoid sampling outside of it
+        getSceneTextureScale(upscaleFactor);
+        upscaleMaterial.setVector2("Scale", upscaleFactor);
+        upscaleMaterial.setTexture("Texture", filterTexture);
+
+        if (filters.isEmpty() || lastFilterIndex == -1) {
+            renderProcessing(renderer, outputBuffer, upscaleMaterial);
+            return null;
+        }
+
+        if (upscaleFrameBuffer == null) {
+            upscaleFrameBuffer = new FrameBuffer(width, height, 1);
+            upscaleFrameBuffer.setDepthBuffer(Image.Format.Depth);
+            upscaleTexture = new Texture2D(width, height, Image.Format.RGB111110F);
+            upscaleFrameBuffer.setColorTexture(upscaleTexture);
+        }
+        renderProcessing(renderer, upscaleFrameBuffer, upscaleMaterial);
+        return upscaleTexture;
+    }
+
+    private void disposeUpscaleFrameBuffer() {
+        if (upscaleFrameBuffer != null) {
+            upscaleFrameBuffer.dispose();
+            upscaleTexture.getImage().dispose();
+            upscaleFrameBuffer = null;
+            upscaleTexture = null;
         }
     }
 
@@ -262,10 +480,16 @@ public class FilterPostProcessor implements SceneProcessor {
         }
 
         filterTexture.getImage().dispose();
+        if (depthTexture != null) {
+            depthTexture.getImage().dispose();
+            depthTexture = null;
+        }
+        disposeUpscaleFrameBuffer();
 
         for (Filter filter : filters) {
             filter.cleanup(renderer);
         }
+        fusedFilters.clear();
     }
 
     public void addFilter(Filter filter) {
@@ -284,12 +508,14 @@ public class FilterPostProcessor implements SceneProcessor {
 
     protected void setFilterState(Filter filter, boolean enabled) {
         if (filters.contains(filter)) {
-            filter.setEnabled(enabled);
+            // Not through setEnabled, which calls back here once the filter is attached
+            filter.enabled = enabled;
             updateLastFilterIndex();
         }
     }
 
     private void updateLastFilterIndex() {
+        fusedFiltersStale = true;
         lastFilterIndex = -1;
         for (int i = filters.size() - 1; i >= 0; i--) {
             if (filters.get(i).isEnabled()) {
@@ -313,10 +539,80 @@ public class FilterPostProcessor implements SceneProcessor {
 
     private void initFilter(Filter filter, ViewPort viewPort) {
         filter.setProcessor(this);
+        if (filter.isRequiresDepthTexture() && !computeDepth && renderFrameBuffer != null) {
+            setupDepthTexture();
+        }
         // TODO: Requires depth texture, shadow mapping
         filter.init(assetManager, renderManager, viewPort, width, height);
     }
 
+    /**
+     * @return the depth texture of the scene, or null if no filter requires it
+     */
+    public Texture2D getDepthTexture() {
+        return depthTexture;
+    }
+
+    /**
+     * Returns the part of the scene and depth textures covered by the scene, which is smaller than
+     * the whole texture when the {@link #setRenderScale(float) render scale} is below 1. Filters
+     * sampling the depth texture must scale their texture coordinates by this factor.
+     *
+     * @param store the vector to store the result in
+     * @return the texture coordinate scale of the scene
+     */
+    public Vector2f getSceneTextureScale(Vector2f store) {
+        if (!isScaling()) {
+            return store.set(1f, 1f);
+        }
+        return store.set((int) (width * renderScale) / (float) width,
+                         (int) (height * renderScale) / (float) height);
+    }
+
+    /**
+     * @return true if adjacent per-pixel filters are rendered in a single pass
+     */
+    public boolean isFusionEnabled() {
+        return fusionEnabled;
+    }
+
+    /**
+     * Enables or disables fusion of adjacent filters providing a {@link FilterFunction} into a
+     * single full-screen pass. Enabled by default.
+     *
+     * @param fusionEnabled true to fuse filters
+     */
+    public void setFusionEnabled(boolean fusionEnabled) {
+        this.fusionEnabled = fusionEnabled;
+        fusedFiltersStale = true;
+    }
+
+    /**
+     * @return the fraction of the viewport resolution the scene is rendered at
+     */
+    public float getRenderScale() {
+        return renderScale;
+    }
+
+    /**
+     * Sets the fraction of the viewport resolution the scene is rendered at. A scale below 1
+     * renders the scene into a part of the scene buffer, which is upscaled before the filters are
+     * applied. Changing the scale does not reallocate any buffer, so it can be changed every frame.
+     *
+     * @param renderScale the render scale, in the range (0, 1]
+     * @see mini.app.DynamicResolutionAppState
+     */
+    public void setRenderScale(float renderScale) {
+        if (renderScale <= 0f || renderScale > 1f) {
+            throw new IllegalArgumentException("Render scale must be in the range (0, 1]");
+        }
+        this.renderScale = renderScale;
+    }
+
+    private boolean isScaling() {
+        return renderScale < 1f;
+    }
+
     /**
      * @return number of samples used for antialiasing
      */
@@ -0,0 +1,151 @@
+package mini.post;
+
+import mini.asset.AssetInfo;
+import mini.asset.AssetKey;
+import mini.asset.AssetManager;
+import mini.material.MatParam;
+import mini.material.Material;
+import mini.material.MaterialDef;
+import mini.material.TechniqueDef;
+import mini.material.logic.DefaultTechniqueDefLogic;
+import mini.shaders.Shader;
+import mini.shaders.VarType;
+import mini.shaders.plugins.GLSLLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Full-screen pass applying several adjacent per-pixel {@link Filter}s at once. The fragment shader
+ * is generated by chaining the {@link FilterFunction}s of the filters, so the scene is only read and
+ * written once for the whole group instead of once per filter.
+ */
+class FusedFilter {
+    private static final String LANGUAGE = "GLSL330";
+
+    private final List<Filter> filters;
+    private final Material material;
+
+    FusedFilter(AssetManager assetManager, List<Filter> filters) {
+        this.filters = new ArrayList<>(filters);
+
+        StringBuilder name = new StringBuilder("Fused");
+        for (Filter filter : this.filters) {
+            name.append('_').append(filter.getFilterFunction().getFunctionName());
+        }
+
+        MaterialDef def = new MaterialDef(assetManager, name.toString());
+        def.addMaterialParamTexture(VarType.Texture2D, "Texture", null);
+        def.addMaterialParam(VarType.Int, "NumSamples", null);
+        for (Filter filter : this.filters) {
+            MaterialDef filterDef = filter.getMaterial().getMaterialDef();
+            for (String paramName : filter.getFilterFunction().getParamNames()) {
+                MatParam param = filterDef.getMaterialParam(paramName);
+                if (param == null) {
+                    throw new IllegalStateException("Filter " + filter.getName()
+                                                    + " does not declare parameter " + paramName);
+                }
+                def.addMaterialParam(param.getVarType(), paramName, param.getValue());
+            }
+        }
+
+        TechniqueDef technique = new TechniqueDef(TechniqueDef.DEFAULT_TECHNIQUE_NAME,
+                                                  name.toString().hashCode());
+        technique.setShaderPrologue("");
+        technique.addShaderParamDefine("NumSamples", VarType.Int, "RESOLVE_MS");
+        technique.addWorldParam("WorldViewMatrix");
+        technique.addWorldParam("ResolutionInverse");
+        technique.setShaderFile("MatDefs/Post/Post.vert", name + ".frag", LANGUAGE, LANGUAGE);
+        technique.setShaderSource(Shader.ShaderType.Fragment, name + ".frag", LANGUAGE,
+                                  generateFragmentSource(assetManager, name + ".frag"));
+        technique.setLogic(new DefaultTechniqueDefLogic(technique));
+        def.addTechniqueDef(technique);
+
+        material = new Material(def);
+    }
+
+    /**
+     * Checks whether the filters can share a single generated shader. Two functions declaring the
+     * same parameter would result in conflicting uniforms, so such filters are not fused.
+     *
+     * @param filters The fused group built so far
+     * @param filter  The filter which should be appended to the group
+     * @return true if the filter can be appended to the group
+     */
+    static boolean canFuse(List<Filter> filters, Filter filter) {
+        FilterFunction function = filter.getFilterFunction();
+        for (Filter other : filters) {
+            FilterFunction otherFunction = other.getFilterFunction();
+            if (otherFunction.getFunctionName().equals(function.getFunctionName())) {
+                return false;
+            }
+            for (String paramName : function.getParamNames()) {
+                if (otherFunction.getParamNames().contains(paramName)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private String generateFragmentSource(AssetManager assetManager, String name) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("#import \"ShaderLib/MultiSample.glsllib\"\n");
+        for (Filter filter : filters) {
+            sb.append("#import \"").append(filter.getFilterFunction().getLibraryName())
+              .append("\"\n");
+        }
+        sb.append("\n")
+          .append("uniform COLORTEXTURE m_Texture;\n")
+          .append("\n")
+          .append("in vec2 texCoord;\n")
+          .append("\n")
+          .append("out vec4 out_color;\n")
+          .append("\n")
+          .append("void main() {\n")
+          .append("    vec4 color = getColor(m_Texture, texCoord);\n");
+        for (Filter filter : filters) {
+            sb.append("    color = ").append(filter.getFilterFunction().getFunctionName())
+              .append("(color, texCoord);\n");
+        }
+        sb.append("    out_color = color;\n")
+          .append("}\n");
+
+        byte[] source = sb.toString().getBytes(StandardCharsets.UTF_8);
+        AssetInfo info = new AssetInfo(assetManager, new AssetKey<>(name)) {
+            @Override
+            public InputStream openStream() {
+                return new ByteArrayInputStream(source);
+            }
+        };
+        return (String) new GLSLLoader().load(info);
+    }
+
+    /**
+     * Copies the current parameter values of every filter in the group to the fused material.
+     */
+    void updateParams() {
+        for (Filter filter : filters) {
+            Material filterMaterial = filter.getMaterial();
+            for (String paramName : filter.getFilterFunction().getParamNames()) {
+                MatParam param = filterMaterial.getParam(paramName);
+                if (param == null) {
+                    material.clearParam(paramName);
+                } else {
+                    material.setParam(paramName, param.getVarType(), param.getValue());
+                }
+            }
+        }
+    }
+
+    List<Filter> getFilters() {
+        return filters;
+    }
+
+    Material getMaterial() {
+        return material;
+    }
+}
@@ -0,0 +1,29 @@
+package mini.profile;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for an asset loaded by the <code>AssetManager</code>. Assets served from
+ * the cache are not recorded.
+ */
+@Name("mini.AssetLoad")
+@Label("Asset Load")
+@Category({"Mini", "Assets"})
+@Description("An asset located and loaded by the asset manager")
+public class AssetLoadEvent extends Event {
+    @Label("Key")
+    public String key;
+
+    @Label("Loader")
+    public String loader;
+
+    @Label("Size")
+    @Description("The size of the asset data, or -1 if the locator does not know it")
+    @DataAmount
+    public long bytes;
+}
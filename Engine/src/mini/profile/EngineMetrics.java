@@ -0,0 +1,110 @@
+package mini.profile;
+
+import mini.app.Application;
+import mini.utils.BufferUtils;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Exposes counters of a running application as an MBean, so they can be read by JMX clients and
+ * recorded by Flight Recorder next to the GC and allocation events.
+ * <p>
+ * The per-frame counters are sampled by {@link #frameEnded()} on the render thread, the getters
+ * can be called from any thread.
+ */
+public class EngineMetrics implements EngineMetricsMBean {
+    private static final Logger logger = Logger.getLogger(EngineMetrics.class.getName());
+
+    private final Application app;
+    private ObjectName objectName;
+
+    private volatile long frameCount;
+    private volatile long drawCallsPerFrame;
+    private volatile long totalDrawCalls;
+
+    public EngineMetrics(Application app) {
+        this.app = app;
+    }
+
+    /**
+     * Samples the counters of the frame which just ended. Called by the application once per
+     * frame.
+     */
+    public void frameEnded() {
+        long drawCalls = app.getRenderer() == null ? 0 : app.getRenderer().getDrawCallCount();
+        drawCallsPerFrame = drawCalls - totalDrawCalls;
+        totalDrawCalls = drawCalls;
+        frameCount++;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, under
+     * <code>mini:type=EngineMetrics</code>. A warning is logged if the registration fails, e.g.
+     * because another application of the same JVM is already registered.
+     */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("mini:type=EngineMetrics");
+            server.registerMBean(this, name);
+            objectName = name;
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "Unable to register engine metrics", e);
+        }
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server, if they were registered.
+     */
+    public void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "Unable to unregister engine metrics", e);
+        }
+        objectName = null;
+    }
+
+    @Override
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    @Override
+    public long getDrawCallsPerFrame() {
+        return drawCallsPerFrame;
+    }
+
+    @Override
+    public long getTotalDrawCalls() {
+        return totalDrawCalls;
+    }
+
+    @Override
+    public int getCachedAssetCount() {
+        return app.getAssetManager() == null ? 0 : app.getAssetManager().getCachedAssetCount();
+    }
+
+    @Override
+    public int getPendingTaskCount() {
+        return app.getPendingTaskCount();
+    }
+
+    @Override
+    public long getDirectMemory() {
+        return BufferUtils.getTrackedDirectMemory();
+    }
+
+    @Override
+    public int getDirectBufferCount() {
+        return BufferUtils.getTrackedBufferCount();
+    }
+}
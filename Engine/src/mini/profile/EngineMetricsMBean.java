@@ -0,0 +1,43 @@
+package mini.profile;
+
+/**
+ * Management interface of {@link EngineMetrics}.
+ */
+public interface EngineMetricsMBean {
+    /**
+     * @return the number of frames updated since the application started
+     */
+    long getFrameCount();
+
+    /**
+     * @return the number of draw calls issued during the last frame
+     */
+    long getDrawCallsPerFrame();
+
+    /**
+     * @return the number of draw calls issued since the application started
+     */
+    long getTotalDrawCalls();
+
+    /**
+     * @return the number of assets held by the caches of the asset manager
+     */
+    int getCachedAssetCount();
+
+    /**
+     * @return the number of tasks enqueued to the render thread which did not run yet
+     */
+    int getPendingTaskCount();
+
+    /**
+     * @return the direct memory allocated through <code>BufferUtils</code> which is still
+     * reachable, in bytes, or -1 if direct memory tracking is disabled
+     */
+    long getDirectMemory();
+
+    /**
+     * @return the number of direct buffers allocated through <code>BufferUtils</code> which are
+     * still reachable, or -1 if direct memory tracking is disabled
+     */
+    int getDirectBufferCount();
+}
@@ -0,0 +1,27 @@
+package mini.profile;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event spanning one frame of the application, from the start of an update to the
+ * start of the next one.
+ */
+@Name("mini.Frame")
+@Label("Frame")
+@Category({"Mini", "Application"})
+@Description("One frame of the application update loop")
+public class FrameEvent extends Event {
+    @Label("Frame")
+    public long frame;
+
+    @Label("Time Per Frame")
+    @Description("The time per frame passed to the update, in seconds")
+    public float tpf;
+
+    @Label("Draw Calls")
+    public long drawCalls;
+}
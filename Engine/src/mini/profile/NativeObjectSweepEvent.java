@@ -0,0 +1,23 @@
+package mini.profile;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for a sweep of the native objects which are not used anymore. Sweeps which
+ * do not delete anything are not recorded.
+ */
+@Name("mini.NativeObjectSweep")
+@Label("Native Object Sweep")
+@Category({"Mini", "Rendering"})
+@Description("Deletion of unused native objects at the end of a frame")
+public class NativeObjectSweepEvent extends Event {
+    @Label("Deleted")
+    public int deleted;
+
+    @Label("Remaining")
+    public int remaining;
+}
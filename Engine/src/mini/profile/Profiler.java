@@ -0,0 +1,400 @@
+package mini.profile;
+
+import mini.renderer.Renderer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Measures how long every phase of a frame takes. A phase is timed by a pair of
+ * {@link #begin(int)} and {@link #end(int)} calls, or around a body:
+ * <pre>
+ * profiler.profile(myPhase, () -&gt; {
+ *     ...
+ * });
+ * </pre>
+ * Phases can be nested, the time of a phase includes the time of the phases nested in it. The
+ * engine phases are registered when the profiler is created, custom phases can be added with
+ * {@link #addPhase(String)}.
+ * <p>
+ * All the storage is allocated up front, the time of every phase is kept for the last
+ * {@link #HISTORY_SIZE} frames in ring buffers and nothing is allocated while measuring. The GPU
+ * time of the frame is measured with timer queries when the renderer supports them. The result of
+ * a query is read a few frames later, so that the CPU never waits on the GPU, and is recorded with
+ * the frame in which it became available.
+ * <p>
+ * The profiler is not thread safe, all the phases must be measured on the render thread. The
+ * phases measured on other threads than the one calling {@link #beginFrame()} are ignored, e.g. the
+ * update of a pipelined application running on its simulation thread.
+ */
+public class Profiler {
+    public static final int HISTORY_SIZE = 256;
+    public static final int MAX_PHASES = 64;
+    public static final int MAX_DEPTH = 32;
+    private static final int GPU_TASK_COUNT = 4;
+
+    public static final int INPUT = 0;
+    public static final int STATES_UPDATE = 1;
+    public static final int SIMPLE_UPDATE = 2;
+    public static final int LOGICAL_STATE = 3;
+    public static final int GEOMETRIC_STATE = 4;
+    public static final int STATES_RENDER = 5;
+    public static final int RENDER = 6;
+    public static final int VIEWPORT = 7;
+    public static final int CULLING = 8;
+    public static final int QUEUE_SORT = 9;
+    public static final int FLUSH_QUEUE = 10;
+    public static final int SHADOWS = 11;
+    public static final int POST_PROCESSING = 12;
+    public static final int STATES_POST_RENDER = 13;
+
+    private final String[] names = new String[MAX_PHASES];
+    private final long[] frameNanos = new long[MAX_PHASES];
+    private final int[] frameCalls = new int[MAX_PHASES];
+    private final float[][] history = new float[MAX_PHASES][HISTORY_SIZE];
+    private final float[] frameTimeHistory = new float[HISTORY_SIZE];
+    private final float[] gpuTimeHistory = new float[HISTORY_SIZE];
+    private int phaseCount;
+    private int historyIndex;
+    private int historyCount;
+
+    private final int[] stackPhases = new int[MAX_DEPTH];
+    private final long[] stackStarts = new long[MAX_DEPTH];
+    private int depth;
+
+    private final int[] gpuTasks = new int[GPU_TASK_COUNT];
+    private final boolean[] gpuTaskPending = new boolean[GPU_TASK_COUNT];
+    private Renderer gpuRenderer;
+    private boolean gpuSupported = true;
+    private int gpuTaskIndex;
+    private float gpuTime = Float.NaN;
+
+    private boolean enabled = true;
+    private boolean requestedEnabled = true;
+    private boolean frameStarted;
+    private long frameStart;
+    private Thread frameThread;
+
+    public Profiler() {
+        addPhase("Input");
+        addPhase("States update");
+        addPhase("Simple update");
+        addPhase("Logical state");
+        addPhase("Geometric state");
+        addPhase("States render");
+        addPhase("Render");
+        addPhase("Viewport");
+        addPhase("Culling");
+        addPhase("Queue sort");
+        addPhase("Flush queue");
+        addPhase("Shadows");
+        addPhase("Post processing");
+        addPhase("States post render");
+    }
+
+    /**
+     * Registers a custom phase.
+     *
+     * @param name The name displayed for the phase
+     * @return the id of the phase, to pass to {@link #begin(int)}, {@link #end(int)} and
+     * {@link #profile(int, Runnable)}
+     */
+    public int addPhase(String name) {
+        if (phaseCount == MAX_PHASES) {
+            throw new IllegalStateException("Cannot register more than " + MAX_PHASES + " phases");
+        }
+        names[phaseCount] = name;
+        return phaseCount++;
+    }
+
+    /**
+     * Ends the previous frame and starts measuring a new one. This is called by the application at
+     * the start of every update.
+     */
+    public void beginFrame() {
+        long now = System.nanoTime();
+        if (enabled && frameStarted) {
+            for (int i = 0; i < phaseCount; i++) {
+                history[i][historyIndex] = frameNanos[i] / 1000000f;
+            }
+            frameTimeHistory[historyIndex] = (now - frameStart) / 1000000f;
+            gpuTimeHistory[historyIndex] = gpuTime;
+            historyIndex = (historyIndex + 1) % HISTORY_SIZE;
+            historyCount = Math.min(historyCount + 1, HISTORY_SIZE);
+        }
+
+        for (int i = 0; i < phaseCount; i++) {
+            frameNanos[i] = 0;
+            frameCalls[i] = 0;
+        }
+        // Phases left open by an exception are dropped
+        depth = 0;
+        gpuTime = Float.NaN;
+
+        if (enabled != requestedEnabled) {
+            enabled = requestedEnabled;
+            // Queries issued before the profiler was disabled are not read anymore
+            Arrays.fill(gpuTaskPending, false);
+        }
+        frameStarted = enabled;
+        frameStart = now;
+        frameThread = Thread.currentThread();
+    }
+
+    /**
+     * Starts measuring a phase, every call must be matched by a call to {@link #end(int)} with the
+     * same phase.
+     *
+     * @param phase The id of the phase
+     */
+    public void begin(int phase) {
+        if (!enabled || !isFrameThread()) {
+            return;
+        }
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("Phases are nested deeper than " + MAX_DEPTH);
+        }
+        stackPhases[depth] = phase;
+        stackStarts[depth] = System.nanoTime();
+        depth++;
+    }
+
+    /**
+     * Stops measuring a phase started with {@link #begin(int)}.
+     *
+     * @param phase The id of the phase
+     */
+    public void end(int phase) {
+        if (!enabled || !isFrameThread()) {
+            return;
+        }
+        if (depth == 0 || stackPhases[depth - 1] != phase) {
+            throw new IllegalStateException("Phase " + names[phase]
+                                            + " ended without being the innermost open phase");
+        }
+        depth--;
+        frameNanos[phase] += System.nanoTime() - stackStarts[depth];
+        frameCalls[phase]++;
+    }
+
+    private boolean isFrameThread() {
+        return frameThread == null || frameThread == Thread.currentThread();
+    }
+
+    /**
+     * Measures a phase around a body, the phase ends even if the body throws. A lambda capturing
+     * variables is allocated on every call, the engine phases use {@link #begin(int)} and
+     * {@link #end(int)}.
+     *
+     * @param phase The id of the phase
+     * @param body  The code measured
+     */
+    public void profile(int phase, Runnable body) {
+        begin(phase);
+        try {
+            body.run();
+        } finally {
+            end(phase);
+        }
+    }
+
+    /**
+     * Starts measuring the GPU time of the frame, and collects the result of the query issued a few
+     * frames ago.
+     *
+     * @param renderer The renderer issuing the commands of the frame
+     */
+    public void beginGpuFrame(Renderer renderer) {
+        if (!enabled || !gpuSupported) {
+            return;
+        }
+        if (gpuRenderer != renderer) {
+            gpuRenderer = renderer;
+            for (int i = 0; i < GPU_TASK_COUNT; i++) {
+                gpuTasks[i] = renderer.createProfilingTask();
+                gpuTaskPending[i] = false;
+                if (gpuTasks[i] == -1) {
+                    gpuSupported = false;
+                    return;
+                }
+            }
+        }
+
+        int task = gpuTasks[gpuTaskIndex];
+        if (gpuTaskPending[gpuTaskIndex]) {
+            // Blocks only if the GPU is more than GPU_TASK_COUNT frames behind
+            gpuTime = renderer.getProfilingTime(task) / 1000000f;
+            gpuTaskPending[gpuTaskIndex] = false;
+        }
+        renderer.startProfiling(task);
+    }
+
+    /**
+     * Stops measuring the GPU time of the frame.
+     */
+    public void endGpuFrame() {
+        if (!enabled || !gpuSupported || gpuRenderer == null) {
+            return;
+        }
+        gpuRenderer.stopProfiling();
+        gpuTaskPending[gpuTaskIndex] = true;
+        gpuTaskIndex = (gpuTaskIndex + 1) % GPU_TASK_COUNT;
+    }
+
+    public boolean isEnabled() {
+        return requestedEnabled;
+    }
+
+    /**
+     * Enables or disables the profiler, the change takes effect at the start of the next frame.
+     * A disabled profiler does not measure anything and its history is left untouched.
+     *
+     * @param enabled true to measure the frames
+     */
+    public void setEnabled(boolean enabled) {
+        this.requestedEnabled = enabled;
+    }
+
+    public int getPhaseCount() {
+        return phaseCount;
+    }
+
+    public String getPhaseName(int phase) {
+        return names[phase];
+    }
+
+    /**
+     * @return the number of frames recorded in the history
+     */
+    public int getHistoryCount() {
+        return historyCount;
+    }
+
+    /**
+     * @param phase The id of the phase
+     * @return the number of times the phase was measured in the current frame
+     */
+    public int getCallCount(int phase) {
+        return frameCalls[phase];
+    }
+
+    private int copyHistory(float[] values, float[] store) {
+        int count = Math.min(historyCount, store.length);
+        int start = historyIndex - count;
+        for (int i = 0; i < count; i++) {
+            store[i] = values[(start + i + HISTORY_SIZE) % HISTORY_SIZE];
+        }
+        return count;
+    }
+
+    /**
+     * Copies the recorded times of a phase, in milliseconds, into <code>store</code>, oldest first.
+     *
+     * @param phase The id of the phase
+     * @param store The array to copy the history into
+     * @return the number of values copied
+     */
+    public int getHistory(int phase, float[] store) {
+        return copyHistory(history[phase], store);
+    }
+
+    /**
+     * Copies the recorded frame times, in milliseconds, into <code>store</code>, oldest first.
+     *
+     * @param store The array to copy the history into
+     * @return the number of values copied
+     */
+    public int getFrameTimeHistory(float[] store) {
+        return copyHistory(frameTimeHistory, store);
+    }
+
+    /**
+     * Copies the recorded GPU times, in milliseconds, into <code>store</code>, oldest first. Frames
+     * for which no result was available are recorded as NaN.
+     *
+     * @param store The array to copy the history into
+     * @return the number of values copied
+     */
+    public int getGpuTimeHistory(float[] store) {
+        return copyHistory(gpuTimeHistory, store);
+    }
+
+    /**
+     * @param phase The id of the phase
+     * @return the time of the phase in the last recorded frame, in milliseconds, or NaN if no
+     * frame was recorded yet
+     */
+    public float getLatest(int phase) {
+        if (historyCount == 0) {
+            return Float.NaN;
+        }
+        return history[phase][(historyIndex - 1 + HISTORY_SIZE) % HISTORY_SIZE];
+    }
+
+    private float average(float[] values) {
+        float sum = 0;
+        int count = 0;
+        for (int i = 0; i < historyCount; i++) {
+            if (!Float.isNaN(values[i])) {
+                sum += values[i];
+                count++;
+            }
+        }
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * @param phase The id of the phase
+     * @return the average time of the phase over the recorded history, in milliseconds
+     */
+    public float getAverage(int phase) {
+        return average(history[phase]);
+    }
+
+    /**
+     * @return the average frame time over the recorded history, in milliseconds
+     */
+    public float getAverageFrameTime() {
+        return average(frameTimeHistory);
+    }
+
+    /**
+     * @return the average GPU time over the recorded history, in milliseconds
+     */
+    public float getAverageGpuTime() {
+        return average(gpuTimeHistory);
+    }
+
+    /**
+     * Writes the recorded history as CSV, one line per frame, oldest first. The columns are the
+     * frame time, the GPU time and the time of every phase, all in milliseconds.
+     *
+     * @param writer The writer to write to, it is not closed
+     * @throws IOException If the writer fails
+     */
+    public void writeCsv(Writer writer) throws IOException {
+        writer.write("Frame,GPU");
+        for (int i = 0; i < phaseCount; i++) {
+            writer.write(',');
+            writer.write(names[i]);
+        }
+        writer.write('\n');
+
+        int start = historyIndex - historyCount;
+        for (int frame = 0; frame < historyCount; frame++) {
+            int index = (start + frame + HISTORY_SIZE) % HISTORY_SIZE;
+            writer.write(Float.toString(frameTimeHistory[index]));
+            writer.write(',');
+            if (!Float.isNaN(gpuTimeHistory[index])) {
+                writer.write(Float.toString(gpuTimeHistory[index]));
+            }
+            for (int i = 0; i < phaseCount; i++) {
+                writer.write(',');
+                writer.write(Float.toString(history[i][index]));
+            }
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+}
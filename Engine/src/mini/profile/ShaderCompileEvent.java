@@ -0,0 +1,30 @@
+package mini.profile;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for the creation of a shader: either the assembly of its sources by a
+ * <code>TechniqueDef</code>, or the compilation and link of the program by the renderer.
+ */
+@Name("mini.ShaderCompile")
+@Label("Shader Compile")
+@Category({"Mini", "Rendering"})
+@Description("A shader assembled by a technique or compiled by the renderer")
+public class ShaderCompileEvent extends Event {
+    public static final String STAGE_SOURCE = "Source";
+    public static final String STAGE_PROGRAM = "Program";
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Shader")
+    @Description("The names of the shader sources")
+    public String shader;
+
+    @Label("Defines")
+    public String defines;
+}
@@ -0,0 +1,20 @@
+package mini.profile;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for the rendering of one shadow map.
+ */
+@Name("mini.ShadowMapRender")
+@Label("Shadow Map Render")
+@Category({"Mini", "Rendering"})
+public class ShadowMapRenderEvent extends Event {
+    @Label("Shadow Map Index")
+    public int shadowMapIndex;
+
+    @Label("Occluders")
+    public int occluders;
+}
@@ -11,11 +11,13 @@ import mini.material.Technique;
 import mini.material.TechniqueDef;
 import mini.math.Matrix4f;
 import mini.post.SceneProcessor;
+import mini.profile.Profiler;
 import mini.renderer.queue.GeometryList;
 import mini.renderer.queue.RenderQueue;
 import mini.scene.Geometry;
 import mini.scene.Mesh;
 import mini.scene.Node;
+import mini.scene.SceneIndex;
 import mini.scene.Spatial;
 import mini.scene.VertexBuffer;
 import mini.shaders.Shader;
@@ -57,6 +59,10 @@ public class RenderManager {
     private LightFilter lightFilter = new DefaultLightFilter();
     private TechniqueDef.LightMode preferredLightMode = TechniqueDef.LightMode.MultiPass;
     private int singlePassLightBatchSize = 1;
+    private Profiler profiler;
+    private boolean frameExtracted;
+    private boolean indexedCulling;
+    private final List<Geometry> visibleGeometries = new ArrayList<>();
 
     /**
      * Create a high-level rendering interface over the
@@ -444,6 +450,31 @@ public class RenderManager {
         this.handleTranlucentBucket = handleTranslucentBucket;
     }
 
+    /**
+     * @return true if the scenes with a {@link SceneIndex} are culled through their index
+     * @see #setIndexedCulling(boolean)
+     */
+    public boolean isIndexedCulling() {
+        return indexedCulling;
+    }
+
+    /**
+     * Culls the scenes whose root node has a {@link Node#setSceneIndex(SceneIndex) scene index}
+     * by querying the index with the frustum of the camera, instead of visiting every spatial of
+     * the scene. Only the geometries inside or intersecting the frustum are queued, the other
+     * scenes are culled as usual. The default is disabled.
+     * <p>
+     * {@link Spatial.CullHint#Always} is honored on every level of the scene, whereas the
+     * geometries outside of the frustum are culled even with {@link Spatial.CullHint#Never}.
+     * {@link mini.scene.control.Control#render(RenderManager, ViewPort) Controls} are rendered
+     * for the nodes with controls and for the visible geometries.
+     *
+     * @param indexedCulling true to cull the indexed scenes through their index
+     */
+    public void setIndexedCulling(boolean indexedCulling) {
+        this.indexedCulling = indexedCulling;
+    }
+
     /**
      * Internal use only. Sets the world matrix to use for future
      * rendering. This has no effect unless objects are rendered manually
@@ -497,11 +528,7 @@ public class RenderManager {
      * @see Material#render(mini.scene.Geometry, mini.renderer.RenderManager)
      */
     public void renderGeometry(Geometry geom) {
-        if (geom.isIgnoreTransform()) {
-            setWorldMatrix(Matrix4f.IDENTITY);
-        } else {
-            setWorldMatrix(geom.getWorldMatrix());
-        }
+        Matrix4f worldMatrix = geom.isIgnoreTransform() ? Matrix4f.IDENTITY : geom.getWorldMatrix();
 
         // Perform light filtering if we have a light filter.
         LightList lightList = geom.getWorldLightList();
@@ -512,7 +539,23 @@ public class RenderManager {
             lightList = filteredLightList;
         }
 
-        Material material = geom.getMaterial();
+        renderGeometry(geom, worldMatrix, geom.getMaterial(), lightList);
+    }
+
+    /**
+     * Renders the given geometry with a world matrix, a material and lights extracted from it
+     * before, see {@link RenderQueue#extract(RenderManager, Camera)}. The lights are not filtered
+     * again.
+     *
+     * @param geom        The geometry to render
+     * @param worldMatrix The world matrix of the geometry
+     * @param material    The material of the geometry
+     * @param lightList   The filtered lights of the geometry
+     * @see #renderGeometry(mini.scene.Geometry)
+     */
+    public void renderGeometry(Geometry geom, Matrix4f worldMatrix, Material material,
+                               LightList lightList) {
+        setWorldMatrix(worldMatrix);
 
         //if forcedTechnique we try to force it for render,
         //if it does not exists in the mat def, we check for forcedMaterial and render the geom if not null
@@ -527,14 +570,13 @@ public class RenderManager {
                                                ? activeTechnique.getDef().getName()
                                                : TechniqueDef.DEFAULT_TECHNIQUE_NAME;
 
-                geom.getMaterial().selectTechnique(forcedTechnique, this);
+                material.selectTechnique(forcedTechnique, this);
                 //saving forcedRenderState for future calls
                 RenderState tmpRs = forcedRenderState;
-                if (geom.getMaterial().getActiveTechnique().getDef().getForcedRenderState()
-                    != null) {
+                if (material.getActiveTechnique().getDef().getForcedRenderState() != null) {
                     //forcing forced technique renderState
-                    forcedRenderState = geom.getMaterial().getActiveTechnique().getDef()
-                                            .getForcedRenderState();
+                    forcedRenderState = material.getActiveTechnique().getDef()
+                                                .getForcedRenderState();
                 }
                 // use geometry's material
                 material.render(geom, lightList, this);
@@ -573,6 +615,24 @@ public class RenderManager {
         }
     }
 
+    /**
+     * Adds the lights of a geometry to a list, filtered by the {@link #setLightFilter(LightFilter)
+     * light filter} if there is one.
+     *
+     * @param geom  The geometry
+     * @param store The list receiving the lights
+     */
+    public void filterLights(Geometry geom, LightList store) {
+        if (lightFilter != null) {
+            lightFilter.filterLights(geom, store);
+        } else {
+            LightList worldLights = geom.getWorldLightList();
+            for (int i = 0; i < worldLights.size(); i++) {
+                store.add(worldLights.get(i));
+            }
+        }
+    }
+
     /**
      * Preloads a scene for rendering.
      * <p>
@@ -645,10 +705,67 @@ public class RenderManager {
      *              contain the flattened scene graph.
      */
     public void renderScene(Spatial scene, ViewPort vp) {
+        if (profiler != null) {
+            profiler.begin(Profiler.CULLING);
+        }
         //reset of the camera plane state for proper culling (must be 0 for the first note of the scene to be rendered)
         vp.getCamera().setPlaneState(0);
         //rendering the scene
-        renderSubScene(scene, vp);
+        SceneIndex index = scene.getSceneIndex();
+        if (indexedCulling && index != null && scene.getParent() == null) {
+            renderIndexedScene((Node) scene, index, vp);
+        } else {
+            renderSubScene(scene, vp);
+        }
+        if (profiler != null) {
+            profiler.end(Profiler.CULLING);
+        }
+    }
+
+    private void renderIndexedScene(Node scene, SceneIndex index, ViewPort vp) {
+        Camera cam = vp.getCamera();
+        if (!scene.checkCulling(cam)) {
+            return;
+        }
+        scene.runControlRender(this, vp);
+        // The nodes are not visited, render the controls of the ones with controls
+        for (Spatial spatial : scene.getUpdatedSpatials()) {
+            if (spatial instanceof Node && spatial.getCullHint() != Spatial.CullHint.Always
+                && !isCulledByParent(spatial)) {
+                spatial.runControlRender(this, vp);
+            }
+        }
+
+        visibleGeometries.clear();
+        index.query(cam, visibleGeometries);
+        for (Geometry gm : visibleGeometries) {
+            if (isCulledByParent(gm)) {
+                continue;
+            }
+            cam.setPlaneState(0);
+            if (!gm.checkCulling(cam)) {
+                continue;
+            }
+            gm.runControlRender(this, vp);
+            if (gm.getMaterial() == null) {
+                throw new IllegalStateException("No material is set for Geometry: " + gm.getName());
+            }
+            vp.getQueue().addToQueue(gm, gm.getQueueBucket());
+        }
+        visibleGeometries.clear();
+    }
+
+    /**
+     * @return true if an ancestor of the spatial, below the root, is culled
+     */
+    private boolean isCulledByParent(Spatial spatial) {
+        for (Node node = spatial.getParent(); node != null && node.getParent() != null;
+             node = node.getParent()) {
+            if (node.getCullHint() == Spatial.CullHint.Always) {
+                return true;
+            }
+        }
+        return false;
     }
 
     // recursively renders the scene
@@ -715,7 +832,13 @@ public class RenderManager {
      * @see #renderGeometryList(mini.renderer.queue.GeometryList)
      */
     public void flushQueue(ViewPort vp) {
+        if (profiler != null) {
+            profiler.begin(Profiler.FLUSH_QUEUE);
+        }
         renderViewPortQueues(vp, true);
+        if (profiler != null) {
+            profiler.end(Profiler.FLUSH_QUEUE);
+        }
     }
 
     /**
@@ -808,7 +931,7 @@ public class RenderManager {
      */
     public void renderViewPortQueues(ViewPort vp, boolean flush) {
         RenderQueue rq = vp.getQueue();
-        Camera cam = vp.getCamera();
+        Camera cam = vp.getRenderCamera();
         boolean depthRangeChanged = false;
 
         // render opaque objects with default depth range
@@ -862,7 +985,7 @@ public class RenderManager {
     public void renderTranslucentQueue(ViewPort vp) {
         RenderQueue rq = vp.getQueue();
         if (!rq.isQueueEmpty(RenderQueue.Bucket.Translucent) && handleTranlucentBucket) {
-            rq.renderQueue(RenderQueue.Bucket.Translucent, this, vp.getCamera(), true);
+            rq.renderQueue(RenderQueue.Bucket.Translucent, this, vp.getRenderCamera(), true);
         }
     }
 
@@ -993,6 +1116,10 @@ public class RenderManager {
             return;
         }
 
+        if (profiler != null) {
+            profiler.begin(Profiler.VIEWPORT);
+        }
+
         List<SceneProcessor> processors = vp.getProcessors();
         if (processors.isEmpty()) {
             processors = null;
@@ -1008,17 +1135,20 @@ public class RenderManager {
         }
 
         renderer.setFrameBuffer(vp.getOutputFrameBuffer());
-        setCamera(vp.getCamera(), false);
+        setCamera(vp.getRenderCamera(), false);
         if (vp.isClearDepth() || vp.isClearColor() || vp.isClearStencil()) {
             if (vp.isClearColor()) {
-                renderer.setBackgroundColor(vp.getBackgroundColor());
+                renderer.setBackgroundColor(vp.getRenderBackgroundColor());
             }
             renderer.clearBuffers(vp.isClearColor(), vp.isClearDepth(), vp.isClearStencil());
         }
 
-        List<Spatial> scenes = vp.getScenes();
-        for (int i = scenes.size() - 1; i >= 0; i--) {
-            renderScene(scenes.get(i), vp);
+        // The queue of an extracted frame is already filled
+        if (!vp.isExtracted()) {
+            List<Spatial> scenes = vp.getScenes();
+            for (int i = scenes.size() - 1; i >= 0; i--) {
+                renderScene(scenes.get(i), vp);
+            }
         }
 
         if (processors != null) {
@@ -1038,6 +1168,11 @@ public class RenderManager {
         renderTranslucentQueue(vp);
         // clear any remaining spatials that were not rendered.
         clearQueue(vp);
+        vp.clearExtracted();
+
+        if (profiler != null) {
+            profiler.end(Profiler.VIEWPORT);
+        }
     }
 
     /**
@@ -1058,25 +1193,144 @@ public class RenderManager {
             return;
         }
 
+        if (profiler != null) {
+            profiler.begin(Profiler.RENDER);
+            profiler.beginGpuFrame(renderer);
+        }
+
         uniformBindingManager.newFrame();
 
+        // The viewports added after the frame was extracted are rendered from the next frame
+        boolean extracted = frameExtracted;
+        frameExtracted = false;
+
         for (ViewPort vp : preViewPorts) {
-            if (vp.getOutputFrameBuffer() != null || mainFrameBufferActive) {
+            if ((vp.getOutputFrameBuffer() != null || mainFrameBufferActive)
+                && (!extracted || vp.isExtracted())) {
                 renderViewPort(vp, tpf);
             }
         }
 
         for (ViewPort vp : viewPorts) {
-            if (vp.getOutputFrameBuffer() != null || mainFrameBufferActive) {
+            if ((vp.getOutputFrameBuffer() != null || mainFrameBufferActive)
+                && (!extracted || vp.isExtracted())) {
                 renderViewPort(vp, tpf);
             }
         }
 
         for (ViewPort vp : postViewPorts) {
-            if (vp.getOutputFrameBuffer() != null || mainFrameBufferActive) {
+            if ((vp.getOutputFrameBuffer() != null || mainFrameBufferActive)
+                && (!extracted || vp.isExtracted())) {
                 renderViewPort(vp, tpf);
             }
         }
+
+        if (profiler != null) {
+            profiler.endGpuFrame();
+            profiler.end(Profiler.RENDER);
+        }
+    }
+
+    /**
+     * Culls the scenes of the viewports rendered by {@link #render(float, boolean)} into their
+     * queues, and extracts the state needed to render the queues: the cameras and the background
+     * colors of the viewports, and the world matrices, the materials and the filtered lights of the
+     * queued geometries. The next call to {@link #render(float, boolean)} renders the extracted
+     * frame without reading the scenes, which can be updated meanwhile on another thread, see
+     * {@link mini.app.SimpleApplication#setPipelined(boolean)}.
+     * <p>
+     * The scene processors are still run by {@link #render(float, boolean)} and read the scenes
+     * directly, the scenes must not be updated while a frame with scene processors is rendered,
+     * see {@link #hasSceneProcessors()}.
+     *
+     * @param mainFrameBufferActive True if the viewports rendering to the main frame buffer are
+     *                              rendered
+     */
+    public void extractFrame(boolean mainFrameBufferActive) {
+        if (renderer instanceof NullRenderer) {
+            return;
+        }
+
+        extractViewPorts(preViewPorts, mainFrameBufferActive);
+        extractViewPorts(viewPorts, mainFrameBufferActive);
+        extractViewPorts(postViewPorts, mainFrameBufferActive);
+        frameExtracted = true;
+    }
+
+    private void extractViewPorts(List<ViewPort> viewPorts, boolean mainFrameBufferActive) {
+        for (ViewPort vp : viewPorts) {
+            clearQueue(vp);
+            vp.clearExtracted();
+            if (!vp.isEnabled()
+                || vp.getOutputFrameBuffer() == null && !mainFrameBufferActive) {
+                continue;
+            }
+
+            List<Spatial> scenes = vp.getScenes();
+            for (int i = scenes.size() - 1; i >= 0; i--) {
+                renderScene(scenes.get(i), vp);
+            }
+            vp.extract();
+            Camera cam = vp.getRenderCamera();
+            if (lightFilter != null) {
+                lightFilter.setCamera(cam);
+            }
+            vp.getQueue().extract(this, cam);
+        }
+    }
+
+    /**
+     * @return true if an enabled viewport has {@link SceneProcessor scene processors}, which read
+     * the scenes and the cameras while the viewport is rendered
+     */
+    public boolean hasSceneProcessors() {
+        return hasSceneProcessors(preViewPorts) || hasSceneProcessors(viewPorts)
+               || hasSceneProcessors(postViewPorts);
+    }
+
+    private static boolean hasSceneProcessors(List<ViewPort> list) {
+        for (int i = 0; i < list.size(); i++) {
+            ViewPort vp = list.get(i);
+            if (vp.isEnabled() && !vp.getProcessors().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Discards the frame extracted by {@link #extractFrame(boolean)}, the next call to
+     * {@link #render(float, boolean)} culls the scenes again.
+     */
+    public void discardExtractedFrame() {
+        discardExtracted(preViewPorts);
+        discardExtracted(viewPorts);
+        discardExtracted(postViewPorts);
+        frameExtracted = false;
+    }
+
+    private void discardExtracted(List<ViewPort> list) {
+        for (int i = 0; i < list.size(); i++) {
+            ViewPort vp = list.get(i);
+            clearQueue(vp);
+            vp.clearExtracted();
+        }
+    }
+
+    /**
+     * Sets the profiler measuring the rendering phases and the GPU time of every frame.
+     *
+     * @param profiler The profiler, or null to stop profiling
+     */
+    public void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * @return The profiler measuring the rendering phases, or null
+     */
+    public Profiler getProfiler() {
+        return profiler;
     }
 
     /**
@@ -338,5 +338,48 @@ public interface Renderer {
      * @see Caps#Srgb
      */
     void setLinearizeSrgbImages(boolean linearize);
-}
 
+    /**
+     * Creates a GPU timer query which can be used to measure the time spent by the GPU on the
+     * commands issued between {@link #startProfiling(int)} and {@link #stopProfiling()}.
+     *
+     * @return the id of the task, or -1 if timer queries are not supported by the GPU
+     */
+    int createProfilingTask();
+
+    /**
+     * Starts measuring the GPU time of the commands issued from now on. Only one task can be
+     * measured at a time.
+     *
+     * @param taskId The id returned by {@link #createProfilingTask()}
+     */
+    void startProfiling(int taskId);
+
+    /**
+     * Stops measuring the task started with {@link #startProfiling(int)}.
+     */
+    void stopProfiling();
+
+    /**
+     * The result of a task is usually only available a few frames after it has been measured.
+     *
+     * @param taskId The id returned by {@link #createProfilingTask()}
+     * @return true if {@link #getProfilingTime(int)} can be called without stalling
+     */
+    boolean isTaskResultAvailable(int taskId);
+
+    /**
+     * Returns the GPU time of the last measurement of the task, this stalls until the result is
+     * available.
+     *
+     * @param taskId The id returned by {@link #createProfilingTask()}
+     * @return the time in nanoseconds
+     */
+    long getProfilingTime(int taskId);
+
+    /**
+     * @return the number of draw calls issued by {@link #renderMesh(Mesh, int, int, VertexBuffer[])}
+     * since the renderer was created
+     */
+    long getDrawCallCount();
+}
@@ -43,6 +43,11 @@ public class ViewPort {
     protected boolean clearDepth = false, clearColor = false, clearStencil = false;
     private boolean enabled = true;
 
+    // The state of the viewport when its queue was extracted, see RenderManager#extractFrame
+    private Camera extractedCam;
+    private final ColorRGBA extractedBackColor = new ColorRGBA();
+    private boolean extracted;
+
     /**
      * Create a new viewport. User code should generally use these methods instead:<br>
      * <ul>
@@ -355,4 +360,34 @@ public class ViewPort {
     public boolean isEnabled() {
         return enabled;
     }
+
+    void extract() {
+        if (extractedCam == null) {
+            extractedCam = cam.clone();
+        } else {
+            extractedCam.copyFrom(cam);
+        }
+        extractedBackColor.set(backColor);
+        extracted = true;
+    }
+
+    void clearExtracted() {
+        extracted = false;
+    }
+
+    boolean isExtracted() {
+        return extracted;
+    }
+
+    /**
+     * @return the camera extracted with the queue, or the camera of the viewport if the queue was
+     * not extracted
+     */
+    Camera getRenderCamera() {
+        return extracted ? extractedCam : cam;
+    }
+
+    ColorRGBA getRenderBackgroundColor() {
+        return extracted ? extractedBackColor : backColor;
+    }
 }
@@ -7,6 +7,7 @@ import mini.math.Quaternion;
 import mini.math.Vector2f;
 import mini.math.Vector3f;
 import mini.math.Vector4f;
+import mini.profile.ShaderCompileEvent;
 import mini.renderer.Caps;
 import mini.renderer.IDList;
 import mini.renderer.Limits;
@@ -59,6 +60,7 @@ public final class GLRenderer implements Renderer {
     private int vpX, vpY, vpW, vpH;
     private int clipX, clipY, clipW, clipH;
     private int defaultAnisotropicFilter = 1;
+    private long drawCallCount;
     private boolean linearizeSrgbImages;
     private HashSet<String> extensions;
 
@@ -1219,6 +1221,8 @@ public final class GLRenderer implements Renderer {
     }
 
     public void updateShaderData(Shader shader) {
+        ShaderCompileEvent event = new ShaderCompileEvent();
+        event.begin();
         int id = shader.getId();
         boolean needRegister = false;
         if (id == -1) {
@@ -1288,6 +1292,22 @@ public final class GLRenderer implements Renderer {
                 // OpenGL spec: uniform locations may change after re-link
                 resetUniformLocations(shader);
             }
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = ShaderCompileEvent.STAGE_PROGRAM;
+                StringBuilder names = new StringBuilder();
+                for (ShaderSource source : shader.getSources()) {
+                    if (names.length() > 0) {
+                        names.append(", ");
+                    }
+                    names.append(source.getName());
+                    // All the sources of a program share the defines of the technique
+                    event.defines = source.getDefines();
+                }
+                event.shader = names.toString();
+                event.commit();
+            }
         } else {
             if (infoLog != null) {
                 throw new RendererException(
@@ -2781,6 +2801,12 @@ public final class GLRenderer implements Renderer {
 //        }else{
         renderMeshDefault(mesh, lod, count, instanceData);
 //        }
+        drawCallCount++;
+    }
+
+    @Override
+    public long getDrawCallCount() {
+        return drawCallCount;
     }
 
     public void setMainFrameBufferSrgb(boolean enableSrgb) {
@@ -2814,4 +2840,34 @@ public final class GLRenderer implements Renderer {
             linearizeSrgbImages = linearize;
         }
     }
+
+    @Override
+    public int createProfilingTask() {
+        if (!caps.contains(Caps.OpenGL33)) {
+            return -1;
+        }
+        intBuf1.clear();
+        gl.glGenQueries(1, intBuf1);
+        return intBuf1.get(0);
+    }
+
+    @Override
+    public void startProfiling(int taskId) {
+        gl.glBeginQuery(GL.GL_TIME_ELAPSED, taskId);
+    }
+
+    @Override
+    public void stopProfiling() {
+        gl.glEndQuery(GL.GL_TIME_ELAPSED);
+    }
+
+    @Override
+    public boolean isTaskResultAvailable(int taskId) {
+        return gl.glGetQueryObjectiv(taskId, GL.GL_QUERY_RESULT_AVAILABLE) == 1;
+    }
+
+    @Override
+    public long getProfilingTime(int taskId) {
+        return gl.glGetQueryObjectui64(taskId, GL.GL_QUERY_RESULT);
+    }
 }
@@ -0,0 +1,222 @@
+package mini.renderer.opengl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OpenGL bindings which need no driver. They do nothing but answer the queries of the renderer as
+ * an OpenGL 3.3 core context would: object ids are generated, shaders compile, programs link and
+ * framebuffers are complete. A {@link GLRenderer} running on them goes through the whole render
+ * path, culling, sorting, material and uniform updates, e.g. in tests and headless benchmarks:
+ * <pre>
+ * NullGL gl = new NullGL();
+ * GLRenderer renderer = new GLRenderer(gl.getGL(), gl.getGLExt(), gl.getGLFbo());
+ * renderer.initialize();
+ * </pre>
+ * The bindings are a dynamic proxy, every call boxes its primitive arguments.
+ */
+public class NullGL implements InvocationHandler {
+    static final int TEXTURE_UNITS = 16;
+
+    private final Object proxy;
+    private final String version;
+    private final String glslVersion;
+    private final List<String> extensions = new ArrayList<>();
+    private final Map<Integer, Integer> integers = new HashMap<>();
+    private final Map<Integer, Map<String, Integer>> uniformLocations = new HashMap<>();
+    private final Map<Integer, Map<String, Integer>> attribLocations = new HashMap<>();
+    private int nextId = 1;
+
+    /**
+     * Creates bindings reporting an OpenGL 3.3 core context without extensions.
+     */
+    public NullGL() {
+        this("3.3.0 Null", "3.30");
+    }
+
+    /**
+     * @param version     The string returned for <code>GL_VERSION</code>
+     * @param glslVersion The string returned for <code>GL_SHADING_LANGUAGE_VERSION</code>
+     */
+    public NullGL(String version, String glslVersion) {
+        this.version = version;
+        this.glslVersion = glslVersion;
+        this.proxy = Proxy.newProxyInstance(NullGL.class.getClassLoader(),
+                                            new Class<?>[]{GL4.class, GLExt.class, GLFbo.class},
+                                            this);
+
+        setInteger(GL.GL_MAX_VERTEX_TEXTURE_IMAGE_UNITS, TEXTURE_UNITS);
+        setInteger(GL.GL_MAX_TEXTURE_IMAGE_UNITS, TEXTURE_UNITS);
+        setInteger(GL.GL_MAX_FRAGMENT_UNIFORM_COMPONENTS, 4096);
+        setInteger(GL.GL_MAX_VERTEX_UNIFORM_COMPONENTS, 4096);
+        setInteger(GL.GL_MAX_FRAGMENT_UNIFORM_VECTORS, 1024);
+        setInteger(GL.GL_MAX_VERTEX_UNIFORM_VECTORS, 1024);
+        setInteger(GL.GL_MAX_VERTEX_ATTRIBS, 16);
+        setInteger(GL.GL_MAX_TEXTURE_SIZE, 8192);
+        setInteger(GL.GL_MAX_CUBE_MAP_TEXTURE_SIZE, 8192);
+        setInteger(GLFbo.GL_MAX_RENDERBUFFER_SIZE_EXT, 8192);
+        setInteger(GLFbo.GL_MAX_COLOR_ATTACHMENTS_EXT, 8);
+        setInteger(GLExt.GL_MAX_DRAW_BUFFERS_ARB, 8);
+        setInteger(GL2.GL_DRAW_BUFFER, GL.GL_BACK);
+        setInteger(GL2.GL_READ_BUFFER, GL.GL_BACK);
+    }
+
+    public GL4 getGL() {
+        return (GL4) proxy;
+    }
+
+    public GLExt getGLExt() {
+        return (GLExt) proxy;
+    }
+
+    public GLFbo getGLFbo() {
+        return (GLFbo) proxy;
+    }
+
+    /**
+     * Adds an extension to the ones reported to the renderer, must be called before the renderer
+     * is initialized.
+     *
+     * @param extension The name of the extension, e.g. <code>GL_ARB_compatibility</code>
+     */
+    public void addExtension(String extension) {
+        extensions.add(extension);
+    }
+
+    /**
+     * Sets the value returned by <code>glGetInteger</code>, unknown values are reported as 0.
+     */
+    public void setInteger(int pname, int value) {
+        integers.put(pname, value);
+    }
+
+    private void genIds(IntBuffer ids, int count) {
+        for (int i = 0; i < count; i++) {
+            ids.put(ids.position() + i, nextId++);
+        }
+    }
+
+    /**
+     * @return the location of the variable in the program, the variables of a program get
+     * consecutive locations in the order they are queried
+     */
+    private static int location(Map<Integer, Map<String, Integer>> locations, int program,
+                                String name) {
+        Map<String, Integer> programLocations =
+                locations.computeIfAbsent(program, key -> new HashMap<>());
+        return programLocations.computeIfAbsent(name, key -> programLocations.size());
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+        if (method.getDeclaringClass() == Object.class) {
+            switch (name) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return getClass().getSimpleName();
+            }
+        }
+
+        switch (name) {
+            case "glGenBuffers":
+            case "glGenTextures":
+            case "glGenFramebuffersEXT":
+            case "glGenRenderbuffersEXT":
+            case "glGenVertexArrays":
+                genIds((IntBuffer) args[0], ((IntBuffer) args[0]).remaining());
+                break;
+            case "glGenQueries":
+                genIds((IntBuffer) args[1], (Integer) args[0]);
+                break;
+            case "glCreateShader":
+            case "glCreateProgram":
+                return nextId++;
+            case "glGetString":
+                if (args.length == 2) {
+                    return extensions.get((Integer) args[1]);
+                }
+                return queryString((Integer) args[0]);
+            case "glGetInteger":
+                ((IntBuffer) args[1]).put(0, queryInteger((Integer) args[0]));
+                break;
+            case "glGetBoolean":
+                ((ByteBuffer) args[1]).put(0, (byte) 0);
+                break;
+            case "glGetShader":
+                ((IntBuffer) args[2]).put(0, (Integer) args[1] == GL.GL_COMPILE_STATUS
+                                             ? GL.GL_TRUE : 0);
+                break;
+            case "glGetProgram":
+                ((IntBuffer) args[2]).put(0, (Integer) args[1] == GL.GL_LINK_STATUS
+                                             ? GL.GL_TRUE : 0);
+                break;
+            case "glGetShaderInfoLog":
+            case "glGetProgramInfoLog":
+                return "";
+            case "glGetUniformLocation":
+                return location(uniformLocations, (Integer) args[0], (String) args[1]);
+            case "glGetAttribLocation":
+                return location(attribLocations, (Integer) args[0], (String) args[1]);
+            case "glCheckFramebufferStatusEXT":
+                return GLFbo.GL_FRAMEBUFFER_COMPLETE_EXT;
+            case "glGetQueryObjectiv":
+                return GL.GL_TRUE;
+            case "glFenceSync":
+                return new Object();
+            case "glClientWaitSync":
+                return GLExt.GL_ALREADY_SIGNALED;
+            case "glGetMultisample":
+                ((FloatBuffer) args[2]).put(0, 0.5f).put(1, 0.5f);
+                break;
+            default:
+                break;
+        }
+        return defaultValue(method.getReturnType());
+    }
+
+    private String queryString(int name) {
+        switch (name) {
+            case GL.GL_VERSION:
+                return version;
+            case GL.GL_SHADING_LANGUAGE_VERSION:
+                return glslVersion;
+            case GL.GL_VENDOR:
+            case GL.GL_RENDERER:
+                return getClass().getSimpleName();
+            case GL.GL_EXTENSIONS:
+                return String.join(" ", extensions);
+            default:
+                return "";
+        }
+    }
+
+    private int queryInteger(int pname) {
+        if (pname == GL3.GL_NUM_EXTENSIONS) {
+            return extensions.size();
+        }
+        return integers.getOrDefault(pname, 0);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == boolean.class) {
+            return false;
+        }
+        return null;
+    }
+}
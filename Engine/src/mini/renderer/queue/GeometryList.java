@@ -1,14 +1,23 @@
 package mini.renderer.queue;
 
+import mini.light.LightList;
+import mini.material.Material;
+import mini.math.Matrix4f;
 import mini.renderer.Camera;
+import mini.renderer.RenderManager;
 import mini.scene.Geometry;
 import mini.utils.ListSort;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 /**
  * This class is a special purpose list of {@link Geometry} objects for render queuing.
+ * <p>
+ * The list can {@link #extract(RenderManager) extract} the state needed to render its geometries,
+ * so that it can be rendered while the scene is updated for the next frame. The matrices and the
+ * light lists of the extracted state are reused from frame to frame.
  */
 public class GeometryList implements Iterable<Geometry> {
     private static final int DEFAULT_SIZE = 32;
@@ -18,6 +27,11 @@ public class GeometryList implements Iterable<Geometry> {
     private int size;
     private GeometryComparator comparator;
 
+    private Matrix4f[] worldMatrices = new Matrix4f[0];
+    private Material[] materials = new Material[0];
+    private LightList[] lightLists = new LightList[0];
+    private boolean extracted;
+
     /**
      * Initializes the GeometryList to use the given {@link GeometryComparator}
      * to use for comparing geometries.
@@ -104,10 +118,77 @@ public class GeometryList implements Iterable<Geometry> {
         for (int i = 0; i < size; i++) {
             geometries[i] = null;
         }
+        if (extracted) {
+            for (int i = 0; i < size; i++) {
+                materials[i] = null;
+            }
+            extracted = false;
+        }
 
         size = 0;
     }
 
+    /**
+     * Copies the world matrix, the material and the filtered lights of every geometry of the list,
+     * the list must be sorted before. Until the list is cleared, it is rendered with the copied
+     * state and is not sorted again.
+     *
+     * @param rm The render manager filtering the lights of the geometries
+     */
+    public void extract(RenderManager rm) {
+        if (worldMatrices.length < size) {
+            int length = geometries.length;
+            worldMatrices = Arrays.copyOf(worldMatrices, length);
+            materials = Arrays.copyOf(materials, length);
+            lightLists = Arrays.copyOf(lightLists, length);
+        }
+        for (int i = 0; i < size; i++) {
+            Geometry geometry = geometries[i];
+            if (worldMatrices[i] == null) {
+                worldMatrices[i] = new Matrix4f();
+                lightLists[i] = new LightList(null);
+            }
+            worldMatrices[i].set(geometry.isIgnoreTransform() ? Matrix4f.IDENTITY
+                                                              : geometry.getWorldMatrix());
+            materials[i] = geometry.getMaterial();
+            lightLists[i].clear();
+            rm.filterLights(geometry, lightLists[i]);
+            geometry.queueDistance = Float.NEGATIVE_INFINITY;
+        }
+        extracted = true;
+    }
+
+    /**
+     * @return true if the state of the geometries was {@link #extract(RenderManager) extracted}
+     */
+    public boolean isExtracted() {
+        return extracted;
+    }
+
+    /**
+     * @param index The index of the geometry
+     * @return the extracted world matrix of the geometry
+     */
+    public Matrix4f getWorldMatrix(int index) {
+        return worldMatrices[index];
+    }
+
+    /**
+     * @param index The index of the geometry
+     * @return the extracted material of the geometry
+     */
+    public Material getMaterial(int index) {
+        return materials[index];
+    }
+
+    /**
+     * @param index The index of the geometry
+     * @return the extracted lights of the geometry, filtered by the light filter
+     */
+    public LightList getLightList(int index) {
+        return lightLists[index];
+    }
+
     /**
      * Sorts the elements in the list according to their Comparator.
      */
@@ -1,6 +1,7 @@
 package mini.renderer.queue;
 
 import mini.post.SceneProcessor;
+import mini.profile.Profiler;
 import mini.renderer.Camera;
 import mini.renderer.RenderManager;
 import mini.scene.Geometry;
@@ -223,8 +224,27 @@ public class RenderQueue {
     }
 
     private void renderGeometryList(GeometryList list, RenderManager rm, Camera cam, boolean clear) {
+        if (list.isExtracted()) {
+            // Sorted when extracted, the geometries may be updated for the next frame meanwhile
+            for (int i = 0; i < list.size(); i++) {
+                rm.renderGeometry(list.get(i), list.getWorldMatrix(i), list.getMaterial(i),
+                                  list.getLightList(i));
+            }
+            if (clear) {
+                list.clear();
+            }
+            return;
+        }
+
+        Profiler profiler = rm.getProfiler();
+        if (profiler != null) {
+            profiler.begin(Profiler.QUEUE_SORT);
+        }
         list.setCamera(cam); // select camera for sorting
         list.sort();
+        if (profiler != null) {
+            profiler.end(Profiler.QUEUE_SORT);
+        }
         for (int i = 0; i < list.size(); i++) {
             Geometry obj = list.get(i);
             assert obj != null;
@@ -287,6 +307,35 @@ public class RenderQueue {
         }
     }
 
+    /**
+     * Sorts the queues and copies the state needed to render the queued geometries, so that the
+     * queues can be rendered while the scene is updated on another thread.
+     *
+     * @param rm  The render manager filtering the lights of the geometries
+     * @param cam The camera used to sort the queues
+     * @see GeometryList#extract(RenderManager)
+     */
+    public void extract(RenderManager rm, Camera cam) {
+        extractGeometryList(opaqueList, rm, cam);
+        extractGeometryList(skyList, rm, cam);
+        extractGeometryList(transparentList, rm, cam);
+        extractGeometryList(translucentList, rm, cam);
+        extractGeometryList(guiList, rm, cam);
+    }
+
+    private void extractGeometryList(GeometryList list, RenderManager rm, Camera cam) {
+        Profiler profiler = rm.getProfiler();
+        if (profiler != null) {
+            profiler.begin(Profiler.QUEUE_SORT);
+        }
+        list.setCamera(cam);
+        list.sort();
+        if (profiler != null) {
+            profiler.end(Profiler.QUEUE_SORT);
+        }
+        list.extract(rm);
+    }
+
     public void clear() {
         opaqueList.clear();
         guiList.clear();
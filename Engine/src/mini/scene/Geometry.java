@@ -2,6 +2,7 @@ package mini.scene;
 
 import mini.bounding.BoundingSphere;
 import mini.collision.Collidable;
+import mini.collision.CollisionResult;
 import mini.collision.CollisionResults;
 import mini.material.Material;
 import mini.math.Matrix4f;
@@ -41,6 +42,11 @@ public class Geometry extends Spatial {
      */
     protected int startIndex = -1;
 
+    /**
+     * Leaf of this geometry in the tree of its {@link SceneIndex}, -1 if not indexed.
+     */
+    transient int indexProxy = -1;
+
     /**
      * Serialization only. Do not use.
      */
@@ -237,6 +243,9 @@ public class Geometry extends Spatial {
                 worldBound = mesh.getBound().transform(worldTransform, worldBound);
             }
         }
+        if (sceneIndex != null) {
+            sceneIndex.update(this);
+        }
     }
 
     @Override
@@ -282,6 +291,18 @@ public class Geometry extends Spatial {
         return super.removeFromParent();
     }
 
+    @Override
+    void setIndex(SceneIndex index) {
+        if (sceneIndex != null) {
+            sceneIndex.remove(this);
+        }
+        super.setIndex(index);
+        // Otherwise indexed when the bound is updated
+        if (index != null && worldBound != null && (refreshFlags & RF_BOUND) == 0) {
+            index.update(this);
+        }
+    }
+
     @Override
     protected void setParent(Node parent) {
         super.setParent(parent);
@@ -341,9 +362,14 @@ public class Geometry extends Spatial {
 
         int prevSize = results.size();
         int added = mesh.collideWith(other, cachedWorldMat, worldBound, results);
+        // Only appended to all the results, the bounded results replace the farther ones
+        int first = results.getMode() == CollisionResults.Mode.All ? prevSize : 0;
         int newSize = results.size();
-        for (int i = prevSize; i < newSize; i++) {
-            results.getCollisionDirect(i).setGeometry(this);
+        for (int i = first; i < newSize; i++) {
+            CollisionResult result = results.getCollisionDirect(i);
+            if (result.getGeometry() == null) {
+                result.setGeometry(this);
+            }
         }
         return added;
     }
@@ -418,6 +444,7 @@ public class Geometry extends Spatial {
         }
 
         this.cachedWorldMat = cloner.clone(cachedWorldMat);
+        this.indexProxy = -1;
 
         // TODO: Consider animation here, special cloning stage
 
@@ -4,10 +4,12 @@ import mini.bounding.BoundingBox;
 import mini.bounding.BoundingVolume;
 import mini.collision.Collidable;
 import mini.collision.CollisionResults;
+import mini.collision.bih.BIHCache;
 import mini.collision.bih.BIHTree;
 import mini.material.Material;
 import mini.material.RenderState;
 import mini.math.Matrix4f;
+import mini.math.Ray;
 import mini.math.Triangle;
 import mini.math.Vector2f;
 import mini.math.Vector3f;
@@ -30,6 +32,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * <code>Mesh</code> is used to store rendering data.
@@ -139,7 +143,20 @@ public class Mesh implements Cloneable, MiniCloneable {
      */
     private BoundingVolume meshBound = new BoundingBox();
 
-    private CollisionData collisionTree = null;
+    /**
+     * Meshes with at least this many triangles build their collision tree in the background the
+     * first time they are collided with.
+     */
+    public static final int ASYNC_COLLISION_TRIANGLES = 65536;
+
+    private static volatile BIHCache collisionCache;
+
+    private volatile CollisionData collisionTree = null;
+    /**
+     * The background construction of the collision tree, null if none was started since the tree
+     * was last cleared.
+     */
+    private transient CompletableFuture<Void> collisionBuild;
 
     private List<VertexBuffer> buffersList = new ArrayList<>();
     private Map<Integer, VertexBuffer> buffers = new HashMap<>();
@@ -179,6 +196,7 @@ public class Mesh implements Cloneable, MiniCloneable {
             Mesh clone = (Mesh) super.clone();
             clone.meshBound = meshBound.clone();
             clone.collisionTree = collisionTree;
+            clone.collisionBuild = null;
             clone.buffers = new HashMap<>(buffers);
             clone.buffersList = new ArrayList<>(buffersList);
             clone.vertexArrayID = -1;
@@ -209,6 +227,7 @@ public class Mesh implements Cloneable, MiniCloneable {
             // TODO: Collision tree cloning
             //clone.collisionTree = collisionTree != null ? collisionTree : null;
             clone.collisionTree = null; // it will get re-generated in any case
+            clone.collisionBuild = null;
 
             clone.buffers = new HashMap<>();
             clone.buffersList = new ArrayList<>();
@@ -293,6 +312,7 @@ public class Mesh implements Cloneable, MiniCloneable {
 
         // Probably could clone this now but it will get regenerated anyway.
         this.collisionTree = null;
+        this.collisionBuild = null;
 
         this.meshBound = cloner.clone(meshBound);
         this.buffersList = cloner.clone(buffersList);
@@ -923,8 +943,79 @@ public class Mesh implements Cloneable, MiniCloneable {
      */
     public void createCollisionData() {
         BIHTree tree = new BIHTree(this);
-        tree.construct();
-        collisionTree = tree;
+        construct(tree);
+        synchronized (this) {
+            collisionTree = tree;
+            collisionBuild = null;
+        }
+    }
+
+    /**
+     * Generates the collision tree of the mesh in the background, on the common fork/join pool.
+     * The triangles are copied on the calling thread, the mesh can be modified once this method
+     * returns. Until the tree is built, collisions are tested against the world bound of the
+     * geometries only.
+     *
+     * @return the construction of the tree, the construction already started if any
+     */
+    public synchronized CompletableFuture<Void> createCollisionDataAsync() {
+        if (collisionBuild != null) {
+            return collisionBuild;
+        }
+        if (collisionTree != null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        BIHTree tree = new BIHTree(this);
+        CompletableFuture<Void> build = new CompletableFuture<>();
+        collisionBuild = build;
+        ForkJoinPool.commonPool().execute(() -> {
+            try {
+                construct(tree);
+            } catch (RuntimeException | Error e) {
+                // Kept to report the failure to the next collisions
+                build.completeExceptionally(e);
+                return;
+            }
+            synchronized (this) {
+                // Dropped if the collision data was cleared in the meantime
+                if (collisionBuild == build) {
+                    collisionTree = tree;
+                    collisionBuild = null;
+                }
+            }
+            build.complete(null);
+        });
+        return build;
+    }
+
+    private static void construct(BIHTree tree) {
+        BIHCache cache = collisionCache;
+        if (cache != null) {
+            cache.construct(tree);
+        } else {
+            tree.construct();
+        }
+    }
+
+    /**
+     * Sets the cache of the collision trees of all the meshes, so that the trees are built only
+     * once for the same triangles.
+     *
+     * @param cache The cache, null to always build the trees
+     */
+    public static void setCollisionCache(BIHCache cache) {
+        collisionCache = cache;
+    }
+
+    public static BIHCache getCollisionCache() {
+        return collisionCache;
+    }
+
+    /**
+     * @return the collision tree of the mesh, null if not built yet
+     */
+    public CollisionData getCollisionData() {
+        return collisionTree;
     }
 
     /**
@@ -932,14 +1023,19 @@ public class Mesh implements Cloneable, MiniCloneable {
      * the mesh has changed in some way that invalidates any previously
      * generated BIHTree.
      */
-    public void clearCollisionData() {
+    public synchronized void clearCollisionData() {
         collisionTree = null;
+        collisionBuild = null;
     }
 
     /**
      * Handles collision detection, internal use only.
      * User code should only use collideWith() on scene
      * graph elements such as {@link Spatial}s.
+     * <p>
+     * The collision tree is built on the first collision, in the background for meshes of at least
+     * {@link #ASYNC_COLLISION_TRIANGLES} triangles. The rays are tested against the world bound
+     * until the tree is built, the volumes and the swept spheres wait for the tree.
      */
     public int collideWith(Collidable other,
                            Matrix4f worldMatrix,
@@ -950,11 +1046,25 @@ public class Mesh implements Cloneable, MiniCloneable {
             return 0;
         }
 
-        if (collisionTree == null) {
-            createCollisionData();
+        CollisionData tree = collisionTree;
+        if (tree == null) {
+            if (getTriangleCount() < ASYNC_COLLISION_TRIANGLES) {
+                createCollisionData();
+                tree = collisionTree;
+            } else {
+                CompletableFuture<Void> build = createCollisionDataAsync();
+                if (build.isCompletedExceptionally() || !(other instanceof Ray)) {
+                    // Rethrows the failure of the construction, the volumes wait for the triangles
+                    build.join();
+                }
+                tree = collisionTree;
+            }
+            if (tree == null) {
+                return worldBound.collideWith(other, results);
+            }
         }
 
-        return collisionTree.collideWith(other, worldMatrix, worldBound, results);
+        return tree.collideWith(other, worldMatrix, worldBound, results);
     }
 
     /**
@@ -1,13 +1,21 @@
 package mini.scene;
 
+import mini.bounding.BoundingBox;
 import mini.bounding.BoundingVolume;
 import mini.collision.Collidable;
 import mini.collision.CollisionResults;
+import mini.collision.SweptSphere;
 import mini.material.Material;
+import mini.math.Ray;
+import mini.math.Vector3f;
+import mini.utils.TempVars;
 import mini.utils.clone.Cloner;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * <code>Node</code> defines an internal node of a scene graph. The internal
@@ -16,6 +24,17 @@ import java.util.List;
  * allows for any number of children to be attached.
  */
 public class Node extends Spatial {
+    /**
+     * Number of spatials with thread safe controls below which a root updates their logical state
+     * on the calling thread, and the most spatials updated by one task in parallel.
+     */
+    private static final int LOGICAL_GRAIN = 4;
+    /**
+     * Number of dirty children below which a node updates their geometric state on the calling
+     * thread, and the most children updated by one task in parallel.
+     */
+    private static final int GEOMETRIC_GRAIN = 64;
+
     /**
      * This node's children.
      */
@@ -36,6 +55,30 @@ public class Node extends Spatial {
      */
     private boolean updateListValid = false;
 
+    /**
+     * The children with refresh flags, updateGeometricState() visits them instead of all the
+     * children. A child may be listed more than once or after being detached, only the entry of
+     * the node it is {@link Spatial#queuedIn queued in} counts.
+     */
+    private List<Spatial> dirtyChildren = new ArrayList<>();
+    /**
+     * False if the world bound can be updated by merging the new bounds of the children which
+     * moved, true if it must be merged again from all the children.
+     */
+    private boolean fullBoundRefresh = true;
+    private BoundingVolume previousBound;
+
+    /**
+     * If this node is a root updated in parallel, the pool running the updates.
+     */
+    private ForkJoinPool updatePool;
+    private List<Spatial> parallelUpdateList;
+    private List<Spatial> serialUpdateList;
+    /**
+     * If this node is a root updating its transforms in flat arrays, the arrays.
+     */
+    private TransformHierarchy transformHierarchy;
+
     /**
      * Serialization only. Do not use.
      */
@@ -71,43 +114,173 @@ public class Node extends Spatial {
 
     @Override
     protected void setTransformRefresh() {
-        super.setTransformRefresh();
-        for (Spatial child : children) {
-            if ((child.refreshFlags & RF_TRANSFORM) != 0) {
-                continue;
+        synchronized (REFRESH_LOCK) {
+            super.setTransformRefresh();
+            for (Spatial child : children) {
+                if ((child.refreshFlags & RF_TRANSFORM) != 0) {
+                    continue;
+                }
+
+                child.setTransformRefresh();
             }
+        }
+    }
 
-            child.setTransformRefresh();
+    @Override
+    protected void setBoundRefresh() {
+        synchronized (REFRESH_LOCK) {
+            fullBoundRefresh = true;
+            super.setBoundRefresh();
         }
     }
 
     @Override
     protected void setLightListRefresh() {
-        super.setLightListRefresh();
-        for (Spatial child : children) {
-            if ((child.refreshFlags & RF_LIGHTLIST) != 0) {
-                continue;
-            }
+        synchronized (REFRESH_LOCK) {
+            super.setLightListRefresh();
+            for (Spatial child : children) {
+                if ((child.refreshFlags & RF_LIGHTLIST) != 0) {
+                    continue;
+                }
 
-            child.setLightListRefresh();
+                child.setLightListRefresh();
+            }
         }
     }
 
     @Override
     protected void setMatParamOverrideRefresh() {
-        super.setMatParamOverrideRefresh();
-        for (Spatial child : children) {
-            if ((child.refreshFlags & RF_MATPARAM_OVERRIDE) != 0) {
-                continue;
+        synchronized (REFRESH_LOCK) {
+            super.setMatParamOverrideRefresh();
+            for (Spatial child : children) {
+                if ((child.refreshFlags & RF_MATPARAM_OVERRIDE) != 0) {
+                    continue;
+                }
+
+                child.setMatParamOverrideRefresh();
             }
+        }
+    }
 
-            child.setMatParamOverrideRefresh();
+    /**
+     * Updates this root node in parallel. The spatials whose
+     * {@link Spatial#isLogicalStateThreadSafe() logical state is thread safe} are updated
+     * concurrently, then the other ones are updated one after the other on the calling thread. The
+     * geometric state of large groups of dirty siblings is updated concurrently. The results are
+     * the same as those of the serial update, as long as the thread safe controls keep to their
+     * own spatial.
+     *
+     * @param pool The pool running the updates, or null to update on the calling thread only
+     * @throws IllegalStateException If this node is not a root
+     */
+    public void setUpdatePool(ForkJoinPool pool) {
+        if (parent != null) {
+            throw new IllegalStateException("Only a root node can be updated in parallel");
+        }
+        this.updatePool = pool;
+    }
+
+    /**
+     * @return the pool running the parallel updates of this root node, or null if it is updated
+     * on the calling thread only
+     */
+    public ForkJoinPool getUpdatePool() {
+        return updatePool;
+    }
+
+    /**
+     * Updates the world transforms of the scene below this root node in flat arrays rather than
+     * spatial by spatial. The world transforms are kept in contiguous arrays sorted so that every
+     * parent comes before its children, and are computed in one linear pass over them along with
+     * the world matrices and the world bounds of the geometries. This is faster for scenes with
+     * many moving spatials, e.g. 100k nodes, and gives the same results. The arrays are rebuilt
+     * when spatials are attached or detached, which makes it slower for scenes changing every
+     * frame.
+     *
+     * @param flat true to update the transforms in flat arrays
+     * @throws IllegalStateException If this node is not a root
+     */
+    public void setFlatTransformUpdate(boolean flat) {
+        if (parent != null) {
+            throw new IllegalStateException("Only the transforms of a root node can be flattened");
+        }
+        if (!flat) {
+            transformHierarchy = null;
+        } else if (transformHierarchy == null) {
+            transformHierarchy = new TransformHierarchy(this);
+        }
+    }
+
+    /**
+     * @return true if the world transforms of the scene below this root node are updated in flat
+     * arrays
+     */
+    public boolean isFlatTransformUpdate() {
+        return transformHierarchy != null;
+    }
+
+    /**
+     * Indexes the geometries of the scene below this root node, so that
+     * {@link #collideWith(Collidable, CollisionResults) collisions} with rays and bounding
+     * volumes only test the geometries near them, and so that the render manager can
+     * {@link mini.renderer.RenderManager#setIndexedCulling(boolean) cull} the scene without
+     * visiting every spatial. The index is kept up to date as the geometries are attached,
+     * detached and moved.
+     *
+     * @param index The index of the scene, or null to stop indexing it
+     * @throws IllegalStateException If this node is not a root
+     */
+    public void setSceneIndex(SceneIndex index) {
+        if (parent != null) {
+            throw new IllegalStateException("Only the scene of a root node can be indexed");
+        }
+        if (index != sceneIndex) {
+            setIndex(index);
+        }
+    }
+
+    @Override
+    void setIndex(SceneIndex index) {
+        super.setIndex(index);
+        for (Spatial child : children) {
+            child.setIndex(index);
+        }
+    }
+
+    /**
+     * @return the spatials below this root node requiring updates, i.e. with controls
+     * @throws IllegalStateException If this node is not a root
+     */
+    public List<Spatial> getUpdatedSpatials() {
+        if (parent != null) {
+            throw new IllegalStateException("Only a root node lists the spatials to update");
+        }
+        return getUpdateList();
+    }
+
+    void queueChild(Spatial child) {
+        dirtyChildren.add(child);
+    }
+
+    void invalidateIncrementalBound() {
+        fullBoundRefresh = true;
+    }
+
+    /**
+     * Called before the world bound of a child is updated outside of
+     * {@link #updateGeometricState()}, with the previous bound of the child still set.
+     */
+    void childBoundChanging(Spatial child) {
+        if (!fullBoundRefresh
+            && (worldBound == null || !isStrictlyInside(child.worldBound, worldBound))) {
+            fullBoundRefresh = true;
         }
     }
 
     @Override
     protected void updateWorldBound() {
         super.updateWorldBound();
+        fullBoundRefresh = false;
         // for a node, the world bound is a combination of all it's children bounds
         BoundingVolume resultBound = null;
         for (Spatial child : children) {
@@ -159,9 +332,19 @@ public class Node extends Spatial {
         updateListValid = false;
         if (parent != null) {
             parent.invalidateUpdateList();
+        } else if (transformHierarchy != null) {
+            transformHierarchy.invalidate();
         }
     }
 
+    /**
+     * Called when the world transform of this node was updated by a {@link TransformHierarchy}.
+     */
+    void transformsMoved() {
+        // All the children moved, the bound cannot be updated incrementally
+        fullBoundRefresh = true;
+    }
+
     private List<Spatial> getUpdateList() {
         if (updateListValid) {
             return updateList;
@@ -188,8 +371,34 @@ public class Node extends Spatial {
             return;
         }
 
-        for (Spatial spatial : getUpdateList()) {
-            spatial.updateLogicalState(tpf);
+        List<Spatial> updateList = getUpdateList();
+        if (updatePool == null || updateList.size() < 2 * LOGICAL_GRAIN) {
+            for (Spatial spatial : updateList) {
+                spatial.updateLogicalState(tpf);
+            }
+            return;
+        }
+
+        if (parallelUpdateList == null) {
+            parallelUpdateList = new ArrayList<>();
+            serialUpdateList = new ArrayList<>();
+        }
+        for (Spatial spatial : updateList) {
+            if (spatial.isLogicalStateThreadSafe()) {
+                parallelUpdateList.add(spatial);
+            } else {
+                serialUpdateList.add(spatial);
+            }
+        }
+        try {
+            updatePool.invoke(new UpdateTask(parallelUpdateList, 0, parallelUpdateList.size(),
+                                             tpf));
+            for (Spatial spatial : serialUpdateList) {
+                spatial.updateLogicalState(tpf);
+            }
+        } finally {
+            parallelUpdateList.clear();
+            serialUpdateList.clear();
         }
     }
 
@@ -199,6 +408,24 @@ public class Node extends Spatial {
             // This branch has no geometric state that requires updates.
             return;
         }
+        if (updatePool != null && parent == null && !ForkJoinTask.inForkJoinPool()) {
+            // The dirty children of the nodes are updated in parallel inside the pool
+            updatePool.invoke(ForkJoinTask.adapt(this::updateGeometricState));
+            return;
+        }
+        if (transformHierarchy != null && parent == null) {
+            transformHierarchy.update();
+        }
+
+        // The world bound can only be updated incrementally if the children did not all move
+        boolean incrementalBound = (refreshFlags & RF_BOUND) != 0
+                                   && (refreshFlags & RF_TRANSFORM) == 0
+                                   && !fullBoundRefresh
+                                   && worldBound != null;
+        if (incrementalBound) {
+            previousBound = worldBound.clone(previousBound);
+        }
+
         if ((refreshFlags & RF_LIGHTLIST) != 0) {
             updateWorldLightList();
         }
@@ -212,24 +439,93 @@ public class Node extends Spatial {
         }
 
         refreshFlags &= ~RF_CHILD_LIGHTLIST;
-        if (!children.isEmpty()) {
-            // the important part- make sure child geometric state is refreshed
-            // first before updating own world bound. This saves
-            // a round-trip later on.
-            // NOTE 9/19/09
-            // Although it does save a round trip,
-            for (Spatial child : children) {
-                child.updateGeometricState();
+
+        // Only the children with refresh flags are visited, the other ones are up to date
+        int count = 0;
+        for (int i = 0; i < dirtyChildren.size(); i++) {
+            Spatial child = dirtyChildren.get(i);
+            if (child.queuedIn != this) {
+                continue;
+            }
+            child.queuedIn = null;
+            if (child.parent == this) {
+                dirtyChildren.set(count++, child);
+            }
+        }
+
+        for (int i = 0; i < count && incrementalBound; i++) {
+            Spatial child = dirtyChildren.get(i);
+            if ((child.refreshFlags & RF_BOUND) != 0) {
+                incrementalBound = isStrictlyInside(child.worldBound, previousBound);
             }
         }
 
+        // the important part- make sure child geometric state is refreshed
+        // first before updating own world bound. This saves
+        // a round-trip later on.
+        if (count >= 2 * GEOMETRIC_GRAIN && ForkJoinTask.inForkJoinPool()) {
+            new UpdateTask(dirtyChildren, 0, count, Float.NaN).invoke();
+        } else {
+            for (int i = 0; i < count; i++) {
+                dirtyChildren.get(i).updateGeometricState();
+            }
+        }
+
+        for (int i = 0; i < count && incrementalBound; i++) {
+            // Merging a child which did not move does not change the bound
+            BoundingVolume childBound = dirtyChildren.get(i).worldBound;
+            if (childBound != null) {
+                incrementalBound = childBound.getType() == BoundingVolume.Type.AABB;
+                worldBound.mergeLocal(childBound);
+            }
+        }
+        dirtyChildren.clear();
+
         if ((refreshFlags & RF_BOUND) != 0) {
-            updateWorldBound();
+            if (incrementalBound) {
+                // The children which moved did not touch the previous bound, so the other
+                // children define it on every side: merging their new bounds gives the bound
+                // of all the children.
+                refreshFlags &= ~RF_BOUND;
+            } else {
+                updateWorldBound();
+            }
         }
 
         assert refreshFlags == 0;
     }
 
+    /**
+     * @return true if <code>inner</code> is a box inside <code>outer</code> without touching any
+     * of its sides, or is null
+     */
+    private static boolean isStrictlyInside(BoundingVolume inner, BoundingVolume outer) {
+        if (inner == null) {
+            return true;
+        }
+        if (inner.getType() != BoundingVolume.Type.AABB
+            || outer.getType() != BoundingVolume.Type.AABB) {
+            return false;
+        }
+
+        try (TempVars vars = TempVars.get()) {
+            Vector3f innerMin = ((BoundingBox) inner).getMin(vars.vect1);
+            Vector3f innerMax = ((BoundingBox) inner).getMax(vars.vect2);
+            Vector3f outerMin = ((BoundingBox) outer).getMin(vars.vect3);
+            Vector3f outerMax = ((BoundingBox) outer).getMax(vars.vect4);
+            // The merges round the bounds, a side closer than the tolerance is touching
+            for (int axis = 0; axis < 3; axis++) {
+                float tolerance = 1e-5f * Math.max(1f, Math.max(Math.abs(outerMin.get(axis)),
+                                                                Math.abs(outerMax.get(axis))));
+                if (innerMin.get(axis) <= outerMin.get(axis) + tolerance
+                    || innerMax.get(axis) >= outerMax.get(axis) - tolerance) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * <code>getTriangleCount</code> returns the number of triangles contained
      * in all sub-branches of this node that contain geometry.
@@ -303,6 +599,7 @@ public class Node extends Spatial {
             }
             child.setParent(this);
             children.add(index, child);
+            fullBoundRefresh = true;
             // XXX: Not entirely correct? Forces bound update up the
             // tree stemming from the attached child. Also forces
             // transform update down the tree-
@@ -511,10 +808,36 @@ public class Node extends Spatial {
         }
     }
 
+    /**
+     * Collides the children of this node with the collidable. The children are not tested when the
+     * up to date world bound of this node misses a ray, a bounding volume or a swept sphere, and
+     * the geometries of an {@link #setSceneIndex(SceneIndex) indexed} root are tested through the
+     * index.
+     */
     public int collideWith(Collidable other, CollisionResults results) {
+        boolean ray = other instanceof Ray;
+        BoundingVolume volume = null;
+        if (other instanceof BoundingVolume) {
+            volume = (BoundingVolume) other;
+        } else if (other instanceof SweptSphere) {
+            volume = ((SweptSphere) other).getBounds();
+        }
+        if ((refreshFlags & RF_BOUND) == 0 && (ray || volume != null)) {
+            if (sceneIndex != null && parent == null) {
+                return sceneIndex.collideWith(other, results);
+            }
+            if (worldBound == null
+                || ray && !SceneIndex.intersects(worldBound, (Ray) other, results.getMaxDistance())
+                || volume != null && !worldBound.intersects(volume)) {
+                return 0;
+            }
+        }
         int total = 0;
         for (Spatial child : children) {
             total += child.collideWith(other, results);
+            if (results.isDone()) {
+                break;
+            }
         }
         return total;
     }
@@ -546,5 +869,61 @@ public class Node extends Spatial {
         this.children = cloner.clone(children);
 
         this.updateList = cloner.clone(updateList);
+
+        // The cloned children forgot where they were queued, queue the dirty ones in this clone
+        this.dirtyChildren = new ArrayList<>();
+        this.fullBoundRefresh = true;
+        this.previousBound = null;
+        this.updatePool = null;
+        this.parallelUpdateList = null;
+        this.serialUpdateList = null;
+        this.transformHierarchy = null;
+        for (Spatial child : children) {
+            if (child.refreshFlags != 0) {
+                child.queueGeometricUpdate();
+            }
+        }
+    }
+
+    /**
+     * Updates a range of spatials, splitting it in tasks running in parallel when it is large.
+     */
+    private static final class UpdateTask extends RecursiveAction {
+        static final long serialVersionUID = 1;
+
+        private final List<Spatial> spatials;
+        private final int from;
+        private final int to;
+        /**
+         * The time per frame for logical updates, NaN for geometric updates.
+         */
+        private final float tpf;
+
+        UpdateTask(List<Spatial> spatials, int from, int to, float tpf) {
+            this.spatials = spatials;
+            this.from = from;
+            this.to = to;
+            this.tpf = tpf;
+        }
+
+        @Override
+        protected void compute() {
+            boolean geometric = Float.isNaN(tpf);
+            int grain = geometric ? GEOMETRIC_GRAIN : LOGICAL_GRAIN;
+            if (to - from > grain) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new UpdateTask(spatials, from, middle, tpf),
+                          new UpdateTask(spatials, middle, to, tpf));
+                return;
+            }
+
+            for (int i = from; i < to; i++) {
+                if (geometric) {
+                    spatials.get(i).updateGeometricState();
+                } else {
+                    spatials.get(i).updateLogicalState(tpf);
+                }
+            }
+        }
     }
 }
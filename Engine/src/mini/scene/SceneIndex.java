@@ -0,0 +1,627 @@
+package mini.scene;
+
+import mini.bounding.BoundingBox;
+import mini.bounding.BoundingSphere;
+import mini.bounding.BoundingVolume;
+import mini.collision.Collidable;
+import mini.collision.CollisionResults;
+import mini.collision.SweptSphere;
+import mini.math.Plane;
+import mini.math.Ray;
+import mini.math.Vector3f;
+import mini.renderer.Camera;
+import mini.utils.TempVars;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Dynamic bounding volume hierarchy over the geometries of a scene, answering ray, volume and
+ * frustum queries without visiting every geometry, see {@link Node#setSceneIndex(SceneIndex)}.
+ * <p>
+ * Every geometry below the root node of the index is a leaf of a binary tree of axis aligned
+ * boxes. The box of a leaf is the world bound of its geometry enlarged by a margin, so that a
+ * geometry moving a little stays inside it and does not change the tree. A geometry leaving its
+ * box is removed and inserted again, which only refits the boxes of its ancestors. Leaves are
+ * inserted next to the sibling growing the surface of the tree the least, and the subtrees are
+ * rotated on the way back to the root to keep the tree balanced, so the height of the tree stays
+ * logarithmic in the number of geometries.
+ * <p>
+ * The geometries update the index from {@link Geometry#updateWorldBound()}, there is nothing to
+ * call besides {@link Spatial#updateGeometricState()}. The index is thread safe, the geometries
+ * of a scene updated in parallel update it concurrently.
+ */
+public class SceneIndex {
+    private static final int NULL = -1;
+    private static final int PLANES = 6;
+
+    private final float margin;
+    private int root = NULL;
+    private int freeList = NULL;
+    private int capacity;
+    private int geometryCount;
+
+    /**
+     * Boxes of the tree nodes, min x, y, z then max x, y, z.
+     */
+    private float[] bounds;
+    /**
+     * Parent of every tree node, or next free tree node for the free ones.
+     */
+    private int[] parents;
+    private int[] children1;
+    private int[] children2;
+    /**
+     * Height of every tree node in the tree, 0 for leaves, -1 for free tree nodes.
+     */
+    private int[] heights;
+    private Geometry[] geometries;
+
+    private int[] stack = new int[64];
+    private final float[] tight = new float[6];
+
+    /**
+     * Creates an index enlarging the bounds of the geometries by 0.1 world units.
+     */
+    public SceneIndex() {
+        this(0.1f);
+    }
+
+    /**
+     * @param margin The distance, in world units, the geometries can move without changing the
+     *               tree. Larger margins make moving geometries cheaper to update and queries
+     *               visit more leaves.
+     */
+    public SceneIndex(float margin) {
+        if (margin < 0) {
+            throw new IllegalArgumentException("The margin cannot be negative");
+        }
+        this.margin = margin;
+        allocate(16);
+    }
+
+    public float getMargin() {
+        return margin;
+    }
+
+    /**
+     * @return the number of geometries in the index
+     */
+    public synchronized int getGeometryCount() {
+        return geometryCount;
+    }
+
+    /**
+     * @return the height of the tree, 0 when it is empty or has one geometry
+     */
+    public synchronized int getHeight() {
+        return root == NULL ? 0 : heights[root];
+    }
+
+    /**
+     * Called when the world bound of a geometry of the indexed scene changed.
+     */
+    synchronized void update(Geometry geometry) {
+        BoundingVolume bound = geometry.worldBound;
+        if (!computeBounds(bound, tight)) {
+            remove(geometry);
+            return;
+        }
+
+        int leaf = geometry.indexProxy;
+        if (leaf != NULL) {
+            if (contains(leaf, tight)) {
+                return;
+            }
+            removeLeaf(leaf);
+        } else {
+            leaf = allocateNode();
+            geometries[leaf] = geometry;
+            geometry.indexProxy = leaf;
+            geometryCount++;
+        }
+
+        int o = leaf * 6;
+        for (int k = 0; k < 3; k++) {
+            bounds[o + k] = tight[k] - margin;
+            bounds[o + 3 + k] = tight[3 + k] + margin;
+        }
+        insertLeaf(leaf);
+    }
+
+    /**
+     * Called when a geometry is detached from the indexed scene.
+     */
+    synchronized void remove(Geometry geometry) {
+        int leaf = geometry.indexProxy;
+        if (leaf == NULL) {
+            return;
+        }
+        removeLeaf(leaf);
+        freeNode(leaf);
+        geometry.indexProxy = NULL;
+        geometryCount--;
+    }
+
+    /**
+     * Collides the geometries of the index with a {@link Ray}, a {@link BoundingVolume} or a
+     * {@link SweptSphere}. Only the geometries whose box intersects the ray, the volume or the box
+     * of the sweep are tested, the results are the same as those of
+     * {@link Node#collideWith(Collidable, CollisionResults)}. The scene must be updated.
+     *
+     * @throws UnsupportedOperationException If the collidable is not a ray, a volume or a sweep
+     */
+    public synchronized int collideWith(Collidable other, CollisionResults results) {
+        if (root == NULL) {
+            return 0;
+        }
+        float[] query = null;
+        Ray ray = null;
+        if (other instanceof Ray) {
+            ray = (Ray) other;
+        } else if (other instanceof BoundingVolume) {
+            query = new float[6];
+            computeBounds((BoundingVolume) other, query);
+        } else if (other instanceof SweptSphere) {
+            query = new float[6];
+            computeBounds(((SweptSphere) other).getBounds(), query);
+        } else {
+            throw new UnsupportedOperationException(
+                    "Cannot query the scene index with " + other.getClass().getSimpleName());
+        }
+
+        int total = 0;
+        int size = push(0, root);
+        while (size > 0) {
+            int node = stack[--size];
+            // Not beyond the collisions kept by the results
+            boolean hit = ray != null ? intersects(ray, results.getMaxDistance(), bounds, node * 6)
+                                      : overlaps(node, query);
+            if (!hit) {
+                continue;
+            }
+            if (heights[node] == 0) {
+                total += geometries[node].collideWith(other, results);
+                if (results.isDone()) {
+                    break;
+                }
+            } else {
+                size = push(size, children1[node]);
+                size = push(size, children2[node]);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Adds to the list the geometries whose world bound intersects the volume.
+     *
+     * @return the number of geometries added
+     */
+    public synchronized int query(BoundingVolume volume, List<Geometry> store) {
+        if (root == NULL) {
+            return 0;
+        }
+        float[] query = new float[6];
+        computeBounds(volume, query);
+
+        int found = 0;
+        int size = push(0, root);
+        while (size > 0) {
+            int node = stack[--size];
+            if (!overlaps(node, query)) {
+                continue;
+            }
+            if (heights[node] == 0) {
+                Geometry geometry = geometries[node];
+                if (volume.intersects(geometry.worldBound)) {
+                    store.add(geometry);
+                    found++;
+                }
+            } else {
+                size = push(size, children1[node]);
+                size = push(size, children2[node]);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Adds to the list the geometries whose box is inside or intersects the frustum of the
+     * camera. The subtrees inside all the planes are added without testing them again.
+     *
+     * @return the number of geometries added
+     */
+    public synchronized int query(Camera cam, List<Geometry> store) {
+        if (root == NULL) {
+            return 0;
+        }
+        int found = 0;
+        int size = 0;
+        // The planes left to test are stored along with the tree nodes
+        size = push(size, root);
+        size = push(size, (1 << PLANES) - 1);
+        while (size > 0) {
+            int planes = stack[--size];
+            int node = stack[--size];
+            planes = clipPlanes(node, cam, planes);
+            if (planes < 0) {
+                continue;
+            }
+            if (planes == 0) {
+                found += addLeaves(node, store);
+            } else if (heights[node] == 0) {
+                store.add(geometries[node]);
+                found++;
+            } else {
+                size = push(size, children1[node]);
+                size = push(size, planes);
+                size = push(size, children2[node]);
+                size = push(size, planes);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return the planes the box still intersects, or -1 if it is outside of one of them
+     */
+    private int clipPlanes(int node, Camera cam, int planes) {
+        int o = node * 6;
+        float cx = (bounds[o] + bounds[o + 3]) * 0.5f;
+        float cy = (bounds[o + 1] + bounds[o + 4]) * 0.5f;
+        float cz = (bounds[o + 2] + bounds[o + 5]) * 0.5f;
+        float ex = (bounds[o + 3] - bounds[o]) * 0.5f;
+        float ey = (bounds[o + 4] - bounds[o + 1]) * 0.5f;
+        float ez = (bounds[o + 5] - bounds[o + 2]) * 0.5f;
+        for (int i = 0; i < PLANES; i++) {
+            int mask = 1 << i;
+            if ((planes & mask) == 0) {
+                continue;
+            }
+            Plane plane = cam.getWorldPlane(i);
+            Vector3f n = plane.getNormal();
+            float distance = n.x * cx + n.y * cy + n.z * cz - plane.getConstant();
+            float radius = Math.abs(n.x * ex) + Math.abs(n.y * ey) + Math.abs(n.z * ez);
+            if (distance < -radius) {
+                return -1;
+            }
+            if (distance > radius) {
+                planes &= ~mask;
+            }
+        }
+        return planes;
+    }
+
+    private int addLeaves(int node, List<Geometry> store) {
+        if (heights[node] == 0) {
+            store.add(geometries[node]);
+            return 1;
+        }
+        return addLeaves(children1[node], store) + addLeaves(children2[node], store);
+    }
+
+    private int push(int size, int value) {
+        if (size == stack.length) {
+            stack = Arrays.copyOf(stack, size * 2);
+        }
+        stack[size] = value;
+        return size + 1;
+    }
+
+    private static boolean computeBounds(BoundingVolume volume, float[] store) {
+        float ex, ey, ez;
+        if (volume instanceof BoundingBox) {
+            BoundingBox box = (BoundingBox) volume;
+            ex = box.getXExtent();
+            ey = box.getYExtent();
+            ez = box.getZExtent();
+        } else if (volume instanceof BoundingSphere) {
+            float radius = ((BoundingSphere) volume).getRadius();
+            ex = radius;
+            ey = radius;
+            ez = radius;
+        } else {
+            return false;
+        }
+        Vector3f center = volume.getCenter();
+        store[0] = center.x - ex;
+        store[1] = center.y - ey;
+        store[2] = center.z - ez;
+        store[3] = center.x + ex;
+        store[4] = center.y + ey;
+        store[5] = center.z + ez;
+        return true;
+    }
+
+    private boolean contains(int node, float[] box) {
+        int o = node * 6;
+        return bounds[o] <= box[0] && bounds[o + 1] <= box[1] && bounds[o + 2] <= box[2]
+               && bounds[o + 3] >= box[3] && bounds[o + 4] >= box[4] && bounds[o + 5] >= box[5];
+    }
+
+    private boolean overlaps(int node, float[] box) {
+        int o = node * 6;
+        return bounds[o] <= box[3] && bounds[o + 1] <= box[4] && bounds[o + 2] <= box[5]
+               && bounds[o + 3] >= box[0] && bounds[o + 4] >= box[1] && bounds[o + 5] >= box[2];
+    }
+
+    /**
+     * @return true if the ray may intersect the volume before the limit, tested against the box
+     * around the volume
+     */
+    static boolean intersects(BoundingVolume volume, Ray ray, float limit) {
+        TempVars vars = TempVars.get();
+        try {
+            float[] box = vars.bihQueryBox;
+            return !computeBounds(volume, box) || intersects(ray, limit, box, 0);
+        } finally {
+            vars.release();
+        }
+    }
+
+    /**
+     * Slab test of the ray against a box, within the limit of the ray and the given limit.
+     */
+    private static boolean intersects(Ray ray, float limit, float[] bounds, int o) {
+        float near = 0;
+        float far = Math.min(ray.getLimit(), limit);
+        Vector3f origin = ray.getOrigin();
+        Vector3f direction = ray.getDirection();
+        for (int k = 0; k < 3; k++) {
+            float p = origin.get(k);
+            float d = direction.get(k);
+            float min = bounds[o + k];
+            float max = bounds[o + 3 + k];
+            if (d == 0) {
+                if (p < min || p > max) {
+                    return false;
+                }
+                continue;
+            }
+            float inverse = 1f / d;
+            float t1 = (min - p) * inverse;
+            float t2 = (max - p) * inverse;
+            if (t1 > t2) {
+                float t = t1;
+                t1 = t2;
+                t2 = t;
+            }
+            near = Math.max(near, t1);
+            far = Math.min(far, t2);
+            if (near > far) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private float area(int node) {
+        int o = node * 6;
+        float dx = bounds[o + 3] - bounds[o];
+        float dy = bounds[o + 4] - bounds[o + 1];
+        float dz = bounds[o + 5] - bounds[o + 2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    private float unionArea(int a, int b) {
+        int oa = a * 6;
+        int ob = b * 6;
+        float dx = Math.max(bounds[oa + 3], bounds[ob + 3]) - Math.min(bounds[oa], bounds[ob]);
+        float dy = Math.max(bounds[oa + 4], bounds[ob + 4]) - Math.min(bounds[oa + 1], bounds[ob + 1]);
+        float dz = Math.max(bounds[oa + 5], bounds[ob + 5]) - Math.min(bounds[oa + 2], bounds[ob + 2]);
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    private void union(int a, int b, int store) {
+        int oa = a * 6;
+        int ob = b * 6;
+        int os = store * 6;
+        for (int k = 0; k < 3; k++) {
+            bounds[os + k] = Math.min(bounds[oa + k], bounds[ob + k]);
+            bounds[os + 3 + k] = Math.max(bounds[oa + 3 + k], bounds[ob + 3 + k]);
+        }
+    }
+
+    private void insertLeaf(int leaf) {
+        if (root == NULL) {
+            root = leaf;
+            parents[leaf] = NULL;
+            return;
+        }
+
+        // Walk down to the sibling with the lowest cost
+        int node = root;
+        while (heights[node] > 0) {
+            int child1 = children1[node];
+            int child2 = children2[node];
+            float area = area(node);
+            float combinedArea = unionArea(node, leaf);
+            // Cost of a new parent for this node and the leaf
+            float cost = 2 * combinedArea;
+            // Minimum cost of pushing the leaf further down the tree
+            float inheritanceCost = 2 * (combinedArea - area);
+            float cost1 = childCost(child1, leaf) + inheritanceCost;
+            float cost2 = childCost(child2, leaf) + inheritanceCost;
+            if (cost < cost1 && cost < cost2) {
+                break;
+            }
+            node = cost1 < cost2 ? child1 : child2;
+        }
+
+        int sibling = node;
+        int oldParent = parents[sibling];
+        int newParent = allocateNode();
+        parents[newParent] = oldParent;
+        union(leaf, sibling, newParent);
+        heights[newParent] = heights[sibling] + 1;
+        if (oldParent != NULL) {
+            if (children1[oldParent] == sibling) {
+                children1[oldParent] = newParent;
+            } else {
+                children2[oldParent] = newParent;
+            }
+        } else {
+            root = newParent;
+        }
+        children1[newParent] = sibling;
+        children2[newParent] = leaf;
+        parents[sibling] = newParent;
+        parents[leaf] = newParent;
+
+        refit(parents[leaf]);
+    }
+
+    private float childCost(int child, int leaf) {
+        if (heights[child] == 0) {
+            return unionArea(child, leaf);
+        }
+        return unionArea(child, leaf) - area(child);
+    }
+
+    private void removeLeaf(int leaf) {
+        if (leaf == root) {
+            root = NULL;
+            return;
+        }
+
+        int parent = parents[leaf];
+        int grandParent = parents[parent];
+        int sibling = children1[parent] == leaf ? children2[parent] : children1[parent];
+        if (grandParent != NULL) {
+            // Destroy the parent and connect the sibling to the grand parent
+            if (children1[grandParent] == parent) {
+                children1[grandParent] = sibling;
+            } else {
+                children2[grandParent] = sibling;
+            }
+            parents[sibling] = grandParent;
+            freeNode(parent);
+            refit(grandParent);
+        } else {
+            root = sibling;
+            parents[sibling] = NULL;
+            freeNode(parent);
+        }
+    }
+
+    /**
+     * Balances and refits the boxes from a tree node up to the root.
+     */
+    private void refit(int node) {
+        while (node != NULL) {
+            node = balance(node);
+            int child1 = children1[node];
+            int child2 = children2[node];
+            heights[node] = 1 + Math.max(heights[child1], heights[child2]);
+            union(child1, child2, node);
+            node = parents[node];
+        }
+    }
+
+    /**
+     * Rotates the taller child of a tree node up if the heights of its children differ by more
+     * than one.
+     *
+     * @return the tree node now at the place of the given one
+     */
+    private int balance(int a) {
+        if (heights[a] < 2) {
+            return a;
+        }
+        int b = children1[a];
+        int c = children2[a];
+        int difference = heights[c] - heights[b];
+        if (difference > 1) {
+            rotateUp(a, c, b, false);
+            return c;
+        }
+        if (difference < -1) {
+            rotateUp(a, b, c, true);
+            return b;
+        }
+        return a;
+    }
+
+    /**
+     * Moves the child up to the place of its parent, the parent taking the place of the shorter
+     * child of the child.
+     *
+     * @param parent   The tree node to rotate down
+     * @param child    The taller child of the parent
+     * @param sibling  The other child of the parent
+     * @param leftSide true if the child is the first child of the parent
+     */
+    private void rotateUp(int parent, int child, int sibling, boolean leftSide) {
+        int f = children1[child];
+        int g = children2[child];
+
+        // Swap the parent and the child
+        children1[child] = parent;
+        parents[child] = parents[parent];
+        parents[parent] = child;
+        int grandParent = parents[child];
+        if (grandParent != NULL) {
+            if (children1[grandParent] == parent) {
+                children1[grandParent] = child;
+            } else {
+                children2[grandParent] = child;
+            }
+        } else {
+            root = child;
+        }
+
+        // Keep the taller grand child under the child, give the other one to the parent
+        int taller = heights[f] > heights[g] ? f : g;
+        int shorter = taller == f ? g : f;
+        children2[child] = taller;
+        if (leftSide) {
+            children1[parent] = shorter;
+        } else {
+            children2[parent] = shorter;
+        }
+        parents[shorter] = parent;
+
+        union(sibling, shorter, parent);
+        union(parent, taller, child);
+        heights[parent] = 1 + Math.max(heights[sibling], heights[shorter]);
+        heights[child] = 1 + Math.max(heights[parent], heights[taller]);
+    }
+
+    private int allocateNode() {
+        if (freeList == NULL) {
+            allocate(capacity * 2);
+        }
+        int node = freeList;
+        freeList = parents[node];
+        parents[node] = NULL;
+        children1[node] = NULL;
+        children2[node] = NULL;
+        heights[node] = 0;
+        return node;
+    }
+
+    private void freeNode(int node) {
+        parents[node] = freeList;
+        heights[node] = -1;
+        geometries[node] = null;
+        freeList = node;
+    }
+
+    private void allocate(int newCapacity) {
+        bounds = bounds == null ? new float[newCapacity * 6] : Arrays.copyOf(bounds, newCapacity * 6);
+        parents = parents == null ? new int[newCapacity] : Arrays.copyOf(parents, newCapacity);
+        children1 = children1 == null ? new int[newCapacity] : Arrays.copyOf(children1, newCapacity);
+        children2 = children2 == null ? new int[newCapacity] : Arrays.copyOf(children2, newCapacity);
+        heights = heights == null ? new int[newCapacity] : Arrays.copyOf(heights, newCapacity);
+        geometries = geometries == null ? new Geometry[newCapacity]
+                                        : Arrays.copyOf(geometries, newCapacity);
+        // Link the new tree nodes in the free list
+        for (int i = newCapacity - 1; i >= capacity; i--) {
+            parents[i] = freeList;
+            heights[i] = -1;
+            freeList = i;
+        }
+        capacity = newCapacity;
+    }
+}
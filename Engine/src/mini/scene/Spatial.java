@@ -94,6 +94,12 @@ public abstract class Spatial implements Cloneable, CloneableSmartAsset, MiniClo
             RF_CHILD_LIGHTLIST = 0x08, // some child need geometry update
             RF_MATPARAM_OVERRIDE = 0x10;
 
+    /**
+     * Guards the refresh flags set on the ancestors and children of a spatial when it changes. The
+     * thread safe controls of sibling spatials are updated in parallel and share those ancestors.
+     */
+    static final Object REFRESH_LOCK = new Object();
+
     protected CullHint cullHint = CullHint.Inherit;
     protected BatchHint batchHint = BatchHint.Inherit;
     /**
@@ -139,6 +145,16 @@ public abstract class Spatial implements Cloneable, CloneableSmartAsset, MiniClo
      * updated to reflect the correct state.
      */
     protected transient int refreshFlags = 0;
+    /**
+     * Index of the scene this spatial belongs to, set on all the spatials below an indexed root.
+     */
+    transient SceneIndex sceneIndex;
+
+    /**
+     * The node in which this spatial is queued for the next
+     * {@link Node#updateGeometricState()}, or null if it is not queued.
+     */
+    transient Node queuedIn;
 
     /**
      * Set to true if a subclass requires updateLogicalState() even
@@ -254,36 +270,46 @@ public abstract class Spatial implements Cloneable, CloneableSmartAsset, MiniClo
      * a refresh is required.
      */
     protected void setTransformRefresh() {
-        refreshFlags |= RF_TRANSFORM;
-        setBoundRefresh();
+        synchronized (REFRESH_LOCK) {
+            refreshFlags |= RF_TRANSFORM;
+            setBoundRefresh();
+        }
     }
 
     protected void setLightListRefresh() {
-        refreshFlags |= RF_LIGHTLIST;
-        // Make sure next updateGeometricState() visits this branch
-        // to update lights.
-        Spatial p = parent;
-        while (p != null) {
-            if ((p.refreshFlags & RF_CHILD_LIGHTLIST) != 0) {
-                // The parent already has this flag,
-                // so must all ancestors.
-                return;
+        synchronized (REFRESH_LOCK) {
+            refreshFlags |= RF_LIGHTLIST;
+            queueGeometricUpdate();
+            // Make sure next updateGeometricState() visits this branch
+            // to update lights.
+            Spatial p = parent;
+            while (p != null) {
+                if ((p.refreshFlags & RF_CHILD_LIGHTLIST) != 0) {
+                    // The parent already has this flag,
+                    // so must all ancestors.
+                    return;
+                }
+                p.refreshFlags |= RF_CHILD_LIGHTLIST;
+                p.queueGeometricUpdate();
+                p = p.parent;
             }
-            p.refreshFlags |= RF_CHILD_LIGHTLIST;
-            p = p.parent;
         }
     }
 
     protected void setMatParamOverrideRefresh() {
-        refreshFlags |= RF_MATPARAM_OVERRIDE;
-        Spatial p = parent;
-        while (p != null) {
-            if ((p.refreshFlags & RF_MATPARAM_OVERRIDE) != 0) {
-                return;
-            }
+        synchronized (REFRESH_LOCK) {
+            refreshFlags |= RF_MATPARAM_OVERRIDE;
+            queueGeometricUpdate();
+            Spatial p = parent;
+            while (p != null) {
+                if ((p.refreshFlags & RF_MATPARAM_OVERRIDE) != 0) {
+                    return;
+                }
 
-            p.refreshFlags |= RF_MATPARAM_OVERRIDE;
-            p = p.parent;
+                p.refreshFlags |= RF_MATPARAM_OVERRIDE;
+                p.queueGeometricUpdate();
+                p = p.parent;
+            }
         }
     }
 
@@ -292,16 +318,32 @@ public abstract class Spatial implements Cloneable, CloneableSmartAsset, MiniClo
      * a refresh is required.
      */
     protected void setBoundRefresh() {
-        refreshFlags |= RF_BOUND;
+        synchronized (REFRESH_LOCK) {
+            refreshFlags |= RF_BOUND;
+            queueGeometricUpdate();
+
+            Spatial p = parent;
+            while (p != null) {
+                if ((p.refreshFlags & RF_BOUND) != 0) {
+                    return;
+                }
 
-        Spatial p = parent;
-        while (p != null) {
-            if ((p.refreshFlags & RF_BOUND) != 0) {
-                return;
+                p.refreshFlags |= RF_BOUND;
+                p.queueGeometricUpdate();
+                p = p.parent;
             }
+        }
+    }
 
-            p.refreshFlags |= RF_BOUND;
-            p = p.parent;
+    /**
+     * Queues this spatial in its parent, so that the next updateGeometricState() of the parent
+     * visits it. Every spatial with refresh flags is queued in its parent, which lets a node skip
+     * its clean children.
+     */
+    void queueGeometricUpdate() {
+        if (parent != null && queuedIn != parent) {
+            queuedIn = parent;
+            parent.queueChild(this);
         }
     }
 
@@ -701,6 +743,11 @@ public abstract class Spatial implements Cloneable, CloneableSmartAsset, MiniClo
 
         // All children's bounds have been updated. Update my own now.
         updateWorldBound();
+
+        // The parent cannot tell how the bound changed anymore, it must merge all its children
+        if (parent != null) {
+            parent.invalidateIncrementalBound();
+        }
     }
 
     private void runControlUpdate(float tpf) {
@@ -835,6 +882,27 @@ public abstract class Spatial implements Cloneable, CloneableSmartAsset, MiniClo
         runControlUpdate(tpf);
     }
 
+    /**
+     * Tells whether {@link #updateLogicalState(float)} can run concurrently with the updates of
+     * other spatials, see {@link Node#setUpdatePool(java.util.concurrent.ForkJoinPool)}. This is
+     * the case for a {@link Node} or a {@link Geometry} whose controls are all
+     * {@link Control#isThreadSafe() thread safe}. Subclasses are not thread safe, as they may
+     * override the update, unless they override this method.
+     *
+     * @return true if the spatial can be updated in parallel
+     */
+    protected boolean isLogicalStateThreadSafe() {
+        if (getClass() != Node.class && getClass() != Geometry.class) {
+            return false;
+        }
+        for (Control control : controls) {
+            if (!control.isThreadSafe()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * <code>updateGeometricState</code> updates the lightlist,
      * computes the world transforms, and computes the world bounds
@@ -913,6 +981,25 @@ public abstract class Spatial implements Cloneable, CloneableSmartAsset, MiniClo
      */
     protected void setParent(Node parent) {
         this.parent = parent;
+        SceneIndex index = parent != null ? parent.sceneIndex : null;
+        if (index != sceneIndex) {
+            setIndex(index);
+        }
+    }
+
+    /**
+     * @return the index of the scene this spatial belongs to, or null if the scene is not indexed
+     * @see Node#setSceneIndex(SceneIndex)
+     */
+    public SceneIndex getSceneIndex() {
+        return sceneIndex;
+    }
+
+    /**
+     * Called when this spatial joins or leaves an indexed scene.
+     */
+    void setIndex(SceneIndex index) {
+        this.sceneIndex = index;
     }
 
     /**
@@ -1357,6 +1444,10 @@ public abstract class Spatial implements Cloneable, CloneableSmartAsset, MiniClo
 
         // Potential sharing fields
         this.parent = cloner.clone(parent);
+        // The node cloning this spatial as a child queues it again
+        this.queuedIn = null;
+        // The clone is indexed once attached to an indexed scene
+        this.sceneIndex = null;
         this.worldBound = cloner.clone(worldBound);
         this.worldLights = cloner.clone(worldLights);
         this.localLights = cloner.clone(localLights);
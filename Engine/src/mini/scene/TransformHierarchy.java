@@ -0,0 +1,320 @@
+package mini.scene;
+
+import mini.bounding.BoundingBox;
+import mini.bounding.BoundingVolume;
+import mini.math.FastMath;
+import mini.math.Matrix4f;
+import mini.math.Quaternion;
+import mini.math.Transform;
+import mini.math.Vector3f;
+
+import java.util.Arrays;
+
+/**
+ * Flattened copy of the transforms of a scene, used by a root node to update all the world
+ * transforms in a linear pass over arrays instead of a recursion through the spatials, see
+ * {@link Node#setFlatTransformUpdate(boolean)}.
+ * <p>
+ * The spatials are stored in depth first order, so that every parent comes before its children,
+ * and each component of the world transforms is kept in a contiguous array. An update walks the
+ * spatials in order, combines the local transform of every spatial with a transform refresh with
+ * the world transform of its parent read from the arrays, and writes the result back to the
+ * spatial along with the world matrix and the world bound of the geometries. The geometries then
+ * notify their {@link GeometryGroupNode} and sort their lights, so the results are the same as
+ * those of {@link Geometry#updateWorldTransforms()} and {@link Geometry#updateWorldBound()}.
+ * <p>
+ * The layout is rebuilt when spatials are attached or detached below the root. Subclasses of
+ * spatials overriding <code>updateWorldTransforms()</code> are not supported.
+ */
+final class TransformHierarchy {
+    private final Node root;
+    private boolean valid;
+    private int count;
+    private int pass;
+
+    private Spatial[] spatials = new Spatial[0];
+    private int[] parents = new int[0];
+    /**
+     * Pass in which the world transform of every spatial was last written to the arrays.
+     */
+    private int[] passes = new int[0];
+
+    private float[] worldTx, worldTy, worldTz;
+    private float[] worldRx, worldRy, worldRz, worldRw;
+    private float[] worldSx, worldSy, worldSz;
+
+    TransformHierarchy(Node root) {
+        this.root = root;
+        allocate(0);
+    }
+
+    /**
+     * Rebuilds the layout before the next update.
+     */
+    void invalidate() {
+        valid = false;
+    }
+
+    private void allocate(int capacity) {
+        spatials = new Spatial[capacity];
+        parents = new int[capacity];
+        passes = new int[capacity];
+        worldTx = new float[capacity];
+        worldTy = new float[capacity];
+        worldTz = new float[capacity];
+        worldRx = new float[capacity];
+        worldRy = new float[capacity];
+        worldRz = new float[capacity];
+        worldRw = new float[capacity];
+        worldSx = new float[capacity];
+        worldSy = new float[capacity];
+        worldSz = new float[capacity];
+    }
+
+    private static int countSpatials(Spatial spatial) {
+        int result = 1;
+        if (spatial instanceof Node) {
+            for (Spatial child : ((Node) spatial).getChildren()) {
+                result += countSpatials(child);
+            }
+        }
+        return result;
+    }
+
+    private void rebuild() {
+        int size = countSpatials(root);
+        if (size > spatials.length) {
+            allocate(Math.max(size, spatials.length + spatials.length / 2));
+        } else {
+            Arrays.fill(spatials, size, spatials.length, null);
+        }
+
+        count = 0;
+        add(root, -1);
+        // The world transforms are read back from the spatials the first time they are needed
+        Arrays.fill(passes, 0, count, -1);
+        valid = true;
+    }
+
+    private void add(Spatial spatial, int parent) {
+        int index = count++;
+        spatials[index] = spatial;
+        parents[index] = parent;
+        if (spatial instanceof Node) {
+            for (Spatial child : ((Node) spatial).getChildren()) {
+                add(child, index);
+            }
+        }
+    }
+
+    /**
+     * Updates the world transforms of all the spatials with a transform refresh, and the world
+     * matrices and world bounds of the geometries among them, in one pass over the arrays.
+     */
+    void update() {
+        if (!valid) {
+            rebuild();
+        }
+        pass++;
+        for (int i = 0; i < count; i++) {
+            Spatial spatial = spatials[i];
+            if ((spatial.refreshFlags & Spatial.RF_TRANSFORM) == 0) {
+                continue;
+            }
+
+            combine(i, spatial.localTransform);
+            Transform world = spatial.worldTransform;
+            world.getTranslation().set(worldTx[i], worldTy[i], worldTz[i]);
+            world.getRotation().set(worldRx[i], worldRy[i], worldRz[i], worldRw[i]);
+            world.getScale().set(worldSx[i], worldSy[i], worldSz[i]);
+            spatial.refreshFlags &= ~Spatial.RF_TRANSFORM;
+
+            if (spatial instanceof Geometry) {
+                Geometry geometry = (Geometry) spatial;
+                updateGeometry(i, geometry);
+
+                // Same as the end of Geometry.updateWorldTransforms()
+                if (geometry.isGrouped()) {
+                    geometry.groupNode.onTransformChange(geometry);
+                }
+                geometry.worldLights.sort(true);
+            } else {
+                // The children moved with the node, its bound has to be merged from all of them
+                ((Node) spatial).transformsMoved();
+            }
+        }
+    }
+
+    /**
+     * Copies the world transform of a spatial updated outside of this hierarchy, e.g. by
+     * {@link Spatial#getWorldTranslation()}, into the arrays.
+     */
+    private void readWorld(int i) {
+        Transform world = spatials[i].worldTransform;
+        Vector3f translation = world.getTranslation();
+        Quaternion rotation = world.getRotation();
+        Vector3f scale = world.getScale();
+        worldTx[i] = translation.x;
+        worldTy[i] = translation.y;
+        worldTz[i] = translation.z;
+        worldRx[i] = rotation.getX();
+        worldRy[i] = rotation.getY();
+        worldRz[i] = rotation.getZ();
+        worldRw[i] = rotation.getW();
+        worldSx[i] = scale.x;
+        worldSy[i] = scale.y;
+        worldSz[i] = scale.z;
+        passes[i] = pass;
+    }
+
+    private void combine(int i, Transform local) {
+        Vector3f translation = local.getTranslation();
+        Quaternion rotation = local.getRotation();
+        Vector3f scale = local.getScale();
+        int p = parents[i];
+        passes[i] = pass;
+        if (p == -1) {
+            worldTx[i] = translation.x;
+            worldTy[i] = translation.y;
+            worldTz[i] = translation.z;
+            worldRx[i] = rotation.getX();
+            worldRy[i] = rotation.getY();
+            worldRz[i] = rotation.getZ();
+            worldRw[i] = rotation.getW();
+            worldSx[i] = scale.x;
+            worldSy[i] = scale.y;
+            worldSz[i] = scale.z;
+            return;
+        }
+        if (passes[p] != pass) {
+            readWorld(p);
+        }
+
+        // Same operations as Transform.combineWithParent()
+        float psx = worldSx[p], psy = worldSy[p], psz = worldSz[p];
+        worldSx[i] = scale.x * psx;
+        worldSy[i] = scale.y * psy;
+        worldSz[i] = scale.z * psz;
+
+        float px = worldRx[p], py = worldRy[p], pz = worldRz[p], pw = worldRw[p];
+        float qx = rotation.getX(), qy = rotation.getY(), qz = rotation.getZ();
+        float qw = rotation.getW();
+        worldRx[i] = px * qw + py * qz - pz * qy + pw * qx;
+        worldRy[i] = -px * qz + py * qw + pz * qx + pw * qy;
+        worldRz[i] = px * qy - py * qx + pz * qw + pw * qz;
+        worldRw[i] = -px * qx - py * qy - pz * qz + pw * qw;
+
+        float vx = translation.x * psx, vy = translation.y * psy, vz = translation.z * psz;
+        float tx, ty, tz;
+        if (vx == 0 && vy == 0 && vz == 0) {
+            tx = 0;
+            ty = 0;
+            tz = 0;
+        } else {
+            tx = pw * pw * vx + 2 * py * pw * vz - 2 * pz * pw * vy + px * px * vx
+                 + 2 * py * px * vy + 2 * pz * px * vz - pz * pz * vx - py * py * vx;
+            ty = 2 * px * py * vx + py * py * vy + 2 * pz * py * vz + 2 * pw * pz * vx
+                 - pz * pz * vy + pw * pw * vy - 2 * px * pw * vz - px * px * vy;
+            tz = 2 * px * pz * vx + 2 * py * pz * vy + pz * pz * vz - 2 * pw * py * vx
+                 - py * py * vz + 2 * pw * px * vy - px * px * vz + pw * pw * vz;
+        }
+        worldTx[i] = tx + worldTx[p];
+        worldTy[i] = ty + worldTy[p];
+        worldTz[i] = tz + worldTz[p];
+    }
+
+    private static float inverseLength(float x, float y, float z) {
+        // Same operations as Vector3f.normalizeLocal()
+        float length = x * x + y * y + z * z;
+        return length != 1f && length != 0f ? 1.0f / (float) Math.sqrt(length) : 1f;
+    }
+
+    /**
+     * Computes the world matrix of a geometry and, while its transform is at hand, its world
+     * bound. The nodes merge the bounds of their children afterwards.
+     */
+    private void updateGeometry(int i, Geometry geometry) {
+        // Same operations as Quaternion.toRotationMatrix()
+        float x = worldRx[i], y = worldRy[i], z = worldRz[i], w = worldRw[i];
+        float norm = w * w + x * x + y * y + z * z;
+        float s = (norm == 1f) ? 2f : (norm > 0f) ? 2f / norm : 0;
+        float xs = x * s, ys = y * s, zs = z * s;
+        float xx = x * xs, xy = x * ys, xz = x * zs, xw = w * xs;
+        float yy = y * ys, yz = y * zs, yw = w * ys;
+        float zz = z * zs, zw = w * zs;
+
+        float m00 = 1 - (yy + zz), m01 = xy - zw, m02 = xz + yw;
+        float m10 = xy + zw, m11 = 1 - (xx + zz), m12 = yz - xw;
+        float m20 = xz - yw, m21 = yz + xw, m22 = 1 - (xx + yy);
+
+        // The columns are normalized, then scaled by the world scale
+        float n0 = inverseLength(m00, m10, m20), sx = worldSx[i];
+        float n1 = inverseLength(m01, m11, m21), sy = worldSy[i];
+        float n2 = inverseLength(m02, m12, m22), sz = worldSz[i];
+        Matrix4f matrix = geometry.cachedWorldMat;
+        matrix.m00 = m00 * n0 * sx;
+        matrix.m01 = m01 * n1 * sy;
+        matrix.m02 = m02 * n2 * sz;
+        matrix.m03 = worldTx[i];
+        matrix.m10 = m10 * n0 * sx;
+        matrix.m11 = m11 * n1 * sy;
+        matrix.m12 = m12 * n2 * sz;
+        matrix.m13 = worldTy[i];
+        matrix.m20 = m20 * n0 * sx;
+        matrix.m21 = m21 * n1 * sy;
+        matrix.m22 = m22 * n2 * sz;
+        matrix.m23 = worldTz[i];
+        matrix.m30 = 0;
+        matrix.m31 = 0;
+        matrix.m32 = 0;
+        matrix.m33 = 1;
+
+        if (geometry.parent == null || (geometry.refreshFlags & Spatial.RF_BOUND) == 0) {
+            return;
+        }
+        geometry.parent.childBoundChanging(geometry);
+        Mesh mesh = geometry.getMesh();
+        BoundingVolume modelBound = mesh != null ? mesh.getBound() : null;
+        if (geometry.getClass() != Geometry.class || geometry.isIgnoreTransform()
+            || !(modelBound instanceof BoundingBox)
+            || (geometry.worldBound != null && !(geometry.worldBound instanceof BoundingBox))) {
+            geometry.updateWorldBound();
+            return;
+        }
+
+        // Same operations as BoundingBox.transform(Transform, BoundingVolume)
+        BoundingBox model = (BoundingBox) modelBound;
+        BoundingBox bound = (BoundingBox) geometry.worldBound;
+        if (bound == null) {
+            bound = new BoundingBox();
+            geometry.worldBound = bound;
+        }
+        Vector3f modelCenter = model.getCenter();
+        float vx = modelCenter.x * sx, vy = modelCenter.y * sy, vz = modelCenter.z * sz;
+        float cx, cy, cz;
+        if (vx == 0 && vy == 0 && vz == 0) {
+            cx = 0;
+            cy = 0;
+            cz = 0;
+        } else {
+            cx = w * w * vx + 2 * y * w * vz - 2 * z * w * vy + x * x * vx
+                 + 2 * y * x * vy + 2 * z * x * vz - z * z * vx - y * y * vx;
+            cy = 2 * x * y * vx + y * y * vy + 2 * z * y * vz + 2 * w * z * vx
+                 - z * z * vy + w * w * vy - 2 * x * w * vz - x * x * vy;
+            cz = 2 * x * z * vx + 2 * y * z * vy + z * z * vz - 2 * w * y * vx
+                 - y * y * vz + 2 * w * x * vy - x * x * vz + w * w * vz;
+        }
+        bound.getCenter().set(cx + worldTx[i], cy + worldTy[i], cz + worldTz[i]);
+
+        float ex = model.getXExtent() * FastMath.abs(sx);
+        float ey = model.getYExtent() * FastMath.abs(sy);
+        float ez = model.getZExtent() * FastMath.abs(sz);
+        bound.setXExtent(FastMath.abs(FastMath.abs(m00) * ex + FastMath.abs(m01) * ey + FastMath.abs(m02) * ez));
+        bound.setYExtent(FastMath.abs(FastMath.abs(m10) * ex + FastMath.abs(m11) * ey + FastMath.abs(m12) * ez));
+        bound.setZExtent(FastMath.abs(FastMath.abs(m20) * ex + FastMath.abs(m21) * ey + FastMath.abs(m22) * ez));
+        geometry.refreshFlags &= ~Spatial.RF_BOUND;
+        if (geometry.sceneIndex != null) {
+            geometry.sceneIndex.update(geometry);
+        }
+    }
+}
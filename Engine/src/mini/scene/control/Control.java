@@ -29,4 +29,16 @@ public interface Control {
      * called from user code.
      */
     void render(RenderManager renderManager, ViewPort vp);
+
+    /**
+     * Tells whether {@link #update(float)} can run concurrently with the updates of the controls of
+     * other spatials, see {@link mini.scene.Node#setUpdatePool(java.util.concurrent.ForkJoinPool)}.
+     * A thread safe control only changes its own state and its spatial, and does not read the
+     * world state of other spatials. Controls are not thread safe by default.
+     *
+     * @return true if the control can be updated in parallel
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
 }
@@ -8,6 +8,8 @@ import mini.math.Matrix4f;
 import mini.math.Vector2f;
 import mini.math.Vector3f;
 import mini.post.SceneProcessor;
+import mini.profile.Profiler;
+import mini.profile.ShadowMapRenderEvent;
 import mini.renderer.Camera;
 import mini.renderer.RenderManager;
 import mini.renderer.Renderer;
@@ -347,6 +349,11 @@ public abstract class AbstractShadowRenderer implements SceneProcessor, MiniClon
             return;
         }
 
+        Profiler profiler = renderManager.getProfiler();
+        if (profiler != null) {
+            profiler.begin(Profiler.SHADOWS);
+        }
+
         updateShadowCams(viewPort.getCamera());
 
         Renderer r = renderManager.getRenderer();
@@ -368,9 +375,14 @@ public abstract class AbstractShadowRenderer implements SceneProcessor, MiniClon
         renderManager.setForcedTechnique(null);
         renderManager.setCamera(viewPort.getCamera(), false);
 
+        if (profiler != null) {
+            profiler.end(Profiler.SHADOWS);
+        }
     }
 
     protected void renderShadowMap(int shadowMapIndex) {
+        ShadowMapRenderEvent event = new ShadowMapRenderEvent();
+        event.begin();
         shadowMapOccluders = getOccludersToRender(shadowMapIndex, shadowMapOccluders);
         Camera shadowCam = getShadowCam(shadowMapIndex);
 
@@ -383,8 +395,16 @@ public abstract class AbstractShadowRenderer implements SceneProcessor, MiniClon
         renderManager.setForcedRenderState(forcedRenderState);
 
         // render shadow casters to shadow map
+        int occluders = shadowMapOccluders.size();
         viewPort.getQueue().renderShadowQueue(shadowMapOccluders, renderManager, shadowCam, true);
         renderManager.setForcedRenderState(null);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.shadowMapIndex = shadowMapIndex;
+            event.occluders = occluders;
+            event.commit();
+        }
     }
 
     public void displayFrustum() {
@@ -92,8 +92,11 @@ public class ApplicationDesktopSystem extends ApplicationSystemDelegate {
     }
 
     @Override
-    public ApplicationContext newContext() {
+    public ApplicationContext newContext(ApplicationContext.Type contextType) {
         initialize();
+        if (contextType == ApplicationContext.Type.Headless) {
+            return new NullContext();
+        }
         return newContextLwjgl();
     }
 
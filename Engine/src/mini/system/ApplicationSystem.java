@@ -15,7 +15,7 @@ public class ApplicationSystem {
 
     public static ApplicationContext newContext(ApplicationContext.Type contextType) {
         checkDelegate();
-        return systemDelegate.newContext();
+        return systemDelegate.newContext(contextType);
     }
 
     public static Platform getPlatform() {
@@ -89,6 +89,7 @@ public class ApplicationSystem {
     }
 
     public static AssetManager newAssetManager() {
+        checkDelegate();
         return systemDelegate.newAssetManager();
     }
 
@@ -15,7 +15,7 @@ public abstract class ApplicationSystemDelegate {
     protected boolean lowPermissions = false;
     protected boolean initialized = false;
 
-    public abstract ApplicationContext newContext();
+    public abstract ApplicationContext newContext(ApplicationContext.Type contextType);
 
     public abstract void showErrorDialog(String message);
 
@@ -0,0 +1,210 @@
+package mini.system;
+
+import mini.input.Input;
+import mini.input.MouseInput;
+import mini.input.dummy.DummyInput;
+import mini.input.dummy.DummyMouseInput;
+import mini.renderer.Renderer;
+import mini.system.time.NanoTimer;
+import mini.system.time.Timer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Context of type {@link ApplicationContext.Type#Headless}. It has no window, no input devices and
+ * renders nothing, the {@link SystemListener} is updated from a thread of its own and the renderer
+ * is a {@link NullRenderer}. This allows the update loop, the controls, the animations, the
+ * application states and the collisions to run on machines without a display or a GPU, e.g. on a
+ * server or a build agent.
+ * <p>
+ * The tick rate is the {@link ApplicationSettings#getFrameRate() frame rate} of the settings. When
+ * it is positive the updates are scheduled at a fixed rate; when an update is late the schedule
+ * restarts from the end of that update rather than running a burst of updates to catch up. When it
+ * is not positive the updates run back to back, as fast as possible.
+ */
+public class NullContext implements ApplicationContext, Runnable {
+    private static final long MAX_SLEEP_NANOS = 100000000L;
+
+    private final Object createdLock = new Object();
+    private final AtomicBoolean created = new AtomicBoolean(false);
+    private final AtomicBoolean needClose = new AtomicBoolean(false);
+
+    private ApplicationSettings settings = new ApplicationSettings(true);
+    private SystemListener listener;
+    private Timer timer;
+    private NullRenderer renderer;
+    private MouseInput mouseInput;
+    private Input keyInput;
+    private Thread thread;
+
+    @Override
+    public ApplicationSettings getSettings() {
+        return settings;
+    }
+
+    @Override
+    public void setSettings(ApplicationSettings settings) {
+        this.settings.copyFrom(settings);
+    }
+
+    @Override
+    public void setSystemListener(SystemListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public boolean isRenderable() {
+        return false;
+    }
+
+    @Override
+    public boolean isCreated() {
+        return created.get();
+    }
+
+    @Override
+    public Timer getTimer() {
+        return timer;
+    }
+
+    @Override
+    public Renderer getRenderer() {
+        return renderer;
+    }
+
+    @Override
+    public MouseInput getMouseInput() {
+        if (mouseInput == null) {
+            mouseInput = new DummyMouseInput();
+        }
+        return mouseInput;
+    }
+
+    @Override
+    public Input getKeyInput() {
+        if (keyInput == null) {
+            keyInput = new DummyInput();
+        }
+        return keyInput;
+    }
+
+    @Override
+    public void create(boolean waitFor) {
+        if (created.get()) {
+            System.err.println("Warning: create() called when context is already created!");
+            return;
+        }
+        if (listener == null) {
+            throw new IllegalStateException("SystemListener is not set on context!"
+                                            + "Must set with ApplicationContext.setSystemListener().");
+        }
+
+        needClose.set(false);
+        thread = new Thread(this, "Headless");
+        thread.start();
+        if (waitFor) {
+            waitFor(true);
+        }
+    }
+
+    @Override
+    public void destroy(boolean waitFor) {
+        needClose.set(true);
+        if (waitFor && Thread.currentThread() != thread) {
+            waitFor(false);
+        }
+    }
+
+    private void waitFor(boolean createdVal) {
+        synchronized (createdLock) {
+            while (created.get() != createdVal && (createdVal || thread.isAlive())) {
+                try {
+                    createdLock.wait(100);
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (createdVal && !thread.isAlive()) {
+                    // Initialization failed
+                    return;
+                }
+            }
+        }
+    }
+
+    private void setCreated(boolean value) {
+        synchronized (createdLock) {
+            created.set(value);
+            createdLock.notifyAll();
+        }
+    }
+
+    private boolean initInThread() {
+        timer = new NanoTimer();
+        renderer = new NullRenderer();
+        setCreated(true);
+        try {
+            listener.initialize();
+        } catch (Throwable t) {
+            listener.handleError("Failed to initialize headless context", t);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void run() {
+        if (initInThread()) {
+            long nextTick = System.nanoTime();
+            while (!needClose.get()) {
+                try {
+                    listener.update();
+                    renderer.postFrame();
+                } catch (Throwable t) {
+                    listener.handleError("Uncaught exception in headless update", t);
+                    break;
+                }
+                nextTick = waitForNextTick(nextTick);
+            }
+        }
+
+        try {
+            listener.destroy();
+        } finally {
+            setCreated(false);
+        }
+    }
+
+    /**
+     * Sleeps until the next tick when the frame rate is limited.
+     *
+     * @param tick The time at which the current tick was scheduled
+     * @return the time at which the next tick is scheduled
+     */
+    private long waitForNextTick(long tick) {
+        int frameRate = settings.getFrameRate();
+        if (frameRate <= 0) {
+            return System.nanoTime();
+        }
+
+        long period = 1000000000L / frameRate;
+        long nextTick = tick + period;
+        long now = System.nanoTime();
+        if (nextTick < now) {
+            // Too late, restart the schedule from now rather than running a burst of updates
+            return now;
+        }
+
+        while (now < nextTick && !needClose.get()) {
+            long sleep = Math.min(nextTick - now, MAX_SLEEP_NANOS);
+            try {
+                Thread.sleep(sleep / 1000000L, (int) (sleep % 1000000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                needClose.set(true);
+            }
+            now = System.nanoTime();
+        }
+        return nextTick;
+    }
+}
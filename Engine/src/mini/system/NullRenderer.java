@@ -140,5 +140,32 @@ public class NullRenderer implements Renderer {
     @Override
     public void setDefaultAnisotropicFilter(int level) {
     }
-}
 
+    @Override
+    public int createProfilingTask() {
+        return -1;
+    }
+
+    @Override
+    public void startProfiling(int taskId) {
+    }
+
+    @Override
+    public void stopProfiling() {
+    }
+
+    @Override
+    public boolean isTaskResultAvailable(int taskId) {
+        return false;
+    }
+
+    @Override
+    public long getProfilingTime(int taskId) {
+        return 0;
+    }
+
+    @Override
+    public long getDrawCallCount() {
+        return 0;
+    }
+}
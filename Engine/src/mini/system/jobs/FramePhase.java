@@ -0,0 +1,33 @@
+package mini.system.jobs;
+
+/**
+ * The phases of a frame, in the order in which they complete. The jobs submitted to a phase with
+ * {@link JobSystem#submit(FramePhase, Runnable, Job...)} are done when the application passes the
+ * barrier at the end of that phase.
+ */
+public enum FramePhase {
+    /**
+     * Ends after the input manager dispatched the events of the frame.
+     */
+    INPUT,
+    /**
+     * Ends after the application states and the application were updated.
+     */
+    LOGIC,
+    /**
+     * Ends after the controls, and with them the animations, were updated.
+     */
+    ANIMATION,
+    /**
+     * Ends after the world transforms and the world bounds were updated.
+     */
+    TRANSFORMS,
+    /**
+     * Ends before the scenes are culled.
+     */
+    CULLING,
+    /**
+     * Ends before the scenes are rendered.
+     */
+    RENDER_PREP
+}
@@ -0,0 +1,44 @@
+package mini.system.jobs;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A task submitted to a {@link JobSystem}. A job starts once all the jobs it depends on are done,
+ * a job depending on a failed job fails without running.
+ */
+public final class Job {
+    private final CompletableFuture<Void> future;
+
+    Job(CompletableFuture<Void> future) {
+        this.future = future;
+    }
+
+    CompletableFuture<Void> getFuture() {
+        return future;
+    }
+
+    /**
+     * @return true if the job ran, failed or was skipped because a dependency failed
+     */
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /**
+     * @return true if the job or one of its dependencies threw an exception
+     */
+    public boolean isFailed() {
+        return future.isCompletedExceptionally();
+    }
+
+    /**
+     * Waits until the job is done. Jobs may wait for other jobs, the job system keeps enough
+     * threads running to make progress.
+     *
+     * @throws java.util.concurrent.CompletionException If the job or one of its dependencies
+     *                                                  failed
+     */
+    public void await() {
+        future.join();
+    }
+}
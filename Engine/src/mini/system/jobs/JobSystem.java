@@ -0,0 +1,271 @@
+package mini.system.jobs;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the jobs of the engine subsystems on a work-stealing pool sized to the cores of the
+ * machine.
+ * <p>
+ * A job is a task which may depend on other jobs, see {@link #submit(Runnable, Job...)}. A job
+ * can also be submitted to a {@link FramePhase}: the application waits at the end of every phase
+ * until the jobs of that phase and of the phases before it are done, see
+ * {@link #completePhase(FramePhase)}. For example an application state can start computing a path
+ * in {@link FramePhase#LOGIC} and use it once {@link FramePhase#TRANSFORMS} is complete. Loops
+ * over large arrays are split among the threads by {@link #parallelFor(int, int, int, RangeTask)}.
+ * <p>
+ * A serial job system runs every job on the thread submitting it, in the order in which they are
+ * submitted, which makes the frames deterministic when debugging. The default job system is serial
+ * when the system property <code>mini.jobs.serial</code> is true.
+ * <p>
+ * The {@link mini.utils.TempVars} are kept per thread, so jobs may use them as long as they
+ * release them before returning.
+ */
+public class JobSystem {
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final ForkJoinPool pool;
+    private final Map<FramePhase, List<Job>> phaseJobs = new EnumMap<>(FramePhase.class);
+    private final FramePhase[] phases = FramePhase.values();
+
+    /**
+     * Creates a job system with one thread per core, or a serial one if the system property
+     * <code>mini.jobs.serial</code> is true.
+     */
+    public JobSystem() {
+        this(Boolean.getBoolean("mini.jobs.serial") ? 0
+                                                    : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param threads The number of threads running the jobs, 0 to run every job on the thread
+     *                submitting it
+     */
+    public JobSystem(int threads) {
+        if (threads < 0) {
+            throw new IllegalArgumentException("Invalid thread count: " + threads);
+        }
+        if (threads == 0) {
+            pool = null;
+        } else {
+            int id = POOL_COUNT.incrementAndGet();
+            pool = new ForkJoinPool(threads, p -> {
+                ForkJoinWorkerThread thread = new ForkJoinWorkerThread(p) {
+                };
+                thread.setName("Jobs-" + id + "-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+        }
+        for (FramePhase phase : phases) {
+            phaseJobs.put(phase, new ArrayList<>());
+        }
+    }
+
+    /**
+     * @return true if the jobs run on the thread submitting them
+     */
+    public boolean isSerial() {
+        return pool == null;
+    }
+
+    /**
+     * @return the number of threads running the jobs, 0 for a serial job system
+     */
+    public int getThreadCount() {
+        return pool == null ? 0 : pool.getParallelism();
+    }
+
+    /**
+     * @return the pool running the jobs, e.g. for {@link mini.scene.Node#setUpdatePool}, or null
+     * for a serial job system
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Submits a job which starts once all its dependencies are done.
+     *
+     * @param task         The task of the job
+     * @param dependencies The jobs which must be done before the task runs
+     * @return the job
+     */
+    public Job submit(Runnable task, Job... dependencies) {
+        if (pool == null) {
+            // The dependencies were submitted before, so they already ran
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            for (Job dependency : dependencies) {
+                if (dependency.isFailed()) {
+                    dependency.getFuture().whenComplete((v, t) -> future.completeExceptionally(t));
+                    return new Job(future);
+                }
+            }
+            try {
+                task.run();
+                future.complete(null);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+            return new Job(future);
+        }
+
+        if (dependencies.length == 0) {
+            return new Job(CompletableFuture.runAsync(task, pool));
+        }
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[dependencies.length];
+        for (int i = 0; i < dependencies.length; i++) {
+            futures[i] = dependencies[i].getFuture();
+        }
+        return new Job(CompletableFuture.allOf(futures).thenRunAsync(task, pool));
+    }
+
+    /**
+     * Submits a job which must be done by the end of a phase of the frame.
+     *
+     * @param phase        The phase at the end of which the job is done
+     * @param task         The task of the job
+     * @param dependencies The jobs which must be done before the task runs
+     * @return the job
+     */
+    public Job submit(FramePhase phase, Runnable task, Job... dependencies) {
+        Job job = submit(task, dependencies);
+        List<Job> jobs = phaseJobs.get(phase);
+        synchronized (jobs) {
+            jobs.add(job);
+        }
+        return job;
+    }
+
+    /**
+     * Waits until the jobs submitted to a phase, and to the phases before it, are done. This is
+     * called by the application at the end of every phase. A job submitted to a phase after it
+     * completed is done by the end of that phase in the next frame.
+     *
+     * @param phase The phase which ends
+     * @throws java.util.concurrent.CompletionException If one of the jobs failed, after all the
+     *                                                  jobs are done
+     */
+    public void completePhase(FramePhase phase) {
+        RuntimeException failure = null;
+        for (int i = 0; i <= phase.ordinal(); i++) {
+            List<Job> jobs = phaseJobs.get(phases[i]);
+            while (true) {
+                Job job;
+                synchronized (jobs) {
+                    if (jobs.isEmpty()) {
+                        break;
+                    }
+                    // Jobs may submit more jobs to the phase while it completes
+                    job = jobs.remove(jobs.size() - 1);
+                }
+                try {
+                    job.await();
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Waits until the jobs of all the phases are done.
+     */
+    public void completeAll() {
+        completePhase(phases[phases.length - 1]);
+    }
+
+    /**
+     * Calls a task over a range of indices split into chunks, the chunks run in parallel and the
+     * method returns once they are all done. A chunk holds at least <code>grain</code> indices, so
+     * that small ranges run on the calling thread.
+     *
+     * @param from  The first index, inclusive
+     * @param to    The last index, exclusive
+     * @param grain The smallest number of indices worth running on another thread
+     * @param task  The task called for every chunk
+     */
+    public void parallelFor(int from, int to, int grain, RangeTask task) {
+        if (grain < 1) {
+            throw new IllegalArgumentException("Invalid grain: " + grain);
+        }
+        if (pool == null || to - from < 2 * grain) {
+            if (from < to) {
+                task.run(from, to);
+            }
+            return;
+        }
+
+        RangeAction action = new RangeAction(from, to, grain, task);
+        if (ForkJoinTask.getPool() == pool) {
+            action.invoke();
+        } else {
+            pool.invoke(action);
+        }
+    }
+
+    /**
+     * Waits for the jobs of all the phases and stops the threads. The job system cannot be used
+     * afterwards.
+     */
+    public void shutdown() {
+        try {
+            completeAll();
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * A task run over a range of indices by {@link #parallelFor(int, int, int, RangeTask)}.
+     */
+    @FunctionalInterface
+    public interface RangeTask {
+        /**
+         * @param from The first index of the chunk, inclusive
+         * @param to   The last index of the chunk, exclusive
+         */
+        void run(int from, int to);
+    }
+
+    private static final class RangeAction extends RecursiveAction {
+        static final long serialVersionUID = 1;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final RangeTask task;
+
+        RangeAction(int from, int to, int grain, RangeTask task) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.task = task;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from < 2 * grain) {
+                task.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeAction(from, middle, grain, task),
+                      new RangeAction(middle, to, grain, task));
+        }
+    }
+}
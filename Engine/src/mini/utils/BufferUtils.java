@@ -1121,6 +1121,31 @@ public final class BufferUtils {
         return buffer;
     }
 
+    /**
+     * @return the size in bytes of the direct buffers allocated by this class which have not been
+     * collected yet, or -1 if direct memory tracking is disabled
+     * @see #setTrackDirectMemoryEnabled(boolean)
+     */
+    public static long getTrackedDirectMemory() {
+        if (!trackDirectMemory) {
+            return -1;
+        }
+        long totalHeld = 0;
+        for (BufferInfo b : BufferUtils.trackedBuffers.values()) {
+            totalHeld += b.size;
+        }
+        return totalHeld;
+    }
+
+    /**
+     * @return the number of direct buffers allocated by this class which have not been collected
+     * yet, or -1 if direct memory tracking is disabled
+     * @see #setTrackDirectMemoryEnabled(boolean)
+     */
+    public static int getTrackedBufferCount() {
+        return trackDirectMemory ? BufferUtils.trackedBuffers.size() : -1;
+    }
+
     public static void printCurrentDirectMemory(StringBuilder store) {
         long totalHeld = 0;
         long heapMem = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
@@ -1,5 +1,7 @@
 package mini.utils;
 
+import mini.profile.NativeObjectSweepEvent;
+
 import java.lang.ref.PhantomReference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
@@ -123,6 +125,8 @@ public class NativeObjectManager {
      *                       For graphics objects, {@link Renderer} is used, for audio, {#link AudioRenderer} is used.
      */
     public void deleteUnused(Object rendererObject) {
+        NativeObjectSweepEvent event = new NativeObjectSweepEvent();
+        event.begin();
         int removed = 0;
         while (removed < MAX_REMOVES_PER_FRAME && !userDeletionQueue.isEmpty()) {
             // Remove user requested objects.
@@ -143,6 +147,12 @@ public class NativeObjectManager {
         if (removed >= 1) {
             logger.log(Level.FINE,
                        "NativeObjectManager: {0} native objects were removed from native", removed);
+            event.end();
+            if (event.shouldCommit()) {
+                event.deleted = removed;
+                event.remaining = refMap.size();
+                event.commit();
+            }
         }
     }
 
@@ -2,12 +2,13 @@ package mini.utils;
 
 import mini.bounding.BoundingBox;
 import mini.collision.CollisionResults;
-import mini.collision.bih.BIHNode;
+import mini.collision.bih.BIHTree;
 import mini.math.ColorRGBA;
 import mini.math.Matrix3f;
 import mini.math.Matrix4f;
 import mini.math.Plane;
 import mini.math.Quaternion;
+import mini.math.Ray;
 import mini.math.Vector2f;
 import mini.math.Vector3f;
 import mini.math.Vector4f;
@@ -16,8 +17,6 @@ import mini.scene.Spatial;
 import java.io.Closeable;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Temporary variables assigned to each thread. Engine classes may access
@@ -205,5 +204,8 @@ public class TempVars implements Closeable {
      */
     public final CollisionResults collisionResults = new CollisionResults();
     public final float[] bihSwapTmp = new float[9];
-    public final List<BIHNode.BIHStackData> bihStack = new ArrayList<>();
+    public final int[] bihNodeStack = new int[BIHTree.MAX_STACK_SIZE];
+    public final float[] bihRangeStack = new float[BIHTree.MAX_STACK_SIZE * 2];
+    public final Ray bihRay = new Ray();
+    public final float[] bihQueryBox = new float[6];
 }
\ No newline at end of file
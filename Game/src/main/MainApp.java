@@ -1,7 +1,8 @@
 package main;
 
 import mini.app.SimpleApplication;
-import mini.bounding.BoundingVolume;
+import mini.collision.Broadphase;
+import mini.collision.BroadphaseListener;
 import mini.font.BitmapFont;
 import mini.font.BitmapText;
 import mini.input.KeyboardKey;
@@ -21,7 +22,7 @@ import mini.scene.shape.Dome;
 import java.util.ArrayList;
 import java.util.List;
 
-public class MainApp extends SimpleApplication implements AnalogListener {
+public class MainApp extends SimpleApplication implements AnalogListener, BroadphaseListener {
     private BitmapText pressStart, fpsScoreText;
     private float score;
     private Geometry firstCube;
@@ -29,6 +30,8 @@ public class MainApp extends SimpleApplication implements AnalogListener {
     private Material playerMaterial;
     private Material floorMaterial;
     private List<Geometry> cubeField = new ArrayList<>();
+    private Broadphase broadphase = new Broadphase();
+    private boolean playerHit;
     private List<ColorRGBA> obstacleColors = new ArrayList<>();
     private int difficulty = 20;
 
@@ -60,6 +63,8 @@ public class MainApp extends SimpleApplication implements AnalogListener {
 
         player = createPlayer();
         rootNode.attachChild(player);
+        broadphase.add(player.getChild(0));
+        broadphase.addListener(this);
 
         gameReset();
     }
@@ -209,29 +214,36 @@ public class MainApp extends SimpleApplication implements AnalogListener {
 
         player.move(playerSpeed * tpf * fpsRate, 0, 0);
         if (cubeField.size() > difficulty) {
-            cubeField.remove(0);
+            broadphase.remove(cubeField.remove(0));
         } else if (cubeField.size() != difficulty) {
             placeRandomizedCubes();
         }
 
         for (int i = 0; i < cubeField.size(); i++) {
-            Spatial playerMesh = player.getChild(0);
             Geometry cube = cubeField.get(i);
-            cube.updateGeometricState();
-
-            BoundingVolume playerVolume = playerMesh.getWorldBound();
-            BoundingVolume cubeVolume = cube.getWorldBound();
-
-            if (playerVolume.intersects(cubeVolume)) {
-                gameLost();
-                return;
-            }
-
             if (cube.getLocalTranslation().getX() + 10 < player.getLocalTranslation().getX()) {
                 cube.removeFromParent();
-                cubeField.remove(cube);
+                cubeField.remove(i--);
+                broadphase.remove(cube);
             }
         }
+
+        rootNode.updateGeometricState();
+        broadphase.update();
+        if (playerHit) {
+            gameLost();
+        }
+    }
+
+    @Override
+    public void overlapBegin(Spatial first, Spatial second) {
+        if (first == player.getChild(0) || second == player.getChild(0)) {
+            playerHit = true;
+        }
+    }
+
+    @Override
+    public void overlapEnd(Spatial first, Spatial second) {
     }
 
     private void gameLost() {
@@ -244,8 +256,10 @@ public class MainApp extends SimpleApplication implements AnalogListener {
 
         for (Geometry cube : cubeField) {
             cube.removeFromParent();
+            broadphase.remove(cube);
         }
         cubeField.clear();
+        playerHit = false;
 
         if (firstCube != null) {
             firstCube.removeFromParent();
@@ -284,6 +298,7 @@ public class MainApp extends SimpleApplication implements AnalogListener {
 
         rootNode.attachChild(cube);
         cubeField.add(cube);
+        broadphase.add(cube);
         // store these to clean them up and test collisions
     }
 
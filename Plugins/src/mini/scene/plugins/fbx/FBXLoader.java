@@ -9,6 +9,7 @@ import mini.asset.AssetInfo;
 import mini.asset.AssetKey;
 import mini.asset.AssetLoader;
 import mini.asset.AssetManager;
+import mini.asset.ModelKey;
 import mini.math.Matrix4f;
 import mini.scene.Node;
 import mini.scene.Spatial;
@@ -121,6 +122,10 @@ public class FBXLoader implements AssetLoader {
                 BoneTrack boneTrack = pair
                         .toBoneTrack(preset.getJointName(bone), skeleton.getBoneIndex(bone),
                                      bone.getBindInverseTransform());
+                if (key instanceof ModelKey
+                    && ((ModelKey) key).getAnimationCompressor() != null) {
+                    boneTrack = ((ModelKey) key).getAnimationCompressor().compress(boneTrack);
+                }
 
                 animation.addTrack(boneTrack);
             } else {